@@ -0,0 +1,80 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.benchmarks;
+
+import org.springframework.context.MessageSource;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.ComponentScans;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.core.env.Environment;
+
+/**
+ * Spring context holding the import, export and PDF beans of the ESPD web application, configured by its
+ * {@code application.properties}, without the web layer.
+ * <p>
+ * It is created once per benchmark JVM, on first use.
+ * </p>
+ */
+@Configuration
+@PropertySource("classpath:application.properties")
+@ComponentScans({
+		@ComponentScan({ "eu.europa.ec.grow.espd.xml", "eu.europa.ec.grow.espd.util",
+				"eu.europa.ec.grow.espd.tenderned", "eu.europa.ec.grow.espd.metrics" }),
+		@ComponentScan(basePackages = "eu.europa.ec.grow.espd.config", useDefaultFilters = false,
+				includeFilters = @ComponentScan.Filter(type = FilterType.REGEX,
+						pattern = ".*\\.(JaxbConfiguration|ApacheFopConfig)")) })
+class BenchmarkContext {
+
+	private static AnnotationConfigApplicationContext context;
+
+	static synchronized <T> T getBean(Class<T> type) {
+		if (context == null) {
+			// every invocation must render its PDF instead of getting the one of the previous invocation
+			System.setProperty("espd.pdf.cache.max.bytes", "0");
+			context = new AnnotationConfigApplicationContext(BenchmarkContext.class);
+			context.registerShutdownHook();
+		}
+		return context.getBean(type);
+	}
+
+	@Bean
+	static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+		return new PropertySourcesPlaceholderConfigurer();
+	}
+
+	@Bean
+	MessageSource messageSource(Environment environment) {
+		ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+		messageSource.setBasename(environment.getProperty("spring.messages.basename"));
+		messageSource.setDefaultEncoding("UTF-8");
+		return messageSource;
+	}
+}
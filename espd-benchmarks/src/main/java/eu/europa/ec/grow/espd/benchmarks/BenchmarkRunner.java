@@ -0,0 +1,54 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Main class of the benchmarks jar. It accepts the usual JMH command line options and always adds the GC profiler,
+ * so that the allocation rate is reported next to the throughput of every benchmark.
+ * <p>
+ * Run all the benchmarks with {@code java -jar target/benchmarks.jar} or a subset of them with a regular expression,
+ * e.g. {@code java -jar target/benchmarks.jar XmlImport -p size=WORST_CASE}.
+ * </p>
+ */
+public final class BenchmarkRunner {
+
+	private BenchmarkRunner() {
+
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.benchmarks;
+
+import eu.europa.ec.grow.espd.domain.infrastructure.CriterionDefinitions;
+import eu.europa.ec.grow.espd.domain.ubl.CcvCriterion;
+import eu.europa.ec.grow.espd.domain.ubl.CcvCriterionRequirement;
+import eu.europa.ec.grow.espd.domain.ubl.CcvRequirementGroup;
+import eu.europa.ec.grow.espd.xml.common.exporting.UblCriterionTypeTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.commons.collections.CollectionUtils.isEmpty;
+
+/**
+ * Walk of all the criterion definitions with the getter calls the {@link UblCriterionTypeTemplate} makes for every
+ * criterion of an export, so one operation stands for the definitions part of exporting a request with all the
+ * criteria. The immutable definitions of {@link CriterionDefinitions} are compared to the {@link JsonNodeCriteria}
+ * baseline, which rebuilds the definition objects on every getter call like the former deserializer. The
+ * {@code gc.alloc.rate.norm} column of the GC profiler gives the bytes allocated per export by each of them:
+ * {@code java -jar target/benchmarks.jar CriterionDefinitions}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Benchmark)
+public class CriterionDefinitionsBenchmark {
+
+	private static final String[] CRITERIA_FILES = { "exclusionCriteria.json", "selectionCriteria.json",
+			"otherCriteria.json" };
+
+	private List<CcvCriterion> jsonNodeCriteria;
+	private List<CcvCriterion> immutableCriteria;
+
+	@Setup
+	public void setUp() {
+		jsonNodeCriteria = new ArrayList<>();
+		for (String file : CRITERIA_FILES) {
+			jsonNodeCriteria.addAll(JsonNodeCriteria.read(file));
+		}
+		// the same criteria, in the same order, as the ones of the baseline
+		immutableCriteria = new ArrayList<>(jsonNodeCriteria.size());
+		for (CcvCriterion criterion : jsonNodeCriteria) {
+			immutableCriteria.add(CriterionDefinitions.findCriterionById(criterion.getUuid()).get());
+		}
+	}
+
+	@Benchmark
+	public void jsonNodeDefinitions(Blackhole blackhole) {
+		walk(jsonNodeCriteria, blackhole);
+	}
+
+	@Benchmark
+	public void immutableDefinitions(Blackhole blackhole) {
+		walk(immutableCriteria, blackhole);
+	}
+
+	private static void walk(List<CcvCriterion> criteria, Blackhole blackhole) {
+		for (CcvCriterion criterion : criteria) {
+			blackhole.consume(criterion.getUuid());
+			blackhole.consume(criterion.getCriterionType().getCode());
+			blackhole.consume(criterion.getName());
+			blackhole.consume(criterion.getDescription());
+			if (criterion.getLegislation() != null) {
+				blackhole.consume(criterion.getLegislation().getTitle());
+				blackhole.consume(criterion.getLegislation().getDescription());
+				blackhole.consume(criterion.getLegislation().getArticle());
+				blackhole.consume(criterion.getLegislation().getUrl());
+			}
+			if (isEmpty(criterion.getGroups())) {
+				continue;
+			}
+			blackhole.consume(criterion.getGroups().size());
+			for (CcvRequirementGroup group : criterion.getGroups()) {
+				blackhole.consume(group.isUnbounded());
+				walk(group, blackhole);
+			}
+		}
+	}
+
+	private static void walk(CcvRequirementGroup group, Blackhole blackhole) {
+		blackhole.consume(group.getId());
+		if (group.fulfillmentIndicator() != null) {
+			blackhole.consume(group.fulfillmentIndicator());
+		}
+		if (!isEmpty(group.getRequirements())) {
+			blackhole.consume(group.getRequirements().size());
+			for (CcvCriterionRequirement requirement : group.getRequirements()) {
+				blackhole.consume(requirement.getId());
+				blackhole.consume(requirement.getDescription());
+				blackhole.consume(requirement.getResponseType());
+				blackhole.consume(requirement.getEspdCriterionFields());
+			}
+		}
+		if (!isEmpty(group.getSubgroups())) {
+			for (CcvRequirementGroup subgroup : group.getSubgroups()) {
+				walk(subgroup, blackhole);
+			}
+		}
+	}
+}
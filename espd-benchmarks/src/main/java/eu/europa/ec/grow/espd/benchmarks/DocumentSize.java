@@ -0,0 +1,75 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.benchmarks;
+
+/**
+ * The documents the benchmarks are run against, taken from the ESPD samples of the espd-web tests.
+ */
+public enum DocumentSize {
+
+	/**
+	 * The minimal request and response, with few criteria and no answers.
+	 */
+	SMALL("request/request_other_information_minimal_import.xml",
+			"response/response_other_information_minimal_import.xml", 0),
+
+	/**
+	 * A request and a response as filled in by a contracting authority and an economic operator.
+	 */
+	TYPICAL("response/merging/request_to_merge.xml", "response/merging/response_to_merge.xml", 0),
+
+	/**
+	 * The largest samples: a request with all the selection criteria and a response answering every criterion.
+	 * The exported documents also get many copies of their unbounded requirement groups.
+	 */
+	WORST_CASE("request/all_selection_criteria_selected.xml", "response/v20161101/espd-response-20161101-full.xml",
+			50);
+
+	private final String requestSample;
+	private final String responseSample;
+	private final int unboundedGroups;
+
+	DocumentSize(String requestSample, String responseSample, int unboundedGroups) {
+		this.requestSample = requestSample;
+		this.responseSample = responseSample;
+		this.unboundedGroups = unboundedGroups;
+	}
+
+	public String getRequestSample() {
+		return requestSample;
+	}
+
+	public String getResponseSample() {
+		return responseSample;
+	}
+
+	/**
+	 * @return The number of unbounded requirement groups given to the criteria which have them, or 0 to keep the
+	 * groups of the sample
+	 */
+	public int getUnboundedGroups() {
+		return unboundedGroups;
+	}
+}
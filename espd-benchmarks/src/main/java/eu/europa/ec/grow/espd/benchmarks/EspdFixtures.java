@@ -0,0 +1,149 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.benchmarks;
+
+import com.google.common.io.Resources;
+import eu.europa.ec.grow.espd.domain.DynamicRequirementGroup;
+import eu.europa.ec.grow.espd.domain.EspdCriterion;
+import eu.europa.ec.grow.espd.domain.EspdDocument;
+import eu.europa.ec.grow.espd.domain.enums.criteria.ExclusionCriterion;
+import eu.europa.ec.grow.espd.domain.enums.criteria.OtherCriterion;
+import eu.europa.ec.grow.espd.domain.enums.criteria.SelectionCriterion;
+import eu.europa.ec.grow.espd.domain.intf.UnboundedRequirementGroup;
+import eu.europa.ec.grow.espd.domain.ubl.CcvCriterion;
+import eu.europa.ec.grow.espd.xml.EspdXmlImporter;
+import org.apache.commons.lang3.StringEscapeUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Loads the sample documents and builds the inputs of the benchmarks out of them.
+ */
+final class EspdFixtures {
+
+	private EspdFixtures() {
+
+	}
+
+	static byte[] readSample(String sample) {
+		try {
+			return Resources.toByteArray(Resources.getResource("samples/" + sample));
+		} catch (IOException e) {
+			throw new IllegalStateException(String.format("Could not read the sample '%s'.", sample), e);
+		}
+	}
+
+	/**
+	 * @return The request sample of the given size imported into an ESPD document
+	 */
+	static EspdDocument importRequest(DocumentSize size) {
+		EspdXmlImporter importer = BenchmarkContext.getBean(EspdXmlImporter.class);
+		EspdDocument espdDocument = importer
+				.importEspdRequest(new ByteArrayInputStream(readSample(size.getRequestSample()))).get();
+		addUnboundedGroups(espdDocument, size.getUnboundedGroups());
+		return espdDocument;
+	}
+
+	/**
+	 * @return The response sample of the given size imported into an ESPD document
+	 */
+	static EspdDocument importResponse(DocumentSize size) {
+		EspdXmlImporter importer = BenchmarkContext.getBean(EspdXmlImporter.class);
+		EspdDocument espdDocument = importer
+				.importEspdResponse(new ByteArrayInputStream(readSample(size.getResponseSample()))).get();
+		addUnboundedGroups(espdDocument, size.getUnboundedGroups());
+		return espdDocument;
+	}
+
+	private static void addUnboundedGroups(EspdDocument espdDocument, int count) {
+		if (count == 0) {
+			return;
+		}
+		for (CcvCriterion ccvCriterion : allCriteria()) {
+			EspdCriterion espdCriterion = espdDocument.readCriterionFromEspd(ccvCriterion);
+			if (!(espdCriterion instanceof UnboundedRequirementGroup)) {
+				continue;
+			}
+			List<DynamicRequirementGroup> groups = ((UnboundedRequirementGroup) espdCriterion).getUnboundedGroups();
+			DynamicRequirementGroup template = groups.isEmpty() ? new DynamicRequirementGroup() : groups.get(0);
+			while (groups.size() < count) {
+				DynamicRequirementGroup copy = new DynamicRequirementGroup();
+				copy.putAll(template);
+				groups.add(copy);
+			}
+		}
+	}
+
+	private static List<CcvCriterion> allCriteria() {
+		List<CcvCriterion> criteria = new ArrayList<>();
+		criteria.addAll(Arrays.asList(ExclusionCriterion.values()));
+		criteria.addAll(Arrays.asList(SelectionCriterion.values()));
+		criteria.addAll(Arrays.asList(OtherCriterion.values()));
+		return criteria;
+	}
+
+	/**
+	 * Build an XHTML document shaped like the printable view of an ESPD (one panel per criterion, with its
+	 * description and a text field), since the JSP of the printable view cannot be rendered outside of a servlet
+	 * container.
+	 */
+	static String printableHtml(EspdDocument espdDocument) {
+		StringBuilder html = new StringBuilder(64 * 1024);
+		html.append("<html><head><title>ESPD</title></head><body>");
+		for (CcvCriterion ccvCriterion : allCriteria()) {
+			EspdCriterion espdCriterion = espdDocument.readCriterionFromEspd(ccvCriterion);
+			if (espdCriterion == null) {
+				continue;
+			}
+			int groups = 1;
+			if (espdCriterion instanceof UnboundedRequirementGroup) {
+				groups = Math.max(1, ((UnboundedRequirementGroup) espdCriterion).getUnboundedGroups().size());
+			}
+			html.append("<div class=\"panel panel-default\"><div class=\"panel-heading\"><h4 class=\"panel-title\">")
+					.append(escape(ccvCriterion.getName()))
+					.append("</h4></div><div class=\"panel-body\"><p>")
+					.append(escape(ccvCriterion.getDescription()))
+					.append("</p>");
+			for (int i = 0; i < groups; i++) {
+				html.append("<div class=\"form-group\"><label>")
+						.append(escape(ccvCriterion.getName()))
+						.append("</label><input type=\"text\" value=\"")
+						.append(i)
+						.append("\"/></div>");
+			}
+			html.append("</div></div>");
+		}
+		html.append("</body></html>");
+		return html.toString();
+	}
+
+	private static String escape(String text) {
+		return StringEscapeUtils.escapeXml10(text);
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.benchmarks;
+
+import eu.europa.ec.grow.espd.xml.common.JaxbMarshallerPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the JAXB calls made through the {@link Jaxb2Marshaller}, which creates a new marshaller or unmarshaller
+ * on every call, compared to the {@link JaxbMarshallerPool}. The {@code *Unmarshaller} benchmarks only measure the
+ * setup of an unmarshaller and do not depend on the document size.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Benchmark)
+public class JaxbMarshallingBenchmark {
+
+	@Param
+	public DocumentSize size;
+
+	private Jaxb2Marshaller jaxb2Marshaller;
+	private JaxbMarshallerPool marshallerPool;
+	private byte[] response;
+	private Object responseElement;
+	private ByteArrayOutputStream out;
+
+	@Setup
+	public void setUp() {
+		jaxb2Marshaller = BenchmarkContext.getBean(Jaxb2Marshaller.class);
+		marshallerPool = BenchmarkContext.getBean(JaxbMarshallerPool.class);
+		response = EspdFixtures.readSample(size.getResponseSample());
+		responseElement = marshallerPool.unmarshal(new ByteArrayInputStream(response));
+		out = new ByteArrayOutputStream(512 * 1024);
+	}
+
+	@Benchmark
+	public Unmarshaller newUnmarshaller() throws JAXBException {
+		return jaxb2Marshaller.getJaxbContext().createUnmarshaller();
+	}
+
+	@Benchmark
+	public Unmarshaller pooledUnmarshaller() {
+		Unmarshaller unmarshaller = marshallerPool.borrowUnmarshaller();
+		marshallerPool.returnUnmarshaller(unmarshaller);
+		return unmarshaller;
+	}
+
+	@Benchmark
+	public Object unmarshalWithJaxb2Marshaller() {
+		return jaxb2Marshaller.unmarshal(new StreamSource(new ByteArrayInputStream(response)));
+	}
+
+	@Benchmark
+	public Object unmarshalWithPool() {
+		return marshallerPool.unmarshal(new ByteArrayInputStream(response));
+	}
+
+	@Benchmark
+	public int marshalWithJaxb2Marshaller() {
+		out.reset();
+		jaxb2Marshaller.marshal(responseElement, new StreamResult(out));
+		return out.size();
+	}
+
+	@Benchmark
+	public int marshalWithPool() {
+		out.reset();
+		marshallerPool.marshal(responseElement, new StreamResult(out));
+		return out.size();
+	}
+}
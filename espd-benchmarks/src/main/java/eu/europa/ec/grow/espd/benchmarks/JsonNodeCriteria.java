@@ -0,0 +1,242 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.europa.ec.grow.espd.domain.enums.criteria.ExpectedResponseType;
+import eu.europa.ec.grow.espd.domain.ubl.CcvCriterion;
+import eu.europa.ec.grow.espd.domain.ubl.CcvCriterionRequirement;
+import eu.europa.ec.grow.espd.domain.ubl.CcvCriterionType;
+import eu.europa.ec.grow.espd.domain.ubl.CcvLegislation;
+import eu.europa.ec.grow.espd.domain.ubl.CcvRequirementGroup;
+import eu.europa.ec.grow.espd.domain.ubl.CcvResponseType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Criterion definitions as they were read before they became immutable objects: every getter goes back to the JSON
+ * node of the definition and builds its lists, groups and requirements again. Only used as the baseline of the
+ * {@link CriterionDefinitionsBenchmark}.
+ */
+@SuppressWarnings("serial")
+final class JsonNodeCriteria {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private JsonNodeCriteria() {
+
+	}
+
+	static List<CcvCriterion> read(String fileName) {
+		try (InputStream is = JsonNodeCriteria.class.getResourceAsStream("/criteria/" + fileName)) {
+			JsonNode criteriaNode = MAPPER.readTree(is).get("criteria");
+			List<CcvCriterion> criteria = new ArrayList<>(criteriaNode.size());
+			for (JsonNode node : criteriaNode) {
+				criteria.add(criterion(node));
+			}
+			return criteria;
+		} catch (IOException e) {
+			throw new IllegalStateException(String.format("Could not read the criteria '%s'.", fileName), e);
+		}
+	}
+
+	private static CcvCriterion criterion(final JsonNode node) {
+		return new CcvCriterion() {
+			@Override
+			public String getUuid() {
+				return text("uuid", node);
+			}
+
+			@Override
+			public String getTypeCode() {
+				return null;
+			}
+
+			@Override
+			public String getName() {
+				return text("name", node);
+			}
+
+			@Override
+			public String getDescription() {
+				return text("description", node);
+			}
+
+			@Override
+			public CcvLegislation getLegislation() {
+				return legislation(node.get("legislationReference"));
+			}
+
+			@Override
+			public List<? extends CcvRequirementGroup> getGroups() {
+				return groups(node.get("groups"));
+			}
+
+			@Override
+			public CcvCriterionType getCriterionType() {
+				return criterionType(node.get("criterionType"));
+			}
+
+			@Override
+			public String getEspdDocumentField() {
+				return text("espdDocumentField", node);
+			}
+		};
+	}
+
+	private static CcvCriterionType criterionType(final JsonNode node) {
+		if (hasNoValues(node)) {
+			return null;
+		}
+		return new CcvCriterionType() {
+			@Override
+			public String getEspdType() {
+				return text("espdType", node);
+			}
+
+			@Override
+			public String getCode() {
+				return text("code", node);
+			}
+		};
+	}
+
+	private static CcvLegislation legislation(final JsonNode node) {
+		if (hasNoValues(node)) {
+			return null;
+		}
+		return new CcvLegislation() {
+			@Override
+			public String getTitle() {
+				return text("title", node);
+			}
+
+			@Override
+			public String getDescription() {
+				return text("description", node);
+			}
+
+			@Override
+			public String getUrl() {
+				return text("url", node);
+			}
+
+			@Override
+			public String getArticle() {
+				return text("article", node);
+			}
+		};
+	}
+
+	private static List<CcvRequirementGroup> groups(JsonNode groupNodes) {
+		if (hasNoValues(groupNodes)) {
+			return Collections.emptyList();
+		}
+		List<CcvRequirementGroup> groups = new ArrayList<>(groupNodes.size());
+		for (JsonNode node : groupNodes) {
+			groups.add(group(node));
+		}
+		return groups;
+	}
+
+	private static CcvRequirementGroup group(final JsonNode node) {
+		return new CcvRequirementGroup() {
+			@Override
+			public String getId() {
+				return text("id", node);
+			}
+
+			@Override
+			public Boolean fulfillmentIndicator() {
+				return node.get("fulfillmentIndicator") == null ? null : node.get("fulfillmentIndicator").asBoolean();
+			}
+
+			@Override
+			public List<? extends CcvCriterionRequirement> getRequirements() {
+				JsonNode requirementNodes = node.get("requirements");
+				if (hasNoValues(requirementNodes)) {
+					return Collections.emptyList();
+				}
+				List<CcvCriterionRequirement> requirements = new ArrayList<>(requirementNodes.size());
+				for (JsonNode requirementNode : requirementNodes) {
+					requirements.add(requirement(requirementNode));
+				}
+				return requirements;
+			}
+
+			@Override
+			public List<? extends CcvRequirementGroup> getSubgroups() {
+				return groups(node.get("subgroups"));
+			}
+
+			@Override
+			public boolean isUnbounded() {
+				return node.get("unbounded") != null && node.get("unbounded").asBoolean();
+			}
+		};
+	}
+
+	private static CcvCriterionRequirement requirement(final JsonNode node) {
+		return new CcvCriterionRequirement() {
+			@Override
+			public String getId() {
+				return text("id", node);
+			}
+
+			@Override
+			public String getDescription() {
+				return text("description", node);
+			}
+
+			@Override
+			public CcvResponseType getResponseType() {
+				return ExpectedResponseType.valueOf(text("responseType", node));
+			}
+
+			@Override
+			public List<String> getEspdCriterionFields() {
+				JsonNode fieldNodes = node.get("espdCriterionFields");
+				List<String> fields = new ArrayList<>(fieldNodes.size());
+				for (JsonNode fieldNode : fieldNodes) {
+					fields.add(fieldNode.textValue());
+				}
+				return fields;
+			}
+		};
+	}
+
+	private static String text(String name, JsonNode node) {
+		return node.get(name).textValue();
+	}
+
+	private static boolean hasNoValues(JsonNode node) {
+		return node == null || node.size() <= 0;
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.benchmarks;
+
+import eu.europa.ec.grow.espd.tenderned.HtmlToPdfTransformer;
+import eu.europa.ec.grow.espd.tenderned.exception.PdfRenderingException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transformation of the printable view of an ESPD into a PDF by the {@link HtmlToPdfTransformer}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Benchmark)
+public class PdfBenchmark {
+
+	@Param
+	public DocumentSize size;
+
+	@Param({ "ca", "eo" })
+	public String agent;
+
+	private HtmlToPdfTransformer transformer;
+	private String html;
+	private ByteArrayOutputStream out;
+
+	@Setup
+	public void setUp() {
+		transformer = BenchmarkContext.getBean(HtmlToPdfTransformer.class);
+		html = EspdFixtures.printableHtml(
+				"ca".equals(agent) ? EspdFixtures.importRequest(size) : EspdFixtures.importResponse(size));
+		out = new ByteArrayOutputStream(512 * 1024);
+	}
+
+	@Benchmark
+	public int convertToPdf() throws PdfRenderingException {
+		out.reset();
+		transformer.convertToPDF(html, agent, out);
+		return out.size();
+	}
+}
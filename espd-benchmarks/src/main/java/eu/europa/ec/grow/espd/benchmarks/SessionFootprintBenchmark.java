@@ -0,0 +1,109 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.benchmarks;
+
+import eu.europa.ec.grow.espd.domain.EspdDocument;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of an ESPD Response kept in the HTTP session, as done when the session is persisted or replicated. The
+ * size of the serialized ESPD Response is reported as the {@code serializedBytes} secondary result of
+ * {@link #serializeResponse}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Benchmark)
+public class SessionFootprintBenchmark {
+
+	@Param
+	public DocumentSize size;
+
+	private EspdDocument responseDocument;
+	private byte[] serializedResponse;
+	private ByteArrayOutputStream out;
+
+	@Setup
+	public void setUp() throws IOException {
+		responseDocument = EspdFixtures.importResponse(size);
+		out = new ByteArrayOutputStream(64 * 1024);
+		serializedResponse = serialize(responseDocument, out);
+	}
+
+	@Benchmark
+	public byte[] serializeResponse(SerializedSize serializedSize) throws IOException {
+		byte[] serialized = serialize(responseDocument, out);
+		serializedSize.serializedBytes = serialized.length;
+		return serialized;
+	}
+
+	@Benchmark
+	public Object deserializeResponse() throws IOException, ClassNotFoundException {
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serializedResponse))) {
+			return in.readObject();
+		}
+	}
+
+	private static byte[] serialize(EspdDocument espdDocument, ByteArrayOutputStream out) throws IOException {
+		out.reset();
+		try (ObjectOutputStream objects = new ObjectOutputStream(out)) {
+			objects.writeObject(espdDocument);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Secondary result of {@link #serializeResponse}, reported by JMH next to its throughput.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class SerializedSize {
+
+		/**
+		 * Size in bytes of the last serialized ESPD Response, which is the same for every operation.
+		 */
+		public long serializedBytes;
+	}
+}
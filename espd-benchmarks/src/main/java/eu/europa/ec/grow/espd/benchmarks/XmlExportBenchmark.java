@@ -0,0 +1,84 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.benchmarks;
+
+import eu.europa.ec.grow.espd.domain.EspdDocument;
+import eu.europa.ec.grow.espd.xml.EspdXmlExporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Export of ESPD Requests and Responses by the {@link EspdXmlExporter}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Benchmark)
+public class XmlExportBenchmark {
+
+	@Param
+	public DocumentSize size;
+
+	private EspdXmlExporter exporter;
+	private EspdDocument requestDocument;
+	private EspdDocument responseDocument;
+	private ByteArrayOutputStream out;
+
+	@Setup
+	public void setUp() {
+		exporter = BenchmarkContext.getBean(EspdXmlExporter.class);
+		requestDocument = EspdFixtures.importRequest(size);
+		responseDocument = EspdFixtures.importResponse(size);
+		out = new ByteArrayOutputStream(512 * 1024);
+	}
+
+	@Benchmark
+	public int exportRequest() {
+		out.reset();
+		exporter.generateEspdRequest(requestDocument, out);
+		return out.size();
+	}
+
+	@Benchmark
+	public int exportResponse() {
+		out.reset();
+		exporter.generateEspdResponse(responseDocument, out);
+		return out.size();
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.benchmarks;
+
+import com.google.common.base.Optional;
+import eu.europa.ec.grow.espd.domain.EspdDocument;
+import eu.europa.ec.grow.espd.tenderned.exception.TedNoticeException;
+import eu.europa.ec.grow.espd.util.EspdConfiguration;
+import eu.europa.ec.grow.espd.xml.EspdXmlImporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Import of ESPD Requests and Responses by the {@link EspdXmlImporter}, with the JAXB and with the streaming import.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Benchmark)
+public class XmlImportBenchmark {
+
+	@Param
+	public DocumentSize size;
+
+	@Param({ "false", "true" })
+	public boolean streaming;
+
+	private EspdXmlImporter importer;
+	private byte[] request;
+	private byte[] response;
+
+	@Setup
+	public void setUp() {
+		BenchmarkContext.getBean(EspdConfiguration.class).setXmlImportStreaming(streaming);
+		importer = BenchmarkContext.getBean(EspdXmlImporter.class);
+		request = EspdFixtures.readSample(size.getRequestSample());
+		response = EspdFixtures.readSample(size.getResponseSample());
+	}
+
+	@Benchmark
+	public Optional<EspdDocument> importRequest() {
+		return importer.importEspdRequest(new ByteArrayInputStream(request));
+	}
+
+	@Benchmark
+	public Optional<EspdDocument> importResponse() {
+		return importer.importEspdResponse(new ByteArrayInputStream(response));
+	}
+
+	@Benchmark
+	public Optional<EspdDocument> importAmbiguousRequest() throws IOException, TedNoticeException {
+		return importer.importAmbiguousEspdFile(new ByteArrayInputStream(request));
+	}
+
+	@Benchmark
+	public Optional<EspdDocument> importAmbiguousResponse() throws IOException, TedNoticeException {
+		return importer.importAmbiguousEspdFile(new ByteArrayInputStream(response));
+	}
+}
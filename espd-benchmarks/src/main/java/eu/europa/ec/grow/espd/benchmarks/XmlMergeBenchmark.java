@@ -0,0 +1,97 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.benchmarks;
+
+import com.google.common.base.Optional;
+import eu.europa.ec.grow.espd.domain.EspdDocument;
+import eu.europa.ec.grow.espd.xml.EspdXmlImporter;
+import eu.europa.ec.grow.espd.xml.common.JaxbMarshallerPool;
+import eu.europa.ec.grow.espd.xml.response.importing.UblRequestResponseMerger;
+import grow.names.specification.ubl.schema.xsd.espdrequest_1.ESPDRequestType;
+import grow.names.specification.ubl.schema.xsd.espdresponse_1.ESPDResponseType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.xml.bind.JAXBElement;
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merge of an ESPD Request with an ESPD Response, on its own by the {@link UblRequestResponseMerger} and including
+ * the parsing of both documents by the {@link EspdXmlImporter}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Benchmark)
+public class XmlMergeBenchmark {
+
+	@Param
+	public DocumentSize size;
+
+	private UblRequestResponseMerger merger;
+	private EspdXmlImporter importer;
+	private byte[] request;
+	private byte[] response;
+	private ESPDRequestType requestType;
+	private ESPDResponseType responseType;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		merger = BenchmarkContext.getBean(UblRequestResponseMerger.class);
+		importer = BenchmarkContext.getBean(EspdXmlImporter.class);
+		request = EspdFixtures.readSample(size.getRequestSample());
+		response = EspdFixtures.readSample(size.getResponseSample());
+
+		JaxbMarshallerPool marshallerPool = BenchmarkContext.getBean(JaxbMarshallerPool.class);
+		requestType = ((JAXBElement<ESPDRequestType>) marshallerPool.unmarshal(new ByteArrayInputStream(request)))
+				.getValue();
+		responseType = ((JAXBElement<ESPDResponseType>) marshallerPool
+				.unmarshal(new ByteArrayInputStream(response))).getValue();
+	}
+
+	@Benchmark
+	public EspdDocument merge() {
+		return merger.mergeRequestAndResponse(requestType, responseType);
+	}
+
+	@Benchmark
+	public Optional<EspdDocument> parseAndMerge() {
+		return importer.mergeEspdRequestAndResponse(new ByteArrayInputStream(request),
+				new ByteArrayInputStream(response));
+	}
+}
@@ -0,0 +1,56 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+package eu.europa.ec.grow.espd.batch;
+
+import lombok.Value;
+
+/**
+ * One ESPD file of a batch, held in memory only while it is converted.
+ */
+@Value
+public class BatchDocument {
+
+	/**
+	 * The name of the file in the batch, as sent by the client.
+	 */
+	String name;
+
+	/**
+	 * The content of the file, or {@code null} if it could not be read.
+	 */
+	byte[] content;
+
+	/**
+	 * Why the file could not be read, {@code null} if it could.
+	 */
+	String error;
+
+	static BatchDocument readable(String name, byte[] content) {
+		return new BatchDocument(name, content, null);
+	}
+
+	static BatchDocument unreadable(String name, String error) {
+		return new BatchDocument(name, null, error);
+	}
+}
@@ -0,0 +1,37 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+package eu.europa.ec.grow.espd.batch;
+
+import java.io.IOException;
+
+/**
+ * The ESPD files of a batch, read one after the other so that a batch never needs to be held in memory as a whole.
+ */
+public interface BatchDocumentSource {
+
+	/**
+	 * @return The next file of the batch, or {@code null} when all of them were read
+	 */
+	BatchDocument next() throws IOException;
+}
@@ -0,0 +1,62 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.batch;
+
+import com.google.common.base.Optional;
+
+/**
+ * What is sent back for each ESPD Response of a batch.
+ */
+public enum BatchFormat {
+
+	/**
+	 * One JSON summary per line (NDJSON), in the order in which the documents were converted.
+	 */
+	JSON("application/x-ndjson"),
+
+	/**
+	 * A ZIP archive holding the normalized XML of each document, as exported for the economic operator.
+	 */
+	XML("application/zip");
+
+	private final String contentType;
+
+	BatchFormat(String contentType) {
+		this.contentType = contentType;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	public static Optional<BatchFormat> fromName(String name) {
+		for (BatchFormat format : values()) {
+			if (format.name().equalsIgnoreCase(name)) {
+				return Optional.of(format);
+			}
+		}
+		return Optional.absent();
+	}
+}
@@ -0,0 +1,399 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
+import com.opencsv.CSVWriter;
+import eu.europa.ec.grow.espd.domain.EspdDocument;
+import eu.europa.ec.grow.espd.domain.ubl.CcvCriterion;
+import eu.europa.ec.grow.espd.util.EspdExporter;
+import eu.europa.ec.grow.espd.xml.EspdXmlImporter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Converts a batch of ESPD Responses, imported in parallel on the {@code batchImportExecutor}. Each result is written
+ * as soon as its document is converted, so that only the documents being converted are held in memory and the client
+ * starts receiving results while the rest of the batch is still being read.
+ * <p>
+ * A document which cannot be imported does not fail the batch, it is reported with its error instead. The results are
+ * written by the calling thread only, in the order in which the documents are converted.
+ * </p>
+ */
+@Component
+@Slf4j
+public class BatchResponseConverter {
+
+	static final String FAILURES_ENTRY = "failures.txt";
+
+	private final EspdXmlImporter xmlImporter;
+	private final EspdExporter espdExporter;
+	private final ObjectMapper objectMapper;
+	private final Executor executor;
+	private final int maxPendingDocuments;
+
+	@Autowired
+	BatchResponseConverter(EspdXmlImporter xmlImporter, EspdExporter espdExporter, ObjectMapper objectMapper,
+			@Qualifier("batchImportExecutor") ThreadPoolTaskExecutor executor) {
+		// enough documents to keep every thread busy while the results of the others are written
+		this(xmlImporter, espdExporter, objectMapper, executor, 2 * executor.getMaxPoolSize());
+	}
+
+	BatchResponseConverter(EspdXmlImporter xmlImporter, EspdExporter espdExporter, ObjectMapper objectMapper,
+			Executor executor, int maxPendingDocuments) {
+		this.xmlImporter = xmlImporter;
+		this.espdExporter = espdExporter;
+		this.objectMapper = objectMapper;
+		this.executor = executor;
+		this.maxPendingDocuments = maxPendingDocuments;
+	}
+
+	/**
+	 * Convert all the documents of the batch.
+	 *
+	 * @param source The documents, read one by one while the previous ones are being converted
+	 * @param format What is written for each document
+	 * @param out    Where the results are written, it is flushed after each result but not closed
+	 *
+	 * @throws IOException If the batch could not be read or the results could not be written
+	 */
+	public void convert(BatchDocumentSource source, BatchFormat format, OutputStream out) throws IOException {
+		if (format == BatchFormat.XML) {
+			process(source, new ZipOutput(out));
+		} else {
+			process(source, new SummaryOutput(out));
+		}
+	}
+
+	/**
+	 * Evaluate all the documents of the batch against the criteria of an ESPD Request and write the evaluation matrix
+	 * as CSV: one row per economic operator, one column per requested criterion (see {@link EvaluationMatrix}).
+	 *
+	 * @param espdRequest The ESPD Request the economic operators answered to
+	 * @param source      The ESPD Responses, read one by one while the previous ones are being evaluated
+	 * @param out         Where the CSV is written, it is flushed after each row but not closed
+	 *
+	 * @throws IOException If the batch could not be read or the results could not be written
+	 */
+	public void evaluate(EspdDocument espdRequest, BatchDocumentSource source, OutputStream out) throws IOException {
+		process(source, new EvaluationOutput(new EvaluationMatrix(espdRequest), out));
+	}
+
+	private <T> void process(BatchDocumentSource source, BatchOutput<T> output) throws IOException {
+		CompletionService<ConvertedDocument<T>> completionService = new ExecutorCompletionService<>(executor);
+		int pending = 0;
+		int converted = 0;
+		long start = System.currentTimeMillis();
+
+		output.start();
+		BatchDocument document = source.next();
+		while (document != null) {
+			if (pending == maxPendingDocuments) {
+				write(takeConverted(completionService), output);
+				pending--;
+				converted++;
+			}
+			completionService.submit(new ConversionTask<>(document, output));
+			pending++;
+			document = source.next();
+		}
+		while (pending > 0) {
+			write(takeConverted(completionService), output);
+			pending--;
+			converted++;
+		}
+		output.finish();
+		log.debug("--- Converted a batch of {} ESPD Responses in {} ms.", converted,
+				System.currentTimeMillis() - start);
+	}
+
+	private static <T> void write(ConvertedDocument<T> document, BatchOutput<T> output) throws IOException {
+		output.write(document.summary, document.result);
+	}
+
+	private static <T> ConvertedDocument<T> takeConverted(CompletionService<ConvertedDocument<T>> completionService)
+			throws IOException {
+		try {
+			return completionService.take().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the conversion of a batch document.");
+		} catch (ExecutionException e) {
+			// the conversion task catches everything it can recover from
+			throw new IOException("Could not convert a batch document.", e.getCause());
+		}
+	}
+
+	private static final class ConvertedDocument<T> {
+
+		private final BatchResponseSummary summary;
+		private final T result;
+
+		private ConvertedDocument(BatchResponseSummary summary, T result) {
+			this.summary = summary;
+			this.result = result;
+		}
+	}
+
+	private final class ConversionTask<T> implements Callable<ConvertedDocument<T>> {
+
+		private final BatchDocument document;
+		private final BatchOutput<T> output;
+
+		private ConversionTask(BatchDocument document, BatchOutput<T> output) {
+			this.document = document;
+			this.output = output;
+		}
+
+		@Override
+		public ConvertedDocument<T> call() {
+			if (document.getContent() == null) {
+				return failed(document.getError());
+			}
+			try {
+				Optional<EspdDocument> espd = xmlImporter
+						.importEspdResponse(new ByteArrayInputStream(document.getContent()));
+				if (!espd.isPresent()) {
+					return failed("The file is not a valid ESPD Response.");
+				}
+				return new ConvertedDocument<T>(BatchResponseSummary.of(document.getName(), espd.get()),
+						output.convert(espd.get()));
+			} catch (RuntimeException e) {
+				log.warn("Could not convert batch document '{}'.", document.getName(), e);
+				return failed("The file could not be converted.");
+			}
+		}
+
+		private ConvertedDocument<T> failed(String error) {
+			return new ConvertedDocument<T>(BatchResponseSummary.failed(document.getName(), error), null);
+		}
+	}
+
+	/**
+	 * What is written for the documents of a batch.
+	 *
+	 * @param <T> What is computed out of each imported document besides its summary
+	 */
+	private interface BatchOutput<T> {
+
+		void start() throws IOException;
+
+		/**
+		 * Called on the import threads, it must not write anything.
+		 */
+		T convert(EspdDocument espd);
+
+		/**
+		 * @param converted The outcome of {@link #convert}, {@code null} if the document was not imported
+		 */
+		void write(BatchResponseSummary summary, T converted) throws IOException;
+
+		void finish() throws IOException;
+	}
+
+	/**
+	 * One JSON summary per line.
+	 */
+	private final class SummaryOutput implements BatchOutput<Void> {
+
+		private final OutputStream out;
+
+		private SummaryOutput(OutputStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public void start() {
+			// no header
+		}
+
+		@Override
+		public Void convert(EspdDocument espd) {
+			return null;
+		}
+
+		@Override
+		public void write(BatchResponseSummary summary, Void converted) throws IOException {
+			// not written with writeValue(OutputStream) which would close the response stream
+			out.write(objectMapper.writeValueAsBytes(summary));
+			out.write('\n');
+			out.flush();
+		}
+
+		@Override
+		public void finish() throws IOException {
+			out.flush();
+		}
+	}
+
+	/**
+	 * One XML entry per imported document and a text entry listing the documents which could not be imported.
+	 */
+	private final class ZipOutput implements BatchOutput<byte[]> {
+
+		private final ZipOutputStream zip;
+		private final Set<String> entryNames = new HashSet<>();
+		private final StringBuilder failures = new StringBuilder();
+
+		private ZipOutput(OutputStream out) {
+			this.zip = new ZipOutputStream(out);
+		}
+
+		@Override
+		public void start() {
+			// no header
+		}
+
+		@Override
+		public byte[] convert(EspdDocument espd) {
+			return espdExporter.exportAsXml(espd, "eo").toByteArray();
+		}
+
+		@Override
+		public void write(BatchResponseSummary summary, byte[] xml) throws IOException {
+			if (!summary.isImported()) {
+				failures.append(summary.getName()).append(": ").append(summary.getError()).append('\n');
+				return;
+			}
+			zip.putNextEntry(new ZipEntry(uniqueEntryName(summary.getName())));
+			zip.write(xml);
+			zip.closeEntry();
+			zip.flush();
+		}
+
+		@Override
+		public void finish() throws IOException {
+			if (failures.length() > 0) {
+				zip.putNextEntry(new ZipEntry(FAILURES_ENTRY));
+				zip.write(failures.toString().getBytes(StandardCharsets.UTF_8));
+				zip.closeEntry();
+			}
+			// the response stream itself is closed by the container
+			zip.finish();
+			zip.flush();
+		}
+
+		/**
+		 * The archive is flat: the folders of the uploaded files are dropped and the names made unique.
+		 */
+		private String uniqueEntryName(String name) {
+			String baseName = name == null ? "" : name;
+			baseName = baseName.substring(Math.max(baseName.lastIndexOf('/'), baseName.lastIndexOf('\\')) + 1);
+			if (baseName.toLowerCase().endsWith(".gz")) {
+				baseName = baseName.substring(0, baseName.length() - 3);
+			}
+			if (baseName.toLowerCase().endsWith(".xml")) {
+				baseName = baseName.substring(0, baseName.length() - 4);
+			}
+			if (baseName.isEmpty()) {
+				baseName = "espd-response";
+			}
+			String entryName = baseName + ".xml";
+			for (int i = 2; !entryNames.add(entryName); i++) {
+				entryName = baseName + "-" + i + ".xml";
+			}
+			return entryName;
+		}
+	}
+
+	/**
+	 * The CSV evaluation matrix: who the economic operator is, then one cell per requested criterion.
+	 */
+	private static final class EvaluationOutput implements BatchOutput<List<String>> {
+
+		private static final String[] OPERATOR_COLUMNS = { "File", "Error", "Economic operator", "VAT number",
+				"Country" };
+
+		private final EvaluationMatrix matrix;
+		private final CSVWriter csv;
+
+		private EvaluationOutput(EvaluationMatrix matrix, OutputStream out) {
+			this.matrix = matrix;
+			this.csv = new CSVWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		}
+
+		@Override
+		public void start() throws IOException {
+			List<String> header = new ArrayList<>(Arrays.asList(OPERATOR_COLUMNS));
+			for (CcvCriterion criterion : matrix.getCriteria()) {
+				header.add(criterion.getName());
+			}
+			writeRow(header);
+		}
+
+		@Override
+		public List<String> convert(EspdDocument espd) {
+			return matrix.evaluate(espd);
+		}
+
+		@Override
+		public void write(BatchResponseSummary summary, List<String> cells) throws IOException {
+			List<String> row = new ArrayList<>(OPERATOR_COLUMNS.length + matrix.getCriteria().size());
+			row.add(summary.getName());
+			row.add(summary.getError());
+			row.add(summary.getEconomicOperatorName());
+			row.add(summary.getVatNumber());
+			row.add(summary.getCountry() != null ? summary.getCountry().name() : null);
+			if (cells != null) {
+				row.addAll(cells);
+			}
+			writeRow(row);
+		}
+
+		private void writeRow(List<String> row) throws IOException {
+			csv.writeNext(row.toArray(new String[row.size()]));
+			// the CSV writer is not closed, it would close the response stream
+			csv.flush();
+		}
+
+		@Override
+		public void finish() throws IOException {
+			csv.flush();
+		}
+	}
+}
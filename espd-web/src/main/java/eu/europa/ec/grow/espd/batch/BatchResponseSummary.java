@@ -0,0 +1,95 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.batch;
+
+import eu.europa.ec.grow.espd.domain.EconomicOperatorImpl;
+import eu.europa.ec.grow.espd.domain.EspdCriterion;
+import eu.europa.ec.grow.espd.domain.EspdDocument;
+import eu.europa.ec.grow.espd.domain.enums.criteria.ExclusionCriterion;
+import eu.europa.ec.grow.espd.domain.enums.criteria.SelectionCriterion;
+import eu.europa.ec.grow.espd.domain.enums.other.Country;
+import eu.europa.ec.grow.espd.domain.infrastructure.CriterionFieldAccessors;
+import eu.europa.ec.grow.espd.domain.ubl.CcvCriterion;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What a buyer looks at first when going through many ESPD Responses: who answered, for which procedure and which
+ * criteria need a closer look.
+ */
+@Value
+public class BatchResponseSummary {
+
+	String name;
+	boolean imported;
+	String error;
+
+	String economicOperatorName;
+	String vatNumber;
+	Country country;
+	String procedureTitle;
+	String fileRefByCA;
+
+	/**
+	 * The exclusion grounds which the economic operator answered with 'yes'.
+	 */
+	List<String> exclusionGroundsAnsweredYes;
+
+	/**
+	 * The selection criteria which the economic operator answered with 'no'.
+	 */
+	List<String> selectionCriteriaAnsweredNo;
+
+	static BatchResponseSummary failed(String name, String error) {
+		return new BatchResponseSummary(name, false, error, null, null, null, null, null,
+				Collections.<String>emptyList(), Collections.<String>emptyList());
+	}
+
+	static BatchResponseSummary of(String name, EspdDocument espd) {
+		EconomicOperatorImpl economicOperator = espd.getEconomicOperator();
+		return new BatchResponseSummary(name, true, null,
+				economicOperator != null ? economicOperator.getName() : null,
+				economicOperator != null ? economicOperator.getVatNumber() : null,
+				economicOperator != null ? economicOperator.getCountry() : null,
+				espd.getProcedureTitle(), espd.getFileRefByCA(),
+				criteriaAnswered(espd, ExclusionCriterion.values(), true),
+				criteriaAnswered(espd, SelectionCriterion.values(), false));
+	}
+
+	private static List<String> criteriaAnswered(EspdDocument espd, CcvCriterion[] criteria, boolean answer) {
+		List<String> answered = new ArrayList<>();
+		for (CcvCriterion criterion : criteria) {
+			EspdCriterion espdCriterion = CriterionFieldAccessors.readCriterion(espd, criterion);
+			if (espdCriterion != null && espdCriterion.getExists()
+					&& Boolean.valueOf(answer).equals(espdCriterion.getAnswer())) {
+				answered.add(criterion.getEspdDocumentField());
+			}
+		}
+		return answered;
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.batch;
+
+import eu.europa.ec.grow.espd.domain.DynamicRequirementGroup;
+import eu.europa.ec.grow.espd.domain.EconomicFinancialStandingCriterion;
+import eu.europa.ec.grow.espd.domain.EspdCriterion;
+import eu.europa.ec.grow.espd.domain.EspdDocument;
+import eu.europa.ec.grow.espd.domain.enums.criteria.ExclusionCriterion;
+import eu.europa.ec.grow.espd.domain.enums.criteria.SelectionCriterion;
+import eu.europa.ec.grow.espd.domain.infrastructure.CriterionFieldAccessors;
+import eu.europa.ec.grow.espd.domain.ubl.CcvCriterion;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The criteria of an ESPD Request, against which the ESPD Responses of the economic operators are evaluated: one cell
+ * per criterion requested by the contracting authority, in the order of the criteria definitions.
+ * <p>
+ * An exclusion ground or a selection criterion is evaluated to its answer, 'yes' or 'no'. The turnover criteria are
+ * evaluated to the figures given by the economic operator. A requested criterion which is not part of a response is
+ * evaluated to 'missing'.
+ * </p>
+ * <p>
+ * It holds no state besides the requested criteria and can be shared by the threads evaluating the responses.
+ * </p>
+ */
+public class EvaluationMatrix {
+
+	static final String YES = "yes";
+	static final String NO = "no";
+	static final String MISSING = "missing";
+
+	private static final Set<SelectionCriterion> TURNOVER_CRITERIA = EnumSet
+			.of(SelectionCriterion.GENERAL_YEARLY_TURNOVER, SelectionCriterion.AVERAGE_YEARLY_TURNOVER,
+					SelectionCriterion.SPECIFIC_YEARLY_TURNOVER, SelectionCriterion.SPECIFIC_AVERAGE_TURNOVER);
+
+	private final List<CcvCriterion> criteria;
+
+	public EvaluationMatrix(EspdDocument espdRequest) {
+		List<CcvCriterion> requested = new ArrayList<>();
+		addRequestedCriteria(espdRequest, ExclusionCriterion.values(), requested);
+		addRequestedCriteria(espdRequest, SelectionCriterion.values(), requested);
+		this.criteria = Collections.unmodifiableList(requested);
+	}
+
+	private static void addRequestedCriteria(EspdDocument espdRequest, CcvCriterion[] candidates,
+			List<CcvCriterion> requested) {
+		for (CcvCriterion criterion : candidates) {
+			EspdCriterion espdCriterion = CriterionFieldAccessors.readCriterion(espdRequest, criterion);
+			if (espdCriterion != null && espdCriterion.getExists()) {
+				requested.add(criterion);
+			}
+		}
+	}
+
+	public List<CcvCriterion> getCriteria() {
+		return criteria;
+	}
+
+	/**
+	 * @return The cells of the given ESPD Response, one per requested criterion
+	 */
+	public List<String> evaluate(EspdDocument espdResponse) {
+		List<String> cells = new ArrayList<>(criteria.size());
+		for (CcvCriterion criterion : criteria) {
+			cells.add(evaluate(criterion, CriterionFieldAccessors.readCriterion(espdResponse, criterion)));
+		}
+		return cells;
+	}
+
+	private static String evaluate(CcvCriterion criterion, EspdCriterion espdCriterion) {
+		if (espdCriterion == null || !espdCriterion.getExists()) {
+			return MISSING;
+		}
+		if (TURNOVER_CRITERIA.contains(criterion)) {
+			return turnover((EconomicFinancialStandingCriterion) espdCriterion);
+		}
+		Boolean answer = espdCriterion.getAnswer();
+		if (answer == null) {
+			return MISSING;
+		}
+		return answer ? YES : NO;
+	}
+
+	/**
+	 * The yearly figures, like '2016: 1500000 EUR; 2015: 1250000 EUR', followed by the average turnover if any.
+	 */
+	private static String turnover(EconomicFinancialStandingCriterion turnover) {
+		StringBuilder figures = new StringBuilder();
+		for (DynamicRequirementGroup group : turnover.getUnboundedGroups()) {
+			if (group.get("year") != null || group.get("amount") != null) {
+				appendFigure(figures, String.valueOf(group.get("year")), group.get("amount"), group.get("currency"));
+			}
+		}
+		if (turnover.getAverageTurnover() != null) {
+			appendFigure(figures, "average", turnover.getAverageTurnover(), turnover.getAverageTurnoverCurrency());
+		}
+		return figures.length() == 0 ? MISSING : figures.toString();
+	}
+
+	private static void appendFigure(StringBuilder figures, String label, Object amount, Object currency) {
+		if (figures.length() > 0) {
+			figures.append("; ");
+		}
+		figures.append(label).append(": ");
+		if (amount instanceof BigDecimal) {
+			figures.append(((BigDecimal) amount).toPlainString());
+		} else if (amount != null) {
+			figures.append(amount);
+		}
+		if (currency != null) {
+			figures.append(' ').append(currency);
+		}
+	}
+}
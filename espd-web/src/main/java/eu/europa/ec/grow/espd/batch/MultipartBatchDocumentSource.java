@@ -0,0 +1,54 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+package eu.europa.ec.grow.espd.batch;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reads the files of a multipart request. They were already stored by the multipart resolver, so only the files being
+ * converted are held in memory.
+ */
+public class MultipartBatchDocumentSource implements BatchDocumentSource {
+
+	private final Iterator<MultipartFile> files;
+
+	public MultipartBatchDocumentSource(List<MultipartFile> files) {
+		this.files = files.iterator();
+	}
+
+	@Override
+	public BatchDocument next() throws IOException {
+		while (files.hasNext()) {
+			MultipartFile file = files.next();
+			if (!file.isEmpty()) {
+				return BatchDocument.readable(file.getOriginalFilename(), file.getBytes());
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+package eu.europa.ec.grow.espd.batch;
+
+import com.google.common.io.ByteStreams;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Reads the files of a ZIP archive while it is being received. The directories are skipped and the files larger than
+ * the maximum size are reported as unreadable instead of being inflated, so that a small archive cannot fill the
+ * memory.
+ */
+public class ZipBatchDocumentSource implements BatchDocumentSource {
+
+	private final ZipInputStream zip;
+	private final long maxDocumentBytes;
+
+	public ZipBatchDocumentSource(InputStream archive, long maxDocumentBytes) {
+		this.zip = new ZipInputStream(archive);
+		this.maxDocumentBytes = maxDocumentBytes;
+	}
+
+	@Override
+	public BatchDocument next() throws IOException {
+		ZipEntry entry = zip.getNextEntry();
+		while (entry != null && entry.isDirectory()) {
+			entry = zip.getNextEntry();
+		}
+		if (entry == null) {
+			return null;
+		}
+
+		// one more byte than allowed tells whether the entry is too large
+		byte[] content = ByteStreams.toByteArray(ByteStreams.limit(zip, maxDocumentBytes + 1));
+		if (content.length > maxDocumentBytes) {
+			return BatchDocument.unreadable(entry.getName(),
+					String.format("The file is larger than %d bytes.", maxDocumentBytes));
+		}
+		return BatchDocument.readable(entry.getName(), content);
+	}
+}
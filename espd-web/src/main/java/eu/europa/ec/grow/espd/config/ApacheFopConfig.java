@@ -24,7 +24,10 @@
 
 package eu.europa.ec.grow.espd.config;
 
+import eu.europa.ec.grow.espd.metrics.ProcessingTagsTaskDecorator;
 import eu.europa.ec.grow.espd.util.EspdConfiguration;
+import eu.europa.ec.grow.espd.tenderned.HtmlToPdfTransformer;
+import eu.europa.ec.grow.espd.tenderned.XsltTemplatesCache;
 import eu.europa.ec.grow.espd.tenderned.XsltURIResolver;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.avalon.framework.configuration.ConfigurationException;
@@ -38,6 +41,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.xml.sax.SAXException;
 
 import javax.xml.transform.TransformerFactory;
@@ -46,6 +50,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import static org.apache.commons.lang3.StringUtils.trimToEmpty;
 
@@ -98,6 +103,54 @@ class ApacheFopConfig {
 		return factory;
 	}
 
+	/**
+	 * The PDF stylesheets are compiled once at startup, each PDF request only creates a cheap transformer out of them.
+	 */
+	@Bean
+	XsltTemplatesCache xsltTemplatesCache(TransformerFactory xmlTransformerFactory, XsltURIResolver resolver) {
+		return new XsltTemplatesCache(xmlTransformerFactory, resolver, HtmlToPdfTransformer.XSL_CA,
+				HtmlToPdfTransformer.XSL_EO);
+	}
+
+	/**
+	 * Dedicated and bounded pool on which the PDF files are rendered so that a burst of PDF downloads does not tie up
+	 * all the servlet threads. When both the threads and the queue are busy new rendering tasks are rejected.
+	 */
+	@Bean
+	ThreadPoolTaskExecutor pdfRenderingExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setThreadNamePrefix("espd-pdf-");
+		executor.setCorePoolSize(espdConfiguration.getPdfRenderingThreads());
+		executor.setMaxPoolSize(espdConfiguration.getPdfRenderingThreads());
+		executor.setQueueCapacity(espdConfiguration.getPdfRenderingQueueCapacity());
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+		executor.setWaitForTasksToCompleteOnShutdown(true);
+		// the PDF and ZIP files are measured for the agent and flow of the request which asked for them
+		executor.setTaskDecorator(new ProcessingTagsTaskDecorator());
+		log.debug("--- PDF rendering pool: {} threads, queue capacity {}.",
+				espdConfiguration.getPdfRenderingThreads(), espdConfiguration.getPdfRenderingQueueCapacity());
+		return executor;
+	}
+
+	/**
+	 * Pool on which the XML of a ZIP download is marshalled while the PDF is rendered by the download thread. It never
+	 * rejects a task: when it is saturated the download thread marshals the XML itself.
+	 */
+	@Bean
+	ThreadPoolTaskExecutor zipExportExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setThreadNamePrefix("espd-zip-");
+		executor.setCorePoolSize(espdConfiguration.getZipExportThreads());
+		executor.setMaxPoolSize(espdConfiguration.getZipExportThreads());
+		executor.setQueueCapacity(espdConfiguration.getZipExportQueueCapacity());
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		executor.setWaitForTasksToCompleteOnShutdown(true);
+		executor.setTaskDecorator(new ProcessingTagsTaskDecorator());
+		log.debug("--- ZIP export pool: {} threads, queue capacity {}.", espdConfiguration.getZipExportThreads(),
+				espdConfiguration.getZipExportQueueCapacity());
+		return executor;
+	}
+
 	/**
 	 * Embedded fonts can be loaded via absolute or relative paths or via classpath depending on the chosen strategy.
 	 * When using an embedded server it is recommended to use the classpath approach.
@@ -0,0 +1,70 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.config;
+
+import eu.europa.ec.grow.espd.metrics.ProcessingTagsTaskDecorator;
+import eu.europa.ec.grow.espd.util.EspdConfiguration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Configuration of the batch conversion of ESPD Responses.
+ */
+@Configuration
+@Slf4j
+class BatchConfig {
+
+	private final EspdConfiguration espdConfiguration;
+
+	@Autowired
+	BatchConfig(EspdConfiguration espdConfiguration) {
+		this.espdConfiguration = espdConfiguration;
+	}
+
+	/**
+	 * Bounded pool on which the documents of a batch are imported. Unlike the PDF rendering pool it never rejects a
+	 * document: when it is saturated the request thread imports the document itself, which also slows down the reading
+	 * of the batch.
+	 */
+	@Bean
+	ThreadPoolTaskExecutor batchImportExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setThreadNamePrefix("espd-batch-");
+		executor.setCorePoolSize(espdConfiguration.getBatchImportThreads());
+		executor.setMaxPoolSize(espdConfiguration.getBatchImportThreads());
+		executor.setQueueCapacity(espdConfiguration.getBatchImportQueueCapacity());
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		executor.setWaitForTasksToCompleteOnShutdown(true);
+		executor.setTaskDecorator(new ProcessingTagsTaskDecorator());
+		log.debug("--- Batch import pool: {} threads, queue capacity {}.", espdConfiguration.getBatchImportThreads(),
+				espdConfiguration.getBatchImportQueueCapacity());
+		return executor;
+	}
+}
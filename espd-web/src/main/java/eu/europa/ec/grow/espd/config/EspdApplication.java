@@ -26,16 +26,17 @@ package eu.europa.ec.grow.espd.config;
 
 import ac.simons.spring.boot.wro4j.Wro4jAutoConfiguration;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.beans.factory.annotation.Value;
+import eu.europa.ec.grow.espd.domain.infrastructure.CriterionFieldAccessors;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.builder.SpringApplicationBuilder;
 import org.springframework.boot.web.support.SpringBootServletInitializer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.WebApplicationInitializer;
-import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PostConstruct;
+
 /**
  * Created by vigi on 10/20/15:5:17 PM.
  */
@@ -43,9 +44,6 @@ import org.springframework.web.client.RestTemplate;
 @ComponentScan("eu.europa.ec.grow.espd")
 public class EspdApplication extends SpringBootServletInitializer implements WebApplicationInitializer {
 
-    @Value("${http.client.connect.timeout.millis:30000}")
-    private int connectTimeout;
-
     @Override
     protected SpringApplicationBuilder configure(SpringApplicationBuilder application) {
         return application.sources(EspdApplication.class);
@@ -55,19 +53,14 @@ public class EspdApplication extends SpringBootServletInitializer implements Web
         SpringApplication.run(EspdApplication.class, args);
     }
 
-    @Bean
-    ObjectMapper objectMapper() {
-        return new ObjectMapper();
+    @PostConstruct
+    void loadCriterionDefinitions() {
+        // fail at startup instead of on the first import or export if the criteria JSON files do not match the model
+        CriterionFieldAccessors.initialize();
     }
 
     @Bean
-    RestTemplate restTemplate() {
-        RestTemplate restTemplate = new RestTemplate();
-
-        SimpleClientHttpRequestFactory rf = (SimpleClientHttpRequestFactory) restTemplate.getRequestFactory();
-        rf.setReadTimeout(connectTimeout);
-        rf.setConnectTimeout(connectTimeout);
-
-        return restTemplate;
+    ObjectMapper objectMapper() {
+        return new ObjectMapper();
     }
 }
@@ -0,0 +1,82 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.config;
+
+import eu.europa.ec.grow.espd.util.EspdConfiguration;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration of the HTTP client used to call external services such as TED. The connections are pooled and kept
+ * alive between calls, and a slow service is given up on after the read timeout instead of the connect timeout.
+ */
+@Configuration
+class HttpClientConfig {
+
+	private static final long IDLE_CONNECTION_EVICTION_SECONDS = 30;
+
+	private final EspdConfiguration espdConfiguration;
+
+	@Autowired
+	HttpClientConfig(EspdConfiguration espdConfiguration) {
+		this.espdConfiguration = espdConfiguration;
+	}
+
+	@Bean(destroyMethod = "close")
+	CloseableHttpClient httpClient() {
+		PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(espdConfiguration.getHttpClientMaxConnections());
+		connectionManager.setDefaultMaxPerRoute(espdConfiguration.getHttpClientMaxConnections());
+
+		RequestConfig requestConfig = RequestConfig.custom()
+				.setConnectTimeout(espdConfiguration.getHttpClientConnectTimeoutMillis())
+				// waiting for a connection from the pool is bounded like establishing a new one
+				.setConnectionRequestTimeout(espdConfiguration.getHttpClientConnectTimeoutMillis())
+				.setSocketTimeout(espdConfiguration.getHttpClientReadTimeoutMillis())
+				.build();
+
+		return HttpClients.custom()
+				.setConnectionManager(connectionManager)
+				.setDefaultRequestConfig(requestConfig)
+				.evictExpiredConnections()
+				.evictIdleConnections(IDLE_CONNECTION_EVICTION_SECONDS, TimeUnit.SECONDS)
+				.build();
+	}
+
+	@Bean
+	RestTemplate restTemplate(CloseableHttpClient httpClient) {
+		return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+	}
+
+}
@@ -24,13 +24,27 @@
 
 package eu.europa.ec.grow.espd.config;
 
+import eu.europa.ec.grow.espd.util.EspdConfiguration;
+import eu.europa.ec.grow.espd.xml.common.JaxbMarshallerPool;
 import grow.names.specification.ubl.schema.xsd.espdrequest_1.ESPDRequestType;
 import grow.names.specification.ubl.schema.xsd.espdresponse_1.ESPDResponseType;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.xml.sax.SAXException;
 
+import javax.xml.XMLConstants;
 import javax.xml.bind.Marshaller;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -38,6 +52,7 @@ import java.util.Map;
  * Created by vigi on 11/12/15:5:41 PM.
  */
 @Configuration
+@Slf4j
 public class JaxbConfiguration {
 
     @Bean
@@ -45,10 +60,47 @@ public class JaxbConfiguration {
         Jaxb2Marshaller jaxb2Marshaller = new Jaxb2Marshaller();
         jaxb2Marshaller.setPackagesToScan(ESPDRequestType.class.getPackage().getName(),
                 ESPDResponseType.class.getPackage().getName());
-        Map<String, Object> map = new HashMap<>(2);
-        map.put(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-        jaxb2Marshaller.setMarshallerProperties(map);
+        jaxb2Marshaller.setMarshallerProperties(marshallerProperties(true));
         return jaxb2Marshaller;
     }
 
+    /**
+     * The ESPD files are exported by the pooled marshallers, which write them without indentation when the compact
+     * export is enabled, and imported by the pooled unmarshallers, which validate them when the validation is enabled.
+     */
+    @Bean
+    public JaxbMarshallerPool jaxbMarshallerPool(Jaxb2Marshaller jaxb2Marshaller,
+            EspdConfiguration espdConfiguration) {
+        Schema schema = espdConfiguration.isXmlImportValidation() ?
+                compileSchema(new DefaultResourceLoader(), espdConfiguration.getXmlImportSchemaLocations()) : null;
+        return new JaxbMarshallerPool(jaxb2Marshaller.getJaxbContext(),
+                marshallerProperties(!espdConfiguration.isXmlExportCompact()),
+                espdConfiguration.getXmlJaxbPoolMaxIdle(), schema);
+    }
+
+    /**
+     * Compile the ESPD schemas once, the compiled {@link Schema} being thread safe. The schemas are given with their
+     * URL so that the schemas they import are found next to them.
+     */
+    static Schema compileSchema(ResourceLoader resourceLoader, String... locations) {
+        Source[] sources = new Source[locations.length];
+        try {
+            for (int i = 0; i < locations.length; i++) {
+                Resource resource = resourceLoader.getResource(locations[i].trim());
+                sources[i] = new StreamSource(resource.getURL().toExternalForm());
+            }
+            Schema schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(sources);
+            log.info("--- Compiled the ESPD schemas {} to validate the imported files.", Arrays.toString(locations));
+            return schema;
+        } catch (IOException | SAXException e) {
+            throw new IllegalStateException("Could not compile the ESPD schemas.", e);
+        }
+    }
+
+    private static Map<String, Object> marshallerProperties(boolean formatted) {
+        Map<String, Object> map = new HashMap<>(2);
+        map.put(Marshaller.JAXB_FORMATTED_OUTPUT, formatted);
+        return map;
+    }
+
 }
@@ -0,0 +1,117 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import eu.europa.ec.grow.espd.domain.DynamicRequirementGroup;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * JSON mapping of the ESPD domain, used by the REST API. The domain objects are mapped by their properties, except for
+ * the {@link DynamicRequirementGroup}s: their values are exchanged as text, in the very form the wizard posts them,
+ * since that is what the export expects from the unbounded requirement groups.
+ */
+@Configuration
+class JsonConfig {
+
+	@Bean
+	Module espdJsonModule() {
+		SimpleModule module = new SimpleModule("espd");
+		module.addSerializer(DynamicRequirementGroup.class, new DynamicRequirementGroupSerializer());
+		module.addDeserializer(DynamicRequirementGroup.class, new DynamicRequirementGroupDeserializer());
+		return module;
+	}
+
+	static final class DynamicRequirementGroupSerializer extends JsonSerializer<DynamicRequirementGroup> {
+
+		// the date format of the wizard, see UblResponseRequirementTransformer
+		private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormat.forPattern("dd-MM-yyyy");
+
+		@Override
+		public void serialize(DynamicRequirementGroup group, JsonGenerator generator, SerializerProvider provider)
+				throws IOException {
+			generator.writeStartObject();
+			for (Map.Entry<String, Object> entry : group.entrySet()) {
+				Object value = entry.getValue();
+				if (value == null) {
+					generator.writeNullField(entry.getKey());
+				} else if (value instanceof Boolean) {
+					generator.writeBooleanField(entry.getKey(), (Boolean) value);
+				} else if (value instanceof Date) {
+					generator.writeStringField(entry.getKey(), DATE_FORMATTER.print(((Date) value).getTime()));
+				} else if (value instanceof BigDecimal) {
+					generator.writeStringField(entry.getKey(), ((BigDecimal) value).toPlainString());
+				} else {
+					generator.writeStringField(entry.getKey(), value.toString());
+				}
+			}
+			generator.writeEndObject();
+		}
+	}
+
+	static final class DynamicRequirementGroupDeserializer extends JsonDeserializer<DynamicRequirementGroup> {
+
+		@Override
+		public DynamicRequirementGroup deserialize(JsonParser parser, DeserializationContext context)
+				throws IOException {
+			if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+				throw context.mappingException(DynamicRequirementGroup.class);
+			}
+			DynamicRequirementGroup group = new DynamicRequirementGroup();
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.getCurrentName();
+				JsonToken token = parser.nextToken();
+				if (token == JsonToken.VALUE_NULL) {
+					group.put(name, null);
+				} else if (token.isBoolean()) {
+					group.put(name, parser.getBooleanValue());
+				} else if (token.isScalarValue()) {
+					// numbers are kept as they were written, like the values posted by the wizard
+					group.put(name, parser.getText());
+				} else {
+					throw context.mappingException(
+							String.format("The value of '%s' of a requirement group must be a scalar.", name));
+				}
+			}
+			return group;
+		}
+	}
+}
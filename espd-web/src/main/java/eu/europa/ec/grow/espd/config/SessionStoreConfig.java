@@ -0,0 +1,76 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+package eu.europa.ec.grow.espd.config;
+
+import eu.europa.ec.grow.espd.session.EspdDocumentStore;
+import eu.europa.ec.grow.espd.session.EspdSessionAttributeStore;
+import eu.europa.ec.grow.espd.session.FileEspdDocumentStore;
+import eu.europa.ec.grow.espd.util.EspdConfiguration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.WebMvcRegistrationsAdapter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores the ESPD of the sessions outside of the HTTP session when {@code espd.session.store.directory} is set. The
+ * file based store can be replaced by declaring another {@link EspdDocumentStore} bean.
+ */
+@Configuration
+@ConditionalOnProperty("espd.session.store.directory")
+class SessionStoreConfig {
+
+	private final EspdConfiguration espdConfiguration;
+
+	@Autowired
+	SessionStoreConfig(EspdConfiguration espdConfiguration) {
+		this.espdConfiguration = espdConfiguration;
+	}
+
+	@Bean
+	@ConditionalOnMissingBean(EspdDocumentStore.class)
+	EspdDocumentStore fileEspdDocumentStore() throws IOException {
+		return new FileEspdDocumentStore(new File(espdConfiguration.getSessionStoreDirectory()),
+				espdConfiguration.getSessionStoreTtlMinutes(), TimeUnit.MINUTES);
+	}
+
+	@Bean
+	WebMvcRegistrationsAdapter sessionStoreRegistrations(final EspdDocumentStore documentStore) {
+		return new WebMvcRegistrationsAdapter() {
+			@Override
+			public RequestMappingHandlerAdapter getRequestMappingHandlerAdapter() {
+				// the rest of the adapter is configured by Spring Boot as usual
+				RequestMappingHandlerAdapter adapter = new RequestMappingHandlerAdapter();
+				adapter.setSessionAttributeStore(new EspdSessionAttributeStore(documentStore));
+				return adapter;
+			}
+		};
+	}
+}
@@ -24,6 +24,10 @@
 
 package eu.europa.ec.grow.espd.config;
 
+import eu.europa.ec.grow.espd.metrics.ProcessingMetrics;
+import eu.europa.ec.grow.espd.metrics.ProcessingTagsInterceptor;
+import eu.europa.ec.grow.espd.metrics.SessionSizeInterceptor;
+import eu.europa.ec.grow.espd.util.EspdConfiguration;
 import net.bull.javamelody.MonitoringFilter;
 import net.bull.javamelody.Parameter;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -50,10 +54,15 @@ import java.util.Locale;
 class WebConfiguration extends WebMvcConfigurerAdapter {
 
 	private final HttpEncodingProperties properties;
+	private final EspdConfiguration espdConfiguration;
+	private final ProcessingMetrics processingMetrics;
 
 	@Autowired
-	WebConfiguration(HttpEncodingProperties properties) {
+	WebConfiguration(HttpEncodingProperties properties, EspdConfiguration espdConfiguration,
+			ProcessingMetrics processingMetrics) {
 		this.properties = properties;
+		this.espdConfiguration = espdConfiguration;
+		this.processingMetrics = processingMetrics;
 	}
 
 	@Bean
@@ -91,6 +100,9 @@ class WebConfiguration extends WebMvcConfigurerAdapter {
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(localeChangeInterceptor());
+        registry.addInterceptor(new ProcessingTagsInterceptor());
+        registry.addInterceptor(new SessionSizeInterceptor(processingMetrics,
+                espdConfiguration.getMetricsSessionSizeSampleRate()));
     }
 
     /**
@@ -117,7 +129,7 @@ class WebConfiguration extends WebMvcConfigurerAdapter {
         frb.addInitParameter(Parameter.NO_DATABASE.getCode(), "true");
         frb.addInitParameter(Parameter.ALLOWED_ADDR_PATTERN.getCode(),
                 "(158\\.16[6-8]\\..*)|(127\\.0\\.0\\.1)|(localhost)");
-        frb.addInitParameter(Parameter.URL_EXCLUDE_PATTERN.getCode(), "(/img/.*)|(/js/.*)|(/css/.*)|(.*/.woff)");
+        frb.addInitParameter(Parameter.URL_EXCLUDE_PATTERN.getCode(), "(/img/.*)|(/js/.*)|(/css/.*)|(.*/.woff)|(/metrics)");
         return frb;
     }
 
@@ -31,17 +31,21 @@ import eu.europa.ec.grow.espd.domain.intf.UnboundedRequirementGroup;
 import eu.europa.ec.grow.espd.ted.TedRequest;
 import eu.europa.ec.grow.espd.ted.TedResponse;
 import eu.europa.ec.grow.espd.ted.TedService;
-import eu.europa.ec.grow.espd.tenderned.UnescapeHtml4;
+import eu.europa.ec.grow.espd.tenderned.PrintableHtmlRenderer;
 import eu.europa.ec.grow.espd.tenderned.exception.PdfRenderingException;
 import eu.europa.ec.grow.espd.tenderned.exception.TedNoticeException;
+import eu.europa.ec.grow.espd.util.EspdConfiguration;
 import eu.europa.ec.grow.espd.util.EspdExporter;
 import eu.europa.ec.grow.espd.xml.EspdXmlImporter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.io.IOUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.propertyeditors.CustomDateEditor;
 import org.springframework.beans.propertyeditors.CustomNumberEditor;
 import org.springframework.context.MessageSource;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -53,10 +57,11 @@ import org.springframework.web.multipart.MultipartFile;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
@@ -64,7 +69,6 @@ import java.util.Locale;
 import static java.lang.String.format;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
-import static org.springframework.http.MediaType.APPLICATION_XML_VALUE;
 
 @Controller
 @SessionAttributes(value = { "espd" })
@@ -80,12 +84,20 @@ class EspdController {
 	private final EspdXmlImporter xmlImporter;
 	private final EspdExporter espdExporter;
 	private final TedService tedService;
+	private final PrintableHtmlRenderer printableHtmlRenderer;
+	private final EspdConfiguration espdConfiguration;
+	private final AsyncTaskExecutor pdfRenderingExecutor;
 
 	@Autowired
-	EspdController(EspdXmlImporter xmlImporter, EspdExporter espdExporter, TedService tedService) {
+	EspdController(EspdXmlImporter xmlImporter, EspdExporter espdExporter, TedService tedService,
+			PrintableHtmlRenderer printableHtmlRenderer, EspdConfiguration espdConfiguration,
+			@Qualifier("pdfRenderingExecutor") AsyncTaskExecutor pdfRenderingExecutor) {
 		this.xmlImporter = xmlImporter;
 		this.espdExporter = espdExporter;
 		this.tedService = tedService;
+		this.printableHtmlRenderer = printableHtmlRenderer;
+		this.espdConfiguration = espdConfiguration;
+		this.pdfRenderingExecutor = pdfRenderingExecutor;
 	}
 
 	@ModelAttribute("espd")
@@ -241,13 +253,24 @@ class EspdController {
 			@ModelAttribute("espdFilterParams") EspdInitializationParameters initParams,
 			Model model,
 			BindingResult result) throws IOException {
-		try (InputStream reqIs = attachments.get(1).getInputStream();
-				InputStream respIs = attachments.get(2).getInputStream()) {
-			Optional<EspdDocument> wrappedEspd = xmlImporter.mergeEspdRequestAndResponse(reqIs, respIs);
+		// the request is followed by one or more responses, the first responses taking precedence over the next ones
+		List<InputStream> respIs = new ArrayList<>(attachments.size());
+		try (InputStream reqIs = attachments.get(1).getInputStream()) {
+			for (MultipartFile response : attachments.subList(2, attachments.size())) {
+				if (!response.isEmpty()) {
+					respIs.add(response.getInputStream());
+				}
+			}
+			Optional<EspdDocument> wrappedEspd = respIs.isEmpty() ? Optional.<EspdDocument>absent()
+					: xmlImporter.mergeEspdRequestAndResponses(reqIs, respIs);
 			if (wrappedEspd.isPresent()) {
 				model.addAttribute("espd", wrappedEspd.get());
 				return redirectToPage(RESPONSE_EO_PROCEDURE_PAGE);
 			}
+		} finally {
+			for (InputStream is : respIs) {
+				IOUtils.closeQuietly(is);
+			}
 		}
 
 		result.rejectValue("attachments", "espd_upload_error");
@@ -328,83 +351,88 @@ class EspdController {
 			@PathVariable String agent,
 			@PathVariable String step,
 			@ModelAttribute("espd") EspdDocument espd,
-			HttpServletResponse response) throws IOException {
-		response.setContentType(APPLICATION_XML_VALUE);
-		ByteArrayOutputStream out = espdExporter.exportAsXml(espd, agent);
-		serveFileForDownload(out, agent, "xml", response);
+			HttpServletRequest request, HttpServletResponse response) throws IOException {
+		prepareFileDownload(agent, "xml", response);
+		OutputStream out = GzipContentEncoding.encode(request, response, espdConfiguration.isXmlExportGzip());
+		espdExporter.exportAsXml(espd, agent, out);
+		GzipContentEncoding.finish(out);
+		response.flushBuffer();
 
 		return null;
 	}
 
 	@PostMapping(value = "/{flow:request|response}/{agent:ca|eo}/{step:overview}", params = "download=pdf")
-	public String downloadPdf(
+	public Object downloadPdf(
 			@PathVariable String flow,
-			@PathVariable String agent,
+			@PathVariable final String agent,
 			@PathVariable String step,
 			@ModelAttribute("espd") EspdDocument espd,
-			HttpServletResponse response,
 			BindingResult bindingResult,
-			Model model) throws PdfRenderingException, IOException {
+			Model model, Locale locale,
+			HttpServletRequest request, HttpServletResponse response) throws PdfRenderingException {
 
 		if (bindingResult.hasErrors()) {
 			return flow + "_" + agent + "_" + step;
 		}
 
-		espd.setHtml(addHtmlHeader(espd.getHtml()));
-
-		ByteArrayOutputStream pdfOutput = espdExporter.exportAsPdf(espd, agent);
-
-		serveFileForDownload(pdfOutput, agent, "pdf", response);
+		final String html = renderPrintableHtml(flow, agent, model, locale, request, response);
 
-		return null;
+		return new FileDownload(response, "application/pdf", downloadFileName(agent, "pdf")) {
+			@Override
+			protected void write(OutputStream out) throws IOException, PdfRenderingException {
+				espdExporter.exportAsPdf(html, agent, out);
+			}
+		}.onRenderingPool(pdfRenderingExecutor, espdConfiguration.getPdfRenderingTimeoutMillis());
 	}
 
 	@PostMapping(value = "/{flow:request|response}/{agent:ca|eo}/{step:overview}", params = "download=zip")
-	public String downloadZip(
+	public Object downloadZip(
 			@PathVariable String flow,
-			@PathVariable String agent,
+			@PathVariable final String agent,
 			@PathVariable String step,
-			@ModelAttribute("espd") EspdDocument espd,
-			HttpServletResponse response,
+			@ModelAttribute("espd") final EspdDocument espd,
 			BindingResult bindingResult,
-			Model model, Locale locale) throws PdfRenderingException, IOException {
+			Model model, final Locale locale,
+			HttpServletRequest request, HttpServletResponse response) throws PdfRenderingException {
 
 		if (bindingResult.hasErrors()) {
 			return flow + "_" + agent + "_" + step;
 		}
 
-		espd.setHtml(addHtmlHeader(espd.getHtml()));
-
-		ByteArrayOutputStream zipOutputStream = espdExporter.exportAsZip(espd, agent, locale);
+		final String html = renderPrintableHtml(flow, agent, model, locale, request, response);
 
-		serveFileForDownload(zipOutputStream, agent, "zip", response);
-
-		return null;
+		return new FileDownload(response, "application/zip", downloadFileName(agent, "zip")) {
+			@Override
+			protected void write(OutputStream out) throws IOException, PdfRenderingException {
+				espdExporter.exportAsZip(espd, html, agent, locale, out);
+			}
+		}.onRenderingPool(pdfRenderingExecutor, espdConfiguration.getPdfRenderingTimeoutMillis());
 	}
 
-	private void serveFileForDownload(ByteArrayOutputStream fileStream, String agent, String fileType,
-			HttpServletResponse response) throws IOException {
-		String fileName = "ca".equalsIgnoreCase(agent) ? "espd-request." + fileType : "espd-response." + fileType;
+	/**
+	 * The files are streamed to the browser as they are generated, so the length is not known upfront and the
+	 * response is sent chunked. The PDF and ZIP files are rendered asynchronously, see {@link FileDownload}.
+	 */
+	private static void prepareFileDownload(String agent, String fileType, HttpServletResponse response) {
 		response.setContentType("application/" + fileType);
-		response.setContentLength(fileStream.size());
-		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, format("attachment; filename=\"%s\"", fileName));
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+				format("attachment; filename=\"%s\"", downloadFileName(agent, fileType)));
+	}
 
-		// Send content to Browser
-		response.getOutputStream().write(fileStream.toByteArray());
-		response.getOutputStream().flush();
+	private static String downloadFileName(String agent, String fileType) {
+		return "ca".equalsIgnoreCase(agent) ? "espd-request." + fileType : "espd-response." + fileType;
 	}
 
 	/**
-	 * This method is for adding headers to the html code that's being saved on
-	 * the print.jsp page to make the html valid for creating a PDF file.
-	 *
-	 * @param html The HTML code of the ESPD to be printed
-	 *
-	 * @return The HTML surrounded by the proper tags
+	 * Render the printable version of the ESPD from the session on the request thread, since the JSP needs the
+	 * current request, before the PDF is streamed from the rendering pool.
 	 */
-	private String addHtmlHeader(String html) {
-		String newHtml = UnescapeHtml4.unescapeHtml4(html);
-		return "<html><head/><body>" + newHtml + "</div></body></html>";
+	private String renderPrintableHtml(String flow, String agent, Model model, Locale locale,
+			HttpServletRequest request, HttpServletResponse response) throws PdfRenderingException {
+		// path variables are only exposed to the views rendered by the DispatcherServlet
+		model.addAttribute("flow", flow);
+		model.addAttribute("agent", agent);
+		return printableHtmlRenderer.render(model.asMap(), locale, request, response);
 	}
 
 	@RequestMapping("/initialization")
@@ -0,0 +1,320 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.controller;
+
+import com.google.common.base.Optional;
+import eu.europa.ec.grow.espd.batch.BatchDocumentSource;
+import eu.europa.ec.grow.espd.batch.BatchFormat;
+import eu.europa.ec.grow.espd.batch.BatchResponseConverter;
+import eu.europa.ec.grow.espd.batch.MultipartBatchDocumentSource;
+import eu.europa.ec.grow.espd.batch.ZipBatchDocumentSource;
+import eu.europa.ec.grow.espd.domain.EspdDocument;
+import eu.europa.ec.grow.espd.tenderned.PrintableHtmlRenderer;
+import eu.europa.ec.grow.espd.tenderned.exception.PdfRenderingException;
+import eu.europa.ec.grow.espd.tenderned.exception.TedNoticeException;
+import eu.europa.ec.grow.espd.util.EspdConfiguration;
+import eu.europa.ec.grow.espd.util.EspdExporter;
+import eu.europa.ec.grow.espd.xml.EspdXmlImporter;
+import org.apache.commons.io.IOUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_XML_VALUE;
+import static org.springframework.http.MediaType.TEXT_XML_VALUE;
+
+/**
+ * Stateless REST API doing what the wizard does with the ESPD files, for the platforms integrating the service: import,
+ * merge, export and PDF rendering. Nothing is kept between two calls and no HTTP session is created, so the calls can
+ * be spread over any number of nodes.
+ * <p>
+ * The ESPD files are exchanged as XML, the ESPD itself as JSON (see {@code JsonConfig}). The {@code flow} and
+ * {@code agent} path variables have the same meaning as in the wizard. An ESPD file which cannot be imported is
+ * answered with a 422.
+ * </p>
+ * <p>
+ * Many ESPD Responses can be converted at once, sent either as a ZIP archive or as a multipart request: the results are
+ * streamed back while the batch is being read, see {@link BatchResponseConverter}. They can also be evaluated against
+ * the ESPD Request they answer, which gives a CSV matrix of the economic operators and the requested criteria.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/v1")
+class EspdRestController {
+
+	private static final String BATCH_ARCHIVE_VALUE = "application/zip";
+	private static final String CSV_VALUE = "text/csv";
+	private static final String GZIP_VALUE = "application/gzip";
+
+	private final EspdXmlImporter xmlImporter;
+	private final EspdExporter espdExporter;
+	private final PrintableHtmlRenderer printableHtmlRenderer;
+	private final BatchResponseConverter batchResponseConverter;
+	private final EspdConfiguration espdConfiguration;
+	private final AsyncTaskExecutor pdfRenderingExecutor;
+
+	@Autowired
+	EspdRestController(EspdXmlImporter xmlImporter, EspdExporter espdExporter,
+			PrintableHtmlRenderer printableHtmlRenderer, BatchResponseConverter batchResponseConverter,
+			EspdConfiguration espdConfiguration,
+			@Qualifier("pdfRenderingExecutor") AsyncTaskExecutor pdfRenderingExecutor) {
+		this.xmlImporter = xmlImporter;
+		this.espdExporter = espdExporter;
+		this.printableHtmlRenderer = printableHtmlRenderer;
+		this.batchResponseConverter = batchResponseConverter;
+		this.espdConfiguration = espdConfiguration;
+		this.pdfRenderingExecutor = pdfRenderingExecutor;
+	}
+
+	/**
+	 * Import an ESPD Request or Response, which may be gzip compressed.
+	 */
+	@PostMapping(value = "/import", consumes = { APPLICATION_XML_VALUE, TEXT_XML_VALUE, GZIP_VALUE },
+			produces = APPLICATION_JSON_VALUE)
+	public ResponseEntity<EspdDocument> importEspd(InputStream espdFile) throws IOException {
+		return toResponse(importAmbiguousEspdFile(espdFile));
+	}
+
+	/**
+	 * Merge an ESPD Request with one or more ESPD Responses, the first responses taking precedence over the next ones.
+	 */
+	@PostMapping(value = "/merge", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = APPLICATION_JSON_VALUE)
+	public ResponseEntity<EspdDocument> merge(@RequestPart("request") MultipartFile request,
+			@RequestPart("response") List<MultipartFile> responses) throws IOException {
+		List<InputStream> responseStreams = new ArrayList<>(responses.size());
+		try (InputStream requestStream = request.getInputStream()) {
+			for (MultipartFile response : responses) {
+				responseStreams.add(response.getInputStream());
+			}
+			return toResponse(xmlImporter.mergeEspdRequestAndResponses(requestStream, responseStreams));
+		} finally {
+			for (InputStream is : responseStreams) {
+				IOUtils.closeQuietly(is);
+			}
+		}
+	}
+
+	/**
+	 * Export an ESPD as an ESPD Request for the CA or as an ESPD Response for the EO.
+	 */
+	@PostMapping(value = "/{flow:request|response}/{agent:ca|eo}/xml", consumes = APPLICATION_JSON_VALUE,
+			produces = APPLICATION_XML_VALUE)
+	public void exportXml(@PathVariable String agent, @RequestBody EspdDocument espd,
+			HttpServletRequest request, HttpServletResponse response) throws IOException {
+		response.setContentType(APPLICATION_XML_VALUE);
+		OutputStream out = GzipContentEncoding.encode(request, response, espdConfiguration.isXmlExportGzip());
+		espdExporter.exportAsXml(espd, agent, out);
+		GzipContentEncoding.finish(out);
+		response.flushBuffer();
+	}
+
+	/**
+	 * Render the PDF of an ESPD given as JSON.
+	 */
+	@PostMapping(value = "/{flow:request|response}/{agent:ca|eo}/pdf", consumes = APPLICATION_JSON_VALUE,
+			produces = MediaType.APPLICATION_PDF_VALUE)
+	public WebAsyncTask<HttpHeaders> renderPdf(@PathVariable String flow, @PathVariable String agent,
+			@RequestBody EspdDocument espd, Locale locale, HttpServletRequest request,
+			HttpServletResponse response) throws PdfRenderingException {
+		return streamPdf(flow, agent, espd, locale, request, response);
+	}
+
+	/**
+	 * Render the PDF of an ESPD Request or Response file.
+	 */
+	@PostMapping(value = "/{flow:request|response}/{agent:ca|eo}/pdf", consumes = { APPLICATION_XML_VALUE,
+			TEXT_XML_VALUE }, produces = MediaType.APPLICATION_PDF_VALUE)
+	public Object renderPdfOfFile(@PathVariable String flow, @PathVariable String agent, InputStream espdFile,
+			Locale locale, HttpServletRequest request, HttpServletResponse response)
+			throws IOException, PdfRenderingException {
+		Optional<EspdDocument> espd = importAmbiguousEspdFile(espdFile);
+		if (!espd.isPresent()) {
+			return unprocessable();
+		}
+		return streamPdf(flow, agent, espd.get(), locale, request, response);
+	}
+
+	/**
+	 * Convert the ESPD Responses of a ZIP archive, which is read as it is received.
+	 */
+	@PostMapping(value = "/batch/responses", consumes = BATCH_ARCHIVE_VALUE)
+	public void convertBatch(@RequestParam(defaultValue = "json") String format, InputStream archive,
+			HttpServletResponse response) throws IOException {
+		convertBatch(format, new ZipBatchDocumentSource(archive, espdConfiguration.getBatchDocumentMaxBytes()),
+				response);
+	}
+
+	/**
+	 * Convert the ESPD Responses sent as the 'response' parts of a multipart request.
+	 */
+	@PostMapping(value = "/batch/responses", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+	public void convertBatchOfFiles(@RequestParam(defaultValue = "json") String format,
+			@RequestPart("response") List<MultipartFile> responses, HttpServletResponse response) throws IOException {
+		convertBatch(format, new MultipartBatchDocumentSource(responses), response);
+	}
+
+	/**
+	 * Evaluate the ESPD Responses sent as 'response' parts, or in the ZIP 'archive' part, against the criteria of the
+	 * ESPD Request sent as the 'request' part.
+	 */
+	@PostMapping(value = "/evaluation", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = CSV_VALUE)
+	public void evaluate(@RequestPart("request") MultipartFile request,
+			@RequestPart(value = "response", required = false) List<MultipartFile> responses,
+			@RequestPart(value = "archive", required = false) MultipartFile archive, HttpServletResponse response)
+			throws IOException {
+		Optional<EspdDocument> espdRequest;
+		try (InputStream requestStream = request.getInputStream()) {
+			espdRequest = xmlImporter.importEspdRequest(requestStream);
+		}
+		if (!espdRequest.isPresent()) {
+			response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(), "The 'request' part is not an ESPD Request.");
+			return;
+		}
+
+		response.setContentType(CSV_VALUE + ";charset=UTF-8");
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"espd-evaluation.csv\"");
+		if (archive != null) {
+			try (InputStream archiveStream = archive.getInputStream()) {
+				batchResponseConverter.evaluate(espdRequest.get(),
+						new ZipBatchDocumentSource(archiveStream, espdConfiguration.getBatchDocumentMaxBytes()),
+						response.getOutputStream());
+			}
+		} else {
+			batchResponseConverter.evaluate(espdRequest.get(), new MultipartBatchDocumentSource(
+					responses != null ? responses : Collections.<MultipartFile>emptyList()), response.getOutputStream());
+		}
+		response.flushBuffer();
+	}
+
+	/**
+	 * The batch is converted on the request thread, which writes the results while the import pool converts the next
+	 * documents, so a large batch is not cut by the timeout of the asynchronous downloads.
+	 */
+	private void convertBatch(String format, BatchDocumentSource source, HttpServletResponse response)
+			throws IOException {
+		Optional<BatchFormat> batchFormat = BatchFormat.fromName(format);
+		if (!batchFormat.isPresent()) {
+			response.sendError(HttpStatus.BAD_REQUEST.value(), String.format("Unknown batch format '%s'.", format));
+			return;
+		}
+
+		response.setContentType(batchFormat.get().getContentType());
+		if (batchFormat.get() == BatchFormat.XML) {
+			response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"espd-responses.zip\"");
+		}
+		batchResponseConverter.convert(source, batchFormat.get(), response.getOutputStream());
+		response.flushBuffer();
+	}
+
+	private Optional<EspdDocument> importAmbiguousEspdFile(InputStream espdFile) throws IOException {
+		try {
+			return xmlImporter.importAmbiguousEspdFile(espdFile);
+		} catch (TedNoticeException e) {
+			return Optional.absent();
+		}
+	}
+
+	/**
+	 * Like for the wizard downloads, the printable view is rendered on the request thread and the PDF is streamed from
+	 * the rendering pool.
+	 */
+	private WebAsyncTask<HttpHeaders> streamPdf(String flow, final String agent, EspdDocument espd, Locale locale,
+			HttpServletRequest request, HttpServletResponse response) throws PdfRenderingException {
+		Map<String, Object> model = new HashMap<>();
+		model.put("espd", espd);
+		model.put(BindingResult.MODEL_KEY_PREFIX + "espd", new BeanPropertyBindingResult(espd, "espd"));
+		model.put("flow", flow);
+		model.put("agent", agent);
+		final String html = printableHtmlRenderer.render(model, locale, new SessionlessRequest(request), response);
+
+		return new FileDownload(response, MediaType.APPLICATION_PDF_VALUE) {
+			@Override
+			protected void write(OutputStream out) throws IOException, PdfRenderingException {
+				espdExporter.exportAsPdf(html, agent, out);
+			}
+		}.onRenderingPool(pdfRenderingExecutor, espdConfiguration.getPdfRenderingTimeoutMillis());
+	}
+
+	private static ResponseEntity<EspdDocument> toResponse(Optional<EspdDocument> espd) {
+		if (!espd.isPresent()) {
+			return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).build();
+		}
+		return ResponseEntity.ok(espd.get());
+	}
+
+	private static ResponseEntity<Object> unprocessable() {
+		return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).build();
+	}
+
+	/**
+	 * The JSP pages ask for a session by default, which this request never gives them.
+	 */
+	private static final class SessionlessRequest extends HttpServletRequestWrapper {
+
+		private SessionlessRequest(HttpServletRequest request) {
+			super(request);
+		}
+
+		@Override
+		public HttpSession getSession() {
+			return getSession(false);
+		}
+
+		@Override
+		public HttpSession getSession(boolean create) {
+			return super.getSession(false);
+		}
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.controller;
+
+import eu.europa.ec.grow.espd.tenderned.exception.PdfRenderingException;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+
+/**
+ * A PDF or ZIP file written from the rendering pool. The content type and the attachment headers are only set once the
+ * pool runs the download: a download which is rejected by a saturated pool is answered with a plain 503 (see
+ * {@link GlobalControllerExceptionHandler}) instead of an empty file.
+ * <p>
+ * Only the downloads run on the rendering pool and have its deadline, see {@link #onRenderingPool}. The other
+ * asynchronous requests keep the default executor and timeout of Spring MVC.
+ * </p>
+ * <p>
+ * A rendering failure is reported like any other error as long as nothing was sent yet. Once the first bytes are sent
+ * the chunked response can only be aborted, which the client sees as a failed download.
+ * </p>
+ */
+abstract class FileDownload implements Callable<HttpHeaders> {
+
+	private final HttpServletResponse response;
+	private final String contentType;
+	private final String fileName;
+
+	/**
+	 * A download shown by the client rather than saved as a file.
+	 */
+	FileDownload(HttpServletResponse response, String contentType) {
+		this(response, contentType, null);
+	}
+
+	FileDownload(HttpServletResponse response, String contentType, String fileName) {
+		this.response = response;
+		this.contentType = contentType;
+		this.fileName = fileName;
+	}
+
+	/**
+	 * @return The download as a task of the given rendering pool, answered with a 503 when it does not finish within
+	 * the timeout.
+	 */
+	final WebAsyncTask<HttpHeaders> onRenderingPool(AsyncTaskExecutor renderingExecutor, long timeoutMillis) {
+		return new WebAsyncTask<>(timeoutMillis, renderingExecutor, this);
+	}
+
+	/**
+	 * Write the headers and the file to the response.
+	 *
+	 * @return No headers, they are already sent with the file. The empty headers only mark the request as handled.
+	 */
+	@Override
+	public final HttpHeaders call() throws IOException {
+		response.setContentType(contentType);
+		if (fileName != null) {
+			response.setHeader(HttpHeaders.CONTENT_DISPOSITION, String.format("attachment; filename=\"%s\"", fileName));
+		}
+		try {
+			write(response.getOutputStream());
+		} catch (PdfRenderingException e) {
+			resetUncommitted(response);
+			throw new IOException(e);
+		}
+		response.flushBuffer();
+		return new HttpHeaders();
+	}
+
+	/**
+	 * Write the file, the response headers are already set.
+	 */
+	protected abstract void write(OutputStream out) throws IOException, PdfRenderingException;
+
+	/**
+	 * Drop the headers of a download which could not be completed, unless they were already sent.
+	 */
+	static void resetUncommitted(HttpServletResponse response) {
+		if (!response.isCommitted()) {
+			response.reset();
+		}
+	}
+}
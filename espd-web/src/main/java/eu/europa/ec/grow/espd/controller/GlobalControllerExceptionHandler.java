@@ -24,12 +24,20 @@
 
 package eu.europa.ec.grow.espd.controller;
 
+import eu.europa.ec.grow.espd.util.EspdConfiguration;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.oxm.MarshallingException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+
+import javax.servlet.http.HttpServletResponse;
 
 /**
  * Created by vigi on 10/29/15:11:55 AM.
@@ -38,6 +46,13 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 @Slf4j
 class GlobalControllerExceptionHandler {
 
+    private final EspdConfiguration espdConfiguration;
+
+    @Autowired
+    GlobalControllerExceptionHandler(EspdConfiguration espdConfiguration) {
+        this.espdConfiguration = espdConfiguration;
+    }
+
     @ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "MarshallingException occurred")
     @ExceptionHandler(MarshallingException.class)
     void handleMarshallingException(MarshallingException e) {
@@ -45,4 +60,21 @@ class GlobalControllerExceptionHandler {
         //returning 400 error code
     }
 
+    /**
+     * The PDF and ZIP files of the wizard and of the REST API are written on the rendering pool, see
+     * {@link FileDownload}.
+     *
+     * @return A 503 response telling the client when to try again, used when the rendering pool is saturated or
+     * when the rendering did not finish in time. It never carries the headers of the download it replaces.
+     */
+    @ExceptionHandler({ TaskRejectedException.class, AsyncRequestTimeoutException.class })
+    ResponseEntity<Object> serviceUnavailable(Exception e, HttpServletResponse response) {
+        log.warn("Could not render the download in time: {}", e.toString());
+        FileDownload.resetUncommitted(response);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                             .header(HttpHeaders.RETRY_AFTER,
+                                     String.valueOf(espdConfiguration.getPdfRenderingRetryAfterSeconds()))
+                             .build();
+    }
+
 }
@@ -0,0 +1,94 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.controller;
+
+import org.springframework.http.HttpHeaders;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip compression of the XML downloads. The ESPD files are marshalled straight into the response, so they are
+ * compressed while they are written instead of being buffered by a compressing filter. An XML file is typically ten
+ * times smaller once compressed.
+ */
+final class GzipContentEncoding {
+
+	private static final String GZIP = "gzip";
+	private static final int BUFFER_SIZE = 8192;
+	private static final Pattern NOT_ACCEPTABLE = Pattern.compile("\\s*q\\s*=\\s*0(\\.0*)?\\s*");
+
+	private GzipContentEncoding() {
+	}
+
+	/**
+	 * Give the stream where a download is written, which compresses the content when the client accepts the gzip
+	 * content encoding. It must be given to {@link #finish(OutputStream)} once the content is written.
+	 *
+	 * @param enabled Whether the download may be compressed at all
+	 */
+	static OutputStream encode(HttpServletRequest request, HttpServletResponse response, boolean enabled)
+			throws IOException {
+		if (!enabled) {
+			return response.getOutputStream();
+		}
+		response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		if (!acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+			return response.getOutputStream();
+		}
+		response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+		return new GZIPOutputStream(response.getOutputStream(), BUFFER_SIZE);
+	}
+
+	/**
+	 * Write the end of the compressed content, if any. The response stream itself is left open for the container.
+	 */
+	static void finish(OutputStream out) throws IOException {
+		if (out instanceof GZIPOutputStream) {
+			((GZIPOutputStream) out).finish();
+		}
+	}
+
+	/**
+	 * @param acceptEncoding The value of the {@code Accept-Encoding} header, such as {@code gzip, deflate;q=0.5}
+	 */
+	static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parameters = coding.split(";");
+			String name = parameters[0].trim();
+			if (GZIP.equalsIgnoreCase(name) || "x-gzip".equalsIgnoreCase(name)) {
+				return parameters.length < 2 || !NOT_ACCEPTABLE.matcher(parameters[1]).matches();
+			}
+		}
+		return false;
+	}
+}
@@ -26,15 +26,25 @@ package eu.europa.ec.grow.espd.controller;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
+import eu.europa.ec.grow.espd.i18n.MessageBundle;
+import eu.europa.ec.grow.espd.i18n.MessageBundles;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
@@ -46,11 +56,13 @@ class MessageSourceController {
 
     private final MessageSource ms;
     private final ObjectMapper mapper;
+    private final MessageBundles messageBundles;
 
     @Autowired
-    MessageSourceController(MessageSource ms, ObjectMapper mapper) {
+    MessageSourceController(MessageSource ms, ObjectMapper mapper, MessageBundles messageBundles) {
         this.ms = ms;
         this.mapper = mapper;
+        this.messageBundles = messageBundles;
     }
 
     @RequestMapping(value = {"/translate", "/{flow:request|response}/{agent:ca|eo}/translate"}, method = RequestMethod.POST)
@@ -62,7 +74,37 @@ class MessageSourceController {
             }
             labels[i] = ms.getMessage(labels[i], null, locale);
         }
-        // TODO use MessageSourceResolvable to retrieve all labels at once
         return mapper.writeValueAsString(labels);
     }
+
+    /**
+     * Keeps the language chosen on a page for the next pages and the PDF. The {@code lang} parameter is turned into the
+     * locale cookie by the {@code LocaleChangeInterceptor} of {@code WebConfiguration}, which the bundles of
+     * {@link #translations} cannot do since the browser does not ask for them again.
+     */
+    @PostMapping(value = {"/locale", "/{flow:request|response}/{agent:ca|eo}/locale"}, params = "lang")
+    public ResponseEntity<Void> changeLocale() {
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * All the labels of a language at once, precomputed by {@link MessageBundles}. When asked with the current version
+     * of the bundles, the browser may keep the labels for good since another version gets another URL. Otherwise it
+     * has to revalidate them, which is answered with a 304 as long as they did not change.
+     */
+    @GetMapping({"/translations/{lang}", "/{flow:request|response}/{agent:ca|eo}/translations/{lang}"})
+    public ResponseEntity<byte[]> translations(@PathVariable String lang,
+            @RequestParam(value = "v", required = false) String version) {
+        Optional<MessageBundle> bundle = messageBundles.getBundle(lang);
+        if (!bundle.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        CacheControl cacheControl = messageBundles.getVersion().equals(version) ?
+                CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic() : CacheControl.noCache();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .eTag(bundle.get().getEtag())
+                .cacheControl(cacheControl)
+                .body(bundle.get().getJson());
+    }
 }
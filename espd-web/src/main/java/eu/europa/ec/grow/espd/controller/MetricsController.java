@@ -0,0 +1,68 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.controller;
+
+import eu.europa.ec.grow.espd.metrics.ProcessingMetrics;
+import eu.europa.ec.grow.espd.util.EspdConfiguration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.regex.Pattern;
+
+/**
+ * Scrape endpoint of the {@link ProcessingMetrics}, in the Prometheus text format. Like the JavaMelody monitoring page,
+ * it is only served to the addresses matching the {@code espd.metrics.allowed.addr.pattern} property.
+ */
+@Controller
+class MetricsController {
+
+	private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private final ProcessingMetrics processingMetrics;
+	private final Pattern allowedAddresses;
+
+	@Autowired
+	MetricsController(ProcessingMetrics processingMetrics, EspdConfiguration espdConfiguration) {
+		this.processingMetrics = processingMetrics;
+		this.allowedAddresses = Pattern.compile(espdConfiguration.getMetricsAllowedAddrPattern());
+	}
+
+	@GetMapping("/metrics")
+	public void scrape(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		if (!allowedAddresses.matcher(request.getRemoteAddr()).matches()) {
+			response.sendError(HttpStatus.FORBIDDEN.value());
+			return;
+		}
+		response.setContentType(PROMETHEUS_CONTENT_TYPE);
+		Writer writer = response.getWriter();
+		processingMetrics.writeTo(writer);
+	}
+}
@@ -27,9 +27,11 @@ package eu.europa.ec.grow.espd.domain;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
+import java.io.Serializable;
+
 @Data
 @EqualsAndHashCode
-public class AvailableElectronically {
+public class AvailableElectronically implements Serializable {
 
     private Boolean answer;
 
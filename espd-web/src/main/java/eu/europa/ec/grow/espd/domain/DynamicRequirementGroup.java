@@ -24,6 +24,7 @@
 
 package eu.europa.ec.grow.espd.domain;
 
+import java.io.Serializable;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
@@ -35,7 +36,7 @@ import java.util.Set;
  *
  * Created by ratoico on 11/25/16.
  */
-public class DynamicRequirementGroup implements Map<String, Object> {
+public class DynamicRequirementGroup implements Map<String, Object>, Serializable {
 
 	private final Map<String, Object> values;
 
@@ -107,4 +108,14 @@ public class DynamicRequirementGroup implements Map<String, Object> {
 		return values.entrySet();
 	}
 
+	@Override
+	public boolean equals(Object o) {
+		return o == this || values.equals(o);
+	}
+
+	@Override
+	public int hashCode() {
+		return values.hashCode();
+	}
+
 }
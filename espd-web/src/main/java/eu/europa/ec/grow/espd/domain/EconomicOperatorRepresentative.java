@@ -27,13 +27,14 @@ package eu.europa.ec.grow.espd.domain;
 import eu.europa.ec.grow.espd.domain.enums.other.Country;
 import lombok.Data;
 
+import java.io.Serializable;
 import java.util.Date;
 
 /**
  * Created by ratoico on 1/19/16 at 11:56 AM.
  */
 @Data
-public class EconomicOperatorRepresentative {
+public class EconomicOperatorRepresentative implements Serializable {
 
     private String firstName;
 
@@ -26,8 +26,10 @@ package eu.europa.ec.grow.espd.domain;
 
 import lombok.Data;
 
+import java.io.Serializable;
+
 @Data
-public abstract class EspdCriterion {
+public abstract class EspdCriterion implements Serializable {
 
 	private AvailableElectronically availableElectronically = new AvailableElectronically();
 
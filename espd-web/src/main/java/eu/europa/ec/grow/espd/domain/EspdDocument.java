@@ -26,24 +26,29 @@ package eu.europa.ec.grow.espd.domain;
 
 import eu.europa.ec.grow.espd.domain.enums.criteria.ExclusionCriterion;
 import eu.europa.ec.grow.espd.domain.enums.criteria.SelectionCriterion;
+import eu.europa.ec.grow.espd.domain.infrastructure.CriterionFieldAccessors;
 import eu.europa.ec.grow.espd.domain.ubl.CcvCriterion;
-import isa.names.specification.ubl.schema.xsd.ccv_commonaggregatecomponents_1.CriterionType;
 import lombok.Data;
-import org.apache.commons.beanutils.PropertyUtils;
 
-import java.lang.reflect.InvocationTargetException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
 import java.util.Date;
-import java.util.List;
 
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
+/**
+ * The ESPD as it is filled in by the wizard and kept in the HTTP session. Nothing which can be derived from it, like the
+ * UBL criteria or the printable view, is kept here: it is rebuilt when it is needed.
+ * <p>
+ * It is serialized in its compact session form, see {@link EspdDocumentSessionForm}.
+ * </p>
+ */
 @Data
-public class EspdDocument {
+public class EspdDocument implements Serializable {
 
 	private Boolean extendCe;
 
-	private String html;
-
 	private PartyImpl authority;
 	private EconomicOperatorImpl economicOperator;
 
@@ -143,8 +148,6 @@ public class EspdDocument {
 	private QualityAssuranceCriterion certificateIndependentBodiesAboutQa;
 	private QualityAssuranceCriterion certificateIndependentBodiesAboutEnvironmental;
 
-	private List<CriterionType> ublCriteria;
-
 	public final boolean getAtLeastOneSelectionCriterionWasSelected() {
 		for (SelectionCriterion ccvCriterion : SelectionCriterion.values()) {
 			EspdCriterion espdCriterion = readCriterionFromEspd(ccvCriterion);
@@ -175,12 +178,7 @@ public class EspdDocument {
 	 * @return The value stored on the ESPD domain object for the given criterion
 	 */
 	public final EspdCriterion readCriterionFromEspd(CcvCriterion ccvCriterion) {
-		try {
-			return (EspdCriterion) PropertyUtils.getSimpleProperty(this, ccvCriterion.getEspdDocumentField());
-		} catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-			// it should never happen, the tests should cover the improper management of these values
-			return null;
-		}
+		return CriterionFieldAccessors.readCriterion(this, ccvCriterion);
 	}
 
 	/**
@@ -188,7 +186,7 @@ public class EspdDocument {
 	 */
 	public final void giveLifeToAllExclusionCriteria() {
 		for (eu.europa.ec.grow.espd.domain.enums.criteria.ExclusionCriterion crit : ExclusionCriterion.values()) {
-			instantiateEspdCriterion(crit.getEspdDocumentField(), true);
+			instantiateEspdCriterion(crit, true);
 		}
 	}
 
@@ -197,26 +195,21 @@ public class EspdDocument {
 	 */
 	public final void giveLifeToAllSelectionCriteria() {
 		for (SelectionCriterion crit : SelectionCriterion.values()) {
-			instantiateEspdCriterion(crit.getEspdDocumentField(), true);
+			instantiateEspdCriterion(crit, true);
 		}
 	}
 
 	public final void selectCAExclusionCriteriaEU() {
 		for (eu.europa.ec.grow.espd.domain.enums.criteria.ExclusionCriterion crit : ExclusionCriterion.values()) {
-			instantiateEspdCriterion(crit.getEspdDocumentField(),
+			instantiateEspdCriterion(crit,
 					!ExclusionCriterion.NATIONAL_EXCLUSION_GROUNDS.equals(crit));
 		}
 	}
 
-	private void instantiateEspdCriterion(String fieldName, Boolean value) {
-		try {
-			Class<?> clazz = PropertyUtils.getPropertyType(this, fieldName);
-			EspdCriterion espdCriterion = (EspdCriterion) clazz.newInstance();
-			espdCriterion.setExists(value);
-			PropertyUtils.setSimpleProperty(this, fieldName, espdCriterion);
-		} catch (IllegalAccessException | NoSuchMethodException | InvocationTargetException | InstantiationException e) {
-			// this is covered by tests, it should never happen so we don't care
-		}
+	private void instantiateEspdCriterion(CcvCriterion ccvCriterion, Boolean value) {
+		EspdCriterion espdCriterion = CriterionFieldAccessors.newCriterion(ccvCriterion);
+		espdCriterion.setExists(value);
+		CriterionFieldAccessors.writeCriterion(this, ccvCriterion, espdCriterion);
 	}
 
 	public final boolean hasProcurementInformation() {
@@ -234,4 +227,12 @@ public class EspdDocument {
 	private boolean hasProcurerIdentity() {
 		return authority != null && isNotBlank(authority.getName());
 	}
+
+	private Object writeReplace() {
+		return new EspdDocumentSessionForm(this);
+	}
+
+	private void readObject(ObjectInputStream stream) throws InvalidObjectException {
+		throw new InvalidObjectException("An ESPD document is only read from its session form.");
+	}
 }
@@ -0,0 +1,98 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.domain;
+
+import eu.europa.ec.grow.espd.domain.infrastructure.CriterionFieldAccessors;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.HashMap;
+
+/**
+ * Serialized form of an {@link EspdDocument}, e.g. when the HTTP session is persisted or replicated. Instead of the
+ * seventy or so criterion fields of the document, most of them usually empty, only the criteria which are present are
+ * written, by the name of the document field holding them.
+ * <p>
+ * Every property of the {@link EspdDocument} which is not a criterion has to be copied here as well.
+ * </p>
+ */
+final class EspdDocumentSessionForm implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Boolean extendCe;
+	private final PartyImpl authority;
+	private final EconomicOperatorImpl economicOperator;
+	private final String ojsNumber;
+	private final String procedureTitle;
+	private final String procedureShortDesc;
+	private final String lotConcerned;
+	private final String fileRefByCA;
+	private final String tedUrl;
+	private final String consortiumName;
+	private final EspdRequestMetadata requestMetadata;
+	private final String tedReceptionId;
+	private final Date documentDate;
+	private final String location;
+	private final HashMap<String, EspdCriterion> criteria;
+
+	EspdDocumentSessionForm(EspdDocument espdDocument) {
+		extendCe = espdDocument.getExtendCe();
+		authority = espdDocument.getAuthority();
+		economicOperator = espdDocument.getEconomicOperator();
+		ojsNumber = espdDocument.getOjsNumber();
+		procedureTitle = espdDocument.getProcedureTitle();
+		procedureShortDesc = espdDocument.getProcedureShortDesc();
+		lotConcerned = espdDocument.getLotConcerned();
+		fileRefByCA = espdDocument.getFileRefByCA();
+		tedUrl = espdDocument.getTedUrl();
+		consortiumName = espdDocument.getConsortiumName();
+		requestMetadata = espdDocument.getRequestMetadata();
+		tedReceptionId = espdDocument.getTedReceptionId();
+		documentDate = espdDocument.getDocumentDate();
+		location = espdDocument.getLocation();
+		criteria = new HashMap<>(CriterionFieldAccessors.readPresentCriteria(espdDocument));
+	}
+
+	private Object readResolve() {
+		EspdDocument espdDocument = new EspdDocument();
+		espdDocument.setExtendCe(extendCe);
+		espdDocument.setAuthority(authority);
+		espdDocument.setEconomicOperator(economicOperator);
+		espdDocument.setOjsNumber(ojsNumber);
+		espdDocument.setProcedureTitle(procedureTitle);
+		espdDocument.setProcedureShortDesc(procedureShortDesc);
+		espdDocument.setLotConcerned(lotConcerned);
+		espdDocument.setFileRefByCA(fileRefByCA);
+		espdDocument.setTedUrl(tedUrl);
+		espdDocument.setConsortiumName(consortiumName);
+		espdDocument.setRequestMetadata(requestMetadata);
+		espdDocument.setTedReceptionId(tedReceptionId);
+		espdDocument.setDocumentDate(documentDate);
+		espdDocument.setLocation(location);
+		CriterionFieldAccessors.writeCriteria(espdDocument, criteria);
+		return espdDocument;
+	}
+}
@@ -26,13 +26,14 @@ package eu.europa.ec.grow.espd.domain;
 
 import lombok.Data;
 
+import java.io.Serializable;
 import java.util.Date;
 
 /**
  * Created by ratoico on 1/21/16 at 11:01 AM.
  */
 @Data
-public class EspdRequestMetadata {
+public class EspdRequestMetadata implements Serializable {
 
     private String id;
 
@@ -27,9 +27,11 @@ package eu.europa.ec.grow.espd.domain;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
+import java.io.Serializable;
+
 @Data
 @EqualsAndHashCode
-public class SelfCleaning {
+public class SelfCleaning implements Serializable {
 
     private Boolean answer;
 
@@ -43,4 +45,3 @@ public class SelfCleaning {
 		return this.answer;
 	}
 
-}
\ No newline at end of file
@@ -34,6 +34,8 @@ import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import eu.europa.ec.grow.espd.domain.enums.criteria.ExpectedResponseType;
 import eu.europa.ec.grow.espd.domain.ubl.*;
+import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.Setter;
 import org.springframework.core.io.ClassPathResource;
 
@@ -87,63 +89,21 @@ final class CriteriaDeserializer extends JsonDeserializer<CriterionDefinitions>
 		return criterionDefinitions;
 	}
 
-	private CcvCriterion parseCcvCriterion(final JsonNode node) {
+	private CcvCriterion parseCcvCriterion(JsonNode node) {
 		if (nodeHasNoValues(node)) {
 			return null;
 		}
 
-		final String name = parseStringNode("name", node);
-		final String uuid = parseStringNode("uuid", node);
-		final String description = parseStringNode("description", node);
-		final String espdDocumentField = parseStringNode("espdDocumentField", node);
-		final CcvCriterionType ccvCriterionType = parseCriterionTypeCode(node.get("criterionType"));
-
-		return new CcvCriterion() {
-			@Override
-			public String getUuid() {
-				return uuid;
-			}
-
-			@Override
-			public String getTypeCode() {
-				return null;
-			}
-
-			@Override
-			public String getName() {
-				return name;
-			}
-
-			@Override
-			public String getDescription() {
-				return description;
-			}
-
-			@Override
-			public CcvLegislation getLegislation() {
-				return parseLegislation(node.get("legislationReference"));
-			}
-
-			@Override
-			public List<? extends CcvRequirementGroup> getGroups() {
-				ArrayNode subGroupNodes = (ArrayNode) node.get("groups");
-				List<CcvRequirementGroup> subgroups = new ArrayList<>(subGroupNodes.size());
-				for (JsonNode nd : subGroupNodes) {
-					subgroups.add(parseGroup(nd));
-				}
-				return subgroups;
-			}
-
-			@Override
-			public CcvCriterionType getCriterionType() {
-				return ccvCriterionType;
-			}
+		ArrayNode groupNodes = (ArrayNode) node.get("groups");
+		List<CcvRequirementGroup> groups = new ArrayList<>(groupNodes.size());
+		for (JsonNode nd : groupNodes) {
+			groups.add(parseGroup(nd));
+		}
 
-			@Override
-			public String getEspdDocumentField() {
-				return espdDocumentField;
-			}
-		};
+		return new DefinedCriterion(parseStringNode("uuid", node), parseStringNode("name", node),
+				parseStringNode("description", node), parseLegislation(node.get("legislationReference")),
+				Collections.unmodifiableList(groups), parseCriterionTypeCode(node.get("criterionType")),
+				parseStringNode("espdDocumentField", node));
 	}
 
 	private void addCcvEntityMappings(JsonNode node, CriterionDefinitions criterionDefinitions) {
@@ -185,132 +145,67 @@ final class CriteriaDeserializer extends JsonDeserializer<CriterionDefinitions>
 		return parentNode.get(nodeName).textValue();
 	}
 
-	private static CcvCriterionType parseCriterionTypeCode(final JsonNode parentNode) {
+	private static CcvCriterionType parseCriterionTypeCode(JsonNode parentNode) {
 		if (nodeHasNoValues(parentNode)) {
 			return null;
 		}
-		return new CcvCriterionType() {
-			@Override
-			public String getEspdType() {
-				return parseStringNode("espdType", parentNode);
-			}
-
-			@Override
-			public String getCode() {
-				return parseStringNode("code", parentNode);
-			}
-		};
+		return new DefinedCriterionType(parseStringNode("espdType", parentNode), parseStringNode("code", parentNode));
 	}
 
-	private static CcvLegislation parseLegislation(final JsonNode parentNode) {
+	private static CcvLegislation parseLegislation(JsonNode parentNode) {
 		if (nodeHasNoValues(parentNode)) {
 			return null;
 		}
-		return new CcvLegislation() {
-			@Override
-			public String getTitle() {
-				return parseStringNode("title", parentNode);
-			}
-
-			@Override
-			public String getDescription() {
-				return parseStringNode("description", parentNode);
-			}
-
-			@Override
-			public String getUrl() {
-				return parseStringNode("url", parentNode);
-			}
-
-			@Override
-			public String getArticle() {
-				return parseStringNode("article", parentNode);
-			}
-		};
+		return new DefinedLegislation(parseStringNode("title", parentNode), parseStringNode("description", parentNode),
+				parseStringNode("url", parentNode), parseStringNode("article", parentNode));
 	}
 
-	private static CcvRequirementGroup parseGroup(final JsonNode parentNode) {
+	private static CcvRequirementGroup parseGroup(JsonNode parentNode) {
 		if (nodeHasNoValues(parentNode)) {
 			return null;
 		}
 
-		return new CcvRequirementGroup() {
-			@Override
-			public String getId() {
-				return parseStringNode("id", parentNode);
-			}
-
-			@Override
-			public Boolean fulfillmentIndicator() {
-				if (parentNode.get("fulfillmentIndicator") == null) {
-					return null;
-				}
-				return parentNode.get("fulfillmentIndicator").asBoolean();
-			}
-
-			@Override
-			public List<? extends CcvRequirementGroup> getSubgroups() {
-				ArrayNode subGroupNodes = (ArrayNode) parentNode.get("subgroups");
-				if (subGroupNodes == null) {
-					return Collections.emptyList();
-				}
-				List<CcvRequirementGroup> subgroups = new ArrayList<>(subGroupNodes.size());
-				for (JsonNode nd : subGroupNodes) {
-					subgroups.add(parseGroup(nd));
-				}
-				return subgroups;
+		List<CcvRequirementGroup> subgroups = Collections.emptyList();
+		ArrayNode subGroupNodes = (ArrayNode) parentNode.get("subgroups");
+		if (subGroupNodes != null) {
+			subgroups = new ArrayList<>(subGroupNodes.size());
+			for (JsonNode nd : subGroupNodes) {
+				subgroups.add(parseGroup(nd));
 			}
+			subgroups = Collections.unmodifiableList(subgroups);
+		}
 
-			@Override
-			public boolean isUnbounded() {
-				return parentNode.get("unbounded") != null && parentNode.get("unbounded").asBoolean();
+		List<CcvCriterionRequirement> requirements = Collections.emptyList();
+		ArrayNode requirementNodes = (ArrayNode) parentNode.get("requirements");
+		if (!nodeHasNoValues(requirementNodes)) {
+			requirements = new ArrayList<>(requirementNodes.size());
+			for (JsonNode nd : requirementNodes) {
+				requirements.add(parseRequirement(nd));
 			}
+			requirements = Collections.unmodifiableList(requirements);
+		}
 
-			@Override
-			public List<? extends CcvCriterionRequirement> getRequirements() {
-				ArrayNode requirementNodes = (ArrayNode) parentNode.get("requirements");
-				if (nodeHasNoValues(requirementNodes)) {
-					return Collections.emptyList();
-				}
-				List<CcvCriterionRequirement> requirements = new ArrayList<>(requirementNodes.size());
-				for (JsonNode nd : requirementNodes) {
-					requirements.add(parseRequirement(nd));
-				}
-				return requirements;
-			}
-		};
+		JsonNode fulfillmentIndicator = parentNode.get("fulfillmentIndicator");
+		JsonNode unbounded = parentNode.get("unbounded");
+		return new DefinedRequirementGroup(parseStringNode("id", parentNode),
+				fulfillmentIndicator == null ? null : fulfillmentIndicator.asBoolean(), requirements, subgroups,
+				unbounded != null && unbounded.asBoolean());
 	}
 
-	private static CcvCriterionRequirement parseRequirement(final JsonNode parentNode) {
+	private static CcvCriterionRequirement parseRequirement(JsonNode parentNode) {
 		if (nodeHasNoValues(parentNode)) {
 			return null;
 		}
-		return new CcvCriterionRequirement() {
-			@Override
-			public String getId() {
-				return parseStringNode("id", parentNode);
-			}
-
-			@Override
-			public String getDescription() {
-				return parseStringNode("description", parentNode);
-			}
 
-			@Override
-			public CcvResponseType getResponseType() {
-				return ExpectedResponseType.valueOf(parseStringNode("responseType", parentNode));
-			}
+		ArrayNode fieldNodes = (ArrayNode) parentNode.get("espdCriterionFields");
+		List<String> fields = new ArrayList<>(fieldNodes.size());
+		for (JsonNode nd : fieldNodes) {
+			fields.add(nd.textValue());
+		}
 
-			@Override
-			public List<String> getEspdCriterionFields() {
-				ArrayNode fieldNodes = (ArrayNode) parentNode.get("espdCriterionFields");
-				List<String> fields = new ArrayList<>(fieldNodes.size());
-				for (JsonNode nd : fieldNodes) {
-					fields.add(nd.textValue());
-				}
-				return fields;
-			}
-		};
+		return new DefinedRequirement(parseStringNode("id", parentNode), parseStringNode("description", parentNode),
+				ExpectedResponseType.valueOf(parseStringNode("responseType", parentNode)),
+				Collections.unmodifiableList(fields));
 	}
 
 	private static boolean nodeHasNoValues(JsonNode parentNode) {
@@ -330,4 +225,124 @@ final class CriteriaDeserializer extends JsonDeserializer<CriterionDefinitions>
 		}
 	}
 
+	/*
+	 * The criteria definitions are read once, when the application starts, and are then looked up thousands of times
+	 * per exported or imported ESPD. They are therefore fully built up front into the immutable objects below, so
+	 * that no JSON is kept around and reading a definition never allocates.
+	 */
+
+	@Getter
+	private static final class DefinedCriterion implements CcvCriterion {
+
+		private final String uuid;
+		private final String name;
+		private final String description;
+		private final CcvLegislation legislation;
+		private final List<? extends CcvRequirementGroup> groups;
+		private final CcvCriterionType criterionType;
+		private final String espdDocumentField;
+
+		private DefinedCriterion(String uuid, String name, String description, CcvLegislation legislation,
+				List<? extends CcvRequirementGroup> groups, CcvCriterionType criterionType, String espdDocumentField) {
+			this.uuid = uuid;
+			this.name = name;
+			this.description = description;
+			this.legislation = legislation;
+			this.groups = groups;
+			this.criterionType = criterionType;
+			this.espdDocumentField = espdDocumentField;
+		}
+
+		@Override
+		public String getTypeCode() {
+			return null;
+		}
+
+		@Override
+		public String toString() {
+			return "CcvCriterion[" + uuid + ", " + name + "]";
+		}
+	}
+
+	@Getter
+	private static final class DefinedCriterionType implements CcvCriterionType {
+
+		private final String espdType;
+		private final String code;
+
+		private DefinedCriterionType(String espdType, String code) {
+			this.espdType = espdType;
+			this.code = code;
+		}
+	}
+
+	@Getter
+	private static final class DefinedLegislation implements CcvLegislation {
+
+		private final String title;
+		private final String description;
+		private final String url;
+		private final String article;
+
+		private DefinedLegislation(String title, String description, String url, String article) {
+			this.title = title;
+			this.description = description;
+			this.url = url;
+			this.article = article;
+		}
+	}
+
+	@Getter
+	private static final class DefinedRequirementGroup implements CcvRequirementGroup {
+
+		private final String id;
+		@Getter(AccessLevel.NONE)
+		private final Boolean fulfillmentIndicator;
+		private final List<? extends CcvCriterionRequirement> requirements;
+		private final List<? extends CcvRequirementGroup> subgroups;
+		private final boolean unbounded;
+
+		private DefinedRequirementGroup(String id, Boolean fulfillmentIndicator,
+				List<? extends CcvCriterionRequirement> requirements, List<? extends CcvRequirementGroup> subgroups,
+				boolean unbounded) {
+			this.id = id;
+			this.fulfillmentIndicator = fulfillmentIndicator;
+			this.requirements = requirements;
+			this.subgroups = subgroups;
+			this.unbounded = unbounded;
+		}
+
+		@Override
+		public Boolean fulfillmentIndicator() {
+			return fulfillmentIndicator;
+		}
+
+		@Override
+		public String toString() {
+			return "CcvRequirementGroup[" + id + "]";
+		}
+	}
+
+	@Getter
+	private static final class DefinedRequirement implements CcvCriterionRequirement {
+
+		private final String id;
+		private final String description;
+		private final CcvResponseType responseType;
+		private final List<String> espdCriterionFields;
+
+		private DefinedRequirement(String id, String description, CcvResponseType responseType,
+				List<String> espdCriterionFields) {
+			this.id = id;
+			this.description = description;
+			this.responseType = responseType;
+			this.espdCriterionFields = espdCriterionFields;
+		}
+
+		@Override
+		public String toString() {
+			return "CcvCriterionRequirement[" + id + "]";
+		}
+	}
+
 }
@@ -29,8 +29,10 @@ import eu.europa.ec.grow.espd.domain.ubl.CcvCriterion;
 import eu.europa.ec.grow.espd.domain.ubl.CcvCriterionRequirement;
 import eu.europa.ec.grow.espd.domain.ubl.CcvRequirementGroup;
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -38,6 +40,10 @@ import java.util.Map;
  * Central Utility class for holding ESPD criteria, requirement groups and requirements meta information by using
  * the criterion UUID.
  * <p>
+ * The ids are looked up without their surrounding whitespace, so that the JAXB and the streaming imports recognise the
+ * same criteria whatever the layout of the imported file.
+ * </p>
+ * <p>
  * Created by ratoico on 5/23/16.
  */
 public final class CriterionDefinitions {
@@ -136,15 +142,19 @@ public final class CriterionDefinitions {
 		}
 	}
 
+	static Collection<CcvCriterion> getAllCriteria() {
+		return Collections.unmodifiableCollection(INSTANCE.criteria.values());
+	}
+
 	public static Optional<CcvCriterion> findCriterionById(String uuid) {
-		return Optional.fromNullable(INSTANCE.criteria.get(uuid));
+		return Optional.fromNullable(INSTANCE.criteria.get(StringUtils.trim(uuid)));
 	}
 
 	public static Optional<CcvRequirementGroup> findRequirementGroupById(String uuid) {
-		return Optional.fromNullable(INSTANCE.requirementGroups.get(uuid));
+		return Optional.fromNullable(INSTANCE.requirementGroups.get(StringUtils.trim(uuid)));
 	}
 
 	public static Optional<CcvCriterionRequirement> findRequirementById(String uuid) {
-		return Optional.fromNullable(INSTANCE.requirements.get(uuid));
+		return Optional.fromNullable(INSTANCE.requirements.get(StringUtils.trim(uuid)));
 	}
 }
@@ -0,0 +1,331 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.domain.infrastructure;
+
+import eu.europa.ec.grow.espd.domain.DynamicRequirementGroup;
+import eu.europa.ec.grow.espd.domain.EspdCriterion;
+import eu.europa.ec.grow.espd.domain.EspdDocument;
+import eu.europa.ec.grow.espd.domain.ubl.CcvCriterion;
+import eu.europa.ec.grow.espd.domain.ubl.CcvCriterionRequirement;
+import eu.europa.ec.grow.espd.domain.ubl.CcvRequirementGroup;
+import org.apache.commons.lang3.StringUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Table of accessors for the fields of the ESPD model which are mapped in the criteria definitions: the
+ * {@link EspdDocument} field holding each criterion and the {@link EspdCriterion} fields holding the values of the
+ * requirements.
+ * <p>
+ * The getters and setters are resolved only once, when the class is loaded, out of the {@link CriterionDefinitions}
+ * and are afterwards invoked through {@link MethodHandle}s instead of being looked up by name on every access. A field
+ * name from the criteria JSON files which does not match a property of the ESPD model makes the loading fail.
+ * </p>
+ */
+public final class CriterionFieldAccessors {
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+	/**
+	 * The {@link EspdDocument} fields holding the criteria, by their name (the 'espdDocumentField' of a criterion).
+	 */
+	private static final Map<String, FieldAccessor> DOCUMENT_FIELDS;
+
+	/**
+	 * The fields of each criterion class which hold the values of requirements, by their name.
+	 */
+	private static final Map<Class<?>, Map<String, FieldAccessor>> REQUIREMENT_FIELDS;
+
+	static {
+		Map<String, FieldAccessor> documentFields = new HashMap<>();
+		Map<Class<?>, Map<String, FieldAccessor>> requirementFields = new HashMap<>();
+		for (CcvCriterion criterion : CriterionDefinitions.getAllCriteria()) {
+			FieldAccessor documentField = resolve(EspdDocument.class, criterion.getEspdDocumentField(), criterion);
+			documentFields.put(criterion.getEspdDocumentField(), documentField);
+
+			Map<String, FieldAccessor> fields = requirementFields.get(documentField.type);
+			if (fields == null) {
+				fields = new HashMap<>();
+				requirementFields.put(documentField.type, fields);
+			}
+			for (CcvRequirementGroup group : criterion.getGroups()) {
+				addRequirementFields(documentField.type, group, fields, criterion);
+			}
+		}
+		for (Map.Entry<Class<?>, Map<String, FieldAccessor>> entry : requirementFields.entrySet()) {
+			entry.setValue(Collections.unmodifiableMap(entry.getValue()));
+		}
+		DOCUMENT_FIELDS = Collections.unmodifiableMap(documentFields);
+		REQUIREMENT_FIELDS = Collections.unmodifiableMap(requirementFields);
+	}
+
+	private CriterionFieldAccessors() {
+	}
+
+	/**
+	 * Make sure that the accessors are built, e.g. when the application starts, so that a mismatch between the criteria
+	 * definitions and the ESPD model is detected as early as possible.
+	 *
+	 * @return The number of criterion fields of the {@link EspdDocument}
+	 */
+	public static int initialize() {
+		return DOCUMENT_FIELDS.size();
+	}
+
+	private static void addRequirementFields(Class<?> criterionClass, CcvRequirementGroup group,
+			Map<String, FieldAccessor> fields, CcvCriterion criterion) {
+		if (group == null || group.isUnbounded()) {
+			// the values of unbounded groups are stored in a DynamicRequirementGroup
+			return;
+		}
+		for (CcvCriterionRequirement requirement : group.getRequirements()) {
+			for (String field : requirement.getEspdCriterionFields()) {
+				if (StringUtils.isNotBlank(field) && !fields.containsKey(field)) {
+					fields.put(field, resolve(criterionClass, field, criterion));
+				}
+			}
+		}
+		for (CcvRequirementGroup subgroup : group.getSubgroups()) {
+			addRequirementFields(criterionClass, subgroup, fields, criterion);
+		}
+	}
+
+	/**
+	 * Read the criterion stored on the ESPD document for a criterion definition.
+	 */
+	public static EspdCriterion readCriterion(EspdDocument espdDocument, CcvCriterion ccvCriterion) {
+		return (EspdCriterion) documentField(ccvCriterion).get(espdDocument);
+	}
+
+	/**
+	 * Store a criterion on the ESPD document, in the field of its criterion definition.
+	 */
+	public static void writeCriterion(EspdDocument espdDocument, CcvCriterion ccvCriterion,
+			EspdCriterion espdCriterion) {
+		documentField(ccvCriterion).set(espdDocument, espdCriterion);
+	}
+
+	/**
+	 * Read all the criteria stored on the ESPD document, leaving out the fields holding no criterion.
+	 *
+	 * @return The criteria by the name of the {@link EspdDocument} field holding them
+	 */
+	public static Map<String, EspdCriterion> readPresentCriteria(EspdDocument espdDocument) {
+		Map<String, EspdCriterion> criteria = new HashMap<>();
+		for (Map.Entry<String, FieldAccessor> field : DOCUMENT_FIELDS.entrySet()) {
+			EspdCriterion espdCriterion = (EspdCriterion) field.getValue().get(espdDocument);
+			if (espdCriterion != null) {
+				criteria.put(field.getKey(), espdCriterion);
+			}
+		}
+		return criteria;
+	}
+
+	/**
+	 * Store criteria read by {@link #readPresentCriteria(EspdDocument)} on an ESPD document.
+	 *
+	 * @param criteria The criteria by the name of the {@link EspdDocument} field holding them
+	 */
+	public static void writeCriteria(EspdDocument espdDocument, Map<String, EspdCriterion> criteria) {
+		for (Map.Entry<String, EspdCriterion> criterion : criteria.entrySet()) {
+			FieldAccessor field = DOCUMENT_FIELDS.get(criterion.getKey());
+			if (field == null) {
+				throw new IllegalArgumentException(
+						String.format("'%s' is not an ESPD document criterion field.", criterion.getKey()));
+			}
+			field.set(espdDocument, criterion.getValue());
+		}
+	}
+
+	/**
+	 * Create an empty criterion of the type of the ESPD document field of a criterion definition.
+	 */
+	public static EspdCriterion newCriterion(CcvCriterion ccvCriterion) {
+		return (EspdCriterion) documentField(ccvCriterion).newInstance();
+	}
+
+	/**
+	 * Read the value of a requirement from a criterion or, for the requirements of unbounded groups, from a
+	 * {@link DynamicRequirementGroup}.
+	 *
+	 * @param target The {@link EspdCriterion} or {@link DynamicRequirementGroup} holding the value
+	 * @param field  One of the 'espdCriterionFields' of the requirement
+	 */
+	public static Object readRequirementValue(Object target, String field) {
+		if (target instanceof DynamicRequirementGroup) {
+			return ((DynamicRequirementGroup) target).get(field);
+		}
+		return requirementField(target.getClass(), field).get(target);
+	}
+
+	/**
+	 * Set the value of a requirement on a criterion.
+	 *
+	 * @param espdCriterion The criterion holding the value
+	 * @param field         One of the 'espdCriterionFields' of the requirement
+	 * @param value         The value, of the type of the field
+	 */
+	public static void writeRequirementValue(EspdCriterion espdCriterion, String field, Object value) {
+		requirementField(espdCriterion.getClass(), field).set(espdCriterion, value);
+	}
+
+	private static FieldAccessor documentField(CcvCriterion ccvCriterion) {
+		FieldAccessor accessor = DOCUMENT_FIELDS.get(ccvCriterion.getEspdDocumentField());
+		if (accessor == null) {
+			throw new IllegalArgumentException(
+					String.format("No ESPD document field is mapped to criterion '%s'.", ccvCriterion.getUuid()));
+		}
+		return accessor;
+	}
+
+	private static FieldAccessor requirementField(Class<?> criterionClass, String field) {
+		for (Class<?> clazz = criterionClass; clazz != null; clazz = clazz.getSuperclass()) {
+			Map<String, FieldAccessor> fields = REQUIREMENT_FIELDS.get(clazz);
+			if (fields != null && fields.containsKey(field)) {
+				return fields.get(field);
+			}
+		}
+		throw new IllegalArgumentException(
+				String.format("Field '%s' is not mapped to any requirement of '%s'.", field,
+						criterionClass.getSimpleName()));
+	}
+
+	private static FieldAccessor resolve(Class<?> clazz, String field, CcvCriterion criterion) {
+		Method getter = findGetter(clazz, field);
+		Method setter = getter == null ? null : findSetter(clazz, field, getter.getReturnType());
+		if (getter == null || setter == null) {
+			throw new IllegalStateException(String.format(
+					"Field '%s' of criterion '%s' (%s) has no public getter and setter on '%s'.", field,
+					criterion.getUuid(), criterion.getName(), clazz.getSimpleName()));
+		}
+
+		MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+		try {
+			Class<?> type = getter.getReturnType();
+			MethodHandle constructor = null;
+			if (EspdCriterion.class.isAssignableFrom(type) && !Modifier.isAbstract(type.getModifiers())) {
+				constructor = lookup.findConstructor(type, MethodType.methodType(void.class)).asType(CONSTRUCTOR_TYPE);
+			}
+			return new FieldAccessor(field, type, lookup.unreflect(getter).asType(GETTER_TYPE),
+					lookup.unreflect(setter).asType(SETTER_TYPE), constructor);
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new IllegalStateException(String.format("Field '%s' of criterion '%s' is not accessible on '%s'.",
+					field, criterion.getUuid(), clazz.getSimpleName()), e);
+		}
+	}
+
+	private static Method findGetter(Class<?> clazz, String field) {
+		String suffix = StringUtils.capitalize(field);
+		for (Method method : clazz.getMethods()) {
+			if (method.getParameterTypes().length == 0 && !Modifier.isStatic(method.getModifiers())
+					&& !method.isBridge()
+					&& (method.getName().equals("get" + suffix) || method.getName().equals("is" + suffix))) {
+				return method;
+			}
+		}
+		return null;
+	}
+
+	private static Method findSetter(Class<?> clazz, String field, Class<?> type) {
+		String name = "set" + StringUtils.capitalize(field);
+		Method found = null;
+		for (Method method : clazz.getMethods()) {
+			if (method.getName().equals(name) && method.getParameterTypes().length == 1
+					&& !Modifier.isStatic(method.getModifiers())) {
+				if (method.getParameterTypes()[0].equals(type)) {
+					return method;
+				}
+				found = method;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Getter, setter and, for criterion fields, constructor of one field of the ESPD model.
+	 */
+	private static final class FieldAccessor {
+
+		private final String name;
+		private final Class<?> type;
+		private final MethodHandle getter;
+		private final MethodHandle setter;
+		private final MethodHandle constructor;
+
+		private FieldAccessor(String name, Class<?> type, MethodHandle getter, MethodHandle setter,
+				MethodHandle constructor) {
+			this.name = name;
+			this.type = type;
+			this.getter = getter;
+			this.setter = setter;
+			this.constructor = constructor;
+		}
+
+		private Object get(Object target) {
+			try {
+				return (Object) getter.invokeExact(target);
+			} catch (Throwable e) {
+				throw failure("read", e);
+			}
+		}
+
+		private void set(Object target, Object value) {
+			try {
+				setter.invokeExact(target, value);
+			} catch (Throwable e) {
+				throw failure("write", e);
+			}
+		}
+
+		private Object newInstance() {
+			if (constructor == null) {
+				throw new IllegalStateException(String.format("Field '%s' cannot be instantiated.", name));
+			}
+			try {
+				return (Object) constructor.invokeExact();
+			} catch (Throwable e) {
+				throw failure("instantiate", e);
+			}
+		}
+
+		private RuntimeException failure(String operation, Throwable e) {
+			if (e instanceof Error) {
+				throw (Error) e;
+			}
+			// same exception as the one thrown by reflection for a value which does not match the type of the field
+			return new IllegalArgumentException(String.format("Could not %s field '%s'.", operation, name), e);
+		}
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.i18n;
+
+import com.google.common.hash.Hashing;
+
+/**
+ * The labels of one language as a JSON object, by label key.
+ */
+public final class MessageBundle {
+
+	private final byte[] json;
+	private final String etag;
+
+	MessageBundle(byte[] json) {
+		this.json = json;
+		this.etag = '"' + Hashing.sha256().hashBytes(json).toString().substring(0, 32) + '"';
+	}
+
+	/**
+	 * @return The JSON document, in UTF-8, which must not be modified
+	 */
+	public byte[] getJson() {
+		return json;
+	}
+
+	/**
+	 * @return The quoted hash of the JSON document
+	 */
+	public String getEtag() {
+		return etag;
+	}
+}
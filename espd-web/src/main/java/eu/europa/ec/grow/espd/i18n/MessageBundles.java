@@ -0,0 +1,136 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.i18n;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import eu.europa.ec.grow.espd.util.EspdConfiguration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.MessageSource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The complete set of labels of each language, serialized as JSON once at startup, so that switching the language of
+ * a page does not cost one message lookup per label anymore.
+ * <p>
+ * The labels are resolved by the {@link MessageSource}, with the same fallbacks as the labels of the pages. Each bundle
+ * carries a hash of its content, used as its ETag, and the bundles together have a version which is used in their URL
+ * so that the browsers can keep them for as long as the application is not redeployed with other labels.
+ * </p>
+ */
+@Component
+@Slf4j
+public class MessageBundles {
+
+	private final Map<String, MessageBundle> bundles;
+	private final String version;
+
+	@Autowired
+	MessageBundles(MessageSource messageSource, ObjectMapper mapper, ResourceLoader resourceLoader,
+			EspdConfiguration espdConfiguration) throws IOException {
+		long start = System.currentTimeMillis();
+		ResourcePatternResolver resolver = ResourcePatternUtils.getResourcePatternResolver(resourceLoader);
+		String basename = espdConfiguration.getMessagesBasename();
+		Set<String> defaultKeys = readKeys(resolver.getResource("classpath:" + basename + ".properties"));
+
+		Map<String, MessageBundle> precomputed = new HashMap<>();
+		Hasher versionHasher = Hashing.sha256().newHasher();
+		for (Resource resource : resolver.getResources("classpath*:" + basename + "_*.properties")) {
+			String language = languageOf(resource.getFilename());
+			Set<String> keys = new TreeSet<>(defaultKeys);
+			keys.addAll(readKeys(resource));
+
+			Locale locale = Locale.forLanguageTag(language);
+			Map<String, String> labels = new TreeMap<>();
+			for (String key : keys) {
+				labels.put(key, messageSource.getMessage(key, null, key, locale));
+			}
+			MessageBundle bundle = new MessageBundle(mapper.writeValueAsBytes(labels));
+			precomputed.put(language, bundle);
+			versionHasher.putString(language, UTF_8).putString(bundle.getEtag(), UTF_8);
+		}
+		this.bundles = Collections.unmodifiableMap(precomputed);
+		this.version = versionHasher.hash().toString().substring(0, 16);
+		log.info("--- Precomputed the message bundles of {} languages in {} ms, version {}.", bundles.size(),
+				System.currentTimeMillis() - start, version);
+	}
+
+	private static Set<String> readKeys(Resource resource) throws IOException {
+		Properties properties = new Properties();
+		try (Reader reader = new InputStreamReader(resource.getInputStream(), UTF_8)) {
+			properties.load(reader);
+		}
+		return properties.stringPropertyNames();
+	}
+
+	/**
+	 * 'messages_fr.properties' is the bundle of 'fr'.
+	 */
+	private static String languageOf(String filename) {
+		return filename.substring(filename.indexOf('_') + 1, filename.lastIndexOf('.')).toLowerCase();
+	}
+
+	/**
+	 * @param language A language code like 'fr', or a language tag like 'fr-BE' which gets the bundle of its language
+	 *
+	 * @return The bundle of the language, if there is one
+	 */
+	public Optional<MessageBundle> getBundle(String language) {
+		String code = language.toLowerCase().replace('_', '-');
+		MessageBundle bundle = bundles.get(code);
+		if (bundle == null && code.contains("-")) {
+			bundle = bundles.get(code.substring(0, code.indexOf('-')));
+		}
+		return Optional.fromNullable(bundle);
+	}
+
+	/**
+	 * @return The version of all the bundles, which changes as soon as one label changes
+	 */
+	public String getVersion() {
+		return version;
+	}
+}
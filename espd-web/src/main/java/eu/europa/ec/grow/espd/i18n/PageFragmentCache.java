@@ -0,0 +1,113 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.i18n;
+
+import com.google.common.base.Joiner;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import eu.europa.ec.grow.espd.util.EspdConfiguration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * The rendered markup of the static parts of the criteria shown by the wizard: titles, descriptions, tooltips and the
+ * eCertis panel. They only depend on the language, on the agent and the flow of the page and on the criterion, so
+ * each of them is rendered once and then copied into the pages by the {@link PageFragmentTag}. The parts holding the
+ * answers of the user are rendered on every page.
+ * <p>
+ * The cache is bounded by its number of fragments and is disabled when {@code espd.page.fragment.cache.maximum.size}
+ * is 0. The labels are not reloaded while the application runs, so the fragments never expire.
+ * </p>
+ */
+@Component
+@ManagedResource(description = "Cache of the rendered static parts of the criteria")
+public class PageFragmentCache {
+
+	private static final Joiner KEY_JOINER = Joiner.on('|').useForNull("");
+
+	private final Cache<String, String> cache;
+
+	@Autowired
+	PageFragmentCache(EspdConfiguration espdConfiguration) {
+		this(espdConfiguration.getPageFragmentCacheMaximumSize());
+	}
+
+	PageFragmentCache(long maximumSize) {
+		this.cache = maximumSize > 0 ? CacheBuilder.newBuilder()
+				.maximumSize(maximumSize)
+				.recordStats()
+				.<String, String>build() : null;
+	}
+
+	/**
+	 * @param locale The language of the labels
+	 * @param agent  'ca' or 'eo'
+	 * @param flow   'request' or 'response'
+	 * @param name   Identifies the fragment within a page, such as the template and the criterion it renders
+	 */
+	public static String key(Locale locale, String agent, String flow, String name) {
+		return KEY_JOINER.join(locale, agent, flow, name);
+	}
+
+	/**
+	 * @return The fragment rendered earlier with this key, or {@code null} if it has to be rendered
+	 */
+	public String get(String key) {
+		return cache != null ? cache.getIfPresent(key) : null;
+	}
+
+	public void put(String key, String fragment) {
+		if (cache != null) {
+			cache.put(key, fragment);
+		}
+	}
+
+	@ManagedAttribute(description = "Number of fragments copied from the cache")
+	public long getHits() {
+		return cache != null ? cache.stats().hitCount() : 0;
+	}
+
+	@ManagedAttribute(description = "Number of fragments which had to be rendered")
+	public long getMisses() {
+		return cache != null ? cache.stats().missCount() : 0;
+	}
+
+	@ManagedAttribute(description = "Number of cached fragments")
+	public long getSize() {
+		return cache != null ? cache.size() : 0;
+	}
+
+	@ManagedOperation(description = "Remove all the cached fragments, for instance after the labels were changed")
+	public void invalidateAll() {
+		if (cache != null) {
+			cache.invalidateAll();
+		}
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.i18n;
+
+import org.springframework.web.context.support.WebApplicationContextUtils;
+
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.PageContext;
+import javax.servlet.jsp.tagext.JspFragment;
+import javax.servlet.jsp.tagext.SimpleTagSupport;
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * {@code <espd:fragment name="...">} writes its body as it was rendered the first time for the same language, agent,
+ * flow and name, see {@link PageFragmentCache}. The agent and the flow are the ones of the page being rendered.
+ * <p>
+ * The body must not depend on anything else than what the name identifies: no form field, no answer of the user.
+ * </p>
+ */
+public class PageFragmentTag extends SimpleTagSupport {
+
+	private String name;
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	@Override
+	public void doTag() throws JspException, IOException {
+		PageContext pageContext = (PageContext) getJspContext();
+		PageFragmentCache cache = WebApplicationContextUtils
+				.getRequiredWebApplicationContext(pageContext.getServletContext()).getBean(PageFragmentCache.class);
+		// the same locale as the one of the labels, see I18NFunc
+		String key = PageFragmentCache.key(pageContext.getResponse().getLocale(), attribute(pageContext, "agent"),
+				attribute(pageContext, "flow"), name);
+
+		String fragment = cache.get(key);
+		if (fragment == null) {
+			fragment = render(getJspBody());
+			cache.put(key, fragment);
+		}
+		pageContext.getOut().write(fragment);
+	}
+
+	private static String render(JspFragment body) throws JspException, IOException {
+		if (body == null) {
+			return "";
+		}
+		StringWriter out = new StringWriter();
+		body.invoke(out);
+		return out.toString();
+	}
+
+	private static String attribute(PageContext pageContext, String name) {
+		Object value = pageContext.findAttribute(name);
+		return value != null ? value.toString() : null;
+	}
+}
@@ -0,0 +1,244 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the time spent, the memory allocated and the bytes read or written by each {@link ProcessingStage} of the
+ * ESPD import and export, per agent and flow (see {@link ProcessingTags}). The HTTP monitoring only sees whole
+ * requests, these metrics tell which part of a request is slow. The serialized size of the ESPD documents kept in the
+ * HTTP sessions is recorded as well, see {@link SessionSizeInterceptor}.
+ * <p>
+ * The allocated memory is read from the HotSpot {@code com.sun.management.ThreadMXBean} and is reported as 0 on the
+ * JVMs which do not support it. The metrics are exported in the Prometheus text format by
+ * {@link #writeTo(Writer)}.
+ * </p>
+ */
+@Component
+@Slf4j
+public class ProcessingMetrics {
+
+	private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private final Map<ProcessingStage, ConcurrentMap<ProcessingTags, StageStatistics>> statistics =
+			new EnumMap<>(ProcessingStage.class);
+	private final SizeHistogram sessionDocumentSizes = new SizeHistogram();
+	private final ThreadMXBean threadBean;
+	private final boolean allocationMeasured;
+
+	public ProcessingMetrics() {
+		for (ProcessingStage stage : ProcessingStage.values()) {
+			statistics.put(stage, new ConcurrentHashMap<ProcessingTags, StageStatistics>());
+		}
+		threadBean = ManagementFactory.getThreadMXBean();
+		allocationMeasured = isAllocationMeasurable(threadBean);
+		log.debug("--- Processing stage allocations measured: {}.", allocationMeasured);
+	}
+
+	private static boolean isAllocationMeasurable(ThreadMXBean threadBean) {
+		try {
+			return threadBean instanceof com.sun.management.ThreadMXBean
+					&& ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()
+					&& ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemoryEnabled();
+		} catch (NoClassDefFoundError e) {
+			// not a HotSpot based JVM
+			return false;
+		}
+	}
+
+	/**
+	 * Start measuring a stage run by the current thread for the {@link ProcessingTags} bound to it.
+	 */
+	public StageSample start(ProcessingStage stage) {
+		return new StageSample(this, stage, ProcessingTags.current());
+	}
+
+	/**
+	 * Record a stage measured by the caller, for the {@link ProcessingTags} bound to the current thread.
+	 *
+	 * @param stage          The processing stage
+	 * @param nanos          The time spent in the stage
+	 * @param allocatedBytes The memory allocated by the stage, 0 if it is unknown
+	 * @param bytes          The number of bytes read or written by the stage, 0 if it is unknown
+	 */
+	public void record(ProcessingStage stage, long nanos, long allocatedBytes, long bytes) {
+		record(stage, ProcessingTags.current(), nanos, allocatedBytes, bytes);
+	}
+
+	void record(ProcessingStage stage, ProcessingTags tags, long nanos, long allocatedBytes, long bytes) {
+		ConcurrentMap<ProcessingTags, StageStatistics> stageStatistics = statistics.get(stage);
+		StageStatistics tagStatistics = stageStatistics.get(tags);
+		if (tagStatistics == null) {
+			StageStatistics created = new StageStatistics();
+			tagStatistics = stageStatistics.putIfAbsent(tags, created);
+			if (tagStatistics == null) {
+				tagStatistics = created;
+			}
+		}
+		tagStatistics.record(Math.max(0, nanos), Math.max(0, allocatedBytes), bytes);
+	}
+
+	/**
+	 * Record the serialized size of an ESPD document kept in an HTTP session.
+	 */
+	public void recordSessionDocumentSize(long bytes) {
+		sessionDocumentSizes.record(bytes);
+	}
+
+	/**
+	 * @return The number of bytes allocated so far by the current thread, or 0 if the JVM cannot tell
+	 */
+	public long currentThreadAllocatedBytes() {
+		if (!allocationMeasured) {
+			return 0;
+		}
+		return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Write all the metrics in the Prometheus text exposition format (version 0.0.4).
+	 */
+	public void writeTo(Writer writer) throws IOException {
+		List<Map.Entry<String, StageStatistics>> series = collectSeries();
+
+		writeHeader(writer, "espd_stage_duration_seconds", "histogram",
+				"Time spent in an ESPD processing stage.");
+		for (Map.Entry<String, StageStatistics> entry : series) {
+			String labels = entry.getKey();
+			StageStatistics stats = entry.getValue();
+			for (int i = 0; i < StageStatistics.DURATION_BUCKETS.length; i++) {
+				writeSample(writer, "espd_stage_duration_seconds_bucket",
+						labels + ",le=\"" + StageStatistics.DURATION_BUCKETS[i] + "\"",
+						String.valueOf(stats.getCumulativeCount(i)));
+			}
+			writeSample(writer, "espd_stage_duration_seconds_bucket", labels + ",le=\"+Inf\"",
+					String.valueOf(stats.getCumulativeCount(StageStatistics.DURATION_BUCKETS.length)));
+			writeSample(writer, "espd_stage_duration_seconds_sum", labels, seconds(stats.getTotalNanos()));
+			writeSample(writer, "espd_stage_duration_seconds_count", labels, String.valueOf(stats.getCount()));
+		}
+
+		writeHeader(writer, "espd_stage_duration_seconds_max", "gauge",
+				"Longest time spent in an ESPD processing stage.");
+		for (Map.Entry<String, StageStatistics> entry : series) {
+			writeSample(writer, "espd_stage_duration_seconds_max", entry.getKey(),
+					seconds(entry.getValue().getMaxNanos()));
+		}
+
+		writeHeader(writer, "espd_stage_allocated_bytes_total", "counter",
+				"Heap memory allocated by the thread running an ESPD processing stage.");
+		for (Map.Entry<String, StageStatistics> entry : series) {
+			writeSample(writer, "espd_stage_allocated_bytes_total", entry.getKey(),
+					String.valueOf(entry.getValue().getAllocatedBytes()));
+		}
+
+		writeHeader(writer, "espd_stage_bytes_total", "counter",
+				"Bytes read or written by an ESPD processing stage.");
+		for (Map.Entry<String, StageStatistics> entry : series) {
+			writeSample(writer, "espd_stage_bytes_total", entry.getKey(),
+					String.valueOf(entry.getValue().getBytes()));
+		}
+
+		writeSessionDocumentSizes(writer);
+		writer.flush();
+	}
+
+	private void writeSessionDocumentSizes(Writer writer) throws IOException {
+		if (sessionDocumentSizes.getCount() == 0) {
+			return;
+		}
+		writeHeader(writer, "espd_session_document_bytes", "histogram",
+				"Serialized size of the ESPD documents kept in the HTTP sessions.");
+		for (int i = 0; i < SizeHistogram.SIZE_BUCKETS.length; i++) {
+			writer.write("espd_session_document_bytes_bucket{le=\"" + SizeHistogram.SIZE_BUCKETS[i] + "\"} "
+					+ sessionDocumentSizes.getCumulativeCount(i) + "\n");
+		}
+		writer.write("espd_session_document_bytes_bucket{le=\"+Inf\"} "
+				+ sessionDocumentSizes.getCumulativeCount(SizeHistogram.SIZE_BUCKETS.length) + "\n");
+		writer.write("espd_session_document_bytes_sum " + sessionDocumentSizes.getTotalBytes() + "\n");
+		writer.write("espd_session_document_bytes_count " + sessionDocumentSizes.getCount() + "\n");
+
+		writeHeader(writer, "espd_session_document_bytes_max", "gauge",
+				"Largest serialized size of an ESPD document kept in an HTTP session.");
+		writer.write("espd_session_document_bytes_max " + sessionDocumentSizes.getMaxBytes() + "\n");
+	}
+
+	/**
+	 * @return The statistics by their labels, ordered by stage and then by labels so that the output is stable
+	 */
+	private List<Map.Entry<String, StageStatistics>> collectSeries() {
+		List<Map.Entry<String, StageStatistics>> series = new ArrayList<>();
+		for (Map.Entry<ProcessingStage, ConcurrentMap<ProcessingTags, StageStatistics>> stage : statistics
+				.entrySet()) {
+			List<Map.Entry<String, StageStatistics>> stageSeries = new ArrayList<>();
+			for (Map.Entry<ProcessingTags, StageStatistics> tagged : stage.getValue().entrySet()) {
+				stageSeries.add(new AbstractMap.SimpleImmutableEntry<>(
+						labels(stage.getKey(), tagged.getKey()), tagged.getValue()));
+			}
+			Collections.sort(stageSeries, new Comparator<Map.Entry<String, StageStatistics>>() {
+				@Override
+				public int compare(Map.Entry<String, StageStatistics> o1, Map.Entry<String, StageStatistics> o2) {
+					return o1.getKey().compareTo(o2.getKey());
+				}
+			});
+			series.addAll(stageSeries);
+		}
+		return series;
+	}
+
+	private static String labels(ProcessingStage stage, ProcessingTags tags) {
+		// the label values are fixed and never need to be escaped
+		return "stage=\"" + stage.getLabel() + "\",agent=\"" + tags.getAgent() + "\",flow=\"" + tags.getFlow() + "\"";
+	}
+
+	private static String seconds(long nanos) {
+		return String.valueOf(nanos / NANOS_PER_SECOND);
+	}
+
+	private static void writeHeader(Writer writer, String name, String type, String help) throws IOException {
+		writer.write("# HELP " + name + " " + help + "\n");
+		writer.write("# TYPE " + name + " " + type + "\n");
+	}
+
+	private static void writeSample(Writer writer, String name, String labels, String value) throws IOException {
+		writer.write(name + "{" + labels + "} " + value + "\n");
+	}
+}
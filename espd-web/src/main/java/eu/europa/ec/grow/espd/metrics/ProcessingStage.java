@@ -0,0 +1,75 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.metrics;
+
+/**
+ * The stages an ESPD document goes through when it is imported or exported, each of them timed separately by the
+ * {@link ProcessingMetrics}.
+ */
+public enum ProcessingStage {
+
+	/**
+	 * Parsing of the uploaded XML into the UBL objects (or, for the streaming import, into the ESPD criteria).
+	 */
+	UNMARSHAL("unmarshal"),
+	/**
+	 * Filling in the {@code EspdDocument} and its criteria out of the UBL objects, including the merge of a request
+	 * with responses.
+	 */
+	CRITERIA_POPULATION("criteria_population"),
+	/**
+	 * Building of the UBL objects out of the {@code EspdDocument}.
+	 */
+	UBL_BUILDING("ubl_building"),
+	/**
+	 * Writing of the UBL objects as XML.
+	 */
+	MARSHAL("marshal"),
+	/**
+	 * Transformation of the printable XHTML into XSL-FO.
+	 */
+	XSLT("xslt"),
+	/**
+	 * Layout and rendering of the XSL-FO into a PDF by Apache FOP.
+	 */
+	FOP_LAYOUT("fop_layout"),
+	/**
+	 * Creation of the ZIP archive, which includes the marshalling and the PDF rendering of its entries.
+	 */
+	ZIP("zip");
+
+	private final String label;
+
+	ProcessingStage(String label) {
+		this.label = label;
+	}
+
+	/**
+	 * @return The value of the {@code stage} label of the exported metrics
+	 */
+	public String getLabel() {
+		return label;
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.metrics;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * The agent ({@code ca} or {@code eo}) and the flow ({@code request} or {@code response}) for which a document is
+ * processed. They are bound to the thread handling the HTTP request by the {@link ProcessingTagsInterceptor} and
+ * carried over to the PDF rendering pool by the {@link ProcessingTagsTaskDecorator}, so that the processing code does
+ * not need to know about them.
+ * <p>
+ * Unknown values are replaced by {@value #NONE} so that the number of exported time series stays bounded.
+ * </p>
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ProcessingTags {
+
+	public static final String NONE = "none";
+
+	static final ProcessingTags UNTAGGED = new ProcessingTags(NONE, NONE);
+
+	private static final ThreadLocal<ProcessingTags> CURRENT = new ThreadLocal<>();
+
+	String agent;
+	String flow;
+
+	public static ProcessingTags of(String agent, String flow) {
+		return new ProcessingTags(oneOf(agent, "ca", "eo"), oneOf(flow, "request", "response"));
+	}
+
+	private static String oneOf(String value, String first, String second) {
+		if (first.equalsIgnoreCase(value)) {
+			return first;
+		}
+		return second.equalsIgnoreCase(value) ? second : NONE;
+	}
+
+	/**
+	 * @return The tags bound to the current thread, or {@link #UNTAGGED} when there are none
+	 */
+	public static ProcessingTags current() {
+		ProcessingTags tags = CURRENT.get();
+		return tags != null ? tags : UNTAGGED;
+	}
+
+	public static void bind(ProcessingTags tags) {
+		CURRENT.set(tags);
+	}
+
+	public static void unbind() {
+		CURRENT.remove();
+	}
+}
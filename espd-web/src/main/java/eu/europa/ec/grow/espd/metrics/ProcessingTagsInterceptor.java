@@ -0,0 +1,77 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.metrics;
+
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+
+/**
+ * Binds the {@link ProcessingTags} of the current HTTP request to the thread handling it. They are read from the
+ * {@code agent} and {@code flow} path variables or, for the uploads of the filter page, from the {@code action}
+ * parameter.
+ */
+public class ProcessingTagsInterceptor extends HandlerInterceptorAdapter {
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		ProcessingTags.bind(tagsOf(request));
+		return true;
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+			Object handler) {
+		// the asynchronous part gets its own copy of the tags from the ProcessingTagsTaskDecorator
+		ProcessingTags.unbind();
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		ProcessingTags.unbind();
+	}
+
+	@SuppressWarnings("unchecked")
+	static ProcessingTags tagsOf(HttpServletRequest request) {
+		Map<String, String> pathVariables = (Map<String, String>) request
+				.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+		if (pathVariables != null && pathVariables.containsKey("agent")) {
+			return ProcessingTags.of(pathVariables.get("agent"), pathVariables.get("flow"));
+		}
+
+		// e.g. 'ca_reuse_espd_request' or 'eo_import_espd', an EO always works on a response
+		String action = request.getParameter("action");
+		if (action == null || action.length() < 3 || action.charAt(2) != '_') {
+			return ProcessingTags.UNTAGGED;
+		}
+		String agent = action.substring(0, 2);
+		String flow = "eo".equals(agent) || action.endsWith("response") ? "response" : "request";
+		return ProcessingTags.of(agent, flow);
+	}
+}
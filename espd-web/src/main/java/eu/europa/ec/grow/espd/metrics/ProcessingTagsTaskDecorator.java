@@ -0,0 +1,50 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.metrics;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Hands the {@link ProcessingTags} of the submitting thread over to the thread running the task, so that the PDF and
+ * ZIP files streamed from the rendering pool are measured for the right agent and flow.
+ */
+public class ProcessingTagsTaskDecorator implements TaskDecorator {
+
+	@Override
+	public Runnable decorate(final Runnable runnable) {
+		final ProcessingTags tags = ProcessingTags.current();
+		return new Runnable() {
+			@Override
+			public void run() {
+				ProcessingTags.bind(tags);
+				try {
+					runnable.run();
+				} finally {
+					ProcessingTags.unbind();
+				}
+			}
+		};
+	}
+}
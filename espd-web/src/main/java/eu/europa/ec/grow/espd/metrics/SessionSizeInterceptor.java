@@ -0,0 +1,106 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.metrics;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the serialized size of the ESPD document kept in the HTTP session after a POST, which is when the wizard
+ * changes it. The size is the one of the session form of the document, i.e. what a persisted or replicated session
+ * would hold.
+ * <p>
+ * Serializing the whole ESPD is not free, so it is only done for a sample of the requests. When the session store
+ * already serialized the ESPD during the request it gives the size in the {@value #SERIALIZED_SIZE_ATTRIBUTE} request
+ * attribute, which is always recorded.
+ * </p>
+ */
+@Slf4j
+public class SessionSizeInterceptor extends HandlerInterceptorAdapter {
+
+	public static final String SERIALIZED_SIZE_ATTRIBUTE = SessionSizeInterceptor.class.getName() + ".SIZE";
+
+	static final String ESPD_ATTRIBUTE = "espd";
+
+	private final ProcessingMetrics processingMetrics;
+	private final int sampleRate;
+	private final AtomicLong requests = new AtomicLong();
+
+	public SessionSizeInterceptor(ProcessingMetrics processingMetrics) {
+		this(processingMetrics, 1);
+	}
+
+	/**
+	 * @param sampleRate The ESPD is serialized after one POST out of this many, never if it is 0 or less
+	 */
+	public SessionSizeInterceptor(ProcessingMetrics processingMetrics, int sampleRate) {
+		this.processingMetrics = processingMetrics;
+		this.sampleRate = sampleRate;
+	}
+
+	@Override
+	public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+			ModelAndView modelAndView) {
+		if (!"POST".equals(request.getMethod())) {
+			return;
+		}
+		Object serializedSize = request.getAttribute(SERIALIZED_SIZE_ATTRIBUTE);
+		if (serializedSize instanceof Long) {
+			processingMetrics.recordSessionDocumentSize((Long) serializedSize);
+			return;
+		}
+		if (sampleRate <= 0 || requests.getAndIncrement() % sampleRate != 0) {
+			return;
+		}
+		HttpSession session = request.getSession(false);
+		Object espd = session != null ? session.getAttribute(ESPD_ATTRIBUTE) : null;
+		if (espd == null) {
+			return;
+		}
+		try {
+			processingMetrics.recordSessionDocumentSize(serializedSize(espd));
+		} catch (IOException e) {
+			log.warn("Could not measure the serialized size of the ESPD kept in the session.", e);
+		}
+	}
+
+	static long serializedSize(Object value) throws IOException {
+		CountingOutputStream counter = new CountingOutputStream(ByteStreams.nullOutputStream());
+		try (ObjectOutputStream out = new ObjectOutputStream(counter)) {
+			out.writeObject(value);
+		}
+		return counter.getCount();
+	}
+}
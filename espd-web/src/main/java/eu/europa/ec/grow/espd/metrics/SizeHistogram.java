@@ -0,0 +1,92 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of sizes in bytes, e.g. of the ESPD documents kept in the HTTP sessions. Like {@link StageStatistics}, the
+ * counters are updated independently of each other.
+ */
+final class SizeHistogram {
+
+	/**
+	 * Upper bounds, in bytes, of the histogram buckets.
+	 */
+	static final long[] SIZE_BUCKETS = { 1024, 4 * 1024, 16 * 1024, 64 * 1024, 256 * 1024, 1024 * 1024,
+			4 * 1024 * 1024 };
+
+	/**
+	 * Samples per bucket, not cumulated, the last one counting the samples above the highest bound.
+	 */
+	private final AtomicLongArray buckets = new AtomicLongArray(SIZE_BUCKETS.length + 1);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong totalBytes = new AtomicLong();
+	private final AtomicLong maxBytes = new AtomicLong();
+
+	void record(long bytes) {
+		buckets.incrementAndGet(bucketOf(bytes));
+		count.incrementAndGet();
+		totalBytes.addAndGet(bytes);
+		long max = maxBytes.get();
+		while (bytes > max && !maxBytes.compareAndSet(max, bytes)) {
+			max = maxBytes.get();
+		}
+	}
+
+	private static int bucketOf(long bytes) {
+		for (int i = 0; i < SIZE_BUCKETS.length; i++) {
+			if (bytes <= SIZE_BUCKETS[i]) {
+				return i;
+			}
+		}
+		return SIZE_BUCKETS.length;
+	}
+
+	/**
+	 * @return The number of samples of at most the given bucket bound, the bucket after the last bound counting all of
+	 * them
+	 */
+	long getCumulativeCount(int bucket) {
+		long cumulative = 0;
+		for (int i = 0; i <= bucket; i++) {
+			cumulative += buckets.get(i);
+		}
+		return cumulative;
+	}
+
+	long getCount() {
+		return count.get();
+	}
+
+	long getTotalBytes() {
+		return totalBytes.get();
+	}
+
+	long getMaxBytes() {
+		return maxBytes.get();
+	}
+}
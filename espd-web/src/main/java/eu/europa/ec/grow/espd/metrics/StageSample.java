@@ -0,0 +1,67 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.metrics;
+
+/**
+ * A running measurement of one {@link ProcessingStage}, started by {@link ProcessingMetrics#start(ProcessingStage)}.
+ * It is meant to be used by one thread only and stopped in a {@code finally} block:
+ * <pre>
+ * StageSample sample = processingMetrics.start(ProcessingStage.MARSHAL);
+ * try {
+ *     ...
+ * } finally {
+ *     sample.stop();
+ * }
+ * </pre>
+ */
+public final class StageSample {
+
+	private final ProcessingMetrics metrics;
+	private final ProcessingStage stage;
+	private final ProcessingTags tags;
+	private final long startNanos;
+	private final long startAllocatedBytes;
+	private long bytes;
+
+	StageSample(ProcessingMetrics metrics, ProcessingStage stage, ProcessingTags tags) {
+		this.metrics = metrics;
+		this.stage = stage;
+		this.tags = tags;
+		this.startAllocatedBytes = metrics.currentThreadAllocatedBytes();
+		this.startNanos = System.nanoTime();
+	}
+
+	/**
+	 * @param count Number of bytes read or written by the stage
+	 */
+	public void addBytes(long count) {
+		bytes += count;
+	}
+
+	public void stop() {
+		long nanos = System.nanoTime() - startNanos;
+		metrics.record(stage, tags, nanos, metrics.currentThreadAllocatedBytes() - startAllocatedBytes, bytes);
+	}
+}
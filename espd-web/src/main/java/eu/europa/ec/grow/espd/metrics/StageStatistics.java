@@ -0,0 +1,112 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Running totals and duration histogram of one processing stage for one set of {@link ProcessingTags}. The counters are
+ * updated independently of each other, so a reading taken while a stage is being recorded may be off by one sample.
+ */
+final class StageStatistics {
+
+	/**
+	 * Upper bounds, in seconds, of the duration histogram buckets.
+	 */
+	static final double[] DURATION_BUCKETS = { 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10 };
+
+	private static final long[] DURATION_BUCKETS_NANOS = new long[DURATION_BUCKETS.length];
+
+	static {
+		for (int i = 0; i < DURATION_BUCKETS.length; i++) {
+			DURATION_BUCKETS_NANOS[i] = (long) (DURATION_BUCKETS[i] * TimeUnit.SECONDS.toNanos(1));
+		}
+	}
+
+	/**
+	 * Samples per bucket, not cumulated, the last one counting the samples above the highest bound.
+	 */
+	private final AtomicLongArray buckets = new AtomicLongArray(DURATION_BUCKETS.length + 1);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong totalNanos = new AtomicLong();
+	private final AtomicLong maxNanos = new AtomicLong();
+	private final AtomicLong allocatedBytes = new AtomicLong();
+	private final AtomicLong bytes = new AtomicLong();
+
+	void record(long nanos, long allocated, long byteCount) {
+		buckets.incrementAndGet(bucketOf(nanos));
+		count.incrementAndGet();
+		totalNanos.addAndGet(nanos);
+		allocatedBytes.addAndGet(allocated);
+		bytes.addAndGet(byteCount);
+		long max = maxNanos.get();
+		while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+			max = maxNanos.get();
+		}
+	}
+
+	private static int bucketOf(long nanos) {
+		for (int i = 0; i < DURATION_BUCKETS_NANOS.length; i++) {
+			if (nanos <= DURATION_BUCKETS_NANOS[i]) {
+				return i;
+			}
+		}
+		return DURATION_BUCKETS_NANOS.length;
+	}
+
+	/**
+	 * @return The number of samples which took at most the given bucket bound, the bucket after the last bound
+	 * counting all of them
+	 */
+	long getCumulativeCount(int bucket) {
+		long cumulative = 0;
+		for (int i = 0; i <= bucket; i++) {
+			cumulative += buckets.get(i);
+		}
+		return cumulative;
+	}
+
+	long getCount() {
+		return count.get();
+	}
+
+	long getTotalNanos() {
+		return totalNanos.get();
+	}
+
+	long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	long getAllocatedBytes() {
+		return allocatedBytes.get();
+	}
+
+	long getBytes() {
+		return bytes.get();
+	}
+}
@@ -0,0 +1,53 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+package eu.europa.ec.grow.espd.session;
+
+import java.io.IOException;
+
+/**
+ * Shared storage of the ESPD documents kept in the HTTP sessions, so that a wizard can be continued on another node or
+ * after a restart. The content is opaque to the store, see {@link EspdSessionAttributeStore}.
+ * <p>
+ * Implementations must be thread safe.
+ * </p>
+ */
+public interface EspdDocumentStore {
+
+	/**
+	 * @param key The key of the document, a random UUID
+	 *
+	 * @return The content stored under the key, or {@code null} if there is none or it has expired
+	 */
+	byte[] read(String key) throws IOException;
+
+	/**
+	 * Store the content under the key, replacing the previous content if any.
+	 */
+	void write(String key, byte[] content) throws IOException;
+
+	/**
+	 * Remove the content stored under the key, if any.
+	 */
+	void delete(String key) throws IOException;
+}
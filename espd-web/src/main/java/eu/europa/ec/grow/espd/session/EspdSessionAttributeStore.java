@@ -0,0 +1,233 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+package eu.europa.ec.grow.espd.session;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import eu.europa.ec.grow.espd.domain.EspdDocument;
+import eu.europa.ec.grow.espd.metrics.SessionSizeInterceptor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.support.DefaultSessionAttributeStore;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.springframework.web.context.request.RequestAttributes.SCOPE_REQUEST;
+import static org.springframework.web.context.request.RequestAttributes.SCOPE_SESSION;
+
+/**
+ * Session attribute store of the {@code @SessionAttributes} controllers which, on top of keeping the ESPD in the HTTP
+ * session, writes it to a shared {@link EspdDocumentStore}. A request reaching a node which does not know the HTTP
+ * session, because of a restart or because there are no sticky sessions, gets the ESPD back from the store.
+ * <p>
+ * The ESPD is stored in its serialized session form, gzipped, under a random key kept in the {@value #KEY_COOKIE}
+ * cookie. It is only written when its content changed since it was last written or read, so the wizard steps which
+ * just display the ESPD do not cause any write. The other session attributes are kept in the HTTP session only.
+ * </p>
+ */
+@Slf4j
+public class EspdSessionAttributeStore extends DefaultSessionAttributeStore {
+
+	static final String ESPD_ATTRIBUTE = "espd";
+	static final String KEY_COOKIE = "ESPD_DOCUMENT";
+
+	private static final String KEY_ATTRIBUTE = EspdSessionAttributeStore.class.getName() + ".KEY";
+	private static final String DIGEST_ATTRIBUTE = EspdSessionAttributeStore.class.getName() + ".DIGEST";
+
+	private final EspdDocumentStore documentStore;
+
+	public EspdSessionAttributeStore(EspdDocumentStore documentStore) {
+		this.documentStore = documentStore;
+	}
+
+	@Override
+	public void storeAttribute(WebRequest request, String attributeName, Object attributeValue) {
+		super.storeAttribute(request, attributeName, attributeValue);
+		if (ESPD_ATTRIBUTE.equals(attributeName) && attributeValue instanceof EspdDocument) {
+			persist(request, (EspdDocument) attributeValue);
+		}
+	}
+
+	@Override
+	public Object retrieveAttribute(WebRequest request, String attributeName) {
+		Object value = super.retrieveAttribute(request, attributeName);
+		if (value != null || !ESPD_ATTRIBUTE.equals(attributeName)) {
+			return value;
+		}
+		return restore(request);
+	}
+
+	@Override
+	public void cleanupAttribute(WebRequest request, String attributeName) {
+		super.cleanupAttribute(request, attributeName);
+		if (!ESPD_ATTRIBUTE.equals(attributeName)) {
+			return;
+		}
+		request.removeAttribute(DIGEST_ATTRIBUTE, SCOPE_SESSION);
+		String key = readKey(request);
+		if (key == null) {
+			return;
+		}
+		try {
+			documentStore.delete(key);
+		} catch (IOException e) {
+			log.warn("Could not delete the stored ESPD '{}', it will expire.", key, e);
+		}
+	}
+
+	private void persist(WebRequest request, EspdDocument espdDocument) {
+		byte[] serialized = serialize(espdDocument);
+		// spares the metrics another serialization of the ESPD
+		request.setAttribute(SessionSizeInterceptor.SERIALIZED_SIZE_ATTRIBUTE, (long) serialized.length,
+				SCOPE_REQUEST);
+		String digest = digestOf(serialized);
+		if (digest.equals(request.getAttribute(DIGEST_ATTRIBUTE, SCOPE_SESSION))) {
+			return;
+		}
+
+		String key = obtainKey(request);
+		try {
+			byte[] compressed = compress(serialized);
+			documentStore.write(key, compressed);
+			request.setAttribute(DIGEST_ATTRIBUTE, digest, SCOPE_SESSION);
+			log.debug("--- Stored ESPD '{}': {} bytes, {} compressed.", key, serialized.length, compressed.length);
+		} catch (IOException e) {
+			// the ESPD is still in the HTTP session, it is only lost if this node goes away
+			log.error("Could not store the ESPD '{}'.", key, e);
+		}
+	}
+
+	private EspdDocument restore(WebRequest request) {
+		String key = readKey(request);
+		if (key == null) {
+			return null;
+		}
+		try {
+			byte[] compressed = documentStore.read(key);
+			if (compressed == null) {
+				return null;
+			}
+			byte[] serialized = decompress(compressed);
+			EspdDocument espdDocument = deserialize(serialized);
+			super.storeAttribute(request, ESPD_ATTRIBUTE, espdDocument);
+			request.setAttribute(KEY_ATTRIBUTE, key, SCOPE_SESSION);
+			request.setAttribute(DIGEST_ATTRIBUTE, digestOf(serialized), SCOPE_SESSION);
+			log.debug("--- Restored ESPD '{}' from the store.", key);
+			return espdDocument;
+		} catch (IOException | ClassNotFoundException | ClassCastException e) {
+			log.warn("Could not restore the stored ESPD '{}'.", key, e);
+			return null;
+		}
+	}
+
+	/**
+	 * @return The key of the ESPD of the session, or {@code null} if there is none or the cookie was tampered with
+	 */
+	private static String readKey(WebRequest request) {
+		String key = (String) request.getAttribute(KEY_ATTRIBUTE, SCOPE_SESSION);
+		if (key != null) {
+			return key;
+		}
+		Cookie cookie = WebUtils.getCookie(servletRequest(request), KEY_COOKIE);
+		if (cookie == null) {
+			return null;
+		}
+		try {
+			// back to the canonical form, which is the only one accepted by the stores
+			return UUID.fromString(cookie.getValue()).toString();
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	private static String obtainKey(WebRequest request) {
+		String key = readKey(request);
+		if (key == null) {
+			key = UUID.randomUUID().toString();
+			addKeyCookie(request, key);
+		}
+		request.setAttribute(KEY_ATTRIBUTE, key, SCOPE_SESSION);
+		return key;
+	}
+
+	private static void addKeyCookie(WebRequest request, String key) {
+		HttpServletRequest servletRequest = servletRequest(request);
+		Cookie cookie = new Cookie(KEY_COOKIE, key);
+		cookie.setPath(StringUtils.hasLength(servletRequest.getContextPath()) ? servletRequest.getContextPath() : "/");
+		cookie.setHttpOnly(true);
+		cookie.setSecure(servletRequest.isSecure());
+		((NativeWebRequest) request).getNativeResponse(HttpServletResponse.class).addCookie(cookie);
+	}
+
+	private static HttpServletRequest servletRequest(WebRequest request) {
+		return ((NativeWebRequest) request).getNativeRequest(HttpServletRequest.class);
+	}
+
+	private static String digestOf(byte[] serialized) {
+		return Hashing.murmur3_128().hashBytes(serialized).toString();
+	}
+
+	private static byte[] serialize(EspdDocument espdDocument) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(8 * 1024);
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(espdDocument);
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not serialize the ESPD of the session.", e);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static EspdDocument deserialize(byte[] serialized) throws IOException, ClassNotFoundException {
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+			return (EspdDocument) in.readObject();
+		}
+	}
+
+	private static byte[] compress(byte[] serialized) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(serialized.length / 4);
+		try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+			out.write(serialized);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static byte[] decompress(byte[] compressed) throws IOException {
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+			return ByteStreams.toByteArray(in);
+		}
+	}
+}
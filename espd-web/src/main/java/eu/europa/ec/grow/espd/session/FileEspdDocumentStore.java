@@ -0,0 +1,139 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+package eu.europa.ec.grow.espd.session;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * {@link EspdDocumentStore} keeping one file per document in a directory, which can be shared by several nodes (e.g. an
+ * NFS mount) or simply survive a restart of a single node. Files are written to a temporary file first and then moved
+ * in place, so that a reader never sees a partially written document.
+ * <p>
+ * Documents which were not written or read for longer than the time to live are considered expired. They are removed
+ * while writing, at most once per {@link #PURGE_INTERVAL_MILLIS}.
+ * </p>
+ */
+@Slf4j
+public class FileEspdDocumentStore implements EspdDocumentStore {
+
+	static final long PURGE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+	private static final String EXTENSION = ".espd";
+	private static final Pattern KEY = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+	private final Path directory;
+	private final long ttlMillis;
+	private final AtomicLong lastPurge = new AtomicLong(System.currentTimeMillis());
+
+	public FileEspdDocumentStore(File directory, long ttl, TimeUnit ttlUnit) throws IOException {
+		this.directory = Files.createDirectories(directory.toPath());
+		this.ttlMillis = ttlUnit.toMillis(ttl);
+		log.info("--- ESPD documents of the sessions are stored in '{}' for {} ms.", this.directory, ttlMillis);
+	}
+
+	@Override
+	public byte[] read(String key) throws IOException {
+		Path file = fileOf(key);
+		try {
+			if (isExpired(file, System.currentTimeMillis())) {
+				return null;
+			}
+			byte[] content = Files.readAllBytes(file);
+			// a document which is read is still in use, even if it did not change
+			Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+			return content;
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public void write(String key, byte[] content) throws IOException {
+		Path file = fileOf(key);
+		Path temporary = Files.createTempFile(directory, key, ".tmp");
+		try {
+			Files.write(temporary, content);
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+		purgeExpiredIfDue();
+	}
+
+	@Override
+	public void delete(String key) throws IOException {
+		Files.deleteIfExists(fileOf(key));
+	}
+
+	private Path fileOf(String key) {
+		// the key comes from a cookie and must never be able to point outside of the directory
+		if (key == null || !KEY.matcher(key).matches()) {
+			throw new IllegalArgumentException(String.format("'%s' is not a valid ESPD document key.", key));
+		}
+		return directory.resolve(key + EXTENSION);
+	}
+
+	private boolean isExpired(Path file, long now) throws IOException {
+		return now - Files.getLastModifiedTime(file).toMillis() > ttlMillis;
+	}
+
+	private void purgeExpiredIfDue() {
+		long now = System.currentTimeMillis();
+		long last = lastPurge.get();
+		if (now - last < PURGE_INTERVAL_MILLIS || !lastPurge.compareAndSet(last, now)) {
+			return;
+		}
+		purgeExpired(now);
+	}
+
+	void purgeExpired(long now) {
+		int purged = 0;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+			for (Path file : files) {
+				try {
+					if (isExpired(file, now) && Files.deleteIfExists(file)) {
+						purged++;
+					}
+				} catch (NoSuchFileException e) {
+					// deleted in the meantime by another node
+				}
+			}
+		} catch (IOException e) {
+			log.warn("Could not purge the expired ESPD documents of '{}'.", directory, e);
+		}
+		log.debug("--- Purged {} expired ESPD document(s) of the sessions.", purged);
+	}
+}
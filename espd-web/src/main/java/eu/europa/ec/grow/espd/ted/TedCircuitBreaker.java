@@ -0,0 +1,138 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.ted;
+
+import com.google.common.base.Ticker;
+import eu.europa.ec.grow.espd.util.EspdConfiguration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker protecting the ESPD wizard from an unavailable or slow TED service. After a number of consecutive
+ * failed calls the circuit opens and TED is not called at all during a cool-down period. When the cool-down is over,
+ * one trial call is let through: the circuit closes again if it succeeds and opens for another cool-down if it fails.
+ */
+@Component
+@ManagedResource(description = "Circuit breaker of the calls to TED")
+@Slf4j
+public class TedCircuitBreaker {
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final int failureThreshold;
+	private final long openNanos;
+	private final Ticker ticker;
+
+	private State state = State.CLOSED;
+	private int consecutiveFailures;
+	private long openedAt;
+	private long rejectedCalls;
+
+	@Autowired
+	TedCircuitBreaker(EspdConfiguration espdConfiguration) {
+		this(espdConfiguration.getTedCircuitFailureThreshold(), espdConfiguration.getTedCircuitOpenSeconds(),
+				Ticker.systemTicker());
+	}
+
+	TedCircuitBreaker(int failureThreshold, long openSeconds, Ticker ticker) {
+		this.failureThreshold = failureThreshold;
+		this.openNanos = TimeUnit.SECONDS.toNanos(openSeconds);
+		this.ticker = ticker;
+	}
+
+	/**
+	 * @return Whether TED may be called. A caller which is allowed must report the outcome of its call with
+	 * {@link #recordSuccess()} or {@link #recordFailure()}.
+	 */
+	public synchronized boolean allowRequest() {
+		if (state == State.OPEN && ticker.read() - openedAt >= openNanos) {
+			log.info("--- The TED circuit is half open, trying to call TED again.");
+			state = State.HALF_OPEN;
+			return true;
+		}
+		if (state != State.CLOSED) {
+			// open or a trial call is already in progress
+			rejectedCalls++;
+			return false;
+		}
+		return true;
+	}
+
+	public synchronized void recordSuccess() {
+		if (state != State.CLOSED) {
+			log.info("--- The TED circuit is closed again.");
+		}
+		state = State.CLOSED;
+		consecutiveFailures = 0;
+	}
+
+	public synchronized void recordFailure() {
+		consecutiveFailures++;
+		if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+			log.warn("--- The TED circuit is open after {} consecutive failure(s), TED will not be called for {} s.",
+					consecutiveFailures, TimeUnit.NANOSECONDS.toSeconds(openNanos));
+			state = State.OPEN;
+			openedAt = ticker.read();
+		}
+	}
+
+	public synchronized State getState() {
+		return state;
+	}
+
+	@ManagedAttribute(description = "State of the circuit: CLOSED, OPEN or HALF_OPEN")
+	public synchronized String getStateName() {
+		return state.name();
+	}
+
+	@ManagedAttribute(description = "Number of consecutive failed calls to TED")
+	public synchronized int getConsecutiveFailures() {
+		return consecutiveFailures;
+	}
+
+	@ManagedAttribute(description = "Number of calls to TED skipped because the circuit was open")
+	public synchronized long getRejectedCalls() {
+		return rejectedCalls;
+	}
+
+	@ManagedOperation(description = "Close the circuit so that TED is called again immediately")
+	public synchronized void reset() {
+		recordSuccess();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("TedCircuitBreaker[state=%s, consecutiveFailures=%d, rejectedCalls=%d]", state,
+				consecutiveFailures, rejectedCalls);
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.ted;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import eu.europa.ec.grow.espd.util.EspdConfiguration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-memory cache of the contract notice information returned by TED, by reception id, so that the
+ * procurement information of a popular tender is not fetched again for every ESPD created for it.
+ * <p>
+ * Concurrent lookups of the same reception id wait for one single call to TED. Lookups which returned nothing (an
+ * unknown reception id or a failed call) are cached too, but for a shorter time so that TED is asked again soon. The
+ * hit, miss and load time statistics are exposed through JMX.
+ * </p>
+ */
+@Component
+@ManagedResource(description = "Cache of the TED contract notice lookups")
+@Slf4j
+public class TedNoticeCache {
+
+	private final Cache<String, Lookup> cache;
+	private final Ticker ticker;
+	private final long negativeTtlNanos;
+
+	private final AtomicLong negativeHits = new AtomicLong();
+
+	@Autowired
+	TedNoticeCache(EspdConfiguration espdConfiguration) {
+		this(espdConfiguration.getTedCacheMaximumSize(), espdConfiguration.getTedCacheTtlSeconds(),
+				espdConfiguration.getTedCacheNegativeTtlSeconds(), Ticker.systemTicker());
+	}
+
+	TedNoticeCache(long maximumSize, long ttlSeconds, long negativeTtlSeconds, Ticker ticker) {
+		this.ticker = ticker;
+		this.negativeTtlNanos = TimeUnit.SECONDS.toNanos(negativeTtlSeconds);
+		this.cache = CacheBuilder.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+				.ticker(ticker)
+				.recordStats()
+				.build();
+	}
+
+	/**
+	 * Get the contract notice information of a reception id from the cache or, if it is not cached, from the loader.
+	 *
+	 * @param receptionId The TED reception id
+	 * @param loader      Fetches the information from TED. It is called at most once at a time for a reception id.
+	 *
+	 * @return The contract notice information, which must not be modified, or an empty {@link TedResponse}
+	 */
+	public TedResponse get(String receptionId, final Callable<TedResponse> loader) {
+		Lookup lookup = lookup(receptionId, loader);
+		if (lookup.isEmpty() && ticker.read() - lookup.loadedAt >= negativeTtlNanos) {
+			// the failed or empty lookups are kept for a shorter time than the successful ones
+			cache.asMap().remove(receptionId, lookup);
+			lookup = lookup(receptionId, loader);
+		}
+		return lookup.response;
+	}
+
+	private Lookup lookup(String receptionId, final Callable<TedResponse> loader) {
+		final boolean[] loaded = new boolean[1];
+		try {
+			Lookup lookup = cache.get(receptionId, new Callable<Lookup>() {
+				@Override
+				public Lookup call() throws Exception {
+					loaded[0] = true;
+					TedResponse response = loader.call();
+					return new Lookup(response != null ? response : new TedResponse(), ticker.read());
+				}
+			});
+			if (!loaded[0] && lookup.isEmpty()) {
+				negativeHits.incrementAndGet();
+			}
+			return lookup;
+		} catch (ExecutionException | RuntimeException e) {
+			// the exception is not cached, the next lookup will try again
+			log.warn("Could not load the TED notice '{}'.", receptionId, e);
+			return new Lookup(new TedResponse(), ticker.read());
+		}
+	}
+
+	@ManagedAttribute(description = "Number of lookups served from the cache")
+	public long getHits() {
+		return cache.stats().hitCount();
+	}
+
+	@ManagedAttribute(description = "Number of lookups served from the cache with an empty or failed TED response")
+	public long getNegativeHits() {
+		return negativeHits.get();
+	}
+
+	@ManagedAttribute(description = "Number of lookups which needed a call to TED")
+	public long getMisses() {
+		return cache.stats().missCount();
+	}
+
+	@ManagedAttribute(description = "Ratio between the cache hits and all the lookups")
+	public double getHitRate() {
+		return cache.stats().hitRate();
+	}
+
+	@ManagedAttribute(description = "Average duration in milliseconds of the calls to TED")
+	public double getAverageLoadMillis() {
+		return cache.stats().averageLoadPenalty() / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	@ManagedAttribute(description = "Number of cached reception ids")
+	public long getSize() {
+		return cache.size();
+	}
+
+	@ManagedOperation(description = "Remove all the cached TED responses")
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	@Override
+	public String toString() {
+		CacheStats stats = cache.stats();
+		return String.format("TedNoticeCache[size=%d, hits=%d, negativeHits=%d, misses=%d, averageLoad=%.1fms]",
+				cache.size(), stats.hitCount(), getNegativeHits(), stats.missCount(), getAverageLoadMillis());
+	}
+
+	private static final class Lookup {
+
+		private final TedResponse response;
+		private final long loadedAt;
+
+		private Lookup(TedResponse response, long loadedAt) {
+			this.response = response;
+			this.loadedAt = loadedAt;
+		}
+
+		private boolean isEmpty() {
+			return response.isEmpty();
+		}
+	}
+}
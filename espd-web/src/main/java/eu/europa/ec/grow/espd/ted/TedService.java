@@ -31,8 +31,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.concurrent.Callable;
+
 /**
  * Created by ratoico on 1/21/16 at 5:08 PM.
  */
@@ -42,6 +45,10 @@ public class TedService {
 
     private final RestTemplate restTemplate;
 
+    private final TedNoticeCache noticeCache;
+
+    private final TedCircuitBreaker circuitBreaker;
+
     @Value("${ted.api.base.url:}")
     private String tedUrl;
 
@@ -52,28 +59,56 @@ public class TedService {
     private String tedPassword;
 
     @Autowired
-    TedService(RestTemplate restTemplate) {
+    TedService(RestTemplate restTemplate, TedNoticeCache noticeCache, TedCircuitBreaker circuitBreaker) {
         this.restTemplate = restTemplate;
+        this.noticeCache = noticeCache;
+        this.circuitBreaker = circuitBreaker;
     }
 
+    /**
+     * Get the contract notice information of a TED reception id. The responses are cached by the
+     * {@link TedNoticeCache}, so the returned object must not be modified.
+     */
     public TedResponse getContractNoticeInformation(TedRequest tedRequest) {
         if (StringUtils.isBlank(tedUrl)) {
             return new TedResponse();
         }
 
-        String receptionId = StringUtils.trimToEmpty(tedRequest.getReceptionId());
+        final String receptionId = StringUtils.trimToEmpty(tedRequest.getReceptionId());
         if (StringUtils.isBlank(receptionId)) {
             return new TedResponse();
         }
 
+        return noticeCache.get(receptionId, new Callable<TedResponse>() {
+            @Override
+            public TedResponse call() {
+                return callTed(receptionId);
+            }
+        });
+    }
+
+    private TedResponse callTed(String receptionId) {
+        if (!circuitBreaker.allowRequest()) {
+            log.info("--- Not calling TED with reception id '{}', the circuit is {}.", receptionId,
+                    circuitBreaker.getState());
+            return new TedResponse();
+        }
+
         log.info("--- Calling TED  with reception id: '{}'.", receptionId);
         try {
             HttpEntity<String> request = new HttpEntity<>(createHeaders(tedUser, tedPassword));
             ResponseEntity<TedResponse> response = restTemplate
                     .exchange(tedUrl + "/" + receptionId, HttpMethod.GET, request, TedResponse.class);
             log.info("Got response from TED: '{}'.", response);
+            circuitBreaker.recordSuccess();
             return response.getBody();
+        } catch (HttpClientErrorException e) {
+            // TED is available but does not know the reception id
+            circuitBreaker.recordSuccess();
+            log.warn(e.getMessage(), e);
+            return new TedResponse();
         } catch (Exception e) {
+            circuitBreaker.recordFailure();
             log.warn(e.getMessage(), e);
             return new TedResponse();
         }
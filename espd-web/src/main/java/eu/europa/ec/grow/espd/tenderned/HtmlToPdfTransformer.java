@@ -24,6 +24,9 @@
 
 package eu.europa.ec.grow.espd.tenderned;
 
+import com.google.common.io.CountingOutputStream;
+import eu.europa.ec.grow.espd.metrics.ProcessingMetrics;
+import eu.europa.ec.grow.espd.metrics.ProcessingStage;
 import eu.europa.ec.grow.espd.tenderned.exception.PdfRenderingException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
@@ -40,6 +43,7 @@ import javax.xml.transform.stream.StreamSource;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
@@ -50,18 +54,19 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 @Slf4j
 public class HtmlToPdfTransformer {
 
-    private static final String XSL_CA = "xhtml2fo_tenderned_ca.xsl";
-    private static final String XSL_EO = "xhtml2fo_tenderned_eo.xsl";
+    public static final String XSL_CA = "xhtml2fo_tenderned_ca.xsl";
+    public static final String XSL_EO = "xhtml2fo_tenderned_eo.xsl";
 
     private final FopFactory fopFactory;
-    private final TransformerFactory transformerFactory;
-    private final XsltURIResolver xsltURIResolver;
+    private final XsltTemplatesCache templatesCache;
+    private final ProcessingMetrics processingMetrics;
 
     @Autowired
-    HtmlToPdfTransformer(FopFactory fopFactory, TransformerFactory transformerFactory, XsltURIResolver uriResolver) {
+    HtmlToPdfTransformer(FopFactory fopFactory, XsltTemplatesCache templatesCache,
+            ProcessingMetrics processingMetrics) {
         this.fopFactory = fopFactory;
-        this.transformerFactory = transformerFactory;
-        this.xsltURIResolver = uriResolver;
+        this.templatesCache = templatesCache;
+        this.processingMetrics = processingMetrics;
     }
 
     /**
@@ -73,21 +78,43 @@ public class HtmlToPdfTransformer {
      * @throws PdfRenderingException In case an exception occurred
      */
     public ByteArrayOutputStream convertToPDF(String html, String agent) throws PdfRenderingException {
+        // Setup a buffer to obtain the content length (empirical initial size)
+        ByteArrayOutputStream out = new ByteArrayOutputStream(html.length() / 6);
+        convertToPDF(html, agent, out);
+        return out;
+    }
+
+    /**
+     * Method that will convert the given HTML code of a page to PDF and write it directly to the given stream, as
+     * FOP produces it, without buffering the whole document.
+     * <p>
+     * The time spent in the XSLT transformation and in the FOP layout is recorded separately. The memory allocated by
+     * both, which cannot be told apart, is recorded for the FOP layout.
+     * </p>
+     *
+     * @param html  is a String of html content
+     * @param agent is a String, can be 'ca' or 'eo'
+     * @param out   is the stream where the PDF is written. It is not closed.
+     *
+     * @throws PdfRenderingException In case an exception occurred
+     */
+    public void convertToPDF(String html, String agent, OutputStream out) throws PdfRenderingException {
         String xsltLocation = "ca".equalsIgnoreCase(agent) ? XSL_CA : XSL_EO;
 
+        long start = System.nanoTime();
+        long startAllocatedBytes = processingMetrics.currentThreadAllocatedBytes();
+        CountingOutputStream pdfStream = new CountingOutputStream(out);
+        TimedContentHandler fopHandler = null;
         try {
-            // Setup a buffer to obtain the content length (empirical initial size)
-            ByteArrayOutputStream out = new ByteArrayOutputStream(html.length() / 6);
-
             // Setup FOP
-            Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, out);
+            Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, pdfStream);
 
-            // Setup Transformer
-            Source xsltSource = xsltURIResolver.resolve(xsltLocation, null);
-            Transformer transformer = transformerFactory.newTransformer(xsltSource);
+            // Setup Transformer from the already compiled stylesheet
+            Transformer transformer = templatesCache.newTransformer(xsltLocation);
 
             // Make sure the XSL transformation's result is piped through to FOP
-            Result res = new SAXResult(fop.getDefaultHandler());
+            fopHandler = new TimedContentHandler(fop.getDefaultHandler());
+            Result res = new SAXResult(fopHandler);
 
             // Setup input
             InputStream htmlInputStream = IOUtils.toInputStream(html, UTF_8.name());
@@ -95,10 +122,14 @@ public class HtmlToPdfTransformer {
 
             // Start the transformation and rendering process
             transformer.transform(source, res);
-
-            return out;
+            log.debug("--- PDF generated using {}.", templatesCache);
         } catch (TransformerException | FOPException | IOException e) {
             throw new PdfRenderingException("Something went wrong while generating the PDF file.", e);
+        } finally {
+            long layoutNanos = fopHandler != null ? fopHandler.getElapsedNanos() : 0;
+            processingMetrics.record(ProcessingStage.XSLT, System.nanoTime() - start - layoutNanos, 0, 0);
+            processingMetrics.record(ProcessingStage.FOP_LAYOUT, layoutNanos,
+                    processingMetrics.currentThreadAllocatedBytes() - startAllocatedBytes, pdfStream.getCount());
         }
     }
 
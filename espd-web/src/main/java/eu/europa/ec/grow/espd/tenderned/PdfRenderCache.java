@@ -0,0 +1,160 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.tenderned;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import eu.europa.ec.grow.espd.tenderned.exception.PdfRenderingException;
+import eu.europa.ec.grow.espd.util.EspdConfiguration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Bounded in-memory cache of the rendered PDF files in front of the {@link HtmlToPdfTransformer}, by a hash of the
+ * printable HTML and of the agent, which selects the stylesheet. Downloading the PDF and then the ZIP of the same
+ * overview page renders the PDF only once.
+ * <p>
+ * Concurrent renderings of the same HTML, like the ones of a double click, wait for one single FOP run. The cache is
+ * bounded by the total size of the PDF files and is disabled when {@code espd.pdf.cache.max.bytes} is 0, in which case
+ * the PDF is streamed as FOP produces it.
+ * </p>
+ */
+@Component
+@ManagedResource(description = "Cache of the rendered PDF files")
+public class PdfRenderCache {
+
+	private final HtmlToPdfTransformer transformer;
+	private final Cache<HashCode, byte[]> cache;
+
+	@Autowired
+	PdfRenderCache(HtmlToPdfTransformer transformer, EspdConfiguration espdConfiguration) {
+		this(transformer, espdConfiguration.getPdfCacheMaxBytes(), espdConfiguration.getPdfCacheTtlSeconds());
+	}
+
+	PdfRenderCache(HtmlToPdfTransformer transformer, long maxBytes, long ttlSeconds) {
+		this.transformer = transformer;
+		if (maxBytes <= 0) {
+			this.cache = null;
+			return;
+		}
+		this.cache = CacheBuilder.newBuilder()
+				.maximumWeight(maxBytes)
+				.weigher(new Weigher<HashCode, byte[]>() {
+					@Override
+					public int weigh(HashCode key, byte[] pdf) {
+						return pdf.length;
+					}
+				})
+				.expireAfterAccess(ttlSeconds, TimeUnit.SECONDS)
+				.recordStats()
+				.build();
+	}
+
+	/**
+	 * Write the PDF of the given printable HTML, rendering it only if it is not cached yet.
+	 *
+	 * @param html  The XHTML rendered on the server by the {@link PrintableHtmlRenderer}
+	 * @param agent 'ca' or 'eo'
+	 * @param out   Where the PDF is written, it is not closed
+	 *
+	 * @throws PdfRenderingException If the PDF could not be rendered or written
+	 */
+	public void render(final String html, final String agent, OutputStream out) throws PdfRenderingException {
+		if (cache == null) {
+			transformer.convertToPDF(html, agent, out);
+			return;
+		}
+
+		byte[] pdf = get(key(html, agent), new Callable<byte[]>() {
+			@Override
+			public byte[] call() throws PdfRenderingException {
+				return transformer.convertToPDF(html, agent).toByteArray();
+			}
+		});
+		try {
+			out.write(pdf);
+		} catch (IOException e) {
+			throw new PdfRenderingException("Could not write the PDF.", e);
+		}
+	}
+
+	private byte[] get(HashCode key, Callable<byte[]> renderer) throws PdfRenderingException {
+		try {
+			return cache.get(key, renderer);
+		} catch (ExecutionException | UncheckedExecutionException e) {
+			// a failed rendering is not cached, the next download will try again
+			if (e.getCause() instanceof PdfRenderingException) {
+				throw (PdfRenderingException) e.getCause();
+			}
+			throw new PdfRenderingException("Could not render the PDF.", e.getCause());
+		}
+	}
+
+	private static HashCode key(String html, String agent) {
+		// the agent selects the stylesheet, which cannot change while the application runs
+		return Hashing.sha256().newHasher()
+				.putString(agent.toLowerCase(), UTF_8)
+				.putByte((byte) 0)
+				.putString(html, UTF_8)
+				.hash();
+	}
+
+	@ManagedAttribute(description = "Number of PDF files served from the cache")
+	public long getHits() {
+		return cache != null ? cache.stats().hitCount() : 0;
+	}
+
+	@ManagedAttribute(description = "Number of PDF files which needed a FOP run")
+	public long getMisses() {
+		return cache != null ? cache.stats().missCount() : 0;
+	}
+
+	@ManagedAttribute(description = "Number of cached PDF files")
+	public long getSize() {
+		return cache != null ? cache.size() : 0;
+	}
+
+	@ManagedOperation(description = "Remove all the cached PDF files")
+	public void invalidateAll() {
+		if (cache != null) {
+			cache.invalidateAll();
+		}
+	}
+}
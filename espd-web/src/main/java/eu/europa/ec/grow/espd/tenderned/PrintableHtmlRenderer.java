@@ -0,0 +1,215 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.tenderned;
+
+import eu.europa.ec.grow.espd.tenderned.exception.PdfRenderingException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.output.WriterOutputStream;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Renders the printable (X)HTML version of an ESPD on the server, out of the ESPD kept in the session, so that it can
+ * be fed to the {@link HtmlToPdfTransformer}. The markup is produced by the same JSP fragment as the one shown on the
+ * overview page, so the PDF and the overview page cannot drift apart.
+ */
+@Component
+@Slf4j
+public class PrintableHtmlRenderer {
+
+	static final String PRINTABLE_VIEW = "/WEB-INF/views/printPdf.jsp";
+
+	private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+	private static final XMLInputFactory XML_INPUT_FACTORY = newXmlInputFactory();
+
+	/**
+	 * Render the printable view.
+	 *
+	 * @param model    The model attributes needed by the view ('espd', its binding result, 'flow' and 'agent')
+	 * @param locale   The locale in which the labels are rendered
+	 * @param request  The current request, used to dispatch to the JSP
+	 * @param response The current response, which is not written to
+	 *
+	 * @return The XHTML document to be transformed into a PDF
+	 *
+	 * @throws PdfRenderingException If the view could not be rendered or is not a well-formed XML document
+	 */
+	public String render(Map<String, ?> model, Locale locale, HttpServletRequest request,
+			HttpServletResponse response) throws PdfRenderingException {
+		for (Map.Entry<String, ?> attribute : model.entrySet()) {
+			request.setAttribute(attribute.getKey(), attribute.getValue());
+		}
+
+		RequestDispatcher dispatcher = request.getRequestDispatcher(PRINTABLE_VIEW);
+		if (dispatcher == null) {
+			throw new PdfRenderingException(String.format("Could not get a dispatcher for '%s'.", PRINTABLE_VIEW));
+		}
+
+		long start = System.currentTimeMillis();
+		CapturingResponseWrapper capturingResponse = new CapturingResponseWrapper(response, locale);
+		String html;
+		try {
+			dispatcher.include(request, capturingResponse);
+			html = capturingResponse.getContent();
+		} catch (ServletException | IOException e) {
+			throw new PdfRenderingException("Could not render the printable version of the ESPD.", e);
+		}
+		log.debug("--- Rendered the printable ESPD ({} chars) in {} ms.", html.length(),
+				System.currentTimeMillis() - start);
+		checkWellFormed(html);
+		return html;
+	}
+
+	/**
+	 * The XSLT transformation needs a well-formed document. Checking it on the request thread, before the PDF is
+	 * streamed from the rendering pool, turns a broken page into an error instead of an aborted download.
+	 */
+	static void checkWellFormed(String html) throws PdfRenderingException {
+		try {
+			XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(html));
+			try {
+				while (reader.hasNext()) {
+					reader.next();
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException e) {
+			throw new PdfRenderingException(String.format("The printable ESPD is not well-formed at line %d, column %d.",
+					e.getLocation() != null ? e.getLocation().getLineNumber() : -1,
+					e.getLocation() != null ? e.getLocation().getColumnNumber() : -1), e);
+		}
+	}
+
+	private static XMLInputFactory newXmlInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return factory;
+	}
+
+	/**
+	 * Keeps the included content in memory instead of sending it to the client. The JSP pages write characters, the
+	 * bytes written by an included resource are decoded with the character encoding of the response.
+	 */
+	static final class CapturingResponseWrapper extends HttpServletResponseWrapper {
+
+		private final StringWriter content = new StringWriter(INITIAL_BUFFER_SIZE);
+		private final PrintWriter writer = new PrintWriter(content);
+		private final Locale locale;
+		private OutputStream decodingStream;
+
+		CapturingResponseWrapper(HttpServletResponse response, Locale locale) {
+			super(response);
+			this.locale = locale;
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			flushDecodingStream();
+			return writer;
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() {
+			writer.flush();
+			if (decodingStream == null) {
+				decodingStream = new WriterOutputStream(writer, getCharacterEncoding());
+			}
+			return new ServletOutputStream() {
+				@Override
+				public void write(int b) throws IOException {
+					decodingStream.write(b);
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) throws IOException {
+					decodingStream.write(b, off, len);
+				}
+
+				@Override
+				public boolean isReady() {
+					return true;
+				}
+
+				@Override
+				public void setWriteListener(WriteListener writeListener) {
+					// the content is captured in memory, so it can always be written right away
+					try {
+						writeListener.onWritePossible();
+					} catch (IOException e) {
+						writeListener.onError(e);
+					}
+				}
+			};
+		}
+
+		@Override
+		public Locale getLocale() {
+			// the response locale is only set by the DispatcherServlet when a view is rendered
+			return locale;
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			flushDecodingStream();
+			writer.flush();
+		}
+
+		@Override
+		public boolean isCommitted() {
+			return false;
+		}
+
+		String getContent() throws IOException {
+			flushBuffer();
+			return content.toString();
+		}
+
+		private void flushDecodingStream() throws IOException {
+			if (decodingStream != null) {
+				decodingStream.flush();
+			}
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.tenderned;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+
+/**
+ * Forwards the SAX events of the XSLT transformation to the FOP handler and keeps track of the time spent in the FOP
+ * handler. The XSLT transformation and the FOP layout run interleaved on the same thread, this is how the time of the
+ * one is told apart from the time of the other.
+ */
+class TimedContentHandler implements ContentHandler {
+
+	private final ContentHandler delegate;
+	private long elapsedNanos;
+
+	TimedContentHandler(ContentHandler delegate) {
+		this.delegate = delegate;
+	}
+
+	/**
+	 * @return The time spent in the handler receiving the events
+	 */
+	long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	@Override
+	public void setDocumentLocator(Locator locator) {
+		delegate.setDocumentLocator(locator);
+	}
+
+	@Override
+	public void startDocument() throws SAXException {
+		long start = System.nanoTime();
+		try {
+			delegate.startDocument();
+		} finally {
+			elapsedNanos += System.nanoTime() - start;
+		}
+	}
+
+	@Override
+	public void endDocument() throws SAXException {
+		long start = System.nanoTime();
+		try {
+			delegate.endDocument();
+		} finally {
+			elapsedNanos += System.nanoTime() - start;
+		}
+	}
+
+	@Override
+	public void startPrefixMapping(String prefix, String uri) throws SAXException {
+		delegate.startPrefixMapping(prefix, uri);
+	}
+
+	@Override
+	public void endPrefixMapping(String prefix) throws SAXException {
+		delegate.endPrefixMapping(prefix);
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+		long start = System.nanoTime();
+		try {
+			delegate.startElement(uri, localName, qName, atts);
+		} finally {
+			elapsedNanos += System.nanoTime() - start;
+		}
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+		long start = System.nanoTime();
+		try {
+			delegate.endElement(uri, localName, qName);
+		} finally {
+			elapsedNanos += System.nanoTime() - start;
+		}
+	}
+
+	@Override
+	public void characters(char[] ch, int start, int length) throws SAXException {
+		long startNanos = System.nanoTime();
+		try {
+			delegate.characters(ch, start, length);
+		} finally {
+			elapsedNanos += System.nanoTime() - startNanos;
+		}
+	}
+
+	@Override
+	public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+		delegate.ignorableWhitespace(ch, start, length);
+	}
+
+	@Override
+	public void processingInstruction(String target, String data) throws SAXException {
+		delegate.processingInstruction(target, data);
+	}
+
+	@Override
+	public void skippedEntity(String name) throws SAXException {
+		delegate.skippedEntity(name);
+	}
+}
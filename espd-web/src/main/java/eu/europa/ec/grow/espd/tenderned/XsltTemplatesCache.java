@@ -0,0 +1,145 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.tenderned;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the compiled form ({@link Templates}) of the XSLT stylesheets used for the PDF generation so that they are
+ * parsed and compiled only once instead of on every PDF request. A {@link Templates} object is thread safe, the
+ * {@link Transformer} instances handed out by this class are not and must be used by one request only.
+ */
+@Slf4j
+public class XsltTemplatesCache {
+
+	private final TransformerFactory transformerFactory;
+	private final XsltURIResolver uriResolver;
+	private final ConcurrentMap<String, Templates> templates = new ConcurrentHashMap<>();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong compileTimeNanos = new AtomicLong();
+
+	public XsltTemplatesCache(TransformerFactory transformerFactory, XsltURIResolver uriResolver,
+			String... stylesheets) {
+		this.transformerFactory = transformerFactory;
+		this.uriResolver = uriResolver;
+		precompile(stylesheets);
+	}
+
+	private void precompile(String... stylesheets) {
+		for (String stylesheet : stylesheets) {
+			try {
+				templates.put(stylesheet, compile(stylesheet));
+			} catch (TransformerException e) {
+				throw new IllegalStateException(String.format("Could not compile stylesheet '%s'.", stylesheet), e);
+			}
+		}
+		log.info("--- Compiled {} XSLT stylesheet(s) in {} ms.", stylesheets.length, getCompileTimeMillis());
+	}
+
+	/**
+	 * Create a new {@link Transformer} out of the compiled stylesheet. The stylesheet is compiled and cached on first
+	 * use if it was not compiled at startup.
+	 *
+	 * @param stylesheet The name of the XSLT file, as resolved by the {@link XsltURIResolver}
+	 *
+	 * @return A fresh {@link Transformer} which must not be shared between threads
+	 *
+	 * @throws TransformerException If the stylesheet could not be compiled or the transformer created
+	 */
+	public Transformer newTransformer(String stylesheet) throws TransformerException {
+		return getTemplates(stylesheet).newTransformer();
+	}
+
+	Templates getTemplates(String stylesheet) throws TransformerException {
+		Templates compiled = templates.get(stylesheet);
+		if (compiled != null) {
+			hits.incrementAndGet();
+			return compiled;
+		}
+
+		misses.incrementAndGet();
+		compiled = compile(stylesheet);
+		Templates existing = templates.putIfAbsent(stylesheet, compiled);
+		return existing != null ? existing : compiled;
+	}
+
+	private Templates compile(String stylesheet) throws TransformerException {
+		long start = System.nanoTime();
+		try {
+			Source source = uriResolver.resolve(stylesheet, null);
+			if (source instanceof StreamSource && ((StreamSource) source).getInputStream() == null) {
+				// the factory would otherwise fail with an obscure parsing error
+				throw new TransformerException(String.format("Unknown XSLT stylesheet '%s'.", stylesheet));
+			}
+			return transformerFactory.newTemplates(source);
+		} finally {
+			compileTimeNanos.addAndGet(System.nanoTime() - start);
+		}
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * @return The ratio between the number of transformers served from already compiled stylesheets and the total
+	 * number of requested transformers, or 0 if no transformer was requested yet
+	 */
+	public double getHitRate() {
+		long hitCount = hits.get();
+		long total = hitCount + misses.get();
+		return total == 0 ? 0d : (double) hitCount / total;
+	}
+
+	/**
+	 * @return The total time spent compiling stylesheets, including the startup compilation
+	 */
+	public long getCompileTimeMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(compileTimeNanos.get());
+	}
+
+	@Override
+	public String toString() {
+		return String.format("XsltTemplatesCache[stylesheets=%s, hits=%d, misses=%d, hitRate=%.2f, compileTime=%dms]",
+				templates.keySet(), getHits(), getMisses(), getHitRate(), getCompileTimeMillis());
+	}
+}
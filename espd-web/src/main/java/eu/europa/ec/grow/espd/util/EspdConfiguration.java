@@ -68,12 +68,114 @@ public class EspdConfiguration {
 	@Value("#{PropertySplitter.mapWithSeparators('${espd.page.breadcrumb:}', ',', '->')}")
 	private Map<String, String> breadcrumbAsMap;
 
+	@Value("${espd.page.fragment.cache.maximum.size:50000}")
+	private long pageFragmentCacheMaximumSize;
+
+	@Value("${spring.messages.basename:i18n/messages}")
+	private String messagesBasename;
+
 	@Value("${apache.fop.xml.configuration.location:classpath:grow/fop/fop-config.xml}")
 	private String fopXmlConfigurationLocation;
 
 	@Value("${apache.fop.defaultBaseUri:.}")
 	private String fopDefaultBaseUri;
 
+	@Value("${espd.pdf.rendering.threads:4}")
+	private int pdfRenderingThreads;
+
+	@Value("${espd.pdf.rendering.queue.capacity:50}")
+	private int pdfRenderingQueueCapacity;
+
+	@Value("${espd.pdf.rendering.timeout.millis:60000}")
+	private long pdfRenderingTimeoutMillis;
+
+	@Value("${espd.pdf.rendering.retry.after.seconds:10}")
+	private int pdfRenderingRetryAfterSeconds;
+
+	@Value("${espd.zip.export.threads:4}")
+	private int zipExportThreads;
+
+	@Value("${espd.zip.export.queue.capacity:50}")
+	private int zipExportQueueCapacity;
+
+	@Value("${espd.zip.compression.level:-1}")
+	private int zipCompressionLevel;
+
+	@Value("${espd.zip.pdf.compression.level:0}")
+	private int zipPdfCompressionLevel;
+
+	@Value("${espd.pdf.cache.max.bytes:67108864}")
+	private long pdfCacheMaxBytes;
+
+	@Value("${espd.pdf.cache.ttl.seconds:600}")
+	private long pdfCacheTtlSeconds;
+
+	@Value("${espd.xml.import.streaming:false}")
+	private boolean xmlImportStreaming;
+
+	@Value("${espd.xml.jaxb.pool.max.idle:16}")
+	private int xmlJaxbPoolMaxIdle;
+
+	@Value("${espd.xml.export.compact:false}")
+	private boolean xmlExportCompact;
+
+	@Value("${espd.xml.export.gzip:true}")
+	private boolean xmlExportGzip;
+
+	@Value("${espd.xml.import.max.uncompressed.bytes:52428800}")
+	private long xmlImportMaxUncompressedBytes;
+
+	@Value("${espd.xml.import.validation:false}")
+	private boolean xmlImportValidation;
+
+	@Value("${espd.xml.import.schema.locations:classpath:xsd/maindoc/ESPDRequest-1.0.xsd,classpath:xsd/maindoc/ESPDResponse-1.0.xsd}")
+	private String[] xmlImportSchemaLocations;
+
+	@Value("${ted.cache.maximum.size:1000}")
+	private long tedCacheMaximumSize;
+
+	@Value("${ted.cache.ttl.seconds:3600}")
+	private long tedCacheTtlSeconds;
+
+	@Value("${ted.cache.negative.ttl.seconds:60}")
+	private long tedCacheNegativeTtlSeconds;
+
+	@Value("${ted.circuit.failure.threshold:5}")
+	private int tedCircuitFailureThreshold;
+
+	@Value("${ted.circuit.open.seconds:60}")
+	private long tedCircuitOpenSeconds;
+
+	@Value("${http.client.connect.timeout.millis:5000}")
+	private int httpClientConnectTimeoutMillis;
+
+	@Value("${http.client.read.timeout.millis:10000}")
+	private int httpClientReadTimeoutMillis;
+
+	@Value("${http.client.max.connections:20}")
+	private int httpClientMaxConnections;
+
+	@Value("${espd.metrics.allowed.addr.pattern:(158\\.16[6-8]\\..*)|(127\\.0\\.0\\.1)|(localhost)}")
+	private String metricsAllowedAddrPattern;
+
+	@Value("${espd.metrics.session.size.sample.rate:10}")
+	private int metricsSessionSizeSampleRate;
+
+	@Value("${espd.session.store.directory:}")
+	private String sessionStoreDirectory;
+
+	@Value("${espd.session.store.ttl.minutes:480}")
+	private long sessionStoreTtlMinutes;
+
+	@Value("${espd.batch.import.threads:4}")
+	private int batchImportThreads;
+
+	@Value("${espd.batch.import.queue.capacity:100}")
+	private int batchImportQueueCapacity;
+
+	@Value("${espd.batch.document.max.bytes:5242880}")
+	private long batchDocumentMaxBytes;
+
     private final Environment environment;
 
 	@Autowired
@@ -24,21 +24,32 @@
 
 package eu.europa.ec.grow.espd.util;
 
+import com.google.common.io.CountingOutputStream;
 import eu.europa.ec.grow.espd.domain.EspdDocument;
-import eu.europa.ec.grow.espd.tenderned.HtmlToPdfTransformer;
+import eu.europa.ec.grow.espd.metrics.ProcessingMetrics;
+import eu.europa.ec.grow.espd.metrics.ProcessingStage;
+import eu.europa.ec.grow.espd.metrics.StageSample;
+import eu.europa.ec.grow.espd.tenderned.PdfRenderCache;
+import eu.europa.ec.grow.espd.tenderned.PrintableHtmlRenderer;
 import eu.europa.ec.grow.espd.tenderned.exception.PdfRenderingException;
 import eu.europa.ec.grow.espd.tenderned.exception.ZipException;
 import eu.europa.ec.grow.espd.xml.EspdXmlExporter;
 import org.apache.commons.io.IOUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.MessageSource;
-import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Component;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -50,67 +61,148 @@ public class EspdExporter {
 
 	private final EspdXmlExporter xmlExporter;
 
-	private final HtmlToPdfTransformer pdfExporter;
+	private final PdfRenderCache pdfRenderCache;
 
     private final MessageSource ms;
-    
+
+	private final ProcessingMetrics processingMetrics;
+
+	private final Executor zipExportExecutor;
+
+	private final int compressionLevel;
+
+	private final int pdfCompressionLevel;
+
 	@Autowired
-	EspdExporter(EspdXmlExporter xmlExporter, HtmlToPdfTransformer pdfExporter, MessageSource ms) {
+	EspdExporter(EspdXmlExporter xmlExporter, PdfRenderCache pdfRenderCache, MessageSource ms,
+			ProcessingMetrics processingMetrics, @Qualifier("zipExportExecutor") Executor zipExportExecutor,
+			EspdConfiguration espdConfiguration) {
 		this.xmlExporter = xmlExporter;
-		this.pdfExporter = pdfExporter;
+		this.pdfRenderCache = pdfRenderCache;
 		this.ms = ms;
+		this.processingMetrics = processingMetrics;
+		this.zipExportExecutor = zipExportExecutor;
+		this.compressionLevel = espdConfiguration.getZipCompressionLevel();
+		this.pdfCompressionLevel = espdConfiguration.getZipPdfCompressionLevel();
 	}
 
 	public ByteArrayOutputStream exportAsXml(EspdDocument espdDocument, String agent) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		exportAsXml(espdDocument, agent, out);
+		return out;
+	}
+
+	/**
+	 * Write the XML straight to the given stream, which is not closed.
+	 */
+	public void exportAsXml(EspdDocument espdDocument, String agent, OutputStream out) {
 		if ("eo".equals(agent)) {
-			return xmlExporter.generateEspdResponse(espdDocument);
+			xmlExporter.generateEspdResponse(espdDocument, out);
 		} else {
-			return xmlExporter.generateEspdRequest(espdDocument);
+			xmlExporter.generateEspdRequest(espdDocument, out);
 		}
 	}
 
-	public ByteArrayOutputStream exportAsPdf(EspdDocument espdDocument, String agent) throws PdfRenderingException {
-		return pdfExporter.convertToPDF(espdDocument.getHtml(), agent);
+	/**
+	 * @param printableHtml The XHTML rendered on the server by the {@link PrintableHtmlRenderer}
+	 */
+	public ByteArrayOutputStream exportAsPdf(String printableHtml, String agent) throws PdfRenderingException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		exportAsPdf(printableHtml, agent, out);
+		return out;
 	}
 
-	public ByteArrayOutputStream exportAsZip(EspdDocument espdDocument, String agent, Locale locale)
-			throws PdfRenderingException, IOException {
-		try (
-				ByteArrayOutputStream pdfOutput = pdfExporter.convertToPDF(espdDocument.getHtml(), agent);
-				ByteArrayOutputStream xmlOutput = exportAsXml(espdDocument, agent);
-				InputStream readMeStream = IOUtils.toInputStream(ms.getMessage("zip_instructions", null, locale));
-		) {
-			return zip(xmlOutput, pdfOutput, readMeStream, agent);
-		}
+	/**
+	 * Write the PDF to the given stream, which is not closed. A PDF already rendered out of the same HTML is served from
+	 * the {@link PdfRenderCache}.
+	 *
+	 * @param printableHtml The XHTML rendered on the server by the {@link PrintableHtmlRenderer}
+	 */
+	public void exportAsPdf(String printableHtml, String agent, OutputStream out) throws PdfRenderingException {
+		pdfRenderCache.render(printableHtml, agent, out);
 	}
 
-	private ByteArrayOutputStream zip(ByteArrayOutputStream xmlOut, ByteArrayOutputStream pdfOut,
-			InputStream readmeStream, String agent) {
-		String fileName = "ca".equalsIgnoreCase(agent) ? "espd-request" : "espd-response";
-		try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-				ZipOutputStream zipStream = new ZipOutputStream(baos)) {
-			addOutputStreamToZipFile(xmlOut, fileName + ".xml", zipStream);
-			addOutputStreamToZipFile(pdfOut, fileName + ".pdf", zipStream);
-			addInputStreamToZipFile(readmeStream, "README.txt", zipStream);
-			return baos;
+	public ByteArrayOutputStream exportAsZip(EspdDocument espdDocument, String printableHtml, String agent,
+			Locale locale) throws PdfRenderingException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try {
+			exportAsZip(espdDocument, printableHtml, agent, locale, baos);
 		} catch (IOException e) {
 			throw new ZipException("Error creating the ESPD archive.", e);
 		}
+		return baos;
+	}
+
+	/**
+	 * Write the ZIP archive straight to the given stream, which is finished but not closed. The XML is marshalled on the
+	 * {@code zipExportExecutor} while the PDF is rendered directly into its archive entry, so that the archive takes as
+	 * long as the PDF alone. The XML entry follows the PDF entry.
+	 * <p>
+	 * The PDF entry is compressed with its own level, {@code espd.zip.pdf.compression.level}, since compressing a PDF
+	 * again costs time for nothing.
+	 * </p>
+	 * <p>
+	 * The {@link ProcessingStage#ZIP} stage covers the whole archive, the stages of the XML and PDF generation are
+	 * recorded on their own as well.
+	 * </p>
+	 */
+	public void exportAsZip(EspdDocument espdDocument, String printableHtml, String agent, Locale locale,
+			OutputStream out) throws PdfRenderingException, IOException {
+		CountingOutputStream countingStream = new CountingOutputStream(out);
+		StageSample zipping = processingMetrics.start(ProcessingStage.ZIP);
+		try {
+			writeZip(espdDocument, printableHtml, agent, locale, countingStream);
+		} finally {
+			zipping.addBytes(countingStream.getCount());
+			zipping.stop();
+		}
 	}
 
-	private void addOutputStreamToZipFile(ByteArrayOutputStream out, String fileName, ZipOutputStream zipStream)
-			throws IOException {
-		ZipEntry zipEntry = new ZipEntry(fileName);
-		zipStream.putNextEntry(zipEntry);
-		out.writeTo(zipStream);
-		zipStream.closeEntry();
+	private void writeZip(final EspdDocument espdDocument, String printableHtml, final String agent, Locale locale,
+			OutputStream out) throws PdfRenderingException, IOException {
+		String fileName = "ca".equalsIgnoreCase(agent) ? "espd-request" : "espd-response";
+		FutureTask<byte[]> xml = new FutureTask<>(new Callable<byte[]>() {
+			@Override
+			public byte[] call() {
+				return exportAsXml(espdDocument, agent).toByteArray();
+			}
+		});
+		zipExportExecutor.execute(xml);
+
+		// FOP does not close the stream it writes to, so the PDF can be written in place
+		ZipOutputStream zipStream = new ZipOutputStream(out);
+		try {
+			zipStream.setLevel(pdfCompressionLevel);
+			zipStream.putNextEntry(new ZipEntry(fileName + ".pdf"));
+			exportAsPdf(printableHtml, agent, zipStream);
+			zipStream.closeEntry();
+			zipStream.setLevel(compressionLevel);
+
+			zipStream.putNextEntry(new ZipEntry(fileName + ".xml"));
+			zipStream.write(getMarshalledXml(xml));
+			zipStream.closeEntry();
+		} finally {
+			// the XML is not needed anymore if the PDF failed
+			xml.cancel(true);
+		}
+
+		try (InputStream readMeStream = IOUtils.toInputStream(ms.getMessage("zip_instructions", null, locale))) {
+			zipStream.putNextEntry(new ZipEntry("README.txt"));
+			IOUtils.copy(readMeStream, zipStream);
+			zipStream.closeEntry();
+		}
+
+		zipStream.finish();
 	}
 
-	private void addInputStreamToZipFile(InputStream inputStream, String fileName, ZipOutputStream zipStream)
-			throws IOException {
-		ZipEntry zipEntry = new ZipEntry(fileName);
-		zipStream.putNextEntry(zipEntry);
-		IOUtils.copy(inputStream, zipStream);
-		zipStream.closeEntry();
+	private static byte[] getMarshalledXml(FutureTask<byte[]> xml) throws IOException {
+		try {
+			return xml.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the XML of the ESPD archive.");
+		} catch (ExecutionException e) {
+			throw new ZipException("Error marshalling the XML of the ESPD archive.", e.getCause());
+		}
 	}
 }
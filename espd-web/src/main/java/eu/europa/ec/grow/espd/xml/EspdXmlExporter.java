@@ -24,18 +24,25 @@
 
 package eu.europa.ec.grow.espd.xml;
 
+import com.google.common.io.CountingOutputStream;
 import eu.europa.ec.grow.espd.domain.EspdDocument;
+import eu.europa.ec.grow.espd.metrics.ProcessingMetrics;
+import eu.europa.ec.grow.espd.metrics.ProcessingStage;
+import eu.europa.ec.grow.espd.metrics.StageSample;
+import eu.europa.ec.grow.espd.xml.common.JaxbMarshallerPool;
+import eu.europa.ec.grow.espd.xml.request.exporting.UblRequestCriterionFragments;
 import eu.europa.ec.grow.espd.xml.request.exporting.UblRequestTypeTransformer;
 import eu.europa.ec.grow.espd.xml.response.exporting.UblResponseTypeTransformer;
 import grow.names.specification.ubl.schema.xsd.espdrequest_1.ESPDRequestType;
 import grow.names.specification.ubl.schema.xsd.espdresponse_1.ESPDResponseType;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.oxm.jaxb.Jaxb2Marshaller;
 import org.springframework.stereotype.Component;
 
 import javax.xml.transform.stream.StreamResult;
 import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Class used to generate XML files containing ESPD Requests or Responses.
@@ -45,20 +52,23 @@ import java.io.StringWriter;
 @Component
 public class EspdXmlExporter {
 
-	private final Jaxb2Marshaller jaxb2Marshaller;
+	private final JaxbMarshallerPool marshallerPool;
 	private final UblRequestTypeTransformer toEspdRequestTransformer;
 	private final UblResponseTypeTransformer toEspdResponseTransformer;
-	private final grow.names.specification.ubl.schema.xsd.espdrequest_1.ObjectFactory espdRequestObjectFactory;
+	private final UblRequestCriterionFragments requestCriterionFragments;
 	private final grow.names.specification.ubl.schema.xsd.espdresponse_1.ObjectFactory espdResponseObjectFactory;
+	private final ProcessingMetrics processingMetrics;
 
 	@Autowired
-	EspdXmlExporter(Jaxb2Marshaller jaxb2Marshaller, UblRequestTypeTransformer toEspdRequestTransformer,
-			UblResponseTypeTransformer toEspdResponseTransformer) {
-		this.jaxb2Marshaller = jaxb2Marshaller;
+	EspdXmlExporter(JaxbMarshallerPool marshallerPool, UblRequestTypeTransformer toEspdRequestTransformer,
+			UblResponseTypeTransformer toEspdResponseTransformer,
+			UblRequestCriterionFragments requestCriterionFragments, ProcessingMetrics processingMetrics) {
+		this.marshallerPool = marshallerPool;
 		this.toEspdRequestTransformer = toEspdRequestTransformer;
 		this.toEspdResponseTransformer = toEspdResponseTransformer;
-		this.espdRequestObjectFactory = new grow.names.specification.ubl.schema.xsd.espdrequest_1.ObjectFactory();
+		this.requestCriterionFragments = requestCriterionFragments;
 		this.espdResponseObjectFactory = new grow.names.specification.ubl.schema.xsd.espdresponse_1.ObjectFactory();
+		this.processingMetrics = processingMetrics;
 	}
 
 	/**
@@ -71,12 +81,37 @@ public class EspdXmlExporter {
 	 */
 	public ByteArrayOutputStream generateEspdRequest(EspdDocument espdDocument) {
 		ByteArrayOutputStream out = new ByteArrayOutputStream();
-		ESPDRequestType espdRequestType = toEspdRequestTransformer.buildRequestType(espdDocument);
-		StreamResult result = new StreamResult(out);
-		jaxb2Marshaller.marshal(espdRequestObjectFactory.createESPDRequest(espdRequestType), result);
+		generateEspdRequest(espdDocument, out);
 		return out;
 	}
 
+	/**
+	 * Create a {@link ESPDRequestType} from the provided {@link EspdDocument} and marshals it
+	 * directly to the given output stream. The criteria are copied from the fragments already
+	 * marshalled by the {@link UblRequestCriterionFragments}.
+	 *
+	 * @param espdDocument The ESPD document that will be written out
+	 * @param out          The stream where the XML representation will be written out. It is not closed.
+	 */
+	public void generateEspdRequest(EspdDocument espdDocument, OutputStream out) {
+		ESPDRequestType espdRequestType;
+		StageSample building = processingMetrics.start(ProcessingStage.UBL_BUILDING);
+		try {
+			espdRequestType = toEspdRequestTransformer.buildRequestTypeWithoutCriteria(espdDocument);
+		} finally {
+			building.stop();
+		}
+
+		CountingOutputStream countingStream = new CountingOutputStream(out);
+		StageSample marshalling = processingMetrics.start(ProcessingStage.MARSHAL);
+		try {
+			requestCriterionFragments.writeRequest(espdRequestType, espdDocument, countingStream);
+		} finally {
+			marshalling.addBytes(countingStream.getCount());
+			marshalling.stop();
+		}
+	}
+
 	/**
 	 * Create a {@link ESPDRequestType} from the provided {@link EspdDocument} and marshals it
 	 * as a {@link StringWriter}.
@@ -85,10 +120,7 @@ public class EspdXmlExporter {
 	 * @param sw           The place where the XML representation will be written out
 	 */
 	public void generateEspdRequest(EspdDocument espdDocument, StringWriter sw) {
-		ESPDRequestType espdRequestType = toEspdRequestTransformer.buildRequestType(espdDocument);
-		StreamResult result = new StreamResult(sw);
-
-		jaxb2Marshaller.marshal(espdRequestObjectFactory.createESPDRequest(espdRequestType), result);
+		sw.write(new String(generateEspdRequest(espdDocument).toByteArray(), StandardCharsets.UTF_8));
 	}
 
 	/**
@@ -101,12 +133,30 @@ public class EspdXmlExporter {
 	 */
 	public ByteArrayOutputStream generateEspdResponse(EspdDocument espdDocument) {
 		ByteArrayOutputStream out = new ByteArrayOutputStream();
-		ESPDResponseType espdResponseType = toEspdResponseTransformer.buildResponseType(espdDocument);
-		StreamResult result = new StreamResult(out);
-		jaxb2Marshaller.marshal(espdResponseObjectFactory.createESPDResponse(espdResponseType), result);
+		generateEspdResponse(espdDocument, out);
 		return out;
 	}
 
+	/**
+	 * Create a {@link ESPDResponseType} from the provided {@link EspdDocument} and marshals it
+	 * directly to the given output stream, without buffering the whole XML in memory.
+	 *
+	 * @param espdDocument The ESPD document that will be written out
+	 * @param out          The stream where the XML representation will be written out. It is not closed.
+	 */
+	public void generateEspdResponse(EspdDocument espdDocument, OutputStream out) {
+		ESPDResponseType espdResponseType = buildResponseType(espdDocument);
+		CountingOutputStream countingStream = new CountingOutputStream(out);
+		StageSample marshalling = processingMetrics.start(ProcessingStage.MARSHAL);
+		try {
+			marshallerPool.marshal(espdResponseObjectFactory.createESPDResponse(espdResponseType),
+					new StreamResult(countingStream));
+		} finally {
+			marshalling.addBytes(countingStream.getCount());
+			marshalling.stop();
+		}
+	}
+
 	/**
 	 * Create a {@link ESPDResponseType} from the provided {@link EspdDocument} and marshals it
 	 * to the output stream.
@@ -115,8 +165,21 @@ public class EspdXmlExporter {
 	 * @param sw           The place where the XML representation will be written out
 	 */
 	public void generateEspdResponse(EspdDocument espdDocument, StringWriter sw) {
-		ESPDResponseType espdResponseType = toEspdResponseTransformer.buildResponseType(espdDocument);
-		StreamResult result = new StreamResult(sw);
-		jaxb2Marshaller.marshal(espdResponseObjectFactory.createESPDResponse(espdResponseType), result);
+		ESPDResponseType espdResponseType = buildResponseType(espdDocument);
+		StageSample marshalling = processingMetrics.start(ProcessingStage.MARSHAL);
+		try {
+			marshallerPool.marshal(espdResponseObjectFactory.createESPDResponse(espdResponseType), new StreamResult(sw));
+		} finally {
+			marshalling.stop();
+		}
+	}
+
+	private ESPDResponseType buildResponseType(EspdDocument espdDocument) {
+		StageSample building = processingMetrics.start(ProcessingStage.UBL_BUILDING);
+		try {
+			return toEspdResponseTransformer.buildResponseType(espdDocument);
+		} finally {
+			building.stop();
+		}
 	}
 }
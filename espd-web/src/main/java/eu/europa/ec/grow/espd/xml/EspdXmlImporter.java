@@ -25,8 +25,15 @@
 package eu.europa.ec.grow.espd.xml;
 
 import com.google.common.base.Optional;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
 import eu.europa.ec.grow.espd.domain.EspdDocument;
+import eu.europa.ec.grow.espd.metrics.ProcessingMetrics;
+import eu.europa.ec.grow.espd.metrics.ProcessingStage;
+import eu.europa.ec.grow.espd.metrics.StageSample;
 import eu.europa.ec.grow.espd.tenderned.exception.TedNoticeException;
+import eu.europa.ec.grow.espd.util.EspdConfiguration;
+import eu.europa.ec.grow.espd.xml.common.JaxbMarshallerPool;
 import eu.europa.ec.grow.espd.xml.request.importing.UblRequestImporter;
 import eu.europa.ec.grow.espd.xml.response.importing.UblRequestResponseMerger;
 import eu.europa.ec.grow.espd.xml.response.importing.UblResponseImporter;
@@ -34,86 +41,170 @@ import grow.names.specification.ubl.schema.xsd.espdrequest_1.ESPDRequestType;
 import grow.names.specification.ubl.schema.xsd.espdresponse_1.ESPDResponseType;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.oxm.jaxb.Jaxb2Marshaller;
 import org.springframework.stereotype.Component;
 
 import javax.xml.bind.JAXBElement;
-import javax.xml.transform.stream.StreamSource;
-import java.io.BufferedInputStream;
+import javax.xml.bind.JAXBException;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
 
 /**
  * Class used to import XML files containing ESPD Requests or Responses.
  * <p>
+ * The files can also be gzip compressed, like the {@code .xml.gz} files or the request bodies sent with a gzip
+ * content encoding. They are recognised by their first bytes and decompressed while they are read.
+ * </p>
+ * <p>
  * Created by ratoico on 1/23/17.
  */
 @Slf4j
 @Component
 public class EspdXmlImporter {
 
-	private final Jaxb2Marshaller jaxb2Marshaller;
+	static final QName ESPD_REQUEST = new QName("urn:grow:names:specification:ubl:schema:xsd:ESPDRequest-1",
+			"ESPDRequest");
+	static final QName ESPD_RESPONSE = new QName("urn:grow:names:specification:ubl:schema:xsd:ESPDResponse-1",
+			"ESPDResponse");
+
+	/**
+	 * Root elements of the TED notices, whose namespace depends on the version of the TED schema.
+	 */
+	private static final List<String> TED_NOTICES = Arrays.asList("ContractNotice", "TED_EXPORT");
+
+	private static final byte[] GZIP_MAGIC = { 0x1f, (byte) 0x8b };
+	private static final byte[] ZIP_MAGIC = { 'P', 'K', 3, 4 };
+
+	private final JaxbMarshallerPool marshallerPool;
 	private final UblRequestImporter requestToEspdDocumentTransformer;
 	private final UblResponseImporter responseToEspdDocumentTransformer;
 	private final UblRequestResponseMerger requestResponseMerger;
+	private final StreamingEspdXmlImporter streamingImporter;
+	private final EspdConfiguration espdConfiguration;
+	private final ProcessingMetrics processingMetrics;
 
 	@Autowired
-	EspdXmlImporter(Jaxb2Marshaller jaxb2Marshaller, UblRequestImporter requestToEspdDocumentTransformer,
-			UblResponseImporter responseToEspdDocumentTransformer, UblRequestResponseMerger requestResponseMerger) {
-		this.jaxb2Marshaller = jaxb2Marshaller;
+	EspdXmlImporter(JaxbMarshallerPool marshallerPool, UblRequestImporter requestToEspdDocumentTransformer,
+			UblResponseImporter responseToEspdDocumentTransformer, UblRequestResponseMerger requestResponseMerger,
+			StreamingEspdXmlImporter streamingImporter, EspdConfiguration espdConfiguration,
+			ProcessingMetrics processingMetrics) {
+		this.marshallerPool = marshallerPool;
 		this.requestToEspdDocumentTransformer = requestToEspdDocumentTransformer;
 		this.responseToEspdDocumentTransformer = responseToEspdDocumentTransformer;
 		this.requestResponseMerger = requestResponseMerger;
+		this.streamingImporter = streamingImporter;
+		this.espdConfiguration = espdConfiguration;
+		this.processingMetrics = processingMetrics;
 	}
 
 	/**
 	 * Convert a {@link ESPDRequestType} coming from an input stream into a {@link EspdDocument} object needed by
-	 * the web application user interface.
+	 * the web application user interface. The {@link StreamingEspdXmlImporter} is used instead of the full JAXB
+	 * unmarshalling when the streaming import is enabled and the validation is not.
 	 *
 	 * @param espdRequestStream An input stream containing the ESPD Request
 	 *
 	 * @return An {@link EspdDocument} object coming out from the stream if it contained a valid ESPD Request
 	 * wrapped in an {@link Optional} or an empty {@link Optional} if the import was unsuccessful.
 	 */
-	@SuppressWarnings("unchecked")
 	public Optional<EspdDocument> importEspdRequest(InputStream espdRequestStream) {
 		try {
-			JAXBElement<ESPDRequestType> element = (JAXBElement<ESPDRequestType>) jaxb2Marshaller
-					.unmarshal(new StreamSource(espdRequestStream));
-			ESPDRequestType requestType = element.getValue();
-			return Optional.of(requestToEspdDocumentTransformer.importRequest(requestType));
+			CountingInputStream countingStream = new CountingInputStream(decompressIfGzipped(espdRequestStream));
+			XMLStreamReader reader = marshallerPool.getInputFactory().createXMLStreamReader(countingStream);
+			try {
+				return Optional.of(importEspdRequest(reader, countingStream));
+			} finally {
+				reader.close();
+			}
 		} catch (Exception e) {
 			log.warn(e.getMessage(), e);
 			return Optional.absent();
 		}
 	}
 
+	private EspdDocument importEspdRequest(XMLStreamReader reader, CountingInputStream countingStream)
+			throws XMLStreamException, JAXBException {
+		if (isStreamingImport()) {
+			return streamingImporter.importEspdRequest(reader, countingStream);
+		}
+		ESPDRequestType requestType = unmarshal(reader, countingStream, ESPDRequestType.class);
+		StageSample population = processingMetrics.start(ProcessingStage.CRITERIA_POPULATION);
+		try {
+			return requestToEspdDocumentTransformer.importRequest(requestType);
+		} finally {
+			population.stop();
+		}
+	}
+
 	/**
 	 * Convert a {@link ESPDResponseType} coming from an input stream into a {@link EspdDocument} object needed by
-	 * the web application user interface.
+	 * the web application user interface. The {@link StreamingEspdXmlImporter} is used instead of the full JAXB
+	 * unmarshalling when the streaming import is enabled and the validation is not.
 	 *
 	 * @param espdResponseStream An input stream containing the ESPD Response
 	 *
 	 * @return An {@link EspdDocument} object coming out from the stream if it contained a valid ESPD Response
 	 * wrapped in an {@link Optional} or an empty {@link Optional} if the import was unsuccessful.
 	 */
-	@SuppressWarnings("unchecked")
 	public Optional<EspdDocument> importEspdResponse(InputStream espdResponseStream) {
 		try {
-			JAXBElement<ESPDResponseType> element = (JAXBElement<ESPDResponseType>) jaxb2Marshaller
-					.unmarshal(new StreamSource(espdResponseStream));
-			ESPDResponseType responseType = element.getValue();
-			return Optional.of(responseToEspdDocumentTransformer.importResponse(responseType));
+			CountingInputStream countingStream = new CountingInputStream(decompressIfGzipped(espdResponseStream));
+			XMLStreamReader reader = marshallerPool.getInputFactory().createXMLStreamReader(countingStream);
+			try {
+				return Optional.of(importEspdResponse(reader, countingStream));
+			} finally {
+				reader.close();
+			}
 		} catch (Exception e) {
 			log.warn(e.getMessage(), e);
 			return Optional.absent();
 		}
 	}
 
+	private EspdDocument importEspdResponse(XMLStreamReader reader, CountingInputStream countingStream)
+			throws XMLStreamException, JAXBException {
+		if (isStreamingImport()) {
+			return streamingImporter.importEspdResponse(reader, countingStream);
+		}
+		ESPDResponseType responseType = unmarshal(reader, countingStream, ESPDResponseType.class);
+		StageSample population = processingMetrics.start(ProcessingStage.CRITERIA_POPULATION);
+		try {
+			return responseToEspdDocumentTransformer.importResponse(responseType);
+		} finally {
+			population.stop();
+		}
+	}
+
+	/**
+	 * The streaming import reads the criteria without JAXB, so it cannot validate them: the documents are unmarshalled
+	 * completely when they have to be validated.
+	 */
+	private boolean isStreamingImport() {
+		return espdConfiguration.isXmlImportStreaming() && !marshallerPool.isValidating();
+	}
+
 	/**
 	 * Read from an input stream that should contain a {@link ESPDRequestType} or {@link ESPDResponseType}
 	 * and convert it into a {@link EspdDocument}. It is not known beforehand if the content
 	 * belongs to a ESPD Request or Response.
+	 * <p>
+	 * The document is read up to its root element only, whatever comes before it (byte order mark, comments, processing
+	 * instructions), and the qualified name of the root element decides how the rest of the document is read by the
+	 * very same reader. The stream can also be a ZIP archive downloaded from the wizard, whose XML file is imported.
+	 * </p>
 	 *
 	 * @param espdStream An input stream hopefully containing a ESPD Request or Response
 	 *
@@ -124,30 +215,73 @@ public class EspdXmlImporter {
 	 * @throws TedNoticeException if file contains Ted Notice XML
 	 */
 	public Optional<EspdDocument> importAmbiguousEspdFile(InputStream espdStream) throws IOException, TedNoticeException {
-		// peek at the first bytes in the file to see if it is a ESPD Request or Response
-		try (BufferedInputStream bis = new BufferedInputStream(espdStream)) {
-			int peekReadLimit = 80;
-			bis.mark(peekReadLimit);
-			byte[] peek = new byte[peekReadLimit];
-			int bytesRead = bis.read(peek, 0, peekReadLimit - 1);
-			if (bytesRead < 0) {
-				return Optional.absent();
+		try (PushbackInputStream stream = new PushbackInputStream(decompressIfGzipped(espdStream),
+				ZIP_MAGIC.length)) {
+			if (startsWith(stream, ZIP_MAGIC)) {
+				return importZippedEspdFile(new ZipInputStream(stream));
 			}
-			bis.reset(); // need to read from the beginning afterwards
-			String firstBytes = new String(peek, "UTF-8");
-
-			// decide how to read the uploaded file
-			if (firstBytes.contains("ESPDResponse")) {
-				return importEspdResponse(bis);
-			} else if (firstBytes.contains("ESPDRequest")) {
-				return importEspdRequest(bis);
-			} else if (firstBytes.contains("ContractNotice") || firstBytes.contains("TED_EXPORT")) {
-				throw new TedNoticeException();
+			return importByRootElement(stream);
+		}
+	}
+
+	/**
+	 * Import the first XML file of a ZIP archive, like the ones made by
+	 * {@link eu.europa.ec.grow.espd.util.EspdExporter#exportAsZip}. The other entries are skipped without being
+	 * decompressed.
+	 */
+	private Optional<EspdDocument> importZippedEspdFile(ZipInputStream zipStream)
+			throws IOException, TedNoticeException {
+		try {
+			for (ZipEntry entry = zipStream.getNextEntry(); entry != null; entry = zipStream.getNextEntry()) {
+				if (!entry.isDirectory() && entry.getName().toLowerCase(Locale.ENGLISH).endsWith(".xml")) {
+					return importByRootElement(limitUncompressed(zipStream));
+				}
 			}
+		} catch (ZipException e) {
+			log.warn(e.getMessage(), e);
 		}
 		return Optional.absent();
 	}
 
+	private Optional<EspdDocument> importByRootElement(InputStream stream) throws TedNoticeException {
+		CountingInputStream countingStream = new CountingInputStream(stream);
+		try {
+			XMLStreamReader reader = marshallerPool.getInputFactory().createXMLStreamReader(countingStream);
+			try {
+				QName root = readRootElement(reader);
+				if (ESPD_RESPONSE.equals(root)) {
+					return Optional.of(importEspdResponse(reader, countingStream));
+				} else if (ESPD_REQUEST.equals(root)) {
+					return Optional.of(importEspdRequest(reader, countingStream));
+				} else if (root != null && TED_NOTICES.contains(root.getLocalPart())) {
+					throw new TedNoticeException();
+				}
+				log.debug("--- Not importing a document whose root element is '{}'.", root);
+				return Optional.absent();
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException | JAXBException | RuntimeException e) {
+			log.warn(e.getMessage(), e);
+			return Optional.absent();
+		}
+	}
+
+	/**
+	 * Move the reader to the root element, past the prolog of the document.
+	 *
+	 * @return The qualified name of the root element, or {@code null} if the document has none
+	 */
+	private static QName readRootElement(XMLStreamReader reader) throws XMLStreamException {
+		while (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+			if (!reader.hasNext()) {
+				return null;
+			}
+			reader.next();
+		}
+		return reader.getName();
+	}
+
 	/**
 	 * Merge the data coming from a ESPD Request with data coming from a ESPD Response.
 	 * <p>
@@ -165,19 +299,91 @@ public class EspdXmlImporter {
 	 * @return An {@link EspdDocument} object coming out from the merging of the Request and Response
 	 * wrapped in an {@link Optional} or an empty {@link Optional} if the import was unsuccessful.
 	 */
-	@SuppressWarnings("unchecked")
 	public Optional<EspdDocument> mergeEspdRequestAndResponse(InputStream requestStream, InputStream responseStream) {
+		return mergeEspdRequestAndResponses(requestStream, Collections.singletonList(responseStream));
+	}
+
+	/**
+	 * Merge the data coming from a ESPD Request with data coming from several ESPD Responses, given by order of
+	 * precedence. See {@link UblRequestResponseMerger#mergeRequestAndResponses(ESPDRequestType, List)}.
+	 *
+	 * @param requestStream   An input stream hopefully containing a ESPD Request
+	 * @param responseStreams Input streams hopefully containing ESPD Responses
+	 *
+	 * @return An {@link EspdDocument} object coming out from the merging of the Request and Responses
+	 * wrapped in an {@link Optional} or an empty {@link Optional} if the import was unsuccessful.
+	 */
+	public Optional<EspdDocument> mergeEspdRequestAndResponses(InputStream requestStream,
+			List<InputStream> responseStreams) {
 		try {
-			JAXBElement<ESPDRequestType> requestElement = (JAXBElement<ESPDRequestType>) jaxb2Marshaller
-					.unmarshal(new StreamSource(requestStream));
-			ESPDRequestType requestType = requestElement.getValue();
-			JAXBElement<ESPDResponseType> responseElement = (JAXBElement<ESPDResponseType>) jaxb2Marshaller
-					.unmarshal(new StreamSource(responseStream));
-			ESPDResponseType responseType = responseElement.getValue();
-			return Optional.of(requestResponseMerger.mergeRequestAndResponse(requestType, responseType));
+			ESPDRequestType requestType = unmarshal(decompressIfGzipped(requestStream), ESPDRequestType.class);
+			List<ESPDResponseType> responseTypes = new ArrayList<>(responseStreams.size());
+			for (InputStream responseStream : responseStreams) {
+				responseTypes.add(unmarshal(decompressIfGzipped(responseStream), ESPDResponseType.class));
+			}
+			StageSample population = processingMetrics.start(ProcessingStage.CRITERIA_POPULATION);
+			try {
+				return Optional.of(requestResponseMerger.mergeRequestAndResponses(requestType, responseTypes));
+			} finally {
+				population.stop();
+			}
 		} catch (Exception e) {
 			log.warn(e.getMessage(), e);
 			return Optional.absent();
 		}
 	}
+
+	/**
+	 * Decompress the stream if it starts with the gzip magic number, otherwise give it back as it is. At most
+	 * {@link EspdConfiguration#getXmlImportMaxUncompressedBytes()} bytes are read out of a compressed stream, so that a
+	 * small upload cannot expand into an unbounded document.
+	 */
+	private InputStream decompressIfGzipped(InputStream stream) throws IOException {
+		PushbackInputStream pushbackStream = new PushbackInputStream(stream, GZIP_MAGIC.length);
+		if (!startsWith(pushbackStream, GZIP_MAGIC)) {
+			return pushbackStream;
+		}
+		return limitUncompressed(new GZIPInputStream(pushbackStream));
+	}
+
+	private InputStream limitUncompressed(InputStream decompressedStream) {
+		long maxBytes = espdConfiguration.getXmlImportMaxUncompressedBytes();
+		return maxBytes > 0 ? ByteStreams.limit(decompressedStream, maxBytes) : decompressedStream;
+	}
+
+	/**
+	 * Look at the first bytes of the stream, which are given back to it.
+	 */
+	private static boolean startsWith(PushbackInputStream stream, byte[] magic) throws IOException {
+		byte[] firstBytes = new byte[magic.length];
+		int bytesRead = ByteStreams.read(stream, firstBytes, 0, magic.length);
+		stream.unread(firstBytes, 0, bytesRead);
+		return bytesRead == magic.length && Arrays.equals(firstBytes, magic);
+	}
+
+	/**
+	 * Unmarshal the stream, measured as the {@link ProcessingStage#UNMARSHAL} stage.
+	 *
+	 * @throws ClassCastException If the stream does not contain the expected document type
+	 */
+	private <T> T unmarshal(InputStream stream, Class<T> documentType) throws XMLStreamException {
+		CountingInputStream countingStream = new CountingInputStream(stream);
+		XMLStreamReader reader = marshallerPool.getInputFactory().createXMLStreamReader(countingStream);
+		try {
+			return unmarshal(reader, countingStream, documentType);
+		} finally {
+			reader.close();
+		}
+	}
+
+	private <T> T unmarshal(XMLStreamReader reader, CountingInputStream countingStream, Class<T> documentType) {
+		StageSample unmarshalling = processingMetrics.start(ProcessingStage.UNMARSHAL);
+		try {
+			JAXBElement<?> element = (JAXBElement<?>) marshallerPool.unmarshal(reader);
+			return documentType.cast(element.getValue());
+		} finally {
+			unmarshalling.addBytes(countingStream.getCount());
+			unmarshalling.stop();
+		}
+	}
 }
@@ -0,0 +1,210 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.xml;
+
+import com.google.common.io.CountingInputStream;
+import eu.europa.ec.grow.espd.domain.EspdCriterion;
+import eu.europa.ec.grow.espd.domain.EspdDocument;
+import eu.europa.ec.grow.espd.domain.ubl.CcvCriterion;
+import eu.europa.ec.grow.espd.metrics.ProcessingMetrics;
+import eu.europa.ec.grow.espd.metrics.ProcessingStage;
+import eu.europa.ec.grow.espd.metrics.StageSample;
+import eu.europa.ec.grow.espd.xml.common.JaxbMarshallerPool;
+import eu.europa.ec.grow.espd.xml.common.importing.CriteriaToEspdDocumentPopulator;
+import eu.europa.ec.grow.espd.xml.common.importing.StreamingCriteriaReader;
+import eu.europa.ec.grow.espd.xml.request.importing.UblRequestImporter;
+import eu.europa.ec.grow.espd.xml.response.importing.UblResponseImporter;
+import grow.names.specification.ubl.schema.xsd.espdrequest_1.ESPDRequestType;
+import grow.names.specification.ubl.schema.xsd.espdresponse_1.ESPDResponseType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.events.XMLEvent;
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Alternative to the JAXB based import of {@link EspdXmlImporter} which reads an ESPD Request or Response in one StAX
+ * pass. The criteria, which make up most of an ESPD document, are turned into ESPD criteria while they are read by
+ * the {@link StreamingCriteriaReader}, so that no JAXB object tree is built for them and they are not walked a second
+ * time.
+ * <p>
+ * The remaining elements (parties, procurement and request information, signature) are small: they are copied as they
+ * are read and unmarshalled with JAXB afterwards, so that they are imported by the very same code as the JAXB import.
+ * </p>
+ * <p>
+ * It is enabled with the {@code espd.xml.import.streaming} property. Since the criteria are built while the document is
+ * read, the {@link ProcessingStage#UNMARSHAL} stage of this import includes most of the criteria population.
+ * </p>
+ */
+@Component
+public class StreamingEspdXmlImporter {
+
+	private final JaxbMarshallerPool marshallerPool;
+	private final UblRequestImporter requestImporter;
+	private final UblResponseImporter responseImporter;
+	private final StreamingCriteriaReader criteriaReader;
+	private final CriteriaToEspdDocumentPopulator criteriaPopulator;
+	private final ProcessingMetrics processingMetrics;
+
+	@Autowired
+	StreamingEspdXmlImporter(JaxbMarshallerPool marshallerPool, UblRequestImporter requestImporter,
+			UblResponseImporter responseImporter, StreamingCriteriaReader criteriaReader,
+			CriteriaToEspdDocumentPopulator criteriaPopulator, ProcessingMetrics processingMetrics) {
+		this.marshallerPool = marshallerPool;
+		this.requestImporter = requestImporter;
+		this.responseImporter = responseImporter;
+		this.criteriaReader = criteriaReader;
+		this.criteriaPopulator = criteriaPopulator;
+		this.processingMetrics = processingMetrics;
+	}
+
+	public EspdDocument importEspdRequest(InputStream espdRequestStream) throws XMLStreamException, JAXBException {
+		CountingInputStream countingStream = new CountingInputStream(espdRequestStream);
+		XMLStreamReader reader = marshallerPool.getInputFactory().createXMLStreamReader(countingStream);
+		try {
+			return importEspdRequest(reader, countingStream);
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Import an ESPD Request from a reader which may already be positioned at the root element.
+	 *
+	 * @param reader         Created by the input factory of the {@link JaxbMarshallerPool}. It is not closed.
+	 * @param countingStream The stream read by the reader, which tells the size of the document
+	 */
+	public EspdDocument importEspdRequest(XMLStreamReader reader, CountingInputStream countingStream)
+			throws XMLStreamException, JAXBException {
+		Map<CcvCriterion, EspdCriterion> espdCriteria = new LinkedHashMap<>();
+		ESPDRequestType requestType = readDocument(reader, countingStream, ESPDRequestType.class, espdCriteria);
+		StageSample population = processingMetrics.start(ProcessingStage.CRITERIA_POPULATION);
+		try {
+			EspdDocument espdDocument = requestImporter.importRequest(requestType);
+			criteriaPopulator.addCriteriaToEspdDocument(espdDocument, espdCriteria);
+			return espdDocument;
+		} finally {
+			population.stop();
+		}
+	}
+
+	public EspdDocument importEspdResponse(InputStream espdResponseStream) throws XMLStreamException, JAXBException {
+		CountingInputStream countingStream = new CountingInputStream(espdResponseStream);
+		XMLStreamReader reader = marshallerPool.getInputFactory().createXMLStreamReader(countingStream);
+		try {
+			return importEspdResponse(reader, countingStream);
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Import an ESPD Response from a reader which may already be positioned at the root element.
+	 *
+	 * @param reader         Created by the input factory of the {@link JaxbMarshallerPool}. It is not closed.
+	 * @param countingStream The stream read by the reader, which tells the size of the document
+	 */
+	public EspdDocument importEspdResponse(XMLStreamReader reader, CountingInputStream countingStream)
+			throws XMLStreamException, JAXBException {
+		Map<CcvCriterion, EspdCriterion> espdCriteria = new LinkedHashMap<>();
+		ESPDResponseType responseType = readDocument(reader, countingStream, ESPDResponseType.class, espdCriteria);
+		StageSample population = processingMetrics.start(ProcessingStage.CRITERIA_POPULATION);
+		try {
+			EspdDocument espdDocument = responseImporter.importResponse(responseType);
+			criteriaPopulator.addCriteriaToEspdDocument(espdDocument, espdCriteria);
+			return espdDocument;
+		} finally {
+			population.stop();
+		}
+	}
+
+	private <T> T readDocument(XMLStreamReader reader, CountingInputStream countingStream, Class<T> documentType,
+			Map<CcvCriterion, EspdCriterion> espdCriteria) throws XMLStreamException, JAXBException {
+		StageSample unmarshalling = processingMetrics.start(ProcessingStage.UNMARSHAL);
+		try {
+			return readDocumentContent(reader, documentType, espdCriteria);
+		} finally {
+			unmarshalling.addBytes(countingStream.getCount());
+			unmarshalling.stop();
+		}
+	}
+
+	/**
+	 * Stream through the document: the criteria are built on the fly and everything else is unmarshalled into a
+	 * document type which contains no criteria.
+	 */
+	private <T> T readDocumentContent(XMLStreamReader reader, Class<T> documentType,
+			Map<CcvCriterion, EspdCriterion> espdCriteria) throws XMLStreamException, JAXBException {
+		Unmarshaller unmarshaller = marshallerPool.borrowUnmarshaller();
+		ByteArrayOutputStream remainder = new ByteArrayOutputStream();
+
+		// the first event is the current one of the reader, the start of the document or the root element
+		XMLEventReader events = marshallerPool.getInputFactory().createXMLEventReader(reader);
+		XMLEventWriter remainderWriter = marshallerPool.getOutputFactory().createXMLEventWriter(remainder, "UTF-8");
+		try {
+			int depth = 0;
+			while (events.hasNext()) {
+				XMLEvent event = events.peek();
+				if (event.isStartElement()) {
+					if (depth == 1 && StreamingCriteriaReader.CRITERION.equals(event.asStartElement().getName())) {
+						criteriaReader.readCriterion(events, unmarshaller, espdCriteria);
+						continue;
+					}
+					depth++;
+				} else if (event.isEndElement()) {
+					depth--;
+				} else if (event.isStartDocument() || event.isEndDocument() || event.getEventType() == XMLEvent.DTD) {
+					// the remainder is always written in UTF-8, whatever the original declaration says
+					events.nextEvent();
+					continue;
+				}
+				remainderWriter.add(events.nextEvent());
+			}
+			remainderWriter.flush();
+		} finally {
+			remainderWriter.close();
+			events.close();
+		}
+
+		// unmarshalled by its root element so that a response is never taken for a request and vice versa
+		JAXBElement<?> element = (JAXBElement<?>) unmarshaller
+				.unmarshal(new StreamSource(new ByteArrayInputStream(remainder.toByteArray())));
+		// only given back when everything went fine, a failed unmarshaller is left to the garbage collector
+		marshallerPool.returnUnmarshaller(unmarshaller);
+		return documentType.cast(element.getValue());
+	}
+}
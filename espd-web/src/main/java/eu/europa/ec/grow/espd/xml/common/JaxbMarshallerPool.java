@@ -0,0 +1,308 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.xml.common;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.oxm.MarshallingFailureException;
+import org.springframework.oxm.UnmarshallingFailureException;
+import org.xml.sax.SAXParseException;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.Result;
+import javax.xml.validation.Schema;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the JAXB {@link Marshaller} and {@link Unmarshaller} instances of the ESPD {@link JAXBContext} for reuse,
+ * instead of creating new ones on every call like the {@code Jaxb2Marshaller} does.
+ * <p>
+ * The instances are not thread safe: each one is used by a single thread at a time and is given back to the pool
+ * afterwards. At most {@code maxIdle} instances of each kind are kept, the others are left to the garbage collector.
+ * An instance whose call failed is never given back.
+ * </p>
+ * <p>
+ * The StAX factories are created and configured once, because looking up their implementation is expensive. The
+ * input factory does not support DTDs nor external entities, which protects against XXE attacks like the
+ * {@code Jaxb2Marshaller} does.
+ * </p>
+ * <p>
+ * When a compiled {@link Schema} is given, the documents read by {@link #unmarshal(XMLStreamReader)} are validated
+ * while they are unmarshalled, so an invalid document fails at its first error without being read twice. The
+ * unmarshallers handed out by {@link #borrowUnmarshaller()} never validate, since they may be used to read fragments.
+ * </p>
+ */
+@ManagedResource(description = "Pool of the JAXB marshallers and unmarshallers")
+@Slf4j
+public class JaxbMarshallerPool {
+
+	private final JAXBContext jaxbContext;
+	private final Map<String, Object> marshallerProperties;
+	private final int maxIdle;
+	private final Schema schema;
+	private final XMLInputFactory inputFactory;
+	private final XMLOutputFactory outputFactory;
+
+	private final Queue<Marshaller> marshallers = new ConcurrentLinkedQueue<>();
+	private final Queue<Unmarshaller> unmarshallers = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger idleMarshallers = new AtomicInteger();
+	private final AtomicInteger idleUnmarshallers = new AtomicInteger();
+
+	private final AtomicLong created = new AtomicLong();
+	private final AtomicLong reused = new AtomicLong();
+
+	/**
+	 * @param jaxbContext          The context knowing the ESPD Request and Response classes
+	 * @param marshallerProperties The properties set on every new {@link Marshaller}
+	 * @param maxIdle              The maximum number of marshallers, respectively unmarshallers, kept in the pool
+	 */
+	public JaxbMarshallerPool(JAXBContext jaxbContext, Map<String, ?> marshallerProperties, int maxIdle) {
+		this(jaxbContext, marshallerProperties, maxIdle, null);
+	}
+
+	/**
+	 * @param schema The schema the unmarshalled documents are validated against, or {@code null} not to validate them
+	 */
+	public JaxbMarshallerPool(JAXBContext jaxbContext, Map<String, ?> marshallerProperties, int maxIdle,
+			Schema schema) {
+		this.jaxbContext = jaxbContext;
+		this.marshallerProperties = Collections.unmodifiableMap(new HashMap<>(marshallerProperties));
+		this.maxIdle = maxIdle;
+		this.schema = schema;
+		this.inputFactory = createInputFactory();
+		this.outputFactory = XMLOutputFactory.newInstance();
+		warmUp();
+	}
+
+	private static XMLInputFactory createInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		return factory;
+	}
+
+	/**
+	 * Create the first instances at startup, so that the first users do not pay for the class loading.
+	 */
+	private void warmUp() {
+		if (maxIdle > 0) {
+			returnMarshaller(borrowMarshaller());
+			returnUnmarshaller(borrowUnmarshaller());
+		}
+		log.info("--- Created the JAXB marshaller pool with at most {} idle instance(s) of each kind.", maxIdle);
+	}
+
+	/**
+	 * Marshal an object graph, like {@code Jaxb2Marshaller#marshal(Object, Result)}.
+	 *
+	 * @param graph  The root element, usually a {@link javax.xml.bind.JAXBElement}
+	 * @param result Where the XML is written out
+	 */
+	public void marshal(Object graph, Result result) {
+		Marshaller marshaller = borrowMarshaller();
+		try {
+			marshaller.marshal(graph, result);
+		} catch (JAXBException e) {
+			throw new MarshallingFailureException("Could not marshal " + graph.getClass().getName() + ".", e);
+		}
+		returnMarshaller(marshaller);
+	}
+
+	/**
+	 * Unmarshal a whole XML document, like {@code Jaxb2Marshaller#unmarshal(Source)}.
+	 *
+	 * @param in The XML document. It is not closed.
+	 *
+	 * @return The root element, which is a {@link javax.xml.bind.JAXBElement} for the ESPD documents
+	 */
+	public Object unmarshal(InputStream in) {
+		try {
+			XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+			try {
+				return unmarshal(reader);
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException e) {
+			throw new UnmarshallingFailureException("Could not unmarshal the XML document.", e);
+		}
+	}
+
+	/**
+	 * Unmarshal the document read by a reader created by the {@link #getInputFactory() input factory}, validating it
+	 * if this pool has a schema.
+	 *
+	 * @param reader Positioned at the start of the document or of its root element, for instance after the root
+	 *               element was looked at to decide how to read the document. It is not closed.
+	 *
+	 * @return The root element, which is a {@link javax.xml.bind.JAXBElement} for the ESPD documents
+	 *
+	 * @throws UnmarshallingFailureException If the document cannot be read or is not valid, with the line and column
+	 *                                       of the first error in the latter case
+	 */
+	public Object unmarshal(XMLStreamReader reader) {
+		Unmarshaller unmarshaller = borrowUnmarshaller();
+		Object result;
+		try {
+			unmarshaller.setSchema(schema);
+			result = unmarshaller.unmarshal(reader);
+			unmarshaller.setSchema(null);
+		} catch (JAXBException e) {
+			throw new UnmarshallingFailureException(failureMessage(e), e);
+		}
+		returnUnmarshaller(unmarshaller);
+		return result;
+	}
+
+	private static String failureMessage(JAXBException e) {
+		if (e.getLinkedException() instanceof SAXParseException) {
+			SAXParseException parseException = (SAXParseException) e.getLinkedException();
+			return String.format("Invalid XML document at line %d, column %d: %s", parseException.getLineNumber(),
+					parseException.getColumnNumber(), parseException.getMessage());
+		}
+		return "Could not unmarshal the XML document.";
+	}
+
+	/**
+	 * Take a marshaller out of the pool, or create a new one if the pool is empty. It has to be given back with
+	 * {@link #returnMarshaller(Marshaller)} once it is not used anymore.
+	 */
+	public Marshaller borrowMarshaller() {
+		Marshaller marshaller = marshallers.poll();
+		if (marshaller != null) {
+			idleMarshallers.decrementAndGet();
+			reused.incrementAndGet();
+			return marshaller;
+		}
+		try {
+			marshaller = jaxbContext.createMarshaller();
+			for (Map.Entry<String, Object> property : marshallerProperties.entrySet()) {
+				marshaller.setProperty(property.getKey(), property.getValue());
+			}
+		} catch (JAXBException e) {
+			throw new MarshallingFailureException("Could not create a JAXB marshaller.", e);
+		}
+		created.incrementAndGet();
+		return marshaller;
+	}
+
+	public void returnMarshaller(Marshaller marshaller) {
+		if (idleMarshallers.incrementAndGet() <= maxIdle) {
+			marshallers.offer(marshaller);
+		} else {
+			idleMarshallers.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Take an unmarshaller out of the pool, or create a new one if the pool is empty. It has to be given back with
+	 * {@link #returnUnmarshaller(Unmarshaller)} once it is not used anymore.
+	 */
+	public Unmarshaller borrowUnmarshaller() {
+		Unmarshaller unmarshaller = unmarshallers.poll();
+		if (unmarshaller != null) {
+			idleUnmarshallers.decrementAndGet();
+			reused.incrementAndGet();
+			return unmarshaller;
+		}
+		try {
+			unmarshaller = jaxbContext.createUnmarshaller();
+		} catch (JAXBException e) {
+			throw new UnmarshallingFailureException("Could not create a JAXB unmarshaller.", e);
+		}
+		created.incrementAndGet();
+		return unmarshaller;
+	}
+
+	public void returnUnmarshaller(Unmarshaller unmarshaller) {
+		if (idleUnmarshallers.incrementAndGet() <= maxIdle) {
+			unmarshallers.offer(unmarshaller);
+		} else {
+			idleUnmarshallers.decrementAndGet();
+		}
+	}
+
+	/**
+	 * @return The shared input factory, which must not be reconfigured
+	 */
+	public XMLInputFactory getInputFactory() {
+		return inputFactory;
+	}
+
+	/**
+	 * @return The shared output factory, which must not be reconfigured
+	 */
+	public XMLOutputFactory getOutputFactory() {
+		return outputFactory;
+	}
+
+	@ManagedAttribute(description = "Whether the unmarshalled documents are validated against the ESPD schemas")
+	public boolean isValidating() {
+		return schema != null;
+	}
+
+	@ManagedAttribute(description = "Number of marshallers and unmarshallers created")
+	public long getCreated() {
+		return created.get();
+	}
+
+	@ManagedAttribute(description = "Number of times a marshaller or unmarshaller was taken from the pool")
+	public long getReused() {
+		return reused.get();
+	}
+
+	@ManagedAttribute(description = "Number of marshallers waiting in the pool")
+	public int getIdleMarshallers() {
+		return idleMarshallers.get();
+	}
+
+	@ManagedAttribute(description = "Number of unmarshallers waiting in the pool")
+	public int getIdleUnmarshallers() {
+		return idleUnmarshallers.get();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("JaxbMarshallerPool[maxIdle=%d, validating=%b, created=%d, reused=%d, "
+				+ "idleMarshallers=%d, idleUnmarshallers=%d]", maxIdle, isValidating(), getCreated(), getReused(),
+				getIdleMarshallers(), getIdleUnmarshallers());
+	}
+}
@@ -54,55 +54,84 @@ public abstract class UblCriteriaTemplate {
 	 * @return The list of UBL criteria
 	 */
 	public List<CriterionType> apply(EspdDocument espdDocument) {
-		List<CriterionType> criterionTypes = new ArrayList<>(
+		List<CcvCriterion> criteria = selectCriteria(espdDocument);
+		List<CriterionType> criterionTypes = new ArrayList<>(criteria.size());
+		for (CcvCriterion criterion : criteria) {
+			criterionTypes.add(buildCriterionType(criterion, espdDocument));
+		}
+		return Collections.unmodifiableList(criterionTypes);
+	}
+
+	/**
+	 * Decides which criteria are part of the UBL document, without building them.
+	 *
+	 * @param espdDocument The input coming from the ESPD application
+	 *
+	 * @return The criteria to be written out, in the order in which they have to appear in the document
+	 */
+	public List<CcvCriterion> selectCriteria(EspdDocument espdDocument) {
+		List<CcvCriterion> criteria = new ArrayList<>(
 				ExclusionCriterion.values().length + SelectionCriterion.values().length + 1);
 		// THE ORDER OF CRITERIA IS VERY IMPORTANT AND IT SHOULD BE COVERED BY THE TESTS!!!
-		criterionTypes.addAll(addExclusionCriteria(espdDocument));
-		criterionTypes.addAll(addSelectionCriteria(espdDocument));
-		criterionTypes.addAll(addAwardCriteria(espdDocument));
-		return Collections.unmodifiableList(criterionTypes);
+		criteria.addAll(addExclusionCriteria(espdDocument));
+		criteria.addAll(addSelectionCriteria(espdDocument));
+		criteria.addAll(addAwardCriteria(espdDocument));
+		return criteria;
 	}
 
-	private List<CriterionType> addExclusionCriteria(EspdDocument espdDocument) {
-		List<CriterionType> criterionTypes = new ArrayList<>(ExclusionCriterion.values().length + 1);
+	/**
+	 * Builds the UBL {@link CriterionType} of one criterion.
+	 *
+	 * @param ccvCriterion The criterion metadata
+	 * @param espdDocument The model coming from ESPD, holding the user values of the criterion
+	 *
+	 * @return The UBL criterion
+	 */
+	public CriterionType buildCriterionType(CcvCriterion ccvCriterion, EspdDocument espdDocument) {
+		return getCriterionTransformer()
+				.buildCriterionType(ccvCriterion, espdDocument.readCriterionFromEspd(ccvCriterion));
+	}
+
+	private List<CcvCriterion> addExclusionCriteria(EspdDocument espdDocument) {
+		List<CcvCriterion> criteria = new ArrayList<>(ExclusionCriterion.values().length + 1);
 		// All exclusion criteria except 'Purely national grounds' must be present no matter the existence
 		for (ExclusionCriterion criterion : ExclusionCriterion.values()) {
-			addSelectedUblCriterion(criterion, espdDocument, criterionTypes);
+			addSelectedUblCriterion(criterion, espdDocument, criteria);
 		}
-		return criterionTypes;
+		return criteria;
 	}
 
-	private List<CriterionType> addSelectionCriteria(EspdDocument espdDocument) {
+	private List<CcvCriterion> addSelectionCriteria(EspdDocument espdDocument) {
 
-		List<CriterionType> criterionTypes = new ArrayList<>(SelectionCriterion.values().length + 1);
+		List<CcvCriterion> criteria = new ArrayList<>(SelectionCriterion.values().length + 1);
 		if (!espdDocument.getAtLeastOneSelectionCriterionWasSelected()) {
 			// Option 3:
 			// CA selects no selection criteria -> EO sees all selection criteria (including "All selection criteria")
 			for (SelectionCriterion criterion : SelectionCriterion.values()) {
-				addAlwaysUblCriterion(criterion, espdDocument, criterionTypes);
+				addAlwaysUblCriterion(criterion, criteria);
 			}
 		} else if (satisfiesAllCriterionPresent(espdDocument.getSelectionSatisfiesAll())) {
 			// Option 1:
 			// CA selects "All section criteria" -> EO sees only "All selection criteria" and not the individual ones.
-			addSelectedUblCriterion(SelectionCriterion.ALL_SELECTION_CRITERIA_SATISFIED, espdDocument, criterionTypes);
+			addSelectedUblCriterion(SelectionCriterion.ALL_SELECTION_CRITERIA_SATISFIED, espdDocument, criteria);
 		} else {
 			// Option 2:
 			// CA select individual selection criteria -> EO sees only the selected ones (and even not the "All selection criteria")
 			for (SelectionCriterion criterion : SelectionCriterion.values()) {
 				// this will also cover the case when 'Satisfies all' exists with the answer 'No'
-				addSelectedUblCriterion(criterion, espdDocument, criterionTypes);
+				addSelectedUblCriterion(criterion, espdDocument, criteria);
 			}
 		}
-		return criterionTypes;
+		return criteria;
 	}
 
-	private List<CriterionType> addAwardCriteria(EspdDocument espdDocument) {
-		List<CriterionType> criterionTypes = new ArrayList<>(OtherCriterion.values().length + 1);
+	private List<CcvCriterion> addAwardCriteria(EspdDocument espdDocument) {
+		List<CcvCriterion> criteria = new ArrayList<>(OtherCriterion.values().length + 1);
 		// All exclusion criteria except 'Purely national grounds' must be present no matter the existence
 		for (OtherCriterion criterion : OtherCriterion.values()) {
-			addAlwaysUblCriterion(criterion, espdDocument, criterionTypes);
+			addAlwaysUblCriterion(criterion, criteria);
 		}
-		return criterionTypes;
+		return criteria;
 	}
 
 	/**
@@ -110,13 +139,13 @@ public abstract class UblCriteriaTemplate {
 	 *
 	 * @param ccvCriterion The criterion metadata
 	 * @param espdDocument The model coming from ESPD
-	 * @param ublCriteria  The list of UBL criteria on which we add the ESPD criteria
+	 * @param ublCriteria  The list of criteria on which we add the ESPD criteria
 	 */
 	private void addSelectedUblCriterion(CcvCriterion ccvCriterion, EspdDocument espdDocument,
-			List<CriterionType> ublCriteria) {
+			List<CcvCriterion> ublCriteria) {
 		EspdCriterion espdCriterion = espdDocument.readCriterionFromEspd(ccvCriterion);
 		if (isCriterionSelectedByTheCA(espdCriterion)) {
-			ublCriteria.add(getCriterionTransformer().buildCriterionType(ccvCriterion, espdCriterion));
+			ublCriteria.add(ccvCriterion);
 		}
 	}
 
@@ -128,12 +157,10 @@ public abstract class UblCriteriaTemplate {
 	 * Add a UBL criterion no matter the exists flag (needed by award criteria which always need to be present).
 	 *
 	 * @param ccvCriterion The criterion metadata
-	 * @param ublCriteria  The list of UBL criteria on which we add the ESPD criteria
+	 * @param ublCriteria  The list of criteria on which we add the ESPD criteria
 	 */
-	private void addAlwaysUblCriterion(CcvCriterion ccvCriterion, EspdDocument espdDocument,
-			List<CriterionType> ublCriteria) {
-		EspdCriterion espdCriterion = espdDocument.readCriterionFromEspd(ccvCriterion);
-		ublCriteria.add(getCriterionTransformer().buildCriterionType(ccvCriterion, espdCriterion));
+	private void addAlwaysUblCriterion(CcvCriterion ccvCriterion, List<CcvCriterion> ublCriteria) {
+		ublCriteria.add(ccvCriterion);
 	}
 
 	/**
@@ -25,17 +25,17 @@
 package eu.europa.ec.grow.espd.xml.common.importing;
 
 import com.google.common.base.Optional;
+import eu.europa.ec.grow.espd.domain.EspdCriterion;
 import eu.europa.ec.grow.espd.domain.EspdDocument;
 import eu.europa.ec.grow.espd.domain.infrastructure.CriterionDefinitions;
+import eu.europa.ec.grow.espd.domain.infrastructure.CriterionFieldAccessors;
 import eu.europa.ec.grow.espd.domain.ubl.CcvCriterion;
 import isa.names.specification.ubl.schema.xsd.ccv_commonaggregatecomponents_1.CriterionType;
-import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.beanutils.PropertyUtils;
 import org.apache.commons.collections.CollectionUtils;
 import org.springframework.stereotype.Component;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Given a {@link EspdDocument} and a list of UBL {@link CriterionType}, read the UBL data regarding the
@@ -44,7 +44,6 @@ import java.util.List;
  * Created by ratoico on 1/6/16 at 4:52 PM.
  */
 @Component
-@Slf4j
 public class CriteriaToEspdDocumentPopulator {
 
 	private final EspdResponseCriterionFactory criterionFactory;
@@ -76,8 +75,23 @@ public class CriteriaToEspdDocumentPopulator {
         for (CriterionType ublCriterion : ublCriteria) {
             setCriterionValueOnEspdModel(espdDocument, ublCriterion);
         }
+    }
 
-        espdDocument.setUblCriteria(ublCriteria);
+    /**
+     * Update criteria which were already built, e.g. by the {@link StreamingCriteriaReader}, on the given ESPD document.
+     * <p>
+     * <b>
+     * Please be aware that this method mutates the ESPD document!
+     * </b>
+     * </p>
+     *
+     * @param espdDocument The given ESPD document to be updated with criteria information
+     * @param espdCriteria The ESPD criteria to be set, by their criterion definition
+     */
+    public void addCriteriaToEspdDocument(EspdDocument espdDocument, Map<CcvCriterion, EspdCriterion> espdCriteria) {
+        for (Map.Entry<CcvCriterion, EspdCriterion> entry : espdCriteria.entrySet()) {
+            setCriterionOnEspdModel(espdDocument, entry.getKey(), entry.getValue());
+        }
     }
 
     private void setCriterionValueOnEspdModel(EspdDocument espdDocument, CriterionType ublCriterion) {
@@ -85,12 +99,13 @@ public class CriteriaToEspdDocumentPopulator {
         if (!ccvCriterion.isPresent()) {
             return;
         }
-        try {
-            PropertyUtils.setSimpleProperty(espdDocument, ccvCriterion.get().getEspdDocumentField(),
-                    criterionFactory.buildEspdCriterion(ccvCriterion.get(), ublCriterion));
-        } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-            log.error(e.getMessage(), e);
-        }
+        setCriterionOnEspdModel(espdDocument, ccvCriterion.get(),
+                criterionFactory.buildEspdCriterion(ccvCriterion.get(), ublCriterion));
+    }
+
+    private void setCriterionOnEspdModel(EspdDocument espdDocument, CcvCriterion ccvCriterion,
+            EspdCriterion espdCriterion) {
+        CriterionFieldAccessors.writeCriterion(espdDocument, ccvCriterion, espdCriterion);
     }
 
 }
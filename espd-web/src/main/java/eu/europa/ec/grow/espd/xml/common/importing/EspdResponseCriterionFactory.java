@@ -27,6 +27,7 @@ package eu.europa.ec.grow.espd.xml.common.importing;
 import com.google.common.base.Optional;
 import eu.europa.ec.grow.espd.domain.*;
 import eu.europa.ec.grow.espd.domain.infrastructure.CriterionDefinitions;
+import eu.europa.ec.grow.espd.domain.infrastructure.CriterionFieldAccessors;
 import eu.europa.ec.grow.espd.domain.intf.UnboundedRequirementGroup;
 import eu.europa.ec.grow.espd.domain.ubl.CcvCriterion;
 import eu.europa.ec.grow.espd.domain.ubl.CcvCriterionRequirement;
@@ -35,10 +36,9 @@ import eu.europa.ec.grow.espd.util.Amount;
 import isa.names.specification.ubl.schema.xsd.ccv_commonaggregatecomponents_1.CriterionType;
 import isa.names.specification.ubl.schema.xsd.ccv_commonaggregatecomponents_1.RequirementGroupType;
 import isa.names.specification.ubl.schema.xsd.ccv_commonaggregatecomponents_1.RequirementType;
+import isa.names.specification.ubl.schema.xsd.ccv_commonaggregatecomponents_1.ResponseType;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.beanutils.PropertyUtils;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -58,8 +58,8 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
  * <p>
  * The algorithm traverses all the {@link RequirementGroupType} recursively (including subgroups) found in the
  * {@link CriterionType} and looks up each requirement by id in the {@link CriterionDefinitions} lookup tables.
- * The criterion requirements are then set dynamically via reflection by using its 'espdCriterionFields' loaded from
- * the criteria JSON definition files.
+ * The criterion requirements are then set dynamically through the {@link CriterionFieldAccessors} by using its
+ * 'espdCriterionFields' loaded from the criteria JSON definition files.
  * </p>
  * <p>
  * Requirement groups are treated differently when they are unbounded (which means they can ashave  many references as
@@ -116,22 +116,34 @@ class EspdResponseCriterionFactory {
 	 * @throws IllegalArgumentException If the criterion type is not recognized
 	 */
 	EspdCriterion buildEspdCriterion(CcvCriterion ccvCriterion, CriterionType ublCriterion) {
-		CriterionBuilder criterionBuilder = criterionBuilders.get(ccvCriterion.getCriterionType().getEspdType());
-		checkArgument(criterionBuilder != null,
-				"Could not build criterion '%s' with id '%s' having type code '%s'.",
-				ccvCriterion.getName(), ccvCriterion.getUuid(), ccvCriterion.getCriterionType());
-
 		if (ublCriterion == null) {
-			return criterionBuilder.buildWithExists(false);
+			return findCriterionBuilder(ccvCriterion).buildWithExists(false);
 		}
 
-		EspdCriterion criterion = criterionBuilder.buildWithExists(true);
+		EspdCriterion criterion = newEspdCriterion(ccvCriterion);
 
 		setCriterionValues(ublCriterion, criterion);
 
 		return criterion;
 	}
 
+	/**
+	 * Create an empty ESPD {@link EspdCriterion} marked as existing, to be filled in requirement by requirement.
+	 *
+	 * @throws IllegalArgumentException If the criterion type is not recognized
+	 */
+	EspdCriterion newEspdCriterion(CcvCriterion ccvCriterion) {
+		return findCriterionBuilder(ccvCriterion).buildWithExists(true);
+	}
+
+	private CriterionBuilder findCriterionBuilder(CcvCriterion ccvCriterion) {
+		CriterionBuilder criterionBuilder = criterionBuilders.get(ccvCriterion.getCriterionType().getEspdType());
+		checkArgument(criterionBuilder != null,
+				"Could not build criterion '%s' with id '%s' having type code '%s'.",
+				ccvCriterion.getName(), ccvCriterion.getUuid(), ccvCriterion.getCriterionType());
+		return criterionBuilder;
+	}
+
 	private void setCriterionValues(CriterionType criterionType, EspdCriterion espdCriterion) {
 		setCriterionValuesForRequirementGroups(espdCriterion, criterionType.getRequirementGroup());
 	}
@@ -149,16 +161,27 @@ class EspdResponseCriterionFactory {
 	private void setCriterionValuesForRequirementGroup(EspdCriterion espdCriterion, RequirementGroupType groupType) {
 		Optional<CcvRequirementGroup> ccvGroup = CriterionDefinitions
 				.findRequirementGroupById(groupType.getID().getValue());
-		DynamicRequirementGroup dynamicGroup = null;
-		if (ccvGroup.isPresent() && ccvGroup.get().isUnbounded()) {
-			dynamicGroup = new DynamicRequirementGroup();
-			((UnboundedRequirementGroup) espdCriterion).getUnboundedGroups().add(dynamicGroup);
-		}
+		DynamicRequirementGroup dynamicGroup = startRequirementGroup(espdCriterion, ccvGroup);
 
 		setCriterionValuesForRequirementGroups(espdCriterion, groupType.getRequirementGroup());
 		setCriterionValueForRequirements(espdCriterion, groupType.getRequirement(), ccvGroup, dynamicGroup);
 	}
 
+	/**
+	 * Register a new requirement group on the criterion.
+	 *
+	 * @return The map which will hold the requirement values if the group is unbounded, {@code null} otherwise
+	 */
+	DynamicRequirementGroup startRequirementGroup(EspdCriterion espdCriterion,
+			Optional<CcvRequirementGroup> ccvGroup) {
+		if (ccvGroup.isPresent() && ccvGroup.get().isUnbounded()) {
+			DynamicRequirementGroup dynamicGroup = new DynamicRequirementGroup();
+			((UnboundedRequirementGroup) espdCriterion).getUnboundedGroups().add(dynamicGroup);
+			return dynamicGroup;
+		}
+		return null;
+	}
+
 	private void setCriterionValueForRequirements(EspdCriterion espdCriterion, List<RequirementType> requirementTypes,
 			Optional<CcvRequirementGroup> ccvGroup, DynamicRequirementGroup dynamicGroup) {
 		if (isEmpty(requirementTypes)) {
@@ -171,12 +194,22 @@ class EspdResponseCriterionFactory {
 
 	private void setCriterionValueForRequirement(EspdCriterion espdCriterion, RequirementType requirementType,
 			Optional<CcvRequirementGroup> ccvGroup, DynamicRequirementGroup dynamicGroup) {
-		Optional<CcvCriterionRequirement> requirementById = CriterionDefinitions
-				.findRequirementById(requirementType.getID().getValue());
+		if (isNotEmpty(requirementType.getResponse())) {
+			setRequirementValue(espdCriterion, requirementType.getID().getValue(), requirementType.getResponse().get(0),
+					ccvGroup, dynamicGroup);
+		}
+	}
+
+	/**
+	 * Set the value of the first response given to a requirement on the criterion, or on the dynamic group if the
+	 * requirement belongs to an unbounded group.
+	 */
+	void setRequirementValue(EspdCriterion espdCriterion, String requirementId, ResponseType response,
+			Optional<CcvRequirementGroup> ccvGroup, DynamicRequirementGroup dynamicGroup) {
+		Optional<CcvCriterionRequirement> requirementById = CriterionDefinitions.findRequirementById(requirementId);
 
-		if (requirementById.isPresent() && isNotEmpty(requirementType.getResponse())) {
-			Object requirementValue = requirementById.get().getResponseType()
-			                                         .parseValue(requirementType.getResponse().get(0));
+		if (requirementById.isPresent()) {
+			Object requirementValue = requirementById.get().getResponseType().parseValue(response);
 			if (ccvGroup.isPresent() && ccvGroup.get().isUnbounded()) {
 				addRequirementValueToUnboundedGroup(requirementById.get(), dynamicGroup, requirementValue);
 			} else {
@@ -206,13 +239,13 @@ class EspdResponseCriterionFactory {
 		// values which represent amounts are special and need to be stored in two fields
 		try {
 			if (value instanceof Amount) {
-				PropertyUtils.setProperty(espdCriterion, espdFieldName, ((Amount) value).getAmount());
-				PropertyUtils.setProperty(espdCriterion, ccvCriterionRequirement.getEspdCriterionFields().get(1),
-						((Amount) value).getCurrency());
+				CriterionFieldAccessors.writeRequirementValue(espdCriterion, espdFieldName, ((Amount) value).getAmount());
+				CriterionFieldAccessors.writeRequirementValue(espdCriterion,
+						ccvCriterionRequirement.getEspdCriterionFields().get(1), ((Amount) value).getCurrency());
 			} else {
-				PropertyUtils.setProperty(espdCriterion, espdFieldName, value);
+				CriterionFieldAccessors.writeRequirementValue(espdCriterion, espdFieldName, value);
 			}
-		} catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
+		} catch (IllegalArgumentException e) {
 			log.error("Could not set value '{}' on field '{}' of requirement '{}' with id '{}'.", value, espdFieldName,
 					ccvCriterionRequirement.getDescription(), ccvCriterionRequirement.getId());
 		}
@@ -0,0 +1,205 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.xml.common.importing;
+
+import com.google.common.base.Optional;
+import eu.europa.ec.grow.espd.domain.DynamicRequirementGroup;
+import eu.europa.ec.grow.espd.domain.EspdCriterion;
+import eu.europa.ec.grow.espd.domain.infrastructure.CriterionDefinitions;
+import eu.europa.ec.grow.espd.domain.ubl.CcvCriterion;
+import eu.europa.ec.grow.espd.domain.ubl.CcvRequirementGroup;
+import isa.names.specification.ubl.schema.xsd.ccv_commonaggregatecomponents_1.ResponseType;
+import org.springframework.stereotype.Component;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.XMLEvent;
+import java.util.Map;
+
+/**
+ * Reads the UBL criteria straight from the StAX events of an ESPD Request or Response and builds the ESPD criterion
+ * objects while reading, without unmarshalling the UBL criteria into a JAXB object tree first. Only the content of each
+ * {@code ccv:Response} is unmarshalled by JAXB, so that the response values are parsed exactly like the JAXB import does.
+ * <p>
+ * The requirement groups and requirements are interpreted by the same {@link EspdResponseCriterionFactory} as the one
+ * used by the {@link CriteriaToEspdDocumentPopulator}.
+ * </p>
+ */
+@Component
+public class StreamingCriteriaReader {
+
+	public static final QName CRITERION = new QName(
+			"urn:isa:names:specification:ubl:schema:xsd:CCV-CommonAggregateComponents-1", "Criterion");
+	private static final QName REQUIREMENT_GROUP = new QName(CRITERION.getNamespaceURI(), "RequirementGroup");
+	private static final QName REQUIREMENT = new QName(CRITERION.getNamespaceURI(), "Requirement");
+	private static final QName RESPONSE = new QName(CRITERION.getNamespaceURI(), "Response");
+	private static final QName ID = new QName("urn:oasis:names:specification:ubl:schema:xsd:CommonBasicComponents-2",
+			"ID");
+
+	private final EspdResponseCriterionFactory criterionFactory;
+
+	public StreamingCriteriaReader() {
+		this(new EspdResponseCriterionFactory());
+	}
+
+	StreamingCriteriaReader(EspdResponseCriterionFactory criterionFactory) {
+		this.criterionFactory = criterionFactory;
+	}
+
+	/**
+	 * Read a whole {@code ccv:Criterion} element and store the resulting ESPD criterion. Unknown criteria are skipped.
+	 *
+	 * @param events       The reader, whose next event is the start of the {@code ccv:Criterion} element. It is
+	 *                     positioned right after the end of the element when this method returns.
+	 * @param unmarshaller Used to unmarshal the {@code ccv:Response} elements
+	 * @param espdCriteria Where the criterion is stored, by its definition
+	 */
+	public void readCriterion(XMLEventReader events, Unmarshaller unmarshaller,
+			Map<CcvCriterion, EspdCriterion> espdCriteria) throws XMLStreamException, JAXBException {
+		events.nextEvent();
+		EspdCriterion espdCriterion = null;
+		while (true) {
+			XMLEvent event = events.peek();
+			if (event.isEndElement()) {
+				events.nextEvent();
+				return;
+			}
+			if (!event.isStartElement()) {
+				events.nextEvent();
+				continue;
+			}
+
+			QName name = event.asStartElement().getName();
+			if (espdCriterion == null && ID.equals(name)) {
+				Optional<CcvCriterion> ccvCriterion = CriterionDefinitions.findCriterionById(readText(events));
+				if (!ccvCriterion.isPresent()) {
+					skipRemainingContent(events);
+					return;
+				}
+				espdCriterion = criterionFactory.newEspdCriterion(ccvCriterion.get());
+				espdCriteria.put(ccvCriterion.get(), espdCriterion);
+			} else if (espdCriterion != null && REQUIREMENT_GROUP.equals(name)) {
+				readRequirementGroup(events, unmarshaller, espdCriterion);
+			} else {
+				skipElement(events);
+			}
+		}
+	}
+
+	private void readRequirementGroup(XMLEventReader events, Unmarshaller unmarshaller, EspdCriterion espdCriterion)
+			throws XMLStreamException, JAXBException {
+		events.nextEvent();
+		Optional<CcvRequirementGroup> ccvGroup = Optional.absent();
+		DynamicRequirementGroup dynamicGroup = null;
+		while (true) {
+			XMLEvent event = events.peek();
+			if (event.isEndElement()) {
+				events.nextEvent();
+				return;
+			}
+			if (!event.isStartElement()) {
+				events.nextEvent();
+				continue;
+			}
+
+			QName name = event.asStartElement().getName();
+			if (ID.equals(name)) {
+				// the id always comes first in a requirement group
+				ccvGroup = CriterionDefinitions.findRequirementGroupById(readText(events));
+				dynamicGroup = criterionFactory.startRequirementGroup(espdCriterion, ccvGroup);
+			} else if (REQUIREMENT.equals(name)) {
+				readRequirement(events, unmarshaller, espdCriterion, ccvGroup, dynamicGroup);
+			} else if (REQUIREMENT_GROUP.equals(name)) {
+				readRequirementGroup(events, unmarshaller, espdCriterion);
+			} else {
+				skipElement(events);
+			}
+		}
+	}
+
+	private void readRequirement(XMLEventReader events, Unmarshaller unmarshaller, EspdCriterion espdCriterion,
+			Optional<CcvRequirementGroup> ccvGroup, DynamicRequirementGroup dynamicGroup)
+			throws XMLStreamException, JAXBException {
+		events.nextEvent();
+		String requirementId = null;
+		ResponseType response = null;
+		while (true) {
+			XMLEvent event = events.peek();
+			if (event.isEndElement()) {
+				events.nextEvent();
+				break;
+			}
+			if (!event.isStartElement()) {
+				events.nextEvent();
+				continue;
+			}
+
+			QName name = event.asStartElement().getName();
+			if (ID.equals(name)) {
+				requirementId = readText(events);
+			} else if (response == null && RESPONSE.equals(name)) {
+				// only the first response is taken into account, like for the JAXB import
+				response = unmarshaller.unmarshal(events, ResponseType.class).getValue();
+			} else {
+				skipElement(events);
+			}
+		}
+
+		if (requirementId != null && response != null) {
+			criterionFactory.setRequirementValue(espdCriterion, requirementId, response, ccvGroup, dynamicGroup);
+		}
+	}
+
+	private static String readText(XMLEventReader events) throws XMLStreamException {
+		events.nextEvent();
+		return events.getElementText();
+	}
+
+	/**
+	 * Consume the element starting with the next event, including all of its content.
+	 */
+	private static void skipElement(XMLEventReader events) throws XMLStreamException {
+		events.nextEvent();
+		skipRemainingContent(events);
+	}
+
+	/**
+	 * Consume the events up to and including the end of the current element.
+	 */
+	private static void skipRemainingContent(XMLEventReader events) throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0) {
+			XMLEvent event = events.nextEvent();
+			if (event.isStartElement()) {
+				depth++;
+			} else if (event.isEndElement()) {
+				depth--;
+			}
+		}
+	}
+}
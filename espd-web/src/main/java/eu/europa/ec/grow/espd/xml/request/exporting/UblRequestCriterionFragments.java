@@ -0,0 +1,268 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.xml.request.exporting;
+
+import eu.europa.ec.grow.espd.domain.DynamicRequirementGroup;
+import eu.europa.ec.grow.espd.domain.EspdCriterion;
+import eu.europa.ec.grow.espd.domain.EspdDocument;
+import eu.europa.ec.grow.espd.domain.intf.UnboundedRequirementGroup;
+import eu.europa.ec.grow.espd.domain.ubl.CcvCriterion;
+import eu.europa.ec.grow.espd.domain.ubl.CcvRequirementGroup;
+import eu.europa.ec.grow.espd.xml.common.JaxbMarshallerPool;
+import grow.names.specification.ubl.schema.xsd.espdrequest_1.ESPDRequestType;
+import grow.names.specification.ubl.schema.xsd.espdrequest_1.ObjectFactory;
+import isa.names.specification.ubl.schema.xsd.ccv_commonaggregatecomponents_1.CriterionType;
+import oasis.names.specification.ubl.schema.xsd.commonbasiccomponents_2.IDType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.oxm.MarshallingFailureException;
+import org.springframework.stereotype.Component;
+
+import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.apache.commons.collections.CollectionUtils.isEmpty;
+
+/**
+ * Writes out ESPD Requests whose criteria are copied from already marshalled XML fragments.
+ * <p>
+ * The {@link CriterionType} of a criterion in an ESPD Request only depends on the criterion definition and, for the
+ * criteria with unbounded requirement groups, on the number of groups. It is marshalled once per criterion and number
+ * of groups and the resulting bytes are kept, so that only the small remainder of a request is marshalled by JAXB on
+ * every export.
+ * </p>
+ * <p>
+ * The fragments are cut out of a whole ESPD Request marshalled by the same {@link JaxbMarshallerPool}, so they use the
+ * namespace prefixes declared on the root element and the indentation of the document they are copied into.
+ * </p>
+ */
+@Component
+@ManagedResource(description = "Cache of the marshalled criteria of the ESPD Requests")
+public class UblRequestCriterionFragments {
+
+	/**
+	 * Criteria with more unbounded groups than this are rare and are marshalled without being cached.
+	 */
+	static final int MAX_CACHED_UNBOUNDED_GROUPS = 20;
+
+	private final JaxbMarshallerPool marshallerPool;
+	private final UblRequestCriteriaTransformer criteriaTransformer;
+	private final ObjectFactory espdRequestObjectFactory = new ObjectFactory();
+	private final ConcurrentMap<String, byte[]> fragments = new ConcurrentHashMap<>();
+
+	/**
+	 * Marks the place of the criteria in the marshalled request. It is random so that no user input can clash with it.
+	 */
+	private final String placeholderId = UUID.randomUUID().toString();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	@Autowired
+	UblRequestCriterionFragments(JaxbMarshallerPool marshallerPool, UblRequestCriteriaTransformer criteriaTransformer) {
+		this.marshallerPool = marshallerPool;
+		this.criteriaTransformer = criteriaTransformer;
+	}
+
+	/**
+	 * Marshal an ESPD Request together with the criteria of the ESPD document.
+	 *
+	 * @param espdRequestType The request without any criterion, as built by
+	 *                        {@link UblRequestTypeTransformer#buildRequestTypeWithoutCriteria(EspdDocument)}. A
+	 *                        placeholder criterion is added to it.
+	 * @param espdDocument    The document whose criteria are written out
+	 * @param out             The stream where the XML representation will be written out. It is not closed.
+	 */
+	public void writeRequest(ESPDRequestType espdRequestType, EspdDocument espdDocument, OutputStream out) {
+		List<CcvCriterion> criteria = criteriaTransformer.selectCriteria(espdDocument);
+		try {
+			if (criteria.isEmpty()) {
+				out.write(marshal(espdRequestType));
+				return;
+			}
+
+			espdRequestType.getCriterion().add(buildPlaceholder());
+			byte[] document = marshal(espdRequestType);
+
+			int placeholder = indexOf(document, placeholderId.getBytes(StandardCharsets.UTF_8));
+			if (placeholder < 0) {
+				throw new IllegalStateException("Could not find the criteria placeholder in the ESPD Request.");
+			}
+			// <ccv:Criterion><cbc:ID>placeholder</cbc:ID></ccv:Criterion>
+			int start = lastIndexOf(document, '<', lastIndexOf(document, '<', placeholder) - 1);
+			int end = indexOf(document, '>', indexOf(document, '>', placeholder) + 1);
+			int indentation = lastIndexOf(document, '>', start) + 1;
+
+			out.write(document, 0, start);
+			for (int i = 0; i < criteria.size(); i++) {
+				if (i > 0) {
+					out.write(document, indentation, start - indentation);
+				}
+				out.write(getFragment(criteria.get(i), espdDocument));
+			}
+			out.write(document, end + 1, document.length - end - 1);
+		} catch (IOException e) {
+			throw new MarshallingFailureException("Could not write the ESPD Request.", e);
+		}
+	}
+
+	private CriterionType buildPlaceholder() {
+		IDType idType = new IDType();
+		idType.setValue(placeholderId);
+		CriterionType criterionType = new CriterionType();
+		criterionType.setID(idType);
+		return criterionType;
+	}
+
+	private byte[] getFragment(CcvCriterion ccvCriterion, EspdDocument espdDocument) {
+		int groups = countUnboundedGroups(ccvCriterion, espdDocument.readCriterionFromEspd(ccvCriterion));
+		if (groups > MAX_CACHED_UNBOUNDED_GROUPS) {
+			misses.incrementAndGet();
+			return marshalCriterion(ccvCriterion, espdDocument);
+		}
+
+		String key = ccvCriterion.getUuid() + "#" + groups;
+		byte[] fragment = fragments.get(key);
+		if (fragment != null) {
+			hits.incrementAndGet();
+			return fragment;
+		}
+
+		misses.incrementAndGet();
+		fragment = marshalCriterion(ccvCriterion, espdDocument);
+		byte[] existing = fragments.putIfAbsent(key, fragment);
+		return existing != null ? existing : fragment;
+	}
+
+	/**
+	 * @return The number of copies of the unbounded requirement groups in the UBL criterion, which is 1 for the
+	 * criteria without unbounded groups
+	 */
+	private static int countUnboundedGroups(CcvCriterion ccvCriterion, EspdCriterion espdCriterion) {
+		if (!(espdCriterion instanceof UnboundedRequirementGroup) || !hasUnboundedGroup(ccvCriterion)) {
+			return 1;
+		}
+		List<DynamicRequirementGroup> unboundedGroups = ((UnboundedRequirementGroup) espdCriterion)
+				.getUnboundedGroups();
+		// the structure of the primary group is written out even when the user did not add any values
+		return isEmpty(unboundedGroups) ? 1 : unboundedGroups.size();
+	}
+
+	private static boolean hasUnboundedGroup(CcvCriterion ccvCriterion) {
+		if (isEmpty(ccvCriterion.getGroups())) {
+			return false;
+		}
+		for (CcvRequirementGroup group : ccvCriterion.getGroups()) {
+			if (group.isUnbounded()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Marshal a request holding only the given criterion and cut the criterion element out of it.
+	 */
+	private byte[] marshalCriterion(CcvCriterion ccvCriterion, EspdDocument espdDocument) {
+		ESPDRequestType wrapper = new ESPDRequestType();
+		wrapper.getCriterion().add(criteriaTransformer.buildCriterionType(ccvCriterion, espdDocument));
+		byte[] document = marshal(wrapper);
+
+		// the criterion is the only child of the root element
+		int rootStart = document.length > 1 && document[1] == '?' ? indexOf(document, '<', 1) : 0;
+		int start = indexOf(document, '<', indexOf(document, '>', rootStart) + 1);
+		int end = lastIndexOf(document, '>', lastIndexOf(document, '<', document.length - 1));
+		byte[] fragment = new byte[end - start + 1];
+		System.arraycopy(document, start, fragment, 0, fragment.length);
+		return fragment;
+	}
+
+	private byte[] marshal(ESPDRequestType espdRequestType) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		marshallerPool.marshal(espdRequestObjectFactory.createESPDRequest(espdRequestType), new StreamResult(out));
+		return out.toByteArray();
+	}
+
+	private static int indexOf(byte[] bytes, char c, int from) {
+		for (int i = from; i < bytes.length; i++) {
+			if (bytes[i] == c) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static int lastIndexOf(byte[] bytes, char c, int from) {
+		for (int i = from; i >= 0; i--) {
+			if (bytes[i] == c) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static int indexOf(byte[] bytes, byte[] sequence) {
+		outer:
+		for (int i = 0; i <= bytes.length - sequence.length; i++) {
+			for (int j = 0; j < sequence.length; j++) {
+				if (bytes[i + j] != sequence[j]) {
+					continue outer;
+				}
+			}
+			return i;
+		}
+		return -1;
+	}
+
+	@ManagedAttribute(description = "Number of criteria copied from an already marshalled fragment")
+	public long getHits() {
+		return hits.get();
+	}
+
+	@ManagedAttribute(description = "Number of criteria which needed to be marshalled")
+	public long getMisses() {
+		return misses.get();
+	}
+
+	@ManagedAttribute(description = "Number of cached criterion fragments")
+	public int getSize() {
+		return fragments.size();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("UblRequestCriterionFragments[size=%d, hits=%d, misses=%d]", getSize(), getHits(),
+				getMisses());
+	}
+}
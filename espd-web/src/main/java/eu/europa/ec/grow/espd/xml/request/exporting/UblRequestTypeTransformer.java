@@ -57,6 +57,16 @@ public class UblRequestTypeTransformer {
     }
 
     public ESPDRequestType buildRequestType(EspdDocument espdDocument) {
+        ESPDRequestType espdRequestType = buildRequestTypeWithoutCriteria(espdDocument);
+        addCriteria(espdDocument, espdRequestType);
+        return espdRequestType;
+    }
+
+    /**
+     * Build everything but the criteria, which can be written out separately by the
+     * {@link UblRequestCriterionFragments}.
+     */
+    public ESPDRequestType buildRequestTypeWithoutCriteria(EspdDocument espdDocument) {
         ESPDRequestType espdRequestType = new ESPDRequestType();
 
         addUBLVersionInformation(espdRequestType);
@@ -69,7 +79,6 @@ public class UblRequestTypeTransformer {
         addContractingPartyInformation(espdDocument, espdRequestType);
         addProcurementProjectLots(espdDocument, espdRequestType);
         addAdditionalDocumentReference(espdDocument, espdRequestType);
-        addCriteria(espdDocument, espdRequestType);
 
         return espdRequestType;
     }
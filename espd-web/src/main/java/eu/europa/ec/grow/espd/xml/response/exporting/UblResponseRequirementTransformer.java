@@ -28,6 +28,7 @@ import eu.europa.ec.grow.espd.domain.DynamicRequirementGroup;
 import eu.europa.ec.grow.espd.domain.EspdCriterion;
 import eu.europa.ec.grow.espd.domain.enums.criteria.ExpectedResponseType;
 import eu.europa.ec.grow.espd.domain.enums.other.Country;
+import eu.europa.ec.grow.espd.domain.infrastructure.CriterionFieldAccessors;
 import eu.europa.ec.grow.espd.domain.intf.UnboundedRequirementGroup;
 import eu.europa.ec.grow.espd.domain.ubl.CcvCriterionRequirement;
 import eu.europa.ec.grow.espd.domain.ubl.CcvRequirementGroup;
@@ -38,13 +39,11 @@ import isa.names.specification.ubl.schema.xsd.ccv_commonaggregatecomponents_1.Re
 import isa.names.specification.ubl.schema.xsd.ccv_commonaggregatecomponents_1.ResponseType;
 import lombok.extern.slf4j.Slf4j;
 import oasis.names.specification.ubl.schema.xsd.commonbasiccomponents_2.IDType;
-import org.apache.commons.beanutils.PropertyUtils;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 
-import java.lang.reflect.InvocationTargetException;
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
@@ -213,14 +212,15 @@ class UblResponseRequirementTransformer extends UblRequirementTypeTemplate {
 				if (CollectionUtils.isEmpty(unboundedGroups)) {
 					return null;
 				}
-				return (T) PropertyUtils
-						.getProperty(unboundedGroups.get(groupIndex),
+				return (T) CriterionFieldAccessors
+						.readRequirementValue(unboundedGroups.get(groupIndex),
 								requirement.getEspdCriterionFields().get(position));
 			}
 
 			// all requirements except the ones representing an AMOUNT are mapped to a single ESPD field
-			return (T) PropertyUtils.getProperty(espdCriterion, requirement.getEspdCriterionFields().get(position));
-		} catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
+			return (T) CriterionFieldAccessors
+					.readRequirementValue(espdCriterion, requirement.getEspdCriterionFields().get(position));
+		} catch (IllegalArgumentException e) {
 			log.error(e.getMessage(), e);
 			return null;
 		}
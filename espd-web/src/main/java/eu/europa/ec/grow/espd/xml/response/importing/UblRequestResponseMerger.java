@@ -42,8 +42,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
 
 /**
  * <p>
@@ -77,6 +81,32 @@ public class UblRequestResponseMerger extends UblRequestResponseImporter {
 		return buildEspdDocument(requestType, responseType);
 	}
 
+	/**
+	 * Build an instance of a {@link EspdDocument} populated with data coming from a UBL Request and several
+	 * Responses, so that the answers given in more than one past ESPD can be reused at once.
+	 * <p>
+	 * The Responses are given by order of precedence: the information about the EO and the lots comes from the first
+	 * one and a criterion is taken from the first Response which contains it. The criteria of the other Responses are
+	 * added to the first Response, which is therefore modified.
+	 * </p>
+	 *
+	 * @return A ESPD domain object with the information merge from the Request and Responses
+	 */
+	public EspdDocument mergeRequestAndResponses(ESPDRequestType requestType, List<ESPDResponseType> responseTypes) {
+		checkArgument(!responseTypes.isEmpty(), "At least one ESPD Response is needed for a merge.");
+
+		ESPDResponseType primaryResponse = responseTypes.get(0);
+		if (responseTypes.size() > 1) {
+			Map<String, CriterionType> criteria = new LinkedHashMap<>();
+			for (ESPDResponseType responseType : responseTypes) {
+				indexCriteriaById(responseType.getCriterion(), criteria);
+			}
+			primaryResponse.getCriterion().clear();
+			primaryResponse.getCriterion().addAll(criteria.values());
+		}
+		return buildEspdDocument(requestType, primaryResponse);
+	}
+
 	@Override
 	protected ContractingPartyType provideContractingParty(ESPDRequestType requestType, ESPDResponseType responseType) {
 		//hotfix
@@ -95,36 +125,46 @@ public class UblRequestResponseMerger extends UblRequestResponseImporter {
 	@Override
 	protected List<CriterionType> provideCriteria(ESPDRequestType requestType, ESPDResponseType responseType) {
 		List<CriterionType> toKeep = new ArrayList<>(responseType.getCriterion().size());
+		Map<String, CriterionType> responseCriteria = indexCriteriaById(responseType.getCriterion(),
+				new HashMap<String, CriterionType>(responseType.getCriterion().size() * 2));
 
 		// a request contains only exclusion and selection criteria
 		// and we need to keep only the criteria specified in the request
 		for (CriterionType reqCrit : requestType.getCriterion()) {
-			CriterionType toAdd = null;
-
 			// if criteria exists in response then use it
-			for (CriterionType respCrit : responseType.getCriterion()) {
-				if (Objects.equals(respCrit.getID().getValue(), reqCrit.getID().getValue())) {
-					toAdd = respCrit;
-					break;
-				}
-			}
-
-			toKeep.add(toAdd == null ? reqCrit : toAdd);
+			CriterionType respCrit = responseCriteria.get(criterionId(reqCrit));
+			toKeep.add(respCrit == null ? reqCrit : respCrit);
 		}
 
 		// economic operator criteria are not part of the request but we will get them from the response
 		for (OtherCriterion awardCrit : OtherCriterion.values()) {
-			for (CriterionType respCrit : responseType.getCriterion()) {
-				if (awardCrit.getUuid().equals(respCrit.getID().getValue())) {
-					toKeep.add(respCrit);
-					break;
-				}
+			CriterionType respCrit = responseCriteria.get(awardCrit.getUuid());
+			if (respCrit != null) {
+				toKeep.add(respCrit);
 			}
 		}
 
 		return toKeep;
 	}
 
+	/**
+	 * Index criteria by their id, keeping the first criterion found for an id.
+	 */
+	private static Map<String, CriterionType> indexCriteriaById(List<CriterionType> criteria,
+			Map<String, CriterionType> index) {
+		for (CriterionType criterion : criteria) {
+			String id = criterionId(criterion);
+			if (id != null && !index.containsKey(id)) {
+				index.put(id, criterion);
+			}
+		}
+		return index;
+	}
+
+	private static String criterionId(CriterionType criterion) {
+		return criterion.getID() == null ? null : criterion.getID().getValue();
+	}
+
 	@Override
 	protected List<ProcurementProjectLotType> provideProjectLots(ESPDRequestType requestType,
 			ESPDResponseType responseType) {
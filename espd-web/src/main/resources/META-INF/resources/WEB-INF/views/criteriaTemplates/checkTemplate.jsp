@@ -3,6 +3,7 @@
 <%@ taglib prefix="form" uri="http://www.springframework.org/tags/form" %>
 <%@ taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core" %>
 <%@ taglib uri="http://tiles.apache.org/tags-tiles" prefix="tiles" %>
+<%@ taglib prefix="espd" uri="/WEB-INF/espd.tld" %>
 
 <%--
   ~
@@ -49,6 +50,7 @@
 				<c:if test="${!is_always_checked}">
 					<form:checkbox path="${field}.exists"/>
 				</c:if>
+				<espd:fragment name="check/${field}/${title_code}">
 				<b>${span18n[title_code]}</b>
 			</label>
 		    <c:if test="${not empty description_code}">
@@ -56,6 +58,7 @@
 		        	<span class="small" data-i18n="${description_code}"><s:message code='${description_code}'/></span>
 		        </p>
 		    </c:if>
+				</espd:fragment>
     	</div>
 		<c:if test="${hasCriterion == true}">
 			<div class="col-md-12">
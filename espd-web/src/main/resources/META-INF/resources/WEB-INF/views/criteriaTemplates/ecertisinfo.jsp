@@ -3,9 +3,13 @@
 <%@ taglib prefix="form" uri="http://www.springframework.org/tags/form" %>
 <%@ taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core" %>
 <%@ taglib uri="http://tiles.apache.org/tags-tiles" prefix="tiles" %>
+<%@ taglib prefix="espd" uri="/WEB-INF/espd.tld" %>
 
 <c:if test="${printingjsp != true}">
 
+<%-- the panel is filled from eCertis by the browser, only the country it asks about depends on the ESPD --%>
+<c:set var="ecertisCountry" value="${agent == 'eo' ? espd.economicOperator.country : espd.authority.country}"/>
+<espd:fragment name="ecertis/${field}/${ecertisCountry}">
 <div class="small">
 	<span id="${field}-ecertis-show" class="ecertis-link" data-uuid="${criterion.uuid}" data-i18n="${more_information}" data-target="${'#'}${field}-ecertis" data-target-hide="${'#'}${field}-ecertis-show" data-target-show="${'#'}${field}-ecertis-hide;${'#'}${field}-ecertis">
 		${i18n['more_information']} <i class="fa fa-angle-double-right" aria-hidden="true"></i>
@@ -61,5 +65,6 @@
 		<i class="fa fa-angle-double-left" aria-hidden="true"></i> ${i18n['less_information']}
 	</span>
 </div>
+</espd:fragment>
 
 </c:if>
\ No newline at end of file
@@ -3,6 +3,7 @@
 <%@ taglib prefix="form" uri="http://www.springframework.org/tags/form" %>
 <%@ taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core" %>
 <%@ taglib uri="http://tiles.apache.org/tags-tiles" prefix="tiles" %>
+<%@ taglib prefix="espd" uri="/WEB-INF/espd.tld" %>
 <tiles:importAttribute name="checkExistanse"/>
 <tiles:importAttribute name="field"/>
 <tiles:importAttribute name="hasCriterion"/>
@@ -24,6 +25,7 @@
 	<div class="row criteria-row-form">
 	    <div class="col-md-5 criteria-row-form-left">
 	        <div class="form-group" style="margin-bottom: 5px;">
+	            <espd:fragment name="form/${field}/${title_code}">
 	            <div class="col-md-12">
 
 					<span style="font-weight: bold;cursor: pointer;" class="ecertis-link-header" data-uuid="${criterion.uuid}" data-i18n="${title_code}">
@@ -38,6 +40,7 @@
 	                    </span>
 	                </div>
 	            </c:if>
+	            </espd:fragment>
 		        <div class="col-md-12">
 					<%@include file="/WEB-INF/views/criteriaTemplates/ecertisinfo.jsp" %>
 				</div> 
@@ -3,6 +3,7 @@
 <%@ taglib prefix="form" uri="http://www.springframework.org/tags/form" %>
 <%@ taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core" %>
 <%@ taglib uri="http://tiles.apache.org/tags-tiles" prefix="tiles" %>
+<%@ taglib prefix="espd" uri="/WEB-INF/espd.tld" %>
 
 <%--
   ~
@@ -44,7 +45,8 @@
         <c:if test="${!is_always_checked}">
             <form:checkbox path="${field}.exists"/>
         </c:if>
-		
+
+		<espd:fragment name="request/${field}/${title_code}">
 		<span style="font-weight: bold;" data-i18n="${title_code}">  
 			<s:message code='${title_code}'/> 
 		</span>
@@ -58,6 +60,7 @@
         <p></p>
         <span class="small" data-i18n="${description_code}"><s:message code='${description_code}'/></span>
     </c:if>
+		</espd:fragment>
 </div>
 
 
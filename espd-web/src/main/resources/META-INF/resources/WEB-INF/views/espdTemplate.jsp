@@ -30,9 +30,11 @@
 		<script src="<s:url value="/static/bundle/all.js"/>"></script>
 		
 		<s:eval var="ecertisCriterionURL" scope="page" expression="@espdConfiguration.ecertisCriterionURL" />
+		<s:eval var="translationsVersion" scope="page" expression="@messageBundles.version" />
 
 		<script>
 			var pageLanguage = "${pageContext.response.locale}".toLowerCase();
+			var translationsVersion = "${translationsVersion}";
 			
 			function dataShow() {
 				var elems = $(this).attr("data-target-show").split(";")
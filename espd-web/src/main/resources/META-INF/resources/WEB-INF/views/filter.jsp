@@ -288,7 +288,7 @@
                     <s:message code="filter_upload_request"/>
                     <form:input type="file" path="attachments"/>
                     <s:message code="filter_upload_response"/>
-                    <form:input type="file" path="attachments"/>
+                    <form:input type="file" path="attachments" multiple="multiple"/>
                 </div>
                 <div class="tab-pane" id="tab-country-selection">
                     <h3 id="where_are_you_from_ca">${span18n['filter_where_are_you_from_ca']}</h3>
@@ -0,0 +1,239 @@
+<%@ page import="eu.europa.ec.grow.espd.xml.CriteriaTemplates" %>
+<%@ page language="java" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8" %>
+<%@ taglib uri="http://java.sun.com/jsp/jstl/fmt" prefix="fmt" %>
+<%@ taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core" %>
+<%@ taglib prefix="s" uri="http://www.springframework.org/tags" %>
+<%@ taglib prefix="form" uri="http://www.springframework.org/tags/form" %>
+<%@ taglib prefix="tiles" uri="http://tiles.apache.org/tags-tiles" %>
+
+
+<%--
+  ~
+  ~ Copyright 2016 EUROPEAN COMMISSION
+  ~
+  ~ Licensed under the EUPL, Version 1.1 or – as soon they
+  ~ will be approved by the European Commission - subsequent
+  ~ versions of the EUPL (the "Licence");
+  ~
+  ~ You may not use this work except in compliance with the Licence.
+  ~
+  ~ You may obtain a copy of the Licence at:
+  ~
+  ~ https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+  ~
+  ~ Unless required by applicable law or agreed to in
+  ~ writing, software distributed under the Licence is
+  ~ distributed on an "AS IS" basis,
+  ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+  ~ express or implied.
+  ~ See the Licence for the specific language governing
+  ~ permissions and limitations under the Licence.
+  ~
+  --%>
+
+<%--
+	Printable content of the ESPD, shown on the overview page (print.jsp) and rendered on the server
+	for the PDF (printPdf.jsp). It expects the 'espd' form object to be bound by the including page.
+--%>
+
+<%
+request.setAttribute("exclusionEO", eu.europa.ec.grow.espd.xml.CriteriaTemplates.exclusionEO);
+request.setAttribute("suitabilityListEO", CriteriaTemplates.suitabilityListEO);
+request.setAttribute("economicListEO", CriteriaTemplates.economicListEO);
+request.setAttribute("technicalListEO", CriteriaTemplates.technicalListEO_UglyPrintVersion);
+request.setAttribute("qualityAssuranceListEO", CriteriaTemplates.qualityAssuranceListEO);
+%>
+
+    <!-- Hidden header element which appears only in the PDF rendition -->
+    <h1 id="print_espd_title" class="hidden hidden-print"><s:message code='app_title'/></h1>
+	<%-- PROCEDURE --%>
+	
+	<c:set var="show_part_II" value="${true}" scope="request"/>
+	<%@ include file="/WEB-INF/views/wizard/procedureForm.jsp" %>
+ 
+	<%-- EXCLUSION --%>
+    <div class="panel-default">
+
+        <div>
+            <h2>${span18n["createcaexcl_header"]}</h2>
+        </div>
+        
+		<tiles:insertDefinition name="topLevelCriteriaTemplate">
+			<tiles:putAttribute name="topLevelCriteriaList" value="${exclusionEO}"/>
+		</tiles:insertDefinition>
+		
+ 		<c:if test="${espd.purelyNationalGrounds != null && espd.purelyNationalGrounds.exists}">
+	        <div class="panel panel-espd">
+	            <div class="panel-heading" data-toggle="collapse" data-target="#ca-insolvency-section">
+	                <h4 class="panel-title">${span18n['crit_top_title_purely_national']}</h4>
+	            </div>
+	            <div id="ca-insolvency-section" class="collapse in">
+	                <div class="espd-panel-body panel-body">
+	                    <b>${span18n['crit_eu_main_purely_national']}</b>
+	                    <tiles:insertDefinition name="exclusionFormTemplate">
+	                        <tiles:putAttribute name="field" value="purelyNationalGrounds"/>
+	                        <tiles:putAttribute name="title_code" value="crit_eu_title_purely_national"/>
+	                        <tiles:putAttribute name="description_code" value="crit_eu_text_purely_national"/>
+	                        <tiles:putAttribute name="selfCleaning" value="false"/>
+		                	<tiles:putAttribute name="hasCriterion" value="false"/>
+	                    </tiles:insertDefinition>
+	                </div>
+	            </div>
+	        </div>
+        </c:if>
+    </div>
+
+	<%-- SELECTION --%>
+    <div class="panel-default">
+        
+        
+        <div><h2>${span18n['createcasel_header']}</h2></div>
+        <div class="alert alert-espd-info">
+            <ul class="fa-ul">
+                <li>
+                    <i class="info-label fa fa-info-circle fa-lg fa-li"></i>${span18n['createcasel_alert']}
+                </li>
+            </ul>
+        </div>
+        
+		<c:set var="usealpha" value="${espd.selectionSatisfiesAll != null && espd.selectionSatisfiesAll.exists}"/>
+
+        <c:if test="${usealpha}">
+	        <div class="panel panel-espd">
+	            <div class="panel-heading" data-toggle="collapse" data-target="#eo-satisfies-all-section">
+	            	<h4 class="panel-title">${span18n['all_selection_switch']}</h4>
+	            </div>
+	            <div id="eo-satisfies-all-section" class="collapse in">
+                    <div class="espd-panel-body panel-body">
+                        <strong>${span18n['crit_selection_eo_declares_that']}</strong>
+                        <span data-i18n="crit_selection_eo_declares_that_tooltip" data-toggle="tooltip" title="${i18n['crit_selection_eo_declares_that_tooltip']}"></span>
+
+	                    <div class="row criteria-row-form">
+	                        <div class="col-md-5 criteria-row-check-left">
+	                            <div class="form-group">
+	                                <div class="col-md-12">
+	                                    <strong>${span18n['crit_selection_eo_satisfies_all_criteria']}</strong>
+	                                </div>
+	                            </div>
+	                        </div>
+	                        <div class="col-md-7 criteria-row-check-right">
+	                            <div class="col-md-12">
+	                                <div class="form-group">
+	                                    ${span18n["crit_your_answer"]}
+	                                    <form:radiobutton path="selectionSatisfiesAll.answer" value="true"/>${span18n["yes"]}
+	                                    <form:radiobutton path="selectionSatisfiesAll.answer" value="false"/>${span18n["no"]}
+	                                </div>
+	                            </div>
+	                        </div>
+	                    </div>
+                    </div>
+	            </div>
+	        </div>
+       </c:if>
+       
+		<c:if test="${!usealpha}">
+			<div id="eo-satisfies-all-form">
+	        
+				<tiles:insertDefinition name="euCriteriaListTemplate">
+					<tiles:putAttribute name="id" value="eo-suitability-section"/>
+					<tiles:putAttribute name="title_code" value="createcasel_suitability"/>
+					<tiles:putAttribute name="subtitle_code" value="crit_selection_eo_suitability_article"/>
+					<tiles:putAttribute name="disableTooltips" value="true"/>
+					<tiles:putAttribute name="criteriaList" value="${suitabilityListEO}"/>
+				</tiles:insertDefinition>
+	
+				<tiles:insertDefinition name="euCriteriaListTemplate">
+					<tiles:putAttribute name="id" value="eo-economic-financial-section"/>
+					<tiles:putAttribute name="title_code" value="createcasel_economic_and_financial_standing"/>
+					<tiles:putAttribute name="subtitle_code" value="crit_selection_eo_economic_article"/>
+					<tiles:putAttribute name="disableTooltips" value="true"/>
+					<tiles:putAttribute name="criteriaList" value="${economicListEO}"/>
+				</tiles:insertDefinition>
+				
+				<tiles:insertDefinition name="euCriteriaListTemplate">
+					<tiles:putAttribute name="id" value="eo-technical-professional-section"/>
+					<tiles:putAttribute name="title_code" value="createcasel_technical_professional_ability"/>
+					<tiles:putAttribute name="subtitle_code" value="crit_selection_technical_professional_ability_article"/>
+					<tiles:putAttribute name="disableTooltips" value="true"/>
+					<tiles:putAttribute name="criteriaList" value="${technicalListEO}"/>
+				</tiles:insertDefinition>
+	
+	            <tiles:insertDefinition name="euCriteriaListTemplate">
+	                <tiles:putAttribute name="id" value="eo-quality-assurance-section"/>
+	                <tiles:putAttribute name="title_code" value="createcasel_quality_assurance"/>
+	                <tiles:putAttribute name="subtitle_code" value="crit_selection_quality_assurance_article"/>
+	                <tiles:putAttribute name="disableTooltips" value="true"/>
+	                <tiles:putAttribute name="criteriaList" value="${qualityAssuranceListEO}"/>
+	            </tiles:insertDefinition>
+	        
+			</div>
+		</c:if>
+		
+    </div>
+
+	<%-- FINISH --%>
+	<div class="panel-default">
+		<div>
+			<h2>
+				<span data-i18n="createcafinish_header"><s:message code="createcafinish_header"/></span>
+			</h2>
+		</div>
+		<div class="panel panel-espd">
+			<div class="panel-heading" data-toggle="collapse" data-target="#finish-reduction-of-numbers-section">
+				 <h4 class="panel-title">${span18n['createcafinish_reduction']}</h4>
+			</div>
+            <div id="finish-reduction-of-numbers-section" class="collapse in">
+                <div class="espd-panel-body panel-body">
+					<div class="alert alert-espd-info">
+						<ul class="fa-ul">
+						<li>
+							<i class="info-label fa fa-info-circle fa-lg fa-li"></i>
+							<span data-i18n="createcafinish_toptext"><s:message code='createcafinish_toptext'/></span>
+						</li>
+						</ul>
+					</div>
+					<span data-i18n="createcafinish_reduction_question" style="font-weight: bold;">
+                        <s:message code='createcafinish_reduction_question'/>
+                    </span>
+					<tiles:insertDefinition name="objectiveFormTemplate">
+						<tiles:putAttribute name="field" value="meetsObjective"/>
+						<tiles:putAttribute name="title_code" value="createcafinish_title_eo_declares_that"/>
+						<tiles:putAttribute name="description_code" value="createcafinish_text_eo_declares_that"/>
+	                    <tiles:putAttribute name="hasCriterion" value="false"/>
+					</tiles:insertDefinition>
+                </div>
+            </div>
+		</div>
+		<div class="panel panel-espd">
+			<div class="panel-heading" data-toggle="collapse" data-target="#finish-statements-signature-section">
+				 <h4 class="panel-title">${span18n['createcafinish_concl_statements']}</h4>
+			</div>
+            <div id="finish-statements-signature-section" class="collapse in">
+                <div class="espd-panel-body panel-body">
+                    <span data-i18n="createcafinish_concl_statements_text">
+                        <s:message code='createcafinish_concl_statements_text'/>
+                    </span>
+                    <p>
+	                    <span data-i18n="createcafinish_concl_statements_signature">
+	                        <s:message code='createcafinish_concl_statements_signature'/>
+	                    </span>
+                    </p>
+                    <div class="form-group">
+                        <label class="control-label col-md-2 small">${span18n['crit_date']}</label>
+                        <div class="col-md-4">
+                        	<fmt:formatDate var="documentDateFormatted" value="${espd.documentDate}" pattern="yyyy-MM-dd"/>
+                        	<input type="text" cssClass="form-control datepicker" cssStyle="border-radius: 0;" value="${documentDateFormatted}"/>
+                        </div>
+                    </div>
+                    <div class="form-group">
+                        <label class="control-label col-md-2 small">${span18n['place']}</label>
+                        <div class="col-md-4">
+                            <textarea rows="1" cssClass="form-control">${espd.location}</textarea>
+                        </div>
+                    </div>
+                    <div class="form-group">
+                        <label class="control-label col-md-2 small">${span18n['signature']}</label>
+                    </div>
+                </div>
+            </div>
+		</div>
@@ -0,0 +1,45 @@
+<%@ page language="java" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8" trimDirectiveWhitespaces="true" %>
+<%@ taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core" %>
+<%@ taglib prefix="s" uri="http://www.springframework.org/tags" %>
+
+<%--
+  ~
+  ~ Copyright 2016 EUROPEAN COMMISSION
+  ~
+  ~ Licensed under the EUPL, Version 1.1 or – as soon they
+  ~ will be approved by the European Commission - subsequent
+  ~ versions of the EUPL (the "Licence");
+  ~
+  ~ You may not use this work except in compliance with the Licence.
+  ~
+  ~ You may obtain a copy of the Licence at:
+  ~
+  ~ https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+  ~
+  ~ Unless required by applicable law or agreed to in
+  ~ writing, software distributed under the Licence is
+  ~ distributed on an "AS IS" basis,
+  ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+  ~ express or implied.
+  ~ See the Licence for the specific language governing
+  ~ permissions and limitations under the Licence.
+  ~
+  --%>
+
+<%--
+	Standalone XHTML document fed to the PDF transformation, rendered on the server by PrintableHtmlRenderer.
+	It is not decorated by the Tiles layout, so the i18n helpers are exposed here instead of in espdTemplate.jsp.
+	The closing div balances the one left open by printContent.jsp, which print.jsp closes after the footer buttons.
+--%>
+<%
+	eu.europa.ec.grow.espd.util.I18NFunc inst = new eu.europa.ec.grow.espd.util.I18NFunc(pageContext);
+	request.setAttribute("i18n", inst.message());
+	request.setAttribute("div18n", inst.div());
+	request.setAttribute("span18n", inst.span());
+%>
+<html><head/><body>
+<s:nestedPath path="espd">
+	<c:set var="printingjsp" scope="request" value="${true}"/>
+	<%@ include file="/WEB-INF/views/printContent.jsp" %>
+</s:nestedPath>
+</div></body></html>
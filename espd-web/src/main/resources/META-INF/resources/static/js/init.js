@@ -55,29 +55,35 @@ function language(code) {
         }
     });
 
+    // the next pages and the PDF are rendered in the language kept in the locale cookie
     $.ajax({
         type: "POST",
-        url: "translate?lang=" + code,
-        data: {
-            labels: codes
-        },
-        success: function (data) {
+        url: "locale?lang=" + code
+    });
+
+    // the whole bundle of the language is cached by the browser for as long as its version does not change
+    $.ajax({
+        type: "GET",
+        url: "translations/" + code + "?v=" + translationsVersion,
+        dataType: "json",
+        success: function (labels) {
         	pageLanguage = code.toLowerCase();
-            var array = JSON.parse(data);
             var validators = {};
             for (var i = 0; i < codes.length; i++) {
+                var label = labels[codes[i]];
+                if (label === undefined) continue;
                 if (codes[i].indexOf("validator_") == 0) {
-                    validator(validators, codes[i].substring("validator_".length), array[i]);
+                    validator(validators, codes[i].substring("validator_".length), label);
                     if ($("*[data-i18n='" + codes[i] + "']").length == 0) continue;
                 }
                 var elem = $("*[data-i18n='" + codes[i] + "']");
                 var tagName = elem.prop("tagName").toLowerCase();
 
                 if (elem.attr("data-toggle") == "tooltip") {
-                    elem.attr("title", array[i]);
-                    elem.attr("data-original-title", array[i]);
+                    elem.attr("title", label);
+                    elem.attr("data-original-title", label);
                 } else {
-                    elem.html(array[i]);
+                    elem.html(label);
                 }
             }
             jQuery.extend(jQuery.validator.messages, validators);
@@ -0,0 +1,178 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.batch
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.opencsv.CSVReader
+import eu.europa.ec.grow.espd.domain.CriminalConvictionsCriterion
+import eu.europa.ec.grow.espd.domain.EspdDocument
+import eu.europa.ec.grow.espd.domain.enums.criteria.ExclusionCriterion
+import eu.europa.ec.grow.espd.metrics.ProcessingMetrics
+import eu.europa.ec.grow.espd.util.EspdConfiguration
+import eu.europa.ec.grow.espd.util.EspdExporter
+import eu.europa.ec.grow.espd.xml.base.AbstractXmlFileImport
+
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.zip.ZipEntry
+import java.util.zip.ZipInputStream
+import java.util.zip.ZipOutputStream
+
+class BatchResponseConverterTest extends AbstractXmlFileImport {
+
+    private static final String SAMPLES = "./src/test/groovy/eu/europa/ec/grow/espd/xml/samples/response/"
+
+    private ExecutorService executor
+    private BatchResponseConverter converter
+
+    void setup() {
+        executor = Executors.newFixedThreadPool(2)
+        def espdExporter = new EspdExporter(xmlExporter, null, null, new ProcessingMetrics(), executor, new EspdConfiguration(null))
+        converter = new BatchResponseConverter(xmlImporter, espdExporter, new ObjectMapper(), executor, 2)
+    }
+
+    void cleanup() {
+        executor.shutdownNow()
+    }
+
+    def "should write one JSON summary per document of the archive"() {
+        given:
+        def archive = zip([
+                "responses/"                 : null,
+                "responses/criminal.xml"     : sample("exclusion/participation_criminal_organisation_import.xml"),
+                "responses/satisfies_all.xml": sample("selection/satisfies_all_import.xml"),
+                "responses/notice.txt"       : "not an ESPD".bytes])
+        def out = new ByteArrayOutputStream()
+
+        when:
+        converter.convert(new ZipBatchDocumentSource(new ByteArrayInputStream(archive), 1024 * 1024), BatchFormat.JSON, out)
+        def summaries = out.toString("UTF-8").readLines().collect { new ObjectMapper().readValue(it, Map) }
+
+        then:
+        summaries.size() == 3
+        def criminal = summaries.find { it.name == "responses/criminal.xml" }
+        criminal.imported == true
+        criminal.exclusionGroundsAnsweredYes.contains("criminalConvictions")
+        def notice = summaries.find { it.name == "responses/notice.txt" }
+        notice.imported == false
+        notice.error == "The file is not a valid ESPD Response."
+        summaries.find { it.name == "responses/satisfies_all.xml" }.imported == true
+    }
+
+    def "should convert the documents into a flat archive of ESPD Responses and list the failures"() {
+        given:
+        def archive = zip([
+                "a/response.xml": sample("exclusion/participation_criminal_organisation_import.xml"),
+                "b/response.xml": sample("selection/satisfies_all_import.xml"),
+                "broken.xml"    : "<broken".bytes])
+        def out = new ByteArrayOutputStream()
+
+        when:
+        converter.convert(new ZipBatchDocumentSource(new ByteArrayInputStream(archive), 1024 * 1024), BatchFormat.XML, out)
+        def entries = unzip(out.toByteArray())
+
+        then:
+        entries.keySet() == ["response.xml", "response-2.xml", BatchResponseConverter.FAILURES_ENTRY] as Set
+        entries["response.xml"].contains("ESPDResponse")
+        entries[BatchResponseConverter.FAILURES_ENTRY].startsWith("broken.xml: ")
+    }
+
+    def "should write one CSV row per economic operator with the criteria of the ESPD Request"() {
+        given:
+        def espdRequest = new EspdDocument(criminalConvictions: CriminalConvictionsCriterion.buildWithExists(true))
+        def archive = zip([
+                "criminal.xml": sample("exclusion/participation_criminal_organisation_import.xml"),
+                "broken.xml"  : "<broken".bytes])
+        def out = new ByteArrayOutputStream()
+
+        when:
+        converter.evaluate(espdRequest, new ZipBatchDocumentSource(new ByteArrayInputStream(archive), 1024 * 1024), out)
+        def rows = new CSVReader(new StringReader(out.toString("UTF-8"))).readAll()
+
+        then:
+        rows.size() == 3
+        rows[0] as List == ["File", "Error", "Economic operator", "VAT number", "Country",
+                ExclusionCriterion.PARTICIPATION_CRIMINAL_ORGANISATION.name]
+        rows.find { it[0] == "criminal.xml" }[5] == "yes"
+        rows.find { it[0] == "broken.xml" }[1] == "The file is not a valid ESPD Response."
+    }
+
+    def "should report the documents which are too large without reading them"() {
+        given:
+        def archive = zip(["criminal.xml": sample("exclusion/participation_criminal_organisation_import.xml")])
+
+        when:
+        def document = new ZipBatchDocumentSource(new ByteArrayInputStream(archive), 100).next()
+
+        then:
+        document.name == "criminal.xml"
+        document.content == null
+        document.error == "The file is larger than 100 bytes."
+    }
+
+    def "should convert all the documents when there are more than the documents converted at once"() {
+        given:
+        def documents = (1..10).collectEntries { ["response${it}.xml".toString(), sample("selection/satisfies_all_import.xml")] }
+        def out = new ByteArrayOutputStream()
+
+        when:
+        converter.convert(new ZipBatchDocumentSource(new ByteArrayInputStream(zip(documents)), 1024 * 1024), BatchFormat.JSON, out)
+
+        def names = out.toString("UTF-8").readLines().collect { new ObjectMapper().readValue(it, Map).name }
+
+        then:
+        names.size() == 10
+        names as Set == documents.keySet()
+    }
+
+    private static byte[] sample(String path) {
+        new File(SAMPLES + path).bytes
+    }
+
+    private static byte[] zip(Map<String, byte[]> entries) {
+        def bytes = new ByteArrayOutputStream()
+        new ZipOutputStream(bytes).withStream { zip ->
+            entries.each { name, content ->
+                zip.putNextEntry(new ZipEntry(name))
+                if (content != null) {
+                    zip.write(content)
+                }
+                zip.closeEntry()
+            }
+        }
+        bytes.toByteArray()
+    }
+
+    private static Map<String, String> unzip(byte[] archive) {
+        def entries = [:]
+        def zip = new ZipInputStream(new ByteArrayInputStream(archive))
+        def entry = zip.nextEntry
+        while (entry != null) {
+            entries[entry.name] = new String(zip.bytes, "UTF-8")
+            entry = zip.nextEntry
+        }
+        entries
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.batch
+
+import eu.europa.ec.grow.espd.domain.CriminalConvictionsCriterion
+import eu.europa.ec.grow.espd.domain.DynamicRequirementGroup
+import eu.europa.ec.grow.espd.domain.EconomicFinancialStandingCriterion
+import eu.europa.ec.grow.espd.domain.EspdDocument
+import eu.europa.ec.grow.espd.domain.SuitabilityCriterion
+import eu.europa.ec.grow.espd.domain.enums.criteria.ExclusionCriterion
+import eu.europa.ec.grow.espd.domain.enums.criteria.SelectionCriterion
+import spock.lang.Specification
+
+class EvaluationMatrixTest extends Specification {
+
+    private EvaluationMatrix matrix = new EvaluationMatrix(new EspdDocument(
+            criminalConvictions: CriminalConvictionsCriterion.buildWithExists(true),
+            corruption: CriminalConvictionsCriterion.buildWithExists(true),
+            fraud: CriminalConvictionsCriterion.buildWithExists(false),
+            enrolmentProfessionalRegister: SuitabilityCriterion.buildWithExists(true),
+            generalYearlyTurnover: EconomicFinancialStandingCriterion.buildWithExists(true)))
+
+    def "should only have a column for the criteria of the ESPD Request"() {
+        expect:
+        matrix.criteria == [ExclusionCriterion.PARTICIPATION_CRIMINAL_ORGANISATION, ExclusionCriterion.CORRUPTION,
+                SelectionCriterion.ENROLMENT_PROFESSIONAL_REGISTER, SelectionCriterion.GENERAL_YEARLY_TURNOVER]
+    }
+
+    def "should evaluate the answers, the turnover figures and the missing criteria of an ESPD Response"() {
+        given:
+        def criminalConvictions = CriminalConvictionsCriterion.buildWithExists(true)
+        criminalConvictions.answer = true
+        def corruption = CriminalConvictionsCriterion.buildWithExists(true)
+        corruption.answer = false
+        def turnover = EconomicFinancialStandingCriterion.buildWithExists(true)
+        turnover.unboundedGroups = [yearlyTurnover(2016, new BigDecimal("1500000.00"), "EUR"),
+                                    yearlyTurnover(2015, new BigDecimal("1250000"), "EUR")]
+        def espdResponse = new EspdDocument(criminalConvictions: criminalConvictions, corruption: corruption,
+                generalYearlyTurnover: turnover)
+
+        expect:
+        matrix.evaluate(espdResponse) == ["yes", "no", "missing", "2016: 1500000.00 EUR; 2015: 1250000 EUR"]
+    }
+
+    def "should take a turnover criterion without figures for a missing one"() {
+        given:
+        def espdResponse = new EspdDocument(generalYearlyTurnover: EconomicFinancialStandingCriterion.buildWithExists(true))
+
+        expect:
+        matrix.evaluate(espdResponse)[3] == "missing"
+    }
+
+    private static DynamicRequirementGroup yearlyTurnover(int year, BigDecimal amount, String currency) {
+        def group = new DynamicRequirementGroup()
+        group.put("year", year)
+        group.put("amount", amount)
+        group.put("currency", currency)
+        group
+    }
+}
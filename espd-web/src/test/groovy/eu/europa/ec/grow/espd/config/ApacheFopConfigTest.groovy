@@ -0,0 +1,114 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.config
+
+import eu.europa.ec.grow.espd.controller.GlobalControllerExceptionHandler
+import eu.europa.ec.grow.espd.util.EspdConfiguration
+import org.springframework.core.io.DefaultResourceLoader
+import org.springframework.core.task.TaskRejectedException
+import org.springframework.http.HttpHeaders
+import org.springframework.http.HttpStatus
+import org.springframework.mock.web.MockHttpServletResponse
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ThreadPoolExecutor
+
+class ApacheFopConfigTest extends Specification {
+
+    def espdConfiguration = new EspdConfiguration(null)
+
+    ThreadPoolTaskExecutor pool
+
+    def setup() {
+        espdConfiguration.pdfRenderingThreads = 2
+        espdConfiguration.pdfRenderingQueueCapacity = 1
+        espdConfiguration.pdfRenderingRetryAfterSeconds = 15
+        pool = new ApacheFopConfig(new DefaultResourceLoader(), espdConfiguration).pdfRenderingExecutor()
+        pool.initialize()
+    }
+
+    def cleanup() {
+        pool.shutdown()
+    }
+
+    def "should bound the rendering pool by the configured threads and queue"() {
+        expect:
+        pool.corePoolSize == 2
+        pool.maxPoolSize == 2
+        pool.threadPoolExecutor.queue.remainingCapacity() == 1
+        pool.threadPoolExecutor.rejectedExecutionHandler instanceof ThreadPoolExecutor.AbortPolicy
+        pool.threadNamePrefix == "espd-pdf-"
+    }
+
+    def "should reject the renderings which neither find a thread nor a place in the queue"() {
+        given: "both threads are busy and one rendering waits in the queue"
+        def busy = new CountDownLatch(1)
+        def running = new CountDownLatch(2)
+        2.times {
+            pool.execute {
+                running.countDown()
+                busy.await()
+            }
+        }
+        running.await()
+        pool.execute { busy.await() }
+
+        when:
+        pool.submit { busy.await() }
+
+        then:
+        def e = thrown(TaskRejectedException)
+
+        when: "the rejection reaches the controllers"
+        def response = new GlobalControllerExceptionHandler(espdConfiguration)
+                .serviceUnavailable(e, new MockHttpServletResponse())
+
+        then:
+        response.statusCode == HttpStatus.SERVICE_UNAVAILABLE
+        response.headers.getFirst(HttpHeaders.RETRY_AFTER) == "15"
+        !response.hasBody()
+
+        cleanup:
+        busy.countDown()
+    }
+
+    def "should reset the download headers of an uncommitted response"() {
+        given:
+        def servletResponse = new MockHttpServletResponse()
+        servletResponse.contentType = "application/pdf"
+        servletResponse.setHeader(HttpHeaders.CONTENT_DISPOSITION, 'attachment; filename="espd-request.pdf"')
+
+        when:
+        new GlobalControllerExceptionHandler(espdConfiguration)
+                .serviceUnavailable(new TaskRejectedException("saturated"), servletResponse)
+
+        then:
+        servletResponse.contentType == null
+        !servletResponse.containsHeader(HttpHeaders.CONTENT_DISPOSITION)
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.config
+
+import org.springframework.core.io.DefaultResourceLoader
+import org.xml.sax.SAXParseException
+import spock.lang.Specification
+
+import eu.europa.ec.grow.espd.util.EspdConfiguration
+import org.springframework.beans.factory.annotation.Value
+
+import javax.xml.transform.stream.StreamSource
+import java.nio.file.Files
+
+class JaxbConfigurationTest extends Specification {
+
+    def directory = Files.createTempDirectory("espd-schemas").toFile()
+
+    def cleanup() {
+        directory.deleteDir()
+    }
+
+    def "should compile schemas importing other schemas by a relative location"() {
+        given:
+        new File(directory, "common").mkdir()
+        new File(directory, "common/Common.xsd").text = '''<xs:schema xmlns:xs="http://www.w3.org/2001/XMLSchema"
+        targetNamespace="urn:example:common">
+    <xs:element name="ID" type="xs:string"/>
+</xs:schema>'''
+        def main = new File(directory, "Main.xsd")
+        main.text = '''<xs:schema xmlns:xs="http://www.w3.org/2001/XMLSchema" xmlns:cbc="urn:example:common"
+        targetNamespace="urn:example:main" elementFormDefault="qualified">
+    <xs:import namespace="urn:example:common" schemaLocation="common/Common.xsd"/>
+    <xs:element name="Document"><xs:complexType><xs:sequence>
+        <xs:element ref="cbc:ID"/>
+    </xs:sequence></xs:complexType></xs:element>
+</xs:schema>'''
+
+        def schema = JaxbConfiguration.compileSchema(new DefaultResourceLoader(), " ${main.toURI()}".toString())
+
+        when:
+        schema.newValidator().validate(source('<Document xmlns="urn:example:main" xmlns:cbc="urn:example:common">' +
+                '<cbc:ID>1</cbc:ID></Document>'))
+
+        then:
+        notThrown(SAXParseException)
+
+        when:
+        schema.newValidator().validate(source('<Document xmlns="urn:example:main"/>'))
+
+        then:
+        thrown(SAXParseException)
+    }
+
+    def "should not start with a schema which cannot be found"() {
+        when:
+        JaxbConfiguration.compileSchema(new DefaultResourceLoader(), "classpath:xsd/does-not-exist.xsd")
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    def "should compile the default schemas from the ESPD exchange model"() {
+        given:
+        def properties = new Properties()
+        getClass().getResourceAsStream("/application.properties").withStream { properties.load(it) }
+        def locations = properties.getProperty("espd.xml.import.schema.locations")
+
+        expect: "the default of the property is the one used without application.properties"
+        EspdConfiguration.getDeclaredField("xmlImportSchemaLocations").getAnnotation(Value).value() ==
+                "\${espd.xml.import.schema.locations:${locations}}"
+
+        when:
+        def schema = JaxbConfiguration.compileSchema(new DefaultResourceLoader(), locations.split(","))
+        schema.newValidator().validate(source(
+                '<ESPDRequest xmlns="urn:grow:names:specification:ubl:schema:xsd:ESPDRequest-1"/>'))
+
+        then: "an ESPD request without any content is not valid"
+        thrown(SAXParseException)
+    }
+
+    private static StreamSource source(String xml) {
+        new StreamSource(new StringReader(xml))
+    }
+
+}
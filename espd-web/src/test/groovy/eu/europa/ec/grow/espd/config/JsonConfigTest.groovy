@@ -0,0 +1,96 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+package eu.europa.ec.grow.espd.config
+
+import com.fasterxml.jackson.databind.DeserializationFeature
+import com.fasterxml.jackson.databind.JsonMappingException
+import com.fasterxml.jackson.databind.ObjectMapper
+import eu.europa.ec.grow.espd.domain.CriminalConvictionsCriterion
+import eu.europa.ec.grow.espd.domain.DynamicRequirementGroup
+import eu.europa.ec.grow.espd.domain.EconomicFinancialStandingCriterion
+import eu.europa.ec.grow.espd.domain.EspdDocument
+import eu.europa.ec.grow.espd.domain.PartyImpl
+import eu.europa.ec.grow.espd.domain.enums.other.Country
+import spock.lang.Specification
+
+class JsonConfigTest extends Specification {
+
+    // configured like the object mapper of Spring Boot
+    def mapper = new ObjectMapper().registerModule(new JsonConfig().espdJsonModule())
+                                   .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+
+    def "should write the values of the requirement groups as the wizard posts them"() {
+        given:
+        def group = new DynamicRequirementGroup()
+        group.put("year1", 2016)
+        group.put("amount1", new BigDecimal("1234567.50"))
+        group.put("date1", Date.parse("yyyy-MM-dd", "2016-11-25"))
+        group.put("description1", null)
+
+        when:
+        def json = mapper.readTree(mapper.writeValueAsString(group))
+
+        then:
+        json.get("year1").textValue() == "2016"
+        json.get("amount1").textValue() == "1234567.50"
+        json.get("date1").textValue() == "25-11-2016"
+        json.get("description1").isNull()
+    }
+
+    def "should read the values of the requirement groups as text"() {
+        when:
+        def group = mapper.readValue('{"year1": 2016, "amount1": 12.5, "currency1": "EUR", "answer": true}',
+                DynamicRequirementGroup)
+
+        then:
+        group == [year1: "2016", amount1: "12.5", currency1: "EUR", answer: true]
+    }
+
+    def "should refuse nested values in a requirement group"() {
+        when:
+        mapper.readValue('{"amount1": {"value": 12.5}}', DynamicRequirementGroup)
+
+        then:
+        thrown(JsonMappingException)
+    }
+
+    def "should read back an ESPD written as JSON"() {
+        given:
+        def turnover = new EconomicFinancialStandingCriterion(exists: true, answer: true)
+        def yearlyTurnover = new DynamicRequirementGroup()
+        yearlyTurnover.put("year1", "2015")
+        yearlyTurnover.put("amount1", "12.5")
+        turnover.unboundedGroups.add(yearlyTurnover)
+        def espd = new EspdDocument(procedureTitle: "Hodor", documentDate: new Date(),
+                authority: new PartyImpl(name: "Authority", country: Country.BE),
+                criminalConvictions: new CriminalConvictionsCriterion(exists: true, answer: false, reason: "hodor"),
+                generalYearlyTurnover: turnover)
+
+        when:
+        def read = mapper.readValue(mapper.writeValueAsString(espd), EspdDocument)
+
+        then:
+        read == espd
+    }
+}
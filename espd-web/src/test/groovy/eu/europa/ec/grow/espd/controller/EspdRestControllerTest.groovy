@@ -0,0 +1,329 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.controller
+
+import com.fasterxml.jackson.databind.DeserializationFeature
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.google.common.base.Optional
+import eu.europa.ec.grow.espd.batch.BatchDocumentSource
+import eu.europa.ec.grow.espd.batch.BatchFormat
+import eu.europa.ec.grow.espd.batch.BatchResponseConverter
+import eu.europa.ec.grow.espd.config.JsonConfig
+import eu.europa.ec.grow.espd.domain.EspdDocument
+import eu.europa.ec.grow.espd.tenderned.PrintableHtmlRenderer
+import eu.europa.ec.grow.espd.tenderned.exception.PdfRenderingException
+import eu.europa.ec.grow.espd.tenderned.exception.TedNoticeException
+import eu.europa.ec.grow.espd.util.EspdConfiguration
+import eu.europa.ec.grow.espd.util.EspdExporter
+import eu.europa.ec.grow.espd.xml.EspdXmlImporter
+import groovy.json.JsonSlurper
+import org.springframework.core.task.SimpleAsyncTaskExecutor
+import org.springframework.http.HttpHeaders
+import org.springframework.http.MediaType
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter
+import org.springframework.mock.web.MockMultipartFile
+import org.springframework.test.web.servlet.MockMvc
+import org.springframework.test.web.servlet.MvcResult
+import org.springframework.test.web.servlet.setup.MockMvcBuilders
+import spock.lang.Specification
+
+import javax.servlet.http.HttpServletRequest
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.fileUpload
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status
+
+class EspdRestControllerTest extends Specification {
+
+    static final String API = "/api/v1"
+
+    // configured like the object mapper of Spring Boot
+    def mapper = new ObjectMapper().registerModule(new JsonConfig().espdJsonModule())
+                                   .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+
+    def xmlImporter = Mock(EspdXmlImporter)
+
+    def espdExporter = Mock(EspdExporter)
+
+    def printableHtmlRenderer = Mock(PrintableHtmlRenderer)
+
+    def batchResponseConverter = Mock(BatchResponseConverter)
+
+    def espdConfiguration = new EspdConfiguration(null)
+
+    def pdfRenderingExecutor = new SimpleAsyncTaskExecutor("espd-pdf-")
+
+    MockMvc mvc
+
+    def setup() {
+        def controller = new EspdRestController(xmlImporter, espdExporter, printableHtmlRenderer,
+                batchResponseConverter, espdConfiguration, pdfRenderingExecutor)
+        espdConfiguration.pdfRenderingTimeoutMillis = 5000
+        mvc = MockMvcBuilders.standaloneSetup(controller)
+                             .setControllerAdvice(new GlobalControllerExceptionHandler(espdConfiguration))
+                             .setMessageConverters(new MappingJackson2HttpMessageConverter(mapper))
+                             .build()
+    }
+
+    def "should import an ESPD file as JSON"() {
+        when:
+        def response = mvc.perform(post("${API}/import").contentType(contentType).content("<espd/>"))
+                          .andExpect(status().isOk())
+                          .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                          .andReturn().response
+
+        then:
+        1 * xmlImporter.importAmbiguousEspdFile(_ as InputStream) >> Optional.of(new EspdDocument(procedureTitle: "Hodor"))
+        new JsonSlurper().parseText(response.contentAsString).procedureTitle == "Hodor"
+
+        where:
+        contentType << ["application/xml", "text/xml", "application/gzip"]
+    }
+
+    def "should answer with a 422 when the file is not an ESPD"() {
+        when:
+        mvc.perform(post("${API}/import").contentType(MediaType.APPLICATION_XML).content("<notice/>"))
+           .andExpect(status().isUnprocessableEntity())
+
+        then:
+        1 * xmlImporter.importAmbiguousEspdFile(_ as InputStream) >> result
+
+        where:
+        result << [Optional.absent(), { throw new TedNoticeException() }]
+    }
+
+    def "should only import XML files"() {
+        when:
+        mvc.perform(post("${API}/import").contentType(MediaType.APPLICATION_JSON).content("{}"))
+           .andExpect(status().isUnsupportedMediaType())
+
+        then:
+        0 * xmlImporter._
+    }
+
+    def "should merge an ESPD Request with several ESPD Responses"() {
+        when:
+        def response = mvc.perform(fileUpload("${API}/merge")
+                .file(new MockMultipartFile("request", "request.xml", "text/xml", "<request/>".bytes))
+                .file(new MockMultipartFile("response", "first.xml", "text/xml", "<first/>".bytes))
+                .file(new MockMultipartFile("response", "second.xml", "text/xml", "<second/>".bytes)))
+                          .andExpect(status().isOk())
+                          .andReturn().response
+
+        then:
+        1 * xmlImporter.mergeEspdRequestAndResponses(_ as InputStream, { it.size() == 2 }) >> { request, responses ->
+            assert request.text == "<request/>"
+            assert responses*.text == ["<first/>", "<second/>"]
+            Optional.of(new EspdDocument(procedureTitle: "Merged"))
+        }
+        new JsonSlurper().parseText(response.contentAsString).procedureTitle == "Merged"
+    }
+
+    def "should answer with a 422 when the files cannot be merged"() {
+        when:
+        mvc.perform(fileUpload("${API}/merge")
+                .file(new MockMultipartFile("request", "<response/>".bytes))
+                .file(new MockMultipartFile("response", "<response/>".bytes)))
+           .andExpect(status().isUnprocessableEntity())
+
+        then:
+        1 * xmlImporter.mergeEspdRequestAndResponses(*_) >> Optional.absent()
+    }
+
+    def "should export an ESPD given as JSON as XML"() {
+        when:
+        def response = mvc.perform(post("${API}/response/eo/xml").contentType(MediaType.APPLICATION_JSON)
+                                                                .content('{"procedureTitle": "Hodor"}'))
+                          .andExpect(status().isOk())
+                          .andReturn().response
+
+        then:
+        1 * espdExporter.exportAsXml({ it.procedureTitle == "Hodor" }, "eo", _ as OutputStream) >> {
+            espd, agent, OutputStream out -> out.write("<ESPDResponse/>".bytes)
+        }
+        response.contentType.startsWith(MediaType.APPLICATION_XML_VALUE)
+        response.contentAsString == "<ESPDResponse/>"
+        response.getHeader(HttpHeaders.CONTENT_ENCODING) == null
+    }
+
+    def "should render the PDF of an ESPD given as JSON without importing anything"() {
+        when:
+        def response = renderPdf(post("${API}/request/ca/pdf").contentType(MediaType.APPLICATION_JSON)
+                                                               .content('{"procedureTitle": "Hodor"}'))
+
+        then:
+        0 * xmlImporter._
+        1 * printableHtmlRenderer.render({ it.espd.procedureTitle == "Hodor" && it.agent == "ca" && it.flow == "request" },
+                _ as Locale, _ as HttpServletRequest, _) >> "<html/>"
+        1 * espdExporter.exportAsPdf("<html/>", "ca", _ as OutputStream) >> { html, agent, OutputStream out ->
+            out.write("%PDF".bytes)
+        }
+        response.contentType == MediaType.APPLICATION_PDF_VALUE
+        response.contentAsString == "%PDF"
+        response.getHeader(HttpHeaders.CONTENT_DISPOSITION) == null
+    }
+
+    def "should render the PDF of an ESPD file"() {
+        when:
+        def response = renderPdf(post("${API}/response/eo/pdf").contentType(contentType).content("<espd/>"))
+
+        then:
+        1 * xmlImporter.importAmbiguousEspdFile(_ as InputStream) >> Optional.of(new EspdDocument())
+        1 * printableHtmlRenderer.render({ it.agent == "eo" && it.flow == "response" }, *_) >> "<html/>"
+        1 * espdExporter.exportAsPdf("<html/>", "eo", _ as OutputStream) >> { html, agent, OutputStream out ->
+            out.write("%PDF".bytes)
+        }
+        response.contentType == MediaType.APPLICATION_PDF_VALUE
+        response.contentAsString == "%PDF"
+
+        where:
+        contentType << ["application/xml", "text/xml"]
+    }
+
+    def "should answer with a 422 when the file to render is not an ESPD"() {
+        when:
+        mvc.perform(post("${API}/response/eo/pdf").contentType(MediaType.APPLICATION_XML).content("<notice/>"))
+           .andExpect(status().isUnprocessableEntity())
+           .andExpect(request().asyncNotStarted())
+
+        then:
+        1 * xmlImporter.importAmbiguousEspdFile(_ as InputStream) >> Optional.absent()
+        0 * printableHtmlRenderer._
+        0 * espdExporter._
+    }
+
+    def "should not render PDF files of other content types"() {
+        when:
+        mvc.perform(post("${API}/response/eo/pdf").contentType(MediaType.TEXT_PLAIN).content("Hodor"))
+           .andExpect(status().isUnsupportedMediaType())
+
+        then:
+        0 * printableHtmlRenderer._
+    }
+
+    def "should never create an HTTP session, even when the printable view asks for one"() {
+        when:
+        def result = mvc.perform(post("${API}/request/ca/pdf").contentType(MediaType.APPLICATION_JSON).content("{}"))
+                        .andExpect(request().asyncStarted())
+                        .andReturn()
+        result.getAsyncResult(5000)
+
+        then:
+        1 * printableHtmlRenderer.render(_, _, _ as HttpServletRequest, _) >> { model, locale, HttpServletRequest req, res ->
+            // like the JSP pages, which ask for a session by default
+            assert req.getSession() == null
+            assert req.getSession(true) == null
+            "<html/>"
+        }
+        result.request.getSession(false) == null
+    }
+
+    def "should only send the PDF headers once the PDF is rendered"() {
+        when:
+        def result = mvc.perform(post("${API}/request/ca/pdf").contentType(MediaType.APPLICATION_JSON).content("{}"))
+                        .andExpect(request().asyncStarted())
+                        .andReturn()
+        def failure = result.getAsyncResult(5000)
+
+        then:
+        1 * printableHtmlRenderer.render(*_) >> "<html/>"
+        1 * espdExporter.exportAsPdf(*_) >> { throw new PdfRenderingException("Broken stylesheet") }
+        failure instanceof IOException
+        result.response.contentType == null
+    }
+
+    def "should convert a batch of ESPD Responses"() {
+        when:
+        def response = mvc.perform(post("${API}/batch/responses").param("format", format)
+                                                                  .contentType("application/zip")
+                                                                  .content(new byte[0]))
+                          .andExpect(status().isOk())
+                          .andReturn().response
+
+        then:
+        1 * batchResponseConverter.convert(_ as BatchDocumentSource, batchFormat, _ as OutputStream)
+        response.contentType == batchFormat.contentType
+        (response.getHeader(HttpHeaders.CONTENT_DISPOSITION) != null) == (batchFormat == BatchFormat.XML)
+
+        where:
+        format || batchFormat
+        "json" || BatchFormat.JSON
+        "xml"  || BatchFormat.XML
+    }
+
+    def "should refuse an unknown batch format"() {
+        when:
+        mvc.perform(fileUpload("${API}/batch/responses").file(new MockMultipartFile("response", "<response/>".bytes))
+                                                        .param("format", "pdf"))
+           .andExpect(status().isBadRequest())
+
+        then:
+        0 * batchResponseConverter._
+    }
+
+    def "should evaluate ESPD Responses against an ESPD Request"() {
+        given:
+        def espdRequest = new EspdDocument(procedureTitle: "Hodor")
+
+        when:
+        def response = mvc.perform(fileUpload("${API}/evaluation")
+                .file(new MockMultipartFile("request", "<request/>".bytes))
+                .file(new MockMultipartFile("response", "<response/>".bytes)))
+                          .andExpect(status().isOk())
+                          .andReturn().response
+
+        then:
+        1 * xmlImporter.importEspdRequest(_ as InputStream) >> Optional.of(espdRequest)
+        1 * batchResponseConverter.evaluate(espdRequest, _ as BatchDocumentSource, _ as OutputStream)
+        response.contentType.startsWith("text/csv")
+        response.getHeader(HttpHeaders.CONTENT_DISPOSITION) == 'attachment; filename="espd-evaluation.csv"'
+    }
+
+    def "should answer with a 422 when the evaluated request is not an ESPD Request"() {
+        when:
+        mvc.perform(fileUpload("${API}/evaluation")
+                .file(new MockMultipartFile("request", "<response/>".bytes))
+                .file(new MockMultipartFile("response", "<response/>".bytes)))
+           .andExpect(status().isUnprocessableEntity())
+
+        then:
+        1 * xmlImporter.importEspdRequest(_ as InputStream) >> Optional.absent()
+        0 * batchResponseConverter._
+    }
+
+    private def renderPdf(requestBuilder) {
+        MvcResult result = mvc.perform(requestBuilder)
+                              .andExpect(request().asyncStarted())
+                              .andReturn()
+        result.getAsyncResult(5000)
+        mvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+        return result.response
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.controller
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+/**
+ * Checks which Accept-Encoding headers allow a gzip compressed download.
+ */
+class GzipContentEncodingTest extends Specification {
+
+    @Unroll
+    def "Accept-Encoding '#acceptEncoding' should accept gzip: #accepted"() {
+        expect:
+        GzipContentEncoding.acceptsGzip(acceptEncoding) == accepted
+
+        where:
+        acceptEncoding                 | accepted
+        null                           | false
+        ""                             | false
+        "identity"                     | false
+        "deflate, br"                  | false
+        "gzip"                         | true
+        "GZIP"                         | true
+        "gzip, deflate, br"            | true
+        "deflate;q=0.5, x-gzip;q=0.8"  | true
+        "gzip;q=0"                     | false
+        "gzip; q=0.000, deflate"       | false
+        "br, gzip;q=1.0"               | true
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.controller
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import eu.europa.ec.grow.espd.config.WebConfiguration
+import eu.europa.ec.grow.espd.i18n.MessageBundles
+import eu.europa.ec.grow.espd.util.EspdConfiguration
+import org.springframework.context.support.ResourceBundleMessageSource
+import org.springframework.core.io.DefaultResourceLoader
+import org.springframework.http.HttpHeaders
+import org.springframework.test.web.servlet.MockMvc
+import org.springframework.test.web.servlet.setup.MockMvcBuilders
+import spock.lang.Shared
+import spock.lang.Specification
+
+import javax.servlet.http.Cookie
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status
+
+class MessageSourceControllerTest extends Specification {
+
+    @Shared
+    MessageBundles bundles
+
+    MockMvc mvc
+
+    void setupSpec() {
+        def messageSource = new ResourceBundleMessageSource()
+        messageSource.basename = "i18n/messages"
+        messageSource.defaultEncoding = "UTF-8"
+        def espdConfiguration = new EspdConfiguration(null)
+        espdConfiguration.messagesBasename = "i18n/messages"
+        bundles = new MessageBundles(messageSource, new ObjectMapper(), new DefaultResourceLoader(), espdConfiguration)
+    }
+
+    def setup() {
+        // the locale handling of the application
+        def webConfiguration = new WebConfiguration(null, null, null)
+        mvc = MockMvcBuilders.standaloneSetup(new MessageSourceController(null, new ObjectMapper(), bundles))
+                             .addInterceptors(webConfiguration.localeChangeInterceptor())
+                             .setLocaleResolver(webConfiguration.localeResolver())
+                             .build()
+    }
+
+    def "should keep the language chosen on a page in the locale cookie"() {
+        expect:
+        mvc.perform(post(path).param("lang", "fr"))
+           .andExpect(status().isNoContent())
+           .andExpect(cookie().value("ESPD_LOCALE", "fr"))
+
+        where:
+        path << ["/locale", "/request/ca/locale", "/response/eo/locale"]
+    }
+
+    def "should keep the locale cookie when the language is unknown"() {
+        expect:
+        mvc.perform(post("/locale").param("lang", "fr!").cookie(new Cookie("ESPD_LOCALE", "de")))
+           .andExpect(status().isNoContent())
+           .andExpect(cookie().doesNotExist("ESPD_LOCALE"))
+    }
+
+    def "should let the browser cache the labels of the current version"() {
+        expect:
+        mvc.perform(get("/response/eo/translations/fr").param("v", bundles.version))
+           .andExpect(status().isOk())
+           .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public"))
+           .andExpect(header().string(HttpHeaders.ETAG, bundles.getBundle("fr").get().etag))
+    }
+
+}
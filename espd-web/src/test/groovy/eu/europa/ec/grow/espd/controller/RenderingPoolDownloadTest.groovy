@@ -0,0 +1,232 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.controller
+
+import eu.europa.ec.grow.espd.config.ApacheFopConfig
+import eu.europa.ec.grow.espd.tenderned.PrintableHtmlRenderer
+import eu.europa.ec.grow.espd.tenderned.exception.PdfRenderingException
+import eu.europa.ec.grow.espd.util.EspdConfiguration
+import eu.europa.ec.grow.espd.util.EspdExporter
+import org.springframework.context.annotation.AnnotatedBeanDefinitionReader
+import org.springframework.context.annotation.Configuration
+import org.springframework.core.io.DefaultResourceLoader
+import org.springframework.http.HttpHeaders
+import org.springframework.mock.web.MockServletContext
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor
+import org.springframework.test.web.servlet.MockMvc
+import org.springframework.test.web.servlet.setup.MockMvcBuilders
+import org.springframework.web.bind.annotation.PostMapping
+import org.springframework.web.bind.annotation.RestController
+import org.springframework.web.context.support.GenericWebApplicationContext
+import org.springframework.web.servlet.config.annotation.EnableWebMvc
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status
+
+/**
+ * The PDF and ZIP downloads of the wizard on the bounded rendering pool of {@link ApacheFopConfig}.
+ */
+class RenderingPoolDownloadTest extends Specification {
+
+    def espdConfiguration = newEspdConfiguration()
+
+    def espdExporter = Mock(EspdExporter)
+
+    def printableHtmlRenderer = Stub(PrintableHtmlRenderer) {
+        render(*_) >> "<html/>"
+    }
+
+    ThreadPoolTaskExecutor pool
+
+    GenericWebApplicationContext context
+
+    MockMvc mvc
+
+    def setup() {
+        pool = new ApacheFopConfig(new DefaultResourceLoader(), espdConfiguration).pdfRenderingExecutor()
+        pool.initialize()
+
+        context = new GenericWebApplicationContext(new MockServletContext())
+        context.beanFactory.registerSingleton("espdConfiguration", espdConfiguration)
+        context.beanFactory.registerSingleton("pdfRenderingExecutor", pool)
+        context.beanFactory.registerSingleton("espdController",
+                new EspdController(null, espdExporter, null, printableHtmlRenderer, espdConfiguration, pool))
+        context.beanFactory.registerSingleton("threadNameController", new ThreadNameController())
+        context.beanFactory.registerSingleton("exceptionHandler",
+                new GlobalControllerExceptionHandler(espdConfiguration))
+        new AnnotatedBeanDefinitionReader(context).register(WebMvcConfiguration)
+        context.refresh()
+
+        mvc = MockMvcBuilders.webAppContextSetup(context).build()
+    }
+
+    def cleanup() {
+        context.close()
+        pool.shutdown()
+    }
+
+    def "should answer with a 503 and no download headers when the rendering pool is saturated"() {
+        given: "the only rendering thread is busy and nothing can be queued"
+        def busy = new CountDownLatch(1)
+        def running = new CountDownLatch(1)
+        pool.execute {
+            running.countDown()
+            busy.await()
+        }
+        running.await()
+
+        when:
+        def result = mvc.perform(post("/response/eo/overview").param("download", download))
+
+        then:
+        result.andExpect(status().isServiceUnavailable())
+              .andExpect(header().string(HttpHeaders.RETRY_AFTER, "42"))
+              .andExpect(header().doesNotExist(HttpHeaders.CONTENT_DISPOSITION))
+        result.andReturn().response.contentType != "application/${download}".toString()
+        0 * espdExporter._
+
+        cleanup:
+        busy.countDown()
+
+        where:
+        download << ["pdf", "zip"]
+    }
+
+    def "should only give the rendering pool and its deadline to the downloads"() {
+        given: "the only rendering thread is busy and nothing can be queued"
+        def busy = new CountDownLatch(1)
+        def running = new CountDownLatch(1)
+        pool.execute {
+            running.countDown()
+            busy.await()
+        }
+        running.await()
+
+        when:
+        def started = mvc.perform(post("/thread")).andExpect(request().asyncStarted()).andReturn()
+        def threadName = started.getAsyncResult(5000)
+
+        then:
+        !threadName.startsWith("espd-pdf-")
+        started.request.asyncContext.timeout != espdConfiguration.pdfRenderingTimeoutMillis
+
+        cleanup:
+        busy.countDown()
+    }
+
+    def "should render the download within the rendering deadline"() {
+        given:
+        espdExporter.exportAsZip(*_) >> { espd, html, agent, locale, OutputStream out -> out.write("PK".bytes) }
+
+        when:
+        def started = mvc.perform(post("/response/eo/overview").param("download", "zip"))
+                         .andExpect(request().asyncStarted())
+                         .andReturn()
+        started.getAsyncResult(5000)
+
+        then:
+        started.request.asyncContext.timeout == espdConfiguration.pdfRenderingTimeoutMillis
+        mvc.perform(asyncDispatch(started))
+           .andExpect(status().isOk())
+           .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, 'attachment; filename="espd-response.zip"'))
+        started.response.contentAsString == "PK"
+    }
+
+    def "should set the download headers once the pool renders the PDF"() {
+        given:
+        espdExporter.exportAsPdf("<html/>", "eo", _ as OutputStream) >> { html, agent, OutputStream out ->
+            out.write("%PDF".bytes)
+        }
+
+        when:
+        def started = mvc.perform(post("/response/eo/overview").param("download", "pdf"))
+                         .andExpect(request().asyncStarted())
+                         .andReturn()
+        started.getAsyncResult(5000)
+
+        then:
+        mvc.perform(asyncDispatch(started))
+           .andExpect(status().isOk())
+           .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, 'attachment; filename="espd-response.pdf"'))
+        started.response.contentType == "application/pdf"
+        started.response.contentAsString == "%PDF"
+    }
+
+    def "should drop the download headers when the rendering fails before anything is sent"() {
+        given:
+        espdExporter.exportAsPdf(*_) >> { throw new PdfRenderingException("Broken stylesheet") }
+
+        when:
+        def started = mvc.perform(post("/request/ca/overview").param("download", "pdf"))
+                         .andExpect(request().asyncStarted())
+                         .andReturn()
+        def failure = started.getAsyncResult(5000)
+
+        then:
+        failure instanceof IOException
+        failure.cause instanceof PdfRenderingException
+        started.response.getHeader(HttpHeaders.CONTENT_DISPOSITION) == null
+        started.response.contentType == null
+    }
+
+    private static EspdConfiguration newEspdConfiguration() {
+        def espdConfiguration = new EspdConfiguration(null)
+        espdConfiguration.pdfRenderingThreads = 1
+        espdConfiguration.pdfRenderingQueueCapacity = 0
+        espdConfiguration.pdfRenderingTimeoutMillis = 5000
+        espdConfiguration.pdfRenderingRetryAfterSeconds = 42
+        espdConfiguration
+    }
+
+    /**
+     * Spring MVC with its default asynchronous processing, like {@code WebConfiguration}, without the views and the
+     * interceptors of the wizard.
+     */
+    @Configuration
+    @EnableWebMvc
+    static class WebMvcConfiguration {
+
+    }
+
+    /**
+     * Another asynchronous request, which must not be run by the rendering pool.
+     */
+    @RestController
+    static class ThreadNameController {
+
+        @PostMapping("/thread")
+        Callable<String> threadName() {
+            return { Thread.currentThread().name } as Callable<String>
+        }
+    }
+
+}
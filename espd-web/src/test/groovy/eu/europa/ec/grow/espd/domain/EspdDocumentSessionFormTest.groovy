@@ -0,0 +1,77 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+package eu.europa.ec.grow.espd.domain
+
+import eu.europa.ec.grow.espd.domain.enums.other.Country
+import org.apache.commons.beanutils.PropertyUtils
+import spock.lang.Specification
+
+class EspdDocumentSessionFormTest extends Specification {
+
+    def "should restore an ESPD document from its session form"() {
+        given:
+        def turnover = new EconomicFinancialStandingCriterion(exists: true, answer: true, numberOfYears: 2)
+        def yearlyTurnover = new DynamicRequirementGroup()
+        yearlyTurnover.put("year1", 2015)
+        yearlyTurnover.put("amount1", 12.5G)
+        turnover.unboundedGroups.add(yearlyTurnover)
+        def espd = new EspdDocument(extendCe: true, ojsNumber: "2016/S 123-456789", procedureTitle: "Hodor",
+                procedureShortDesc: "hold the door", lotConcerned: "1", fileRefByCA: "REF-1",
+                tedUrl: "http://ted.europa.eu", consortiumName: "consortium", tedReceptionId: "16-000001-001",
+                documentDate: new Date(), location: "Brussels",
+                authority: new PartyImpl(name: "Authority", country: Country.BE),
+                economicOperator: new EconomicOperatorImpl(name: "Operator", isSmallSizedEnterprise: true,
+                        representatives: [new EconomicOperatorRepresentative(firstName: "Hodor", country: Country.BE)]),
+                requestMetadata: new EspdRequestMetadata(id: "id", issueDate: new Date(), url: "url"),
+                criminalConvictions: new CriminalConvictionsCriterion(exists: true, answer: false, reason: "hodor"),
+                generalYearlyTurnover: turnover)
+
+        when:
+        def restored = roundTrip(espd)
+
+        then:
+        restored == espd
+        restored.generalYearlyTurnover.unboundedGroups[0].amount1 == 12.5G
+        restored.corruption == null
+    }
+
+    def "should keep every property of the ESPD document which is not a criterion"() {
+        given:
+        def otherProperties = PropertyUtils.getPropertyDescriptors(EspdDocument).findAll {
+            it.writeMethod != null && !EspdCriterion.isAssignableFrom(it.propertyType)
+        }*.name
+        def formFields = EspdDocumentSessionForm.declaredFields.findAll { !it.synthetic }*.name
+
+        expect:
+        formFields.containsAll(otherProperties)
+    }
+
+    private static EspdDocument roundTrip(EspdDocument espd) {
+        def bytes = new ByteArrayOutputStream()
+        def out = new ObjectOutputStream(bytes)
+        out.writeObject(espd)
+        out.close()
+        return new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject() as EspdDocument
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+package eu.europa.ec.grow.espd.domain.infrastructure
+
+import eu.europa.ec.grow.espd.domain.enums.criteria.ExclusionCriterion
+import eu.europa.ec.grow.espd.domain.enums.criteria.ExpectedResponseType
+import spock.lang.Specification
+
+class CriterionDefinitionsTest extends Specification {
+
+    def "criterion definitions should be built once and shared"() {
+        given:
+        def criterion = CriterionDefinitions.findCriterionById(ExclusionCriterion.BANKRUPTCY.uuid).get()
+
+        expect:
+        criterion.is(CriterionDefinitions.findCriterionById(ExclusionCriterion.BANKRUPTCY.uuid).get())
+        criterion.groups.is(criterion.groups)
+        criterion.groups[0].requirements.is(criterion.groups[0].requirements)
+        criterion.legislation.is(criterion.legislation)
+    }
+
+    def "indexed requirement groups and requirements should be the ones of the criterion"() {
+        given:
+        def criterion = CriterionDefinitions.findCriterionById(ExclusionCriterion.BANKRUPTCY.uuid).get()
+        def group = criterion.groups[0]
+        def requirement = group.requirements[0]
+
+        expect:
+        CriterionDefinitions.findRequirementGroupById(group.id).get().is(group)
+        CriterionDefinitions.findRequirementById(requirement.id).get().is(requirement)
+        requirement.responseType instanceof ExpectedResponseType
+    }
+
+    def "criterion definitions should not be modifiable"() {
+        given:
+        def criterion = CriterionDefinitions.findCriterionById(ExclusionCriterion.BANKRUPTCY.uuid).get()
+
+        when:
+        criterion.groups[0].requirements.clear()
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+
+}
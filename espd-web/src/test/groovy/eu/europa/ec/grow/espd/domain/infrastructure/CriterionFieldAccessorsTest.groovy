@@ -0,0 +1,92 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+package eu.europa.ec.grow.espd.domain.infrastructure
+
+import eu.europa.ec.grow.espd.domain.BankruptcyCriterion
+import eu.europa.ec.grow.espd.domain.DynamicRequirementGroup
+import eu.europa.ec.grow.espd.domain.EconomicFinancialStandingCriterion
+import eu.europa.ec.grow.espd.domain.EspdDocument
+import eu.europa.ec.grow.espd.domain.enums.criteria.ExclusionCriterion
+import eu.europa.ec.grow.espd.domain.enums.criteria.SelectionCriterion
+import spock.lang.Specification
+
+class CriterionFieldAccessorsTest extends Specification {
+
+    def "all the criteria definitions should be mapped to fields of the ESPD document"() {
+        expect:
+        CriterionFieldAccessors.initialize() == CriterionDefinitions.allCriteria.size()
+    }
+
+    def "should read and write a criterion on the ESPD document"() {
+        given:
+        def espd = new EspdDocument()
+        def bankruptcy = BankruptcyCriterion.buildWithExists(true)
+
+        when:
+        CriterionFieldAccessors.writeCriterion(espd, ExclusionCriterion.BANKRUPTCY, bankruptcy)
+
+        then:
+        espd.bankruptcy.is(bankruptcy)
+        CriterionFieldAccessors.readCriterion(espd, ExclusionCriterion.BANKRUPTCY).is(bankruptcy)
+    }
+
+    def "should create a criterion of the type of the ESPD document field"() {
+        expect:
+        CriterionFieldAccessors.newCriterion(ExclusionCriterion.BANKRUPTCY) instanceof BankruptcyCriterion
+        CriterionFieldAccessors.newCriterion(SelectionCriterion.GENERAL_YEARLY_TURNOVER) instanceof EconomicFinancialStandingCriterion
+    }
+
+    def "should read and write requirement values on a criterion"() {
+        given:
+        def criterion = new BankruptcyCriterion()
+
+        when:
+        CriterionFieldAccessors.writeRequirementValue(criterion, "answer", Boolean.TRUE)
+        CriterionFieldAccessors.writeRequirementValue(criterion, "description", "Hodor")
+        CriterionFieldAccessors.writeRequirementValue(criterion, "infoElectronicallyAnswer", Boolean.TRUE)
+
+        then:
+        criterion.answer == true
+        CriterionFieldAccessors.readRequirementValue(criterion, "description") == "Hodor"
+        CriterionFieldAccessors.readRequirementValue(criterion, "infoElectronicallyAnswer") == true
+    }
+
+    def "should read requirement values of unbounded groups from the dynamic group"() {
+        given:
+        def group = new DynamicRequirementGroup()
+        group.put("year", 2016)
+
+        expect:
+        CriterionFieldAccessors.readRequirementValue(group, "year") == 2016
+    }
+
+    def "should reject a field which is not mapped to a requirement"() {
+        when:
+        CriterionFieldAccessors.readRequirementValue(new BankruptcyCriterion(), "hodor")
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.i18n
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import eu.europa.ec.grow.espd.util.EspdConfiguration
+import org.springframework.context.support.ResourceBundleMessageSource
+import org.springframework.core.io.DefaultResourceLoader
+import spock.lang.Shared
+import spock.lang.Specification
+
+class MessageBundlesTest extends Specification {
+
+    @Shared
+    ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource()
+
+    @Shared
+    MessageBundles bundles
+
+    void setupSpec() {
+        messageSource.basename = "i18n/messages"
+        messageSource.defaultEncoding = "UTF-8"
+        def espdConfiguration = new EspdConfiguration(null)
+        espdConfiguration.messagesBasename = "i18n/messages"
+        bundles = new MessageBundles(messageSource, new ObjectMapper(), new DefaultResourceLoader(), espdConfiguration)
+    }
+
+    def "should hold the labels of a language as resolved by the message source"() {
+        when:
+        Map<String, String> labels = new ObjectMapper().readValue(bundles.getBundle("fr").get().json, Map)
+
+        then:
+        labels["validator_required"] == "Ce champ est obligatoire."
+        labels.every { key, label -> label == messageSource.getMessage(key, null, Locale.FRENCH) }
+    }
+
+    def "should give the bundle of the language of a language tag"() {
+        expect:
+        bundles.getBundle("fr-BE").get().is(bundles.getBundle("fr").get())
+        bundles.getBundle("FR").get().is(bundles.getBundle("fr").get())
+        !bundles.getBundle("xx").isPresent()
+    }
+
+    def "should version the bundles by their content"() {
+        expect:
+        bundles.version.length() == 16
+        bundles.getBundle("fr").get().etag ==~ /"[0-9a-f]{32}"/
+        bundles.getBundle("fr").get().etag != bundles.getBundle("de").get().etag
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.i18n
+
+import spock.lang.Specification
+
+class PageFragmentCacheTest extends Specification {
+
+    def cache = new PageFragmentCache(100)
+
+    def "should give back the fragment rendered for the same key"() {
+        given:
+        def key = PageFragmentCache.key(Locale.FRENCH, "eo", "response", "check/criminalConvictions/crit_title")
+
+        when:
+        def first = cache.get(key)
+        cache.put(key, "<b>Condamnations</b>")
+
+        then:
+        first == null
+        cache.get(key) == "<b>Condamnations</b>"
+        cache.hits == 1
+        cache.misses == 1
+        cache.size == 1
+    }
+
+    def "should keep the fragments apart by language, agent, flow and name"() {
+        given:
+        def keys = [PageFragmentCache.key(Locale.ENGLISH, "ca", "request", "form/field"),
+                    PageFragmentCache.key(Locale.FRENCH, "ca", "request", "form/field"),
+                    PageFragmentCache.key(Locale.ENGLISH, "eo", "request", "form/field"),
+                    PageFragmentCache.key(Locale.ENGLISH, "ca", "response", "form/field"),
+                    PageFragmentCache.key(Locale.ENGLISH, "ca", "request", "check/field"),
+                    PageFragmentCache.key(Locale.ENGLISH, null, null, "form/field")]
+
+        when:
+        keys.eachWithIndex { key, i -> cache.put(key, "fragment ${i}".toString()) }
+
+        then:
+        keys.toSet().size() == keys.size()
+        keys.collect { cache.get(it) } == (0..<keys.size()).collect { "fragment ${it}".toString() }
+    }
+
+    def "should not cache anything when it is disabled"() {
+        given:
+        def disabled = new PageFragmentCache(0)
+        def key = PageFragmentCache.key(Locale.ENGLISH, "ca", "request", "form/field")
+
+        when:
+        disabled.put(key, "<b>Title</b>")
+
+        then:
+        disabled.get(key) == null
+        disabled.size == 0
+    }
+
+    def "should render the fragments again once invalidated"() {
+        given:
+        def key = PageFragmentCache.key(Locale.ENGLISH, "ca", "request", "form/field")
+        cache.put(key, "<b>Title</b>")
+
+        when:
+        cache.invalidateAll()
+
+        then:
+        cache.get(key) == null
+    }
+
+}
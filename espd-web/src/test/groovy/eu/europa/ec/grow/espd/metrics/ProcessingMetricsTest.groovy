@@ -0,0 +1,245 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+package eu.europa.ec.grow.espd.metrics
+
+import org.springframework.web.servlet.HandlerMapping
+import spock.lang.Specification
+
+import javax.servlet.http.HttpServletRequest
+import javax.servlet.http.HttpSession
+import java.util.concurrent.TimeUnit
+
+class ProcessingMetricsTest extends Specification {
+
+    def metrics = new ProcessingMetrics()
+
+    void cleanup() {
+        ProcessingTags.unbind()
+    }
+
+    def "should export a cumulative duration histogram per stage and tags"() {
+        given:
+        ProcessingTags.bind(ProcessingTags.of("eo", "response"))
+
+        when:
+        metrics.record(ProcessingStage.MARSHAL, TimeUnit.MILLISECONDS.toNanos(3), 100, 2048)
+        metrics.record(ProcessingStage.MARSHAL, TimeUnit.MILLISECONDS.toNanos(30), 200, 1024)
+        metrics.record(ProcessingStage.MARSHAL, TimeUnit.SECONDS.toNanos(20), 300, 0)
+        def lines = scrape()
+
+        then:
+        def labels = 'stage="marshal",agent="eo",flow="response"'
+        lines.contains('# TYPE espd_stage_duration_seconds histogram')
+        lines.contains('espd_stage_duration_seconds_bucket{' + labels + ',le="0.005"} 1')
+        lines.contains('espd_stage_duration_seconds_bucket{' + labels + ',le="0.025"} 1')
+        lines.contains('espd_stage_duration_seconds_bucket{' + labels + ',le="0.05"} 2')
+        lines.contains('espd_stage_duration_seconds_bucket{' + labels + ',le="10.0"} 2')
+        lines.contains('espd_stage_duration_seconds_bucket{' + labels + ',le="+Inf"} 3')
+        lines.contains('espd_stage_duration_seconds_count{' + labels + '} 3')
+        lines.contains('espd_stage_duration_seconds_sum{' + labels + '} 20.033')
+        lines.contains('espd_stage_duration_seconds_max{' + labels + '} 20.0')
+        lines.contains('espd_stage_allocated_bytes_total{' + labels + '} 600')
+        lines.contains('espd_stage_bytes_total{' + labels + '} 3072')
+    }
+
+    def "should keep the statistics of different tags apart"() {
+        when:
+        ProcessingTags.bind(ProcessingTags.of("ca", "request"))
+        metrics.record(ProcessingStage.UNMARSHAL, 1000, 0, 10)
+        ProcessingTags.bind(ProcessingTags.of("eo", "response"))
+        metrics.record(ProcessingStage.UNMARSHAL, 1000, 0, 20)
+        ProcessingTags.unbind()
+        metrics.record(ProcessingStage.UNMARSHAL, 1000, 0, 40)
+        def lines = scrape()
+
+        then:
+        lines.contains('espd_stage_bytes_total{stage="unmarshal",agent="ca",flow="request"} 10')
+        lines.contains('espd_stage_bytes_total{stage="unmarshal",agent="eo",flow="response"} 20')
+        lines.contains('espd_stage_bytes_total{stage="unmarshal",agent="none",flow="none"} 40')
+    }
+
+    def "should measure a sample with the tags bound when it was started"() {
+        given:
+        ProcessingTags.bind(ProcessingTags.of("ca", "request"))
+        def sample = metrics.start(ProcessingStage.ZIP)
+        ProcessingTags.unbind()
+
+        when:
+        sample.addBytes(5)
+        sample.addBytes(7)
+        sample.stop()
+
+        then:
+        scrape().contains('espd_stage_bytes_total{stage="zip",agent="ca",flow="request"} 12')
+    }
+
+    def "should not export stages which were never run"() {
+        expect:
+        !scrape().any { it.startsWith("espd_") }
+    }
+
+    def "should replace unknown tag values"() {
+        expect:
+        ProcessingTags.of(agent, flow) == ProcessingTags.of(expectedAgent, expectedFlow)
+
+        where:
+        agent     | flow       || expectedAgent | expectedFlow
+        "CA"      | "Request"  || "ca"          | "request"
+        "eo"      | "response" || "eo"          | "response"
+        "hodor"   | "overview" || "none"        | "none"
+        null      | null       || "none"        | "none"
+    }
+
+    def "should read the tags from the path variables"() {
+        given:
+        def request = Mock(HttpServletRequest)
+        request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE) >> [flow: "response", agent: "eo",
+                                                                                 step: "overview"]
+
+        expect:
+        ProcessingTagsInterceptor.tagsOf(request) == ProcessingTags.of("eo", "response")
+    }
+
+    def "should read the tags from the action of the filter page"() {
+        given:
+        def request = Mock(HttpServletRequest)
+        request.getParameter("action") >> action
+
+        expect:
+        ProcessingTagsInterceptor.tagsOf(request) == ProcessingTags.of(agent, flow)
+
+        where:
+        action                     || agent  | flow
+        "ca_create_espd_request"   || "ca"   | "request"
+        "ca_review_espd_response"  || "ca"   | "response"
+        "eo_import_espd"           || "eo"   | "response"
+        "eo_merge_espds"           || "eo"   | "response"
+        null                       || "none" | "none"
+        "hodor"                    || "none" | "none"
+    }
+
+    def "should carry the tags over to the thread running the task"() {
+        given:
+        ProcessingTags.bind(ProcessingTags.of("eo", "response"))
+        def seen = null
+        def task = new ProcessingTagsTaskDecorator().decorate({ seen = ProcessingTags.current() } as Runnable)
+        ProcessingTags.unbind()
+
+        when:
+        def thread = new Thread(task)
+        thread.start()
+        thread.join()
+
+        then:
+        seen == ProcessingTags.of("eo", "response")
+        ProcessingTags.current() == ProcessingTags.UNTAGGED
+    }
+
+    def "should export a histogram of the session document sizes"() {
+        when:
+        metrics.recordSessionDocumentSize(800)
+        metrics.recordSessionDocumentSize(3000)
+        metrics.recordSessionDocumentSize(5 * 1024 * 1024)
+        def lines = scrape()
+
+        then:
+        lines.contains('# TYPE espd_session_document_bytes histogram')
+        lines.contains('espd_session_document_bytes_bucket{le="1024"} 1')
+        lines.contains('espd_session_document_bytes_bucket{le="4096"} 2')
+        lines.contains('espd_session_document_bytes_bucket{le="4194304"} 2')
+        lines.contains('espd_session_document_bytes_bucket{le="+Inf"} 3')
+        lines.contains('espd_session_document_bytes_count 3')
+        lines.contains('espd_session_document_bytes_max 5242880')
+    }
+
+    def "should measure the session document after a POST only"() {
+        given:
+        def session = Mock(HttpSession)
+        session.getAttribute("espd") >> [answer: "hodor"]
+        def request = Mock(HttpServletRequest)
+        request.getMethod() >> method
+        request.getSession(false) >> session
+
+        when:
+        new SessionSizeInterceptor(metrics).postHandle(request, null, null, null)
+
+        then:
+        scrape().any { it.startsWith("espd_session_document_bytes_count 1") } == measured
+
+        where:
+        method || measured
+        "POST" || true
+        "GET"  || false
+    }
+
+    def "should only serialize the session document of a sample of the POST requests"() {
+        given:
+        def session = Mock(HttpSession)
+        def request = Stub(HttpServletRequest)
+        request.getMethod() >> "POST"
+        request.getSession(false) >> session
+        def interceptor = new SessionSizeInterceptor(metrics, 3)
+
+        when:
+        7.times { interceptor.postHandle(request, null, null, null) }
+
+        then:
+        3 * session.getAttribute("espd") >> [answer: "hodor"]
+        scrape().contains("espd_session_document_bytes_count 3")
+    }
+
+    def "should never serialize the session document when the sampling is disabled"() {
+        given:
+        def request = Mock(HttpServletRequest)
+        request.getMethod() >> "POST"
+
+        when:
+        new SessionSizeInterceptor(metrics, 0).postHandle(request, null, null, null)
+
+        then:
+        0 * request.getSession(_)
+        !scrape().any { it.startsWith("espd_session_document_bytes_count 1") }
+    }
+
+    def "should record the size given by the session store without serializing the document again"() {
+        given:
+        def request = Mock(HttpServletRequest)
+        request.getMethod() >> "POST"
+        request.getAttribute(SessionSizeInterceptor.SERIALIZED_SIZE_ATTRIBUTE) >> 2000L
+
+        when:
+        new SessionSizeInterceptor(metrics, 0).postHandle(request, null, null, null)
+
+        then:
+        0 * request.getSession(_)
+        scrape().contains('espd_session_document_bytes_bucket{le="4096"} 1')
+        scrape().contains("espd_session_document_bytes_count 1")
+    }
+
+    private List<String> scrape() {
+        def writer = new StringWriter()
+        metrics.writeTo(writer)
+        return writer.toString().readLines()
+    }
+}
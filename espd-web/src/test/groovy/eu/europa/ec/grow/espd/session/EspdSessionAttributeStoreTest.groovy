@@ -0,0 +1,157 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+package eu.europa.ec.grow.espd.session
+
+import eu.europa.ec.grow.espd.domain.CriminalConvictionsCriterion
+import eu.europa.ec.grow.espd.domain.EspdDocument
+import eu.europa.ec.grow.espd.metrics.SessionSizeInterceptor
+import org.springframework.web.context.request.ServletWebRequest
+import spock.lang.Specification
+
+import javax.servlet.http.Cookie
+import javax.servlet.http.HttpServletRequest
+import javax.servlet.http.HttpServletResponse
+import javax.servlet.http.HttpSession
+
+class EspdSessionAttributeStoreTest extends Specification {
+
+    def stored = [:]
+    def writes = 0
+    def documentStore = [read  : { String key -> stored[key] },
+                         write : { String key, byte[] content -> writes++; stored[key] = content },
+                         delete: { String key -> stored.remove(key) }] as EspdDocumentStore
+    def attributeStore = new EspdSessionAttributeStore(documentStore)
+
+    def "should write the ESPD only when it changed"() {
+        given:
+        def session = [:]
+        def cookies = []
+        def espd = new EspdDocument(procedureTitle: "Hodor")
+
+        when:
+        attributeStore.storeAttribute(newRequest(session, cookies, cookies), "espd", espd)
+        attributeStore.storeAttribute(newRequest(session, cookies, []), "espd", espd)
+
+        then:
+        writes == 1
+        cookies.size() == 1
+        cookies[0].name == EspdSessionAttributeStore.KEY_COOKIE
+        cookies[0].path == "/espd"
+        cookies[0].httpOnly
+
+        when:
+        espd.criminalConvictions = new CriminalConvictionsCriterion(exists: true, answer: true)
+        attributeStore.storeAttribute(newRequest(session, cookies, []), "espd", espd)
+
+        then:
+        writes == 2
+        stored.keySet() == [cookies[0].value] as Set
+    }
+
+    def "should restore the ESPD on a node which does not know the session"() {
+        given:
+        def cookies = []
+        def espd = new EspdDocument(procedureTitle: "Hodor",
+                criminalConvictions: new CriminalConvictionsCriterion(exists: true, reason: "hold the door"))
+        attributeStore.storeAttribute(newRequest([:], cookies, cookies), "espd", espd)
+        def otherSession = [:]
+
+        when:
+        def restored = attributeStore.retrieveAttribute(newRequest(otherSession, cookies, []), "espd")
+
+        then:
+        restored == espd
+        otherSession.espd.is(restored)
+    }
+
+    def "should not restore anything without a valid key"() {
+        given:
+        stored["../../etc/passwd"] = new byte[0]
+
+        expect:
+        attributeStore.retrieveAttribute(newRequest([:], cookies, []), "espd") == null
+
+        where:
+        cookies << [[], [new Cookie(EspdSessionAttributeStore.KEY_COOKIE, "../../etc/passwd")]]
+    }
+
+    def "should delete the stored ESPD when the session attribute is cleaned up"() {
+        given:
+        def session = [:]
+        def cookies = []
+        attributeStore.storeAttribute(newRequest(session, cookies, cookies), "espd", new EspdDocument())
+
+        when:
+        attributeStore.cleanupAttribute(newRequest(session, cookies, []), "espd")
+
+        then:
+        stored.isEmpty()
+        session.espd == null
+    }
+
+    def "should keep the other session attributes in the HTTP session only"() {
+        given:
+        def session = [:]
+
+        when:
+        attributeStore.storeAttribute(newRequest(session, [], []), "hodor", new EspdDocument())
+
+        then:
+        session.hodor != null
+        writes == 0
+    }
+
+    def "should give the serialized size of the ESPD to the session metrics"() {
+        given:
+        def requestAttributes = [:]
+        def request = newRequest([:], [], [])
+        request.request.setAttribute(_ as String, _) >> { String name, value -> requestAttributes[name] = value }
+        def espd = new EspdDocument(procedureTitle: "Hodor")
+
+        when:
+        attributeStore.storeAttribute(request, "espd", espd)
+
+        then:
+        requestAttributes[SessionSizeInterceptor.SERIALIZED_SIZE_ATTRIBUTE] == SessionSizeInterceptor.serializedSize(espd)
+    }
+
+    private ServletWebRequest newRequest(Map sessionAttributes, List<Cookie> requestCookies,
+                                         List<Cookie> responseCookies) {
+        def session = Stub(HttpSession)
+        session.getAttribute(_ as String) >> { String name -> sessionAttributes[name] }
+        session.setAttribute(_ as String, _) >> { String name, value -> sessionAttributes[name] = value }
+        session.removeAttribute(_ as String) >> { String name -> sessionAttributes.remove(name) }
+
+        def request = Stub(HttpServletRequest)
+        request.getSession(_) >> session
+        request.getSession() >> session
+        request.getCookies() >> { requestCookies as Cookie[] }
+        request.getContextPath() >> "/espd"
+
+        def response = Stub(HttpServletResponse)
+        response.addCookie(_ as Cookie) >> { Cookie cookie -> responseCookies << cookie }
+
+        return new ServletWebRequest(request, response)
+    }
+}
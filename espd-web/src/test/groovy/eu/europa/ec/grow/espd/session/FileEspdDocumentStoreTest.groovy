@@ -0,0 +1,83 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+package eu.europa.ec.grow.espd.session
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.util.concurrent.TimeUnit
+
+class FileEspdDocumentStoreTest extends Specification {
+
+    def directory = Files.createTempDirectory("espd-sessions").toFile()
+    def key = UUID.randomUUID().toString()
+
+    void cleanup() {
+        directory.deleteDir()
+    }
+
+    def "should write, read and delete a document"() {
+        given:
+        def store = new FileEspdDocumentStore(directory, 1, TimeUnit.HOURS)
+
+        when:
+        store.write(key, [1, 2, 3] as byte[])
+
+        then:
+        store.read(key) == [1, 2, 3] as byte[]
+        directory.list() as List == [key + ".espd"]
+
+        when:
+        store.delete(key)
+
+        then:
+        store.read(key) == null
+    }
+
+    def "should not return nor keep expired documents"() {
+        given:
+        def store = new FileEspdDocumentStore(directory, 1, TimeUnit.MINUTES)
+        store.write(key, [1] as byte[])
+        new File(directory, key + ".espd").setLastModified(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(2))
+
+        when:
+        def content = store.read(key)
+        store.purgeExpired(System.currentTimeMillis())
+
+        then:
+        content == null
+        directory.list().length == 0
+    }
+
+    def "should refuse keys which are not UUIDs"() {
+        given:
+        def store = new FileEspdDocumentStore(directory, 1, TimeUnit.HOURS)
+
+        when:
+        store.read("../hodor")
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+package eu.europa.ec.grow.espd.ted
+
+import com.google.common.base.Ticker
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class TedNoticeCacheTest extends Specification {
+
+    def ticker = new FakeTicker()
+    def cache = new TedNoticeCache(10, 3600, 60, ticker)
+    def calls = new AtomicInteger()
+
+    def "should call TED only once for the same reception id"() {
+        given:
+        def loader = countingLoader(new TedResponse(noDocOjs: "2016/S 001-000001"))
+
+        when:
+        def first = cache.get("hodor", loader)
+        def second = cache.get("hodor", loader)
+
+        then:
+        calls.get() == 1
+        first.noDocOjs == "2016/S 001-000001"
+        second.is(first)
+        cache.hits == 1
+        cache.misses == 1
+    }
+
+    def "should call TED again when the response expired"() {
+        given:
+        def loader = countingLoader(new TedResponse(noDocOjs: "2016/S 001-000001"))
+        cache.get("hodor", loader)
+
+        when:
+        ticker.advance(TimeUnit.SECONDS, 3600)
+        cache.get("hodor", loader)
+
+        then:
+        calls.get() == 2
+    }
+
+    def "should keep empty responses for a shorter time"() {
+        given:
+        def loader = countingLoader(new TedResponse())
+        cache.get("hodor", loader)
+
+        when: "the negative time to live did not pass yet"
+        ticker.advance(TimeUnit.SECONDS, 59)
+        cache.get("hodor", loader)
+
+        then:
+        calls.get() == 1
+        cache.negativeHits == 1
+
+        when: "the negative time to live passed"
+        ticker.advance(TimeUnit.SECONDS, 1)
+        cache.get("hodor", loader)
+
+        then:
+        calls.get() == 2
+    }
+
+    def "should not cache a failed lookup"() {
+        given:
+        def failing = { throw new IllegalStateException("TED is down") } as Callable<TedResponse>
+
+        when:
+        def response = cache.get("hodor", failing)
+
+        then:
+        response.empty
+        cache.size == 0
+    }
+
+    def "should wait for the same call to TED when looking up the same reception id concurrently"() {
+        given:
+        def release = new CountDownLatch(1)
+        def loader = {
+            calls.incrementAndGet()
+            release.await()
+            new TedResponse(noDocOjs: "2016/S 001-000001")
+        } as Callable<TedResponse>
+        def executor = Executors.newFixedThreadPool(4)
+
+        when:
+        def futures = (1..4).collect { executor.submit({ cache.get("hodor", loader) } as Callable<TedResponse>) }
+        Thread.sleep(100)
+        release.countDown()
+        def responses = futures.collect { it.get(5, TimeUnit.SECONDS) }
+
+        then:
+        calls.get() == 1
+        responses.every { it.noDocOjs == "2016/S 001-000001" }
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    private Callable<TedResponse> countingLoader(TedResponse response) {
+        return {
+            calls.incrementAndGet()
+            response
+        } as Callable<TedResponse>
+    }
+
+    private static class FakeTicker extends Ticker {
+
+        private long nanos
+
+        @Override
+        long read() {
+            return nanos
+        }
+
+        void advance(TimeUnit unit, long duration) {
+            nanos += unit.toNanos(duration)
+        }
+    }
+
+}
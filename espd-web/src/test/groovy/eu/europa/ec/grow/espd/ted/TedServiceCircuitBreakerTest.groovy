@@ -0,0 +1,197 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+package eu.europa.ec.grow.espd.ted
+
+import com.google.common.base.Ticker
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpHandler
+import com.sun.net.httpserver.HttpServer
+import eu.europa.ec.grow.espd.config.HttpClientConfig
+import eu.europa.ec.grow.espd.util.EspdConfiguration
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Runs the {@link TedService} against a local stub of the TED service.
+ */
+class TedServiceCircuitBreakerTest extends Specification {
+
+    private static final String NOTICE = '{"noDocOjs":"2016/S 001-000001","info":{"1":{"title":"Hodor"}}}'
+
+    HttpServer server
+    AtomicInteger requests = new AtomicInteger()
+    volatile int status = 200
+    volatile long delayMillis = 0
+
+    FakeTicker ticker = new FakeTicker()
+    TedCircuitBreaker circuitBreaker = new TedCircuitBreaker(2, 60, ticker)
+    TedService tedService
+    def httpClient
+
+    void setup() {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0)
+        server.createContext("/notice", new HttpHandler() {
+            @Override
+            void handle(HttpExchange exchange) throws IOException {
+                requests.incrementAndGet()
+                Thread.sleep(delayMillis)
+                byte[] body = status == 200 ? NOTICE.getBytes("UTF-8") : new byte[0]
+                exchange.responseHeaders.add("Content-Type", "application/json")
+                exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length)
+                if (body.length > 0) {
+                    exchange.responseBody.write(body)
+                }
+                exchange.close()
+            }
+        })
+        server.start()
+
+        def espdConfiguration = new EspdConfiguration(null)
+        espdConfiguration.httpClientConnectTimeoutMillis = 500
+        espdConfiguration.httpClientReadTimeoutMillis = 500
+        espdConfiguration.httpClientMaxConnections = 2
+        def httpClientConfig = new HttpClientConfig(espdConfiguration)
+        httpClient = httpClientConfig.httpClient()
+
+        // the failed lookups are not cached so that every lookup reaches the circuit breaker
+        def noticeCache = new TedNoticeCache(10, 3600, 0, ticker)
+        tedService = new TedService(httpClientConfig.restTemplate(httpClient), noticeCache, circuitBreaker)
+        tedService.tedUrl = "http://127.0.0.1:${server.address.port}/notice"
+        tedService.tedUser = "api"
+        tedService.tedPassword = "password"
+    }
+
+    void cleanup() {
+        httpClient.close()
+        server.stop(0)
+    }
+
+    def "should read the contract notice from TED"() {
+        when:
+        def response = tedService.getContractNoticeInformation(TedRequest.builder().receptionId("16-000001-001").build())
+
+        then:
+        response.noDocOjs == "2016/S 001-000001"
+        response.firstNotice.title == "Hodor"
+        circuitBreaker.state == TedCircuitBreaker.State.CLOSED
+    }
+
+    def "should open the circuit after too many failures and not call TED anymore"() {
+        given:
+        status = 503
+
+        when:
+        3.times { lookup(it) }
+
+        then:
+        requests.get() == 2
+        circuitBreaker.state == TedCircuitBreaker.State.OPEN
+        circuitBreaker.rejectedCalls == 1
+    }
+
+    def "should give up on a slow TED after the read timeout"() {
+        given:
+        delayMillis = 2000
+
+        when:
+        long start = System.currentTimeMillis()
+        def response = lookup(1)
+
+        then:
+        response.empty
+        System.currentTimeMillis() - start < 1500
+        circuitBreaker.consecutiveFailures == 1
+    }
+
+    def "should not count an unknown reception id as a failure"() {
+        given:
+        status = 404
+
+        when:
+        3.times { lookup(it) }
+
+        then:
+        requests.get() == 3
+        circuitBreaker.state == TedCircuitBreaker.State.CLOSED
+    }
+
+    def "should close the circuit when TED answers again after the cool-down"() {
+        given:
+        status = 503
+        2.times { lookup(it) }
+
+        when: "TED is back but the cool-down is not over"
+        status = 200
+        def skipped = lookup(2)
+
+        then:
+        skipped.empty
+        requests.get() == 2
+
+        when: "the cool-down is over"
+        ticker.advance(TimeUnit.SECONDS, 60)
+        def response = lookup(3)
+
+        then:
+        response.noDocOjs == "2016/S 001-000001"
+        requests.get() == 3
+        circuitBreaker.state == TedCircuitBreaker.State.CLOSED
+    }
+
+    def "should open the circuit again when the trial call fails"() {
+        given:
+        status = 503
+        2.times { lookup(it) }
+
+        when:
+        ticker.advance(TimeUnit.SECONDS, 60)
+        lookup(2)
+        lookup(3)
+
+        then:
+        requests.get() == 3
+        circuitBreaker.state == TedCircuitBreaker.State.OPEN
+    }
+
+    private TedResponse lookup(int index) {
+        return tedService.getContractNoticeInformation(TedRequest.builder().receptionId("16-000001-00${index}").build())
+    }
+
+    private static class FakeTicker extends Ticker {
+
+        private long nanos
+
+        @Override
+        long read() {
+            return nanos
+        }
+
+        void advance(TimeUnit unit, long duration) {
+            nanos += unit.toNanos(duration)
+        }
+    }
+
+}
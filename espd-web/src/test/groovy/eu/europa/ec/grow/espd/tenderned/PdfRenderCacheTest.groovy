@@ -0,0 +1,132 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.tenderned
+
+import eu.europa.ec.grow.espd.tenderned.exception.PdfRenderingException
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+class PdfRenderCacheTest extends Specification {
+
+    // not private, they are read by the transformer below
+    AtomicInteger renderings = new AtomicInteger()
+    CountDownLatch renderingStarted = new CountDownLatch(1)
+    CountDownLatch releaseRendering = new CountDownLatch(0)
+    boolean failing
+
+    private HtmlToPdfTransformer transformer = new HtmlToPdfTransformer(null, null, null) {
+        @Override
+        void convertToPDF(String html, String agent, OutputStream out) throws PdfRenderingException {
+            renderings.incrementAndGet()
+            renderingStarted.countDown()
+            releaseRendering.await()
+            if (failing) {
+                throw new PdfRenderingException("FOP failed")
+            }
+            out.write("$agent:$html".getBytes("UTF-8"))
+        }
+    }
+
+    def "should render the same HTML only once per agent"() {
+        given:
+        def cache = new PdfRenderCache(transformer, 1024 * 1024, 60)
+
+        when:
+        def first = render(cache, "<html/>", "eo")
+        def second = render(cache, "<html/>", "eo")
+        def otherAgent = render(cache, "<html/>", "ca")
+
+        then:
+        first == "eo:<html/>"
+        second == first
+        otherAgent == "ca:<html/>"
+        renderings.get() == 2
+        cache.hits == 1
+    }
+
+    def "should render concurrent identical downloads only once"() {
+        given:
+        def cache = new PdfRenderCache(transformer, 1024 * 1024, 60)
+        releaseRendering = new CountDownLatch(1)
+        def executor = Executors.newFixedThreadPool(2)
+
+        when:
+        def first = executor.submit({ render(cache, "<html/>", "eo") } as Callable)
+        renderingStarted.await()
+        def second = executor.submit({ render(cache, "<html/>", "eo") } as Callable)
+        Thread.sleep(100)
+        releaseRendering.countDown()
+
+        then:
+        first.get() == "eo:<html/>"
+        second.get() == "eo:<html/>"
+        renderings.get() == 1
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "should not cache a failed rendering"() {
+        given:
+        def cache = new PdfRenderCache(transformer, 1024 * 1024, 60)
+        failing = true
+
+        when:
+        render(cache, "<html/>", "eo")
+
+        then:
+        thrown(PdfRenderingException)
+
+        when:
+        failing = false
+
+        then:
+        render(cache, "<html/>", "eo") == "eo:<html/>"
+        renderings.get() == 2
+    }
+
+    def "should always render when the cache is disabled"() {
+        given:
+        def cache = new PdfRenderCache(transformer, 0, 60)
+
+        when:
+        render(cache, "<html/>", "eo")
+        render(cache, "<html/>", "eo")
+
+        then:
+        renderings.get() == 2
+        cache.size == 0
+    }
+
+    private static String render(PdfRenderCache cache, String html, String agent) {
+        def out = new ByteArrayOutputStream()
+        cache.render(html, agent, out)
+        out.toString("UTF-8")
+    }
+}
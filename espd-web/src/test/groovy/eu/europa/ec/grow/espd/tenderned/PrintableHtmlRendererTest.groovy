@@ -0,0 +1,183 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.tenderned
+
+import eu.europa.ec.grow.espd.tenderned.exception.PdfRenderingException
+import org.springframework.mock.web.MockHttpServletResponse
+import spock.lang.Specification
+
+import javax.servlet.RequestDispatcher
+import javax.servlet.ServletException
+import javax.servlet.ServletResponse
+import javax.servlet.WriteListener
+import javax.servlet.http.HttpServletRequest
+import javax.xml.stream.XMLStreamException
+
+class PrintableHtmlRendererTest extends Specification {
+
+    def renderer = new PrintableHtmlRenderer()
+
+    def dispatcher = Mock(RequestDispatcher)
+
+    def request = Mock(HttpServletRequest) {
+        getRequestDispatcher(PrintableHtmlRenderer.PRINTABLE_VIEW) >> dispatcher
+    }
+
+    def response = new MockHttpServletResponse()
+
+    def "should expose the model to the printable view and capture what it writes"() {
+        when:
+        def html = renderer.render([espd: "the espd", agent: "eo"], Locale.FRENCH, request, response)
+
+        then:
+        1 * request.setAttribute("espd", "the espd")
+        1 * request.setAttribute("agent", "eo")
+        1 * dispatcher.include(request, _ as ServletResponse) >> { req, ServletResponse captured ->
+            captured.writer.write("<html><body>")
+            captured.writer.write("<p>${captured.locale}</p>".toString())
+            captured.writer.write("</body></html>")
+        }
+        html == "<html><body><p>fr</p></body></html>"
+        response.contentAsString.isEmpty()
+        !response.committed
+    }
+
+    def "should capture the bytes written to the output stream in order with the characters"() {
+        given:
+        response.characterEncoding = "UTF-8"
+
+        when:
+        def html = renderer.render([:], Locale.ENGLISH, request, response)
+
+        then:
+        1 * dispatcher.include(request, _ as ServletResponse) >> { req, ServletResponse captured ->
+            captured.writer.write("<html><body>")
+            // a multi-byte character split over two writes
+            def bytes = "<p>Sécurité</p>".getBytes("UTF-8")
+            captured.outputStream.write(bytes, 0, 5)
+            captured.outputStream.write(bytes, 5, bytes.length - 5)
+            captured.writer.write("</body></html>")
+            captured.flushBuffer()
+            assert !captured.committed
+        }
+        html == "<html><body><p>Sécurité</p></body></html>"
+        response.contentAsString.isEmpty()
+    }
+
+    def "should force the locale of the printable view"() {
+        given:
+        response.locale = Locale.GERMAN
+        String locale = null
+
+        when:
+        renderer.render([:], new Locale("ro"), request, response)
+
+        then:
+        1 * dispatcher.include(request, _ as ServletResponse) >> { req, ServletResponse captured ->
+            locale = captured.locale.toString()
+            captured.writer.write("<html/>")
+        }
+        locale == "ro"
+    }
+
+    def "should let a write listener write the printable view at once"() {
+        given:
+        response.characterEncoding = "UTF-8"
+        def failures = []
+
+        when:
+        def html = renderer.render([:], Locale.ENGLISH, request, response)
+
+        then:
+        1 * dispatcher.include(request, _ as ServletResponse) >> { req, ServletResponse captured ->
+            def out = captured.outputStream
+            out.writeListener = [onWritePossible: { out.write("<html/>".getBytes("UTF-8")) },
+                                 onError        : { Throwable t -> failures << t }] as WriteListener
+            out.writeListener = [onWritePossible: { throw new IOException("Client gone") },
+                                 onError        : { Throwable t -> failures << t }] as WriteListener
+        }
+        html == "<html/>"
+        failures*.message == ["Client gone"]
+    }
+
+    def "should report a failed include"() {
+        when:
+        renderer.render([:], Locale.ENGLISH, request, response)
+
+        then:
+        1 * dispatcher.include(*_) >> { throw new ServletException("JSP compilation failed") }
+        def e = thrown(PdfRenderingException)
+        e.cause instanceof ServletException
+    }
+
+    def "should report a missing printable view"() {
+        given:
+        def noView = Mock(HttpServletRequest)
+
+        when:
+        renderer.render([:], Locale.ENGLISH, noView, response)
+
+        then:
+        def e = thrown(PdfRenderingException)
+        e.message.contains(PrintableHtmlRenderer.PRINTABLE_VIEW)
+    }
+
+    def "should not give a malformed document to the PDF transformation"() {
+        when:
+        renderer.render([:], Locale.ENGLISH, request, response)
+
+        then:
+        1 * dispatcher.include(*_) >> { req, ServletResponse captured ->
+            captured.writer.write("<html><body>\n<div><p>Unbalanced</div>\n</body></html>")
+        }
+        def e = thrown(PdfRenderingException)
+        e.message.startsWith("The printable ESPD is not well-formed at line 2")
+        e.cause instanceof XMLStreamException
+    }
+
+    def "should accept well-formed documents"() {
+        when:
+        PrintableHtmlRenderer.checkWellFormed(html)
+
+        then:
+        notThrown(PdfRenderingException)
+
+        where:
+        html << ["<html><head/><body><div>&amp;&lt;&#160;</div></body></html>",
+                 '<?xml version="1.0" encoding="UTF-8"?><html><body/></html>']
+    }
+
+    def "should reject documents which are not well-formed"() {
+        when:
+        PrintableHtmlRenderer.checkWellFormed(html)
+
+        then:
+        thrown(PdfRenderingException)
+
+        where:
+        html << ["", "<html><body><br></body></html>", "<html><body></html>", "<html/><html/>"]
+    }
+
+}
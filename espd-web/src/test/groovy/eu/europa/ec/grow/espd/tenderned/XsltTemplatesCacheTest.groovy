@@ -0,0 +1,127 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.tenderned
+
+import spock.lang.Specification
+
+import javax.xml.transform.Templates
+import javax.xml.transform.TransformerException
+import javax.xml.transform.TransformerFactory
+
+class XsltTemplatesCacheTest extends Specification {
+
+    def resolver = new XsltURIResolver()
+
+    def factory = newFactory()
+
+    def "should compile the stylesheets of both agents at startup"() {
+        when:
+        def cache = new XsltTemplatesCache(factory, resolver, HtmlToPdfTransformer.XSL_CA, HtmlToPdfTransformer.XSL_EO)
+
+        then:
+        cache.hits == 0
+        cache.misses == 0
+        cache.toString().contains(HtmlToPdfTransformer.XSL_CA)
+        cache.toString().contains(HtmlToPdfTransformer.XSL_EO)
+
+        when:
+        cache.newTransformer(HtmlToPdfTransformer.XSL_CA)
+        cache.newTransformer(HtmlToPdfTransformer.XSL_EO)
+
+        then: "no stylesheet is compiled on request"
+        cache.hits == 2
+        cache.misses == 0
+    }
+
+    def "should give back the same compiled stylesheet for an agent"() {
+        given:
+        def cache = new XsltTemplatesCache(factory, resolver, HtmlToPdfTransformer.XSL_CA, HtmlToPdfTransformer.XSL_EO)
+
+        when:
+        Templates first = cache.getTemplates(HtmlToPdfTransformer.XSL_CA)
+        Templates second = cache.getTemplates(HtmlToPdfTransformer.XSL_CA)
+
+        then:
+        first.is(second)
+        !first.is(cache.getTemplates(HtmlToPdfTransformer.XSL_EO))
+        cache.hits == 3
+        cache.misses == 0
+        cache.hitRate == 1d
+    }
+
+    def "should hand out a new transformer on every call"() {
+        given:
+        def cache = new XsltTemplatesCache(factory, resolver, HtmlToPdfTransformer.XSL_EO)
+
+        expect:
+        !cache.newTransformer(HtmlToPdfTransformer.XSL_EO).is(cache.newTransformer(HtmlToPdfTransformer.XSL_EO))
+    }
+
+    def "should compile a stylesheet which was not compiled at startup only once"() {
+        given:
+        def cache = new XsltTemplatesCache(factory, resolver)
+
+        when:
+        def first = cache.getTemplates(HtmlToPdfTransformer.XSL_CA)
+        def second = cache.getTemplates(HtmlToPdfTransformer.XSL_CA)
+
+        then:
+        first.is(second)
+        cache.misses == 1
+        cache.hits == 1
+        cache.hitRate == 0.5d
+    }
+
+    def "should fail clearly for an unknown stylesheet"() {
+        given:
+        def cache = new XsltTemplatesCache(factory, resolver)
+
+        when:
+        cache.newTransformer("unknown.xsl")
+
+        then:
+        def e = thrown(TransformerException)
+        e.message == "Unknown XSLT stylesheet 'unknown.xsl'."
+        cache.misses == 1
+    }
+
+    def "should not start with an unknown stylesheet"() {
+        when:
+        new XsltTemplatesCache(factory, resolver, HtmlToPdfTransformer.XSL_CA, "unknown.xsl")
+
+        then:
+        def e = thrown(IllegalStateException)
+        e.message == "Could not compile stylesheet 'unknown.xsl'."
+        e.cause.message == "Unknown XSLT stylesheet 'unknown.xsl'."
+    }
+
+    private TransformerFactory newFactory() {
+        // like the factory of ApacheFopConfig, which resolves the stylesheets included by the agent stylesheets
+        def transformerFactory = TransformerFactory.newInstance()
+        transformerFactory.setURIResolver(resolver)
+        transformerFactory
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+package eu.europa.ec.grow.espd.util
+
+import eu.europa.ec.grow.espd.domain.EspdDocument
+import eu.europa.ec.grow.espd.metrics.ProcessingMetrics
+import eu.europa.ec.grow.espd.tenderned.PdfRenderCache
+import eu.europa.ec.grow.espd.tenderned.exception.PdfRenderingException
+import eu.europa.ec.grow.espd.xml.base.AbstractEspdXmlMarshalling
+import org.springframework.context.MessageSource
+
+import java.util.concurrent.Executor
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.FutureTask
+import java.util.zip.Deflater
+import java.util.zip.ZipInputStream
+
+class EspdExporterTest extends AbstractEspdXmlMarshalling {
+
+    // a PDF which compresses very well, so that the compression level of its entry shows
+    static final byte[] PDF = ("%PDF-1.4\n" + "0" * 100000).bytes
+
+    def pdfRenderCache = Mock(PdfRenderCache)
+
+    def messageSource = Stub(MessageSource) {
+        getMessage("zip_instructions", null, _ as Locale) >> "Open the XML file with the ESPD service."
+    }
+
+    ExecutorService zipExportExecutor = Executors.newSingleThreadExecutor()
+
+    def espdConfiguration = new EspdConfiguration(null)
+
+    void cleanup() {
+        zipExportExecutor.shutdownNow()
+    }
+
+    def "should write the PDF first, then the XML and the instructions"() {
+        given:
+        pdfRenderCache.render("<html/>", agent, _ as OutputStream) >> { html, a, OutputStream out -> out.write(PDF) }
+
+        when:
+        def entries = unzip(newExporter(zipExportExecutor).exportAsZip(new EspdDocument(), "<html/>", agent, Locale.ENGLISH)
+                                                           .toByteArray())
+
+        then:
+        entries*.name == ["${fileName}.pdf", "${fileName}.xml", "README.txt"]*.toString()
+        entries[0].content == PDF
+        new String(entries[1].content, "UTF-8").contains(rootElement)
+        new String(entries[2].content, "UTF-8") == "Open the XML file with the ESPD service."
+
+        where:
+        agent || fileName        | rootElement
+        "ca"  || "espd-request"  | "ESPDRequest"
+        "eo"  || "espd-response" | "ESPDResponse"
+    }
+
+    def "should compress the PDF entry with its own level"() {
+        given:
+        espdConfiguration.zipCompressionLevel = Deflater.DEFAULT_COMPRESSION
+        espdConfiguration.zipPdfCompressionLevel = pdfLevel
+        pdfRenderCache.render(*_) >> { html, agent, OutputStream out -> out.write(PDF) }
+
+        when:
+        def entries = unzip(newExporter(zipExportExecutor).exportAsZip(new EspdDocument(), "<html/>", "eo", Locale.ENGLISH)
+                                                           .toByteArray())
+
+        then:
+        (entries[0].compressedSize < PDF.length / 10) == compressed
+        // the XML entry keeps the level of the other entries
+        entries[1].compressedSize < entries[1].size
+
+        where:
+        pdfLevel                  || compressed
+        Deflater.NO_COMPRESSION   || false
+        Deflater.BEST_COMPRESSION || true
+    }
+
+    def "should cancel the marshalling of the XML when the PDF cannot be rendered"() {
+        given:
+        List<Runnable> tasks = []
+        def capturingExecutor = { Runnable task -> tasks << task } as Executor
+        pdfRenderCache.render(*_) >> { throw new PdfRenderingException("Broken stylesheet") }
+
+        when:
+        newExporter(capturingExecutor).exportAsZip(new EspdDocument(), "<html/>", "ca", Locale.ENGLISH,
+                new ByteArrayOutputStream())
+
+        then:
+        thrown(PdfRenderingException)
+        tasks.size() == 1
+        (tasks[0] as FutureTask).cancelled
+    }
+
+    def "should import the ESPD back from its archive"() {
+        given:
+        pdfRenderCache.render(*_) >> { html, agent, OutputStream out -> out.write(PDF) }
+        def espd = new EspdDocument(ojsNumber: "S206|2015-10-23|PN33|2015/S 206-373035",
+                procedureTitle: "Belgium-Brussels: SMART 2015/0065")
+
+        when:
+        def archive = newExporter(zipExportExecutor).exportAsZip(espd, "<html/>", "eo", Locale.ENGLISH)
+        def imported = xmlImporter.importAmbiguousEspdFile(new ByteArrayInputStream(archive.toByteArray()))
+
+        then:
+        imported.present
+        imported.get().procedureTitle == "Belgium-Brussels: SMART 2015/0065"
+    }
+
+    private EspdExporter newExporter(Executor executor) {
+        new EspdExporter(xmlExporter, pdfRenderCache, messageSource, new ProcessingMetrics(), executor,
+                espdConfiguration)
+    }
+
+    private static List<Map> unzip(byte[] archive) {
+        def entries = []
+        new ZipInputStream(new ByteArrayInputStream(archive)).withStream { zip ->
+            for (def entry = zip.nextEntry; entry != null; entry = zip.nextEntry) {
+                def content = zip.bytes
+                // the sizes of an entry are only known once it is read
+                entries << [name: entry.name, content: content, size: entry.size, compressedSize: entry.compressedSize]
+            }
+        }
+        return entries
+    }
+
+}
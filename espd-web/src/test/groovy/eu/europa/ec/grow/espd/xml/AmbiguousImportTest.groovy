@@ -0,0 +1,134 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.xml
+
+import eu.europa.ec.grow.espd.tenderned.exception.TedNoticeException
+import eu.europa.ec.grow.espd.xml.base.AbstractEspdXmlMarshalling
+
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+/**
+ * Checks that the uploads of unknown type are recognised by their root element.
+ */
+class AmbiguousImportTest extends AbstractEspdXmlMarshalling {
+
+    private static final String SAMPLES = "./src/test/groovy/eu/europa/ec/grow/espd/xml/samples"
+
+    private static final String LONG_PROLOG = "<!-- ${'An ESPD Response would not be found in the first bytes. ' * 5} -->\n" +
+            "<?xml-stylesheet type=\"text/xsl\" href=\"ESPDResponse.xsl\"?>\n"
+
+    def "request with a long prolog and a byte order mark should be imported as a request"() {
+        given:
+        def xml = withProlog(sample("request/all_exclusion_criteria_selected.xml"))
+
+        expect:
+        importer.importAmbiguousEspdFile(bytes("\uFEFF" + xml)).get() == importer.importEspdRequest(bytes(xml)).get()
+
+        where:
+        importer << [xmlImporter, streamingXmlImporter]
+    }
+
+    def "response with a long prolog should be imported as a response"() {
+        given:
+        def xml = withProlog(sample("response/response_other_information_full_import.xml"))
+
+        expect:
+        importer.importAmbiguousEspdFile(bytes(xml)).get() == importer.importEspdResponse(bytes(xml)).get()
+
+        where:
+        importer << [xmlImporter, streamingXmlImporter]
+    }
+
+    def "XML file of a ZIP downloaded from the wizard should be imported"() {
+        given:
+        def xml = sample("response/response_other_information_full_import.xml")
+        def zip = new ByteArrayOutputStream()
+        new ZipOutputStream(zip).withStream { ZipOutputStream zipStream ->
+            zipStream.putNextEntry(new ZipEntry("espd-response.pdf"))
+            zipStream.write(("%PDF-1.4 " + "ESPDRequest " * 100).getBytes("UTF-8"))
+            zipStream.putNextEntry(new ZipEntry("espd-response.xml"))
+            zipStream.write(xml.getBytes("UTF-8"))
+            zipStream.putNextEntry(new ZipEntry("README.txt"))
+            zipStream.write("ESPDRequest".getBytes("UTF-8"))
+        }
+
+        expect:
+        xmlImporter.importAmbiguousEspdFile(new ByteArrayInputStream(zip.toByteArray())).get() ==
+                xmlImporter.importEspdResponse(bytes(xml)).get()
+    }
+
+    def "ZIP without any XML file should not be imported"() {
+        given:
+        def zip = new ByteArrayOutputStream()
+        new ZipOutputStream(zip).withStream { ZipOutputStream zipStream ->
+            zipStream.putNextEntry(new ZipEntry("espd-response.pdf"))
+            zipStream.write("%PDF-1.4".getBytes("UTF-8"))
+        }
+
+        expect:
+        !xmlImporter.importAmbiguousEspdFile(new ByteArrayInputStream(zip.toByteArray())).present
+    }
+
+    def "TED notice should be recognised after a long prolog"() {
+        when:
+        xmlImporter.importAmbiguousEspdFile(bytes(withProlog(notice)))
+
+        then:
+        thrown(TedNoticeException)
+
+        where:
+        notice << ['<TED_EXPORT xmlns="ted/R2.0.9.S02/publication"><CODED_DATA_SECTION/></TED_EXPORT>',
+                   '<ContractNotice xmlns="urn:oasis:names:specification:ubl:schema:xsd:ContractNotice-2"/>']
+    }
+
+    def "document with an unknown root element should not be imported"() {
+        expect:
+        !xmlImporter.importAmbiguousEspdFile(bytes(content)).present
+
+        where:
+        content << ["",
+                    "not XML at all",
+                    '<ESPDResponse xmlns="urn:example:another:namespace"/>',
+                    '<!-- <espd:ESPDResponse xmlns:espd="urn:grow:names:specification:ubl:schema:xsd:ESPDResponse-1"/> --><root/>']
+    }
+
+    private static String sample(String path) {
+        new File("${SAMPLES}/${path}").getText("UTF-8")
+    }
+
+    /**
+     * Put a prolog longer than the first bytes which used to be looked at between the XML declaration and the root.
+     */
+    private static String withProlog(String xml) {
+        def declarationEnd = xml.startsWith("<?xml") ? xml.indexOf("?>") + 2 : 0
+        xml.substring(0, declarationEnd) + "\n" + LONG_PROLOG + xml.substring(declarationEnd)
+    }
+
+    private static InputStream bytes(String content) {
+        new ByteArrayInputStream(content.getBytes("UTF-8"))
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+
+package eu.europa.ec.grow.espd.xml
+
+import eu.europa.ec.grow.espd.config.JaxbConfiguration
+import eu.europa.ec.grow.espd.metrics.ProcessingMetrics
+import eu.europa.ec.grow.espd.util.EspdConfiguration
+import eu.europa.ec.grow.espd.xml.base.AbstractEspdXmlMarshalling
+import eu.europa.ec.grow.espd.xml.request.exporting.UblRequestCriteriaTransformer
+import eu.europa.ec.grow.espd.xml.request.exporting.UblRequestCriterionFragments
+
+import java.util.zip.GZIPOutputStream
+
+/**
+ * Checks the import of gzip compressed ESPD files and the compact export.
+ */
+class CompressedXmlTest extends AbstractEspdXmlMarshalling {
+
+    private static final String SAMPLES = "./src/test/groovy/eu/europa/ec/grow/espd/xml/samples"
+
+    def "gzip compressed request should be imported like the plain one"() {
+        given:
+        def xml = sample("request/all_exclusion_criteria_selected.xml")
+
+        expect:
+        xmlImporter.importEspdRequest(gzip(xml)).get() == xmlImporter.importEspdRequest(plain(xml)).get()
+        streamingXmlImporter.importEspdRequest(gzip(xml)).get() == xmlImporter.importEspdRequest(plain(xml)).get()
+    }
+
+    def "gzip compressed response should be recognised and imported like the plain one"() {
+        given:
+        def xml = sample("response/response_other_information_full_import.xml")
+
+        expect:
+        xmlImporter.importAmbiguousEspdFile(gzip(xml)).get() == xmlImporter.importEspdResponse(plain(xml)).get()
+    }
+
+    def "gzip compressed request and response should be merged like the plain ones"() {
+        given:
+        def request = sample("response/merging/request_to_merge.xml")
+        def response = sample("response/merging/response_to_merge.xml")
+
+        expect:
+        xmlImporter.mergeEspdRequestAndResponse(gzip(request), plain(response)).get() ==
+                xmlImporter.mergeEspdRequestAndResponse(plain(request), plain(response)).get()
+    }
+
+    def "gzip compressed file expanding beyond the limit should not be imported"() {
+        given:
+        def xml = sample("request/all_exclusion_criteria_selected.xml")
+        def config = new EspdConfiguration(null)
+        config.xmlImportMaxUncompressedBytes = xml.length().intdiv(2)
+        def limitedImporter = new EspdXmlImporter(marshallerPool, xmlImporter.requestToEspdDocumentTransformer,
+                xmlImporter.responseToEspdDocumentTransformer, xmlImporter.requestResponseMerger,
+                xmlImporter.streamingImporter, config, new ProcessingMetrics())
+
+        expect:
+        !limitedImporter.importEspdRequest(gzip(xml)).present
+        limitedImporter.importEspdRequest(plain(xml)).present
+    }
+
+    def "empty or tiny files should not be taken for gzip compressed ones"() {
+        expect:
+        !xmlImporter.importEspdRequest(plain(content)).present
+
+        where:
+        content << ["", "<"]
+    }
+
+    def "compact export should have no indentation and import like the formatted one"() {
+        given:
+        def espd = xmlImporter.importEspdRequest(plain(sample("request/all_exclusion_criteria_selected.xml"))).get()
+        def compactConfig = new EspdConfiguration(null)
+        compactConfig.xmlExportCompact = true
+        compactConfig.xmlJaxbPoolMaxIdle = 4
+        def compactPool = new JaxbConfiguration().jaxbMarshallerPool(jaxb2Marshaller, compactConfig)
+        def compactExporter = new EspdXmlExporter(compactPool, requestTypeTransformer, null,
+                new UblRequestCriterionFragments(compactPool, new UblRequestCriteriaTransformer()),
+                new ProcessingMetrics())
+
+        when:
+        def formatted = xmlExporter.generateEspdRequest(espd).toString("UTF-8")
+        def compact = compactExporter.generateEspdRequest(espd).toString("UTF-8")
+
+        then:
+        formatted =~ />\s+</
+        !(compact =~ />\s+</)
+        compact.length() < formatted.length()
+        xmlImporter.importEspdRequest(plain(compact)).get() == xmlImporter.importEspdRequest(plain(formatted)).get()
+    }
+
+    private static String sample(String path) {
+        new File("${SAMPLES}/${path}").getText("UTF-8")
+    }
+
+    private static InputStream plain(String xml) {
+        new ByteArrayInputStream(xml.getBytes("UTF-8"))
+    }
+
+    private static InputStream gzip(String xml) {
+        def bytes = new ByteArrayOutputStream()
+        new GZIPOutputStream(bytes).withStream { it.write(xml.getBytes("UTF-8")) }
+        new ByteArrayInputStream(bytes.toByteArray())
+    }
+
+}
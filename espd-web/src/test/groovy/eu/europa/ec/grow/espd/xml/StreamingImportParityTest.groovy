@@ -0,0 +1,122 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+package eu.europa.ec.grow.espd.xml
+
+import eu.europa.ec.grow.espd.domain.EspdDocument
+import eu.europa.ec.grow.espd.xml.base.AbstractEspdXmlMarshalling
+import org.apache.commons.io.IOUtils
+import spock.lang.Unroll
+
+/**
+ * Checks that the streaming import produces the same ESPD documents as the JAXB import for all the sample files.
+ */
+class StreamingImportParityTest extends AbstractEspdXmlMarshalling {
+
+    private static final String SAMPLES = "./src/test/groovy/eu/europa/ec/grow/espd/xml/samples"
+
+    @Unroll
+    def "streaming import of request '#fileName' should be identical to the JAXB import"() {
+        when:
+        def jaxbEspd = xmlImporter.importEspdRequest(IOUtils.toInputStream(xml, "UTF-8")).get()
+        def streamingEspd = streamingXmlImporter.importEspdRequest(IOUtils.toInputStream(xml, "UTF-8")).get()
+
+        then:
+        streamingEspd == jaxbEspd
+
+        where:
+        file << sampleFiles("ESPDRequest")
+        fileName = file.parentFile.name + "/" + file.name
+        xml = file.getText("UTF-8")
+    }
+
+    @Unroll
+    def "streaming import of response '#fileName' should be identical to the JAXB import"() {
+        when:
+        def jaxbEspd = xmlImporter.importEspdResponse(IOUtils.toInputStream(xml, "UTF-8")).get()
+        def streamingEspd = streamingXmlImporter.importEspdResponse(IOUtils.toInputStream(xml, "UTF-8")).get()
+
+        then:
+        streamingEspd == jaxbEspd
+
+        where:
+        file << sampleFiles("ESPDResponse")
+        fileName = file.parentFile.name + "/" + file.name
+        xml = file.getText("UTF-8")
+    }
+
+    @Unroll
+    def "both imports should recognise the criteria of '#fileName' when their ids are padded with whitespace"() {
+        given: "every criterion, requirement group and requirement id surrounded by spaces and new lines"
+        def ids = /(<cbc:ID (?:schemeID="(?:CriteriaID|CriterionRelatedIDs)"[^>]*|schemeAgencyID="EU-COM-GROW" schemeVersionID="1.0")>)([0-9a-f-]{36})(<\/cbc:ID>)/
+        def padded = xml.replaceAll(ids, '$1\n    $2  $3')
+        def expected = importEspd(xmlImporter, xml, request)
+
+        expect:
+        padded != xml
+        importEspd(xmlImporter, padded, request) == expected
+        importEspd(streamingXmlImporter, padded, request) == expected
+
+        where:
+        fileName << ["request/all_exclusion_criteria_selected.xml", "response/exclusion/agreements_with_eo_import.xml",
+                     "response/selection/work_contracts_performance_of_works_import.xml"]
+        xml = new File("${SAMPLES}/${fileName}").getText("UTF-8")
+        request = fileName.startsWith("request/")
+    }
+
+    def "streaming import should not take a response for a request"() {
+        given:
+        def xml = new File("${SAMPLES}/response/response_other_information_full_import.xml").getText("UTF-8")
+
+        expect:
+        !streamingXmlImporter.importEspdRequest(IOUtils.toInputStream(xml, "UTF-8")).present
+    }
+
+    def "streaming import should not take a request for a response"() {
+        given:
+        def xml = new File("${SAMPLES}/request/request_other_information_full_import.xml").getText("UTF-8")
+
+        expect:
+        !streamingXmlImporter.importEspdResponse(IOUtils.toInputStream(xml, "UTF-8")).present
+    }
+
+    private static EspdDocument importEspd(EspdXmlImporter importer, String xml, boolean request) {
+        def stream = IOUtils.toInputStream(xml, "UTF-8")
+        return request ? importer.importEspdRequest(stream).get() :
+                importer.importEspdResponse(stream).get()
+    }
+
+    /**
+     * All the sample files, whatever their directory, having the given root element.
+     */
+    private static List<File> sampleFiles(String rootElement) {
+        def files = []
+        new File(SAMPLES).eachFileRecurse { File file ->
+            if (file.name.endsWith(".xml") && file.getText("UTF-8") =~ /<([\w-]+:)?${rootElement}[\s>]/) {
+                files << file
+            }
+        }
+        return files.sort { it.path }
+    }
+
+}
@@ -26,15 +26,20 @@ package eu.europa.ec.grow.espd.xml.base
 
 import eu.europa.ec.grow.espd.config.JaxbConfiguration
 import eu.europa.ec.grow.espd.domain.EspdDocument
+import eu.europa.ec.grow.espd.metrics.ProcessingMetrics
 import eu.europa.ec.grow.espd.util.EspdConfiguration
 import eu.europa.ec.grow.espd.xml.EspdXmlExporter
 import eu.europa.ec.grow.espd.xml.EspdXmlImporter
+import eu.europa.ec.grow.espd.xml.StreamingEspdXmlImporter
+import eu.europa.ec.grow.espd.xml.common.JaxbMarshallerPool
 import eu.europa.ec.grow.espd.xml.common.exporting.UblContractingPartyTypeTransformer
 import eu.europa.ec.grow.espd.xml.common.exporting.UblEconomicOperatorPartyTypeTransformer
 import eu.europa.ec.grow.espd.xml.common.importing.CriteriaToEspdDocumentPopulator
 import eu.europa.ec.grow.espd.xml.common.importing.EconomicOperatorImplTransformer
 import eu.europa.ec.grow.espd.xml.common.importing.PartyImplTransformer
+import eu.europa.ec.grow.espd.xml.common.importing.StreamingCriteriaReader
 import eu.europa.ec.grow.espd.xml.request.exporting.UblRequestCriteriaTransformer
+import eu.europa.ec.grow.espd.xml.request.exporting.UblRequestCriterionFragments
 import eu.europa.ec.grow.espd.xml.request.exporting.UblRequestTypeTransformer
 import eu.europa.ec.grow.espd.xml.request.importing.UblRequestImporter
 import eu.europa.ec.grow.espd.xml.response.exporting.UblResponseCriteriaTransformer
@@ -58,12 +63,24 @@ abstract class AbstractEspdXmlMarshalling extends Specification {
         initEspdMarshallers(jaxb2Marshaller)
     }
 
+    @Shared
+    protected static JaxbMarshallerPool marshallerPool
+
     @Shared
     protected static EspdXmlExporter xmlExporter
 
+    @Shared
+    protected static UblRequestTypeTransformer requestTypeTransformer
+
+    @Shared
+    protected static UblRequestCriterionFragments requestCriterionFragments
+
     @Shared
     protected static EspdXmlImporter xmlImporter
 
+    @Shared
+    protected static EspdXmlImporter streamingXmlImporter
+
     protected StringWriter xmlOutput
 
     void setupSpec() {
@@ -75,7 +92,11 @@ abstract class AbstractEspdXmlMarshalling extends Specification {
         def economicOperatorPartyTypeTransformer = new UblEconomicOperatorPartyTypeTransformer()
         def espdConfig = new EspdConfiguration(null)
         espdConfig.buildVersion = "2016.4"
-        def ublRequestTypeTransformer = new UblRequestTypeTransformer(ublContractingPartyTypeTransformer, new UblRequestCriteriaTransformer(), espdConfig)
+        espdConfig.xmlJaxbPoolMaxIdle = 4
+        marshallerPool = new JaxbConfiguration().jaxbMarshallerPool(jaxb2Marshaller, espdConfig)
+        def ublRequestCriteriaTransformer = new UblRequestCriteriaTransformer()
+        requestTypeTransformer = new UblRequestTypeTransformer(ublContractingPartyTypeTransformer, ublRequestCriteriaTransformer, espdConfig)
+        requestCriterionFragments = new UblRequestCriterionFragments(marshallerPool, ublRequestCriteriaTransformer)
         def partyImplTransformer = new PartyImplTransformer()
         def criteriaToEspdDocumentPopulator = new CriteriaToEspdDocumentPopulator()
         def economicOperatorImplTransformer = new EconomicOperatorImplTransformer(partyImplTransformer)
@@ -83,8 +104,13 @@ abstract class AbstractEspdXmlMarshalling extends Specification {
         def ublResponseImporter = new UblResponseImporter(partyImplTransformer, economicOperatorImplTransformer, criteriaToEspdDocumentPopulator)
         def ublResponseTypeTransformer = new UblResponseTypeTransformer(ublContractingPartyTypeTransformer, economicOperatorPartyTypeTransformer, new UblResponseCriteriaTransformer(), espdConfig)
         def requestResponseMerger = new UblRequestResponseMerger(partyImplTransformer, economicOperatorImplTransformer, criteriaToEspdDocumentPopulator)
-        xmlExporter = new EspdXmlExporter(jaxb2Marshaller, ublRequestTypeTransformer, ublResponseTypeTransformer)
-        xmlImporter = new EspdXmlImporter(jaxb2Marshaller, ublRequestImporter, ublResponseImporter, requestResponseMerger)
+        def processingMetrics = new ProcessingMetrics()
+        xmlExporter = new EspdXmlExporter(marshallerPool, requestTypeTransformer, ublResponseTypeTransformer, requestCriterionFragments, processingMetrics)
+        def streamingImporter = new StreamingEspdXmlImporter(marshallerPool, ublRequestImporter, ublResponseImporter, new StreamingCriteriaReader(), criteriaToEspdDocumentPopulator, processingMetrics)
+        xmlImporter = new EspdXmlImporter(marshallerPool, ublRequestImporter, ublResponseImporter, requestResponseMerger, streamingImporter, espdConfig, processingMetrics)
+        def streamingConfig = new EspdConfiguration(null)
+        streamingConfig.xmlImportStreaming = true
+        streamingXmlImporter = new EspdXmlImporter(marshallerPool, ublRequestImporter, ublResponseImporter, requestResponseMerger, streamingImporter, streamingConfig, processingMetrics)
     }
 
     void cleanupSpec() {
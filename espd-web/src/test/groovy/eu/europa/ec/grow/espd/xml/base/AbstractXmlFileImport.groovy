@@ -48,4 +48,12 @@ abstract class AbstractXmlFileImport extends AbstractEspdXmlMarshalling {
         return xmlImporter.mergeEspdRequestAndResponse(IOUtils.toInputStream(espdRequestXml), IOUtils.toInputStream(espdResponseXml)).get()
     }
 
+    protected EspdDocument parseXmlMergeFiles(String requestFilePath, String... responseFilePaths) {
+        def espdRequestXml = new File("./src/test/groovy/eu/europa/ec/grow/espd/xml/samples/request/${requestFilePath}").getText('UTF-8')
+        def responseStreams = responseFilePaths.collect {
+            IOUtils.toInputStream(new File("./src/test/groovy/eu/europa/ec/grow/espd/xml/samples/response/${it}").getText('UTF-8'))
+        }
+        return xmlImporter.mergeEspdRequestAndResponses(IOUtils.toInputStream(espdRequestXml), responseStreams).get()
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,189 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+package eu.europa.ec.grow.espd.xml.common
+
+import eu.europa.ec.grow.espd.config.JaxbConfiguration
+import grow.names.specification.ubl.schema.xsd.espdrequest_1.ESPDRequestType
+import org.springframework.oxm.UnmarshallingFailureException
+import spock.lang.Shared
+import spock.lang.Specification
+
+import javax.xml.XMLConstants
+import javax.xml.bind.JAXBElement
+import javax.xml.bind.Marshaller
+import javax.xml.transform.stream.StreamResult
+import javax.xml.transform.stream.StreamSource
+import javax.xml.validation.SchemaFactory
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+class JaxbMarshallerPoolTest extends Specification {
+
+    private static final String SAMPLE =
+            "./src/test/groovy/eu/europa/ec/grow/espd/xml/samples/request/all_exclusion_criteria_selected.xml"
+
+    @Shared
+    def jaxbContext = new JaxbConfiguration().jaxb2Marshaller().jaxbContext
+
+    def pool = new JaxbMarshallerPool(jaxbContext, [(Marshaller.JAXB_FORMATTED_OUTPUT): true], 2)
+
+    def "should warm up the pool with one marshaller and one unmarshaller"() {
+        expect:
+        pool.created == 2
+        pool.idleMarshallers == 1
+        pool.idleUnmarshallers == 1
+    }
+
+    def "should reuse the unmarshallers"() {
+        when:
+        3.times { readSample() }
+
+        then:
+        pool.created == 2
+        pool.reused == 3
+        pool.idleUnmarshallers == 1
+    }
+
+    def "should unmarshal and marshal an ESPD Request"() {
+        when:
+        def element = readSample()
+        def out = new ByteArrayOutputStream()
+        pool.marshal(element, new StreamResult(out))
+
+        then:
+        element.value instanceof ESPDRequestType
+        element.value.criterion.size() > 0
+        new XmlSlurper().parseText(out.toString("UTF-8")).Criterion.size() == element.value.criterion.size()
+    }
+
+    def "should keep at most the maximum number of idle instances"() {
+        given:
+        def borrowed = (1..5).collect { pool.borrowMarshaller() }
+
+        when:
+        borrowed.each { pool.returnMarshaller(it) }
+
+        then:
+        pool.idleMarshallers == 2
+        pool.created == 2 + 4
+    }
+
+    def "should not give back an unmarshaller whose call failed"() {
+        given:
+        def xxe = '''<?xml version="1.0"?>
+<!DOCTYPE foo [<!ENTITY xxe SYSTEM "file:///etc/passwd">]>
+<espd-req:ESPDRequest xmlns:espd-req="urn:grow:names:specification:ubl:schema:xsd:ESPDRequest-1">&xxe;</espd-req:ESPDRequest>'''
+
+        when:
+        pool.unmarshal(new ByteArrayInputStream(xxe.getBytes("UTF-8")))
+
+        then:
+        thrown(UnmarshallingFailureException)
+        pool.idleUnmarshallers == 0
+    }
+
+    def "should hand out an unmarshaller to one thread at a time"() {
+        given:
+        def executor = Executors.newFixedThreadPool(4)
+        def tasks = (1..20).collect {
+            new Callable<Integer>() {
+                @Override
+                Integer call() throws Exception {
+                    return readSample().value.criterion.size()
+                }
+            }
+        }
+
+        when:
+        def sizes = executor.invokeAll(tasks)*.get()
+
+        then:
+        sizes.unique().size() == 1
+        pool.idleUnmarshallers <= 2
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def "should validate the unmarshalled documents against the schema"() {
+        given:
+        def anyContent = '<xs:sequence><xs:any processContents="skip" minOccurs="0" maxOccurs="unbounded"/></xs:sequence>' +
+                '<xs:anyAttribute processContents="skip"/>'
+        def validatingPool = new JaxbMarshallerPool(jaxbContext, [:], 2, schema(anyContent))
+
+        when:
+        def element = new File(SAMPLE).withInputStream {
+            validatingPool.unmarshal(validatingPool.inputFactory.createXMLStreamReader(it))
+        }
+
+        then:
+        validatingPool.validating
+        element.value instanceof ESPDRequestType
+        validatingPool.idleUnmarshallers == 1
+    }
+
+    def "should reject an invalid document with the location of its first error"() {
+        given:
+        def validatingPool = new JaxbMarshallerPool(jaxbContext, [:], 2, schema('<xs:sequence/>'))
+
+        when:
+        new File(SAMPLE).withInputStream {
+            validatingPool.unmarshal(validatingPool.inputFactory.createXMLStreamReader(it))
+        }
+
+        then:
+        def e = thrown(UnmarshallingFailureException)
+        e.message =~ /Invalid XML document at line \d+, column \d+/
+        validatingPool.idleUnmarshallers == 0
+    }
+
+    def "should not validate with the borrowed unmarshallers"() {
+        given:
+        def validatingPool = new JaxbMarshallerPool(jaxbContext, [:], 2, schema('<xs:sequence/>'))
+
+        when:
+        def unmarshaller = validatingPool.borrowUnmarshaller()
+        def element = new File(SAMPLE).withInputStream { unmarshaller.unmarshal(new StreamSource(it)) }
+
+        then:
+        unmarshaller.schema == null
+        element.value instanceof ESPDRequestType
+    }
+
+    /**
+     * A schema which only knows the root element of the ESPD Requests, with the given content.
+     */
+    private static schema(String requestContent) {
+        def xsd = """<xs:schema xmlns:xs="http://www.w3.org/2001/XMLSchema" elementFormDefault="qualified"
+        targetNamespace="urn:grow:names:specification:ubl:schema:xsd:ESPDRequest-1">
+    <xs:element name="ESPDRequest"><xs:complexType>${requestContent}</xs:complexType></xs:element>
+</xs:schema>"""
+        SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(new StreamSource(new StringReader(xsd)))
+    }
+
+    private JAXBElement<ESPDRequestType> readSample() {
+        new File(SAMPLE).withInputStream { (JAXBElement<ESPDRequestType>) pool.unmarshal(it) }
+    }
+
+}
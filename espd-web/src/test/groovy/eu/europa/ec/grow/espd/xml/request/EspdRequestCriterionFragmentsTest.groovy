@@ -0,0 +1,107 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+package eu.europa.ec.grow.espd.xml.request
+
+import eu.europa.ec.grow.espd.domain.*
+import eu.europa.ec.grow.espd.domain.enums.criteria.SelectionCriterion
+import eu.europa.ec.grow.espd.xml.base.AbstractEspdXmlMarshalling
+
+import javax.xml.transform.stream.StreamResult
+
+/**
+ * Checks that the ESPD Requests written out with the cached criterion fragments are the same as the ones marshalled
+ * as a whole by JAXB.
+ */
+class EspdRequestCriterionFragmentsTest extends AbstractEspdXmlMarshalling {
+
+    def "should write out the same request as JAXB"() {
+        expect:
+        normalize(exportWithFragments(espd)) == normalize(exportWithJaxb(espd))
+
+        where:
+        espd << [new EspdDocument(),
+                 new EspdDocument(selectionSatisfiesAll: new SatisfiesAllCriterion(exists: true)),
+                 new EspdDocument(selectionSatisfiesAll: new SatisfiesAllCriterion(exists: false),
+                         generalYearlyTurnover: new EconomicFinancialStandingCriterion(exists: true),
+                         numberManagerialStaff: new TechnicalProfessionalCriterion(exists: true,
+                                 unboundedGroups: [new DynamicRequirementGroup("number": 1)])),
+                 new EspdDocument(generalYearlyTurnover: new EconomicFinancialStandingCriterion(exists: true,
+                         unboundedGroups: [new DynamicRequirementGroup("year": 2014),
+                                           new DynamicRequirementGroup("year": 2015),
+                                           new DynamicRequirementGroup("year": 2016)])),
+                 new EspdDocument(fileRefByCA: "<ccv:Criterion>&hodor</ccv:Criterion>")]
+    }
+
+    def "should copy the criteria from the cached fragments on the next exports"() {
+        given:
+        def espd = new EspdDocument()
+        exportWithFragments(espd)
+        def size = requestCriterionFragments.size
+        def hits = requestCriterionFragments.hits
+
+        when:
+        exportWithFragments(espd)
+
+        then:
+        requestCriterionFragments.size == size
+        requestCriterionFragments.hits > hits
+    }
+
+    def "should keep one fragment per number of unbounded groups"() {
+        given:
+        def xml = exportWithFragments(new EspdDocument(generalYearlyTurnover: new EconomicFinancialStandingCriterion(
+                exists: true, unboundedGroups: [new DynamicRequirementGroup(), new DynamicRequirementGroup()])))
+
+        when:
+        def request = new XmlSlurper().parseText(xml)
+        def criterion = request.Criterion.find {
+            it.ID.text() == SelectionCriterion.GENERAL_YEARLY_TURNOVER.uuid
+        }
+
+        then:
+        criterion.RequirementGroup.size() == 2
+    }
+
+    private static String exportWithFragments(EspdDocument espd) {
+        new String(xmlExporter.generateEspdRequest(espd).toByteArray(), "UTF-8")
+    }
+
+    private static String exportWithJaxb(EspdDocument espd) {
+        def out = new ByteArrayOutputStream()
+        def requestType = requestTypeTransformer.buildRequestType(espd)
+        jaxb2Marshaller.marshal(new grow.names.specification.ubl.schema.xsd.espdrequest_1.ObjectFactory()
+                .createESPDRequest(requestType), new StreamResult(out))
+        new String(out.toByteArray(), "UTF-8")
+    }
+
+    /**
+     * The document id and the issue date and time differ on every export.
+     */
+    private static String normalize(String xml) {
+        xml.replaceFirst(/<cbc:ID [^>]*>[^<]*<\/cbc:ID>/, "<cbc:ID/>")
+                .replaceFirst(/<cbc:IssueDate>[^<]*<\/cbc:IssueDate>/, "<cbc:IssueDate/>")
+                .replaceFirst(/<cbc:IssueTime>[^<]*<\/cbc:IssueTime>/, "<cbc:IssueTime/>")
+    }
+
+}
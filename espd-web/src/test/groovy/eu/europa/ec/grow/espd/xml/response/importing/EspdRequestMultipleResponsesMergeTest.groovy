@@ -0,0 +1,70 @@
+/*
+ *
+ * Copyright 2016 EUROPEAN COMMISSION
+ *
+ * Licensed under the EUPL, Version 1.1 or – as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ *
+ * You may not use this work except in compliance with the Licence.
+ *
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/community/eupl/og_page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ *
+ */
+package eu.europa.ec.grow.espd.xml.response.importing
+
+import eu.europa.ec.grow.espd.domain.EspdDocument
+import eu.europa.ec.grow.espd.xml.base.AbstractXmlFileImport
+import spock.lang.Shared
+
+class EspdRequestMultipleResponsesMergeTest extends AbstractXmlFileImport {
+
+    @Shared
+    static EspdDocument espd
+
+    void setupSpec() {
+        espd = parseXmlMergeFiles("../response/merging/request_to_merge.xml",
+                "exclusion/participation_criminal_organisation_import.xml", "merging/response_to_merge.xml")
+    }
+
+    void cleanupSpec() {
+        espd = null
+    }
+
+    def "a criterion answered in several responses should be taken from the first one"() {
+        expect:
+        espd.criminalConvictions.exists == true
+        espd.criminalConvictions.answer == true
+        espd.criminalConvictions.reason == "Reason here"
+        espd.criminalConvictions.convicted == "Hodor was convicted"
+    }
+
+    def "the criteria missing from the first response should be taken from the next ones"() {
+        expect:
+        espd.paymentTaxes.exists == true
+        espd.paymentTaxes.answer == false
+        espd.enrolmentProfessionalRegister.exists == true
+        espd.enrolmentProfessionalRegister.answer == true
+
+        and: "economic operator criteria"
+        espd.meetsObjective.exists == true
+        espd.meetsObjective.description1 == "please describe"
+    }
+
+    def "the criteria which were not required in the request should not be present"() {
+        expect:
+        espd.corruption == null
+        espd.generalYearlyTurnover == null
+    }
+
+}